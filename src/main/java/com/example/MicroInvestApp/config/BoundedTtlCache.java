@@ -0,0 +1,358 @@
+package com.example.MicroInvestApp.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Size-bounded LRU cache with per-cache TTL and stale-while-revalidate.
+ * Entries past the refresh point are still served while a single background reload runs on
+ * the supplied executor (only for sync=true {@code @Cacheable} reads, which pass a loader).
+ * Entries past the TTL, or written on an earlier trading day when day-bounded, are never served.
+ * A reload never overwrites a put or evict made while it was running.
+ */
+public class BoundedTtlCache extends AbstractValueAdaptingCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(BoundedTtlCache.class);
+
+    private final String name;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final long refreshAfterMillis;
+    private final boolean expireAtDayBoundary;
+    private final Executor refreshExecutor;
+    private final Clock clock;
+
+    // Access-ordered map, guarded by "store" itself
+    private final LinkedHashMap<Object, Entry> store;
+    private final ConcurrentMap<Object, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+
+    // Statistics
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong staleHits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+    private final AtomicLong loads = new AtomicLong(0);
+    private final AtomicLong refreshes = new AtomicLong(0);
+    private final AtomicLong evictions = new AtomicLong(0);
+    private final AtomicLong expirations = new AtomicLong(0);
+    private final AtomicLong invalidations = new AtomicLong(0);
+
+    public BoundedTtlCache(String name, int maxEntries, Duration ttl, double refreshAfterFraction,
+                           boolean expireAtDayBoundary, ZoneId marketZone, Executor refreshExecutor) {
+        this(name, maxEntries, ttl, refreshAfterFraction, expireAtDayBoundary, refreshExecutor,
+                Clock.system(marketZone));
+    }
+
+    BoundedTtlCache(String name, int maxEntries, Duration ttl, double refreshAfterFraction,
+                    boolean expireAtDayBoundary, Executor refreshExecutor, Clock clock) {
+        super(true);
+        this.name = name;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlMillis = ttl.toMillis();
+        this.refreshAfterMillis = (long) (ttlMillis * Math.min(1.0, Math.max(0.0, refreshAfterFraction)));
+        this.expireAtDayBoundary = expireAtDayBoundary;
+        this.refreshExecutor = refreshExecutor;
+        this.clock = clock;
+        this.store = new LinkedHashMap<>(Math.min(this.maxEntries, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+                if (size() > BoundedTtlCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return store;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Entry entry = liveEntry(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Entry entry = liveEntry(key);
+
+        if (entry != null) {
+            if (clock.millis() - entry.writtenAtMillis >= refreshAfterMillis) {
+                staleHits.incrementAndGet();
+                scheduleRefresh(key, entry, valueLoader);
+            } else {
+                hits.incrementAndGet();
+            }
+            return (T) fromStoreValue(entry.value);
+        }
+
+        misses.incrementAndGet();
+        return (T) fromStoreValue(loadSynchronously(key, valueLoader));
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Entry entry = new Entry(toStoreValue(value), clock.millis(), LocalDate.now(clock));
+        synchronized (store) {
+            store.put(key, entry);
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        Entry existing = liveEntry(key);
+        if (existing != null) {
+            return toValueWrapper(existing.value);
+        }
+        put(key, value);
+        return null;
+    }
+
+    @Override
+    public void evict(Object key) {
+        Entry removed;
+        synchronized (store) {
+            removed = store.remove(key);
+        }
+        if (removed != null) {
+            invalidations.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (store) {
+            invalidations.addAndGet(store.size());
+            store.clear();
+        }
+    }
+
+    /**
+     * Remove every entry whose key matches, e.g. all dates cached for one symbol
+     */
+    public int evictMatching(Predicate<Object> keyPredicate) {
+        int removed = 0;
+        synchronized (store) {
+            var iterator = store.keySet().iterator();
+            while (iterator.hasNext()) {
+                if (keyPredicate.test(iterator.next())) {
+                    iterator.remove();
+                    removed++;
+                }
+            }
+        }
+        invalidations.addAndGet(removed);
+        return removed;
+    }
+
+    /**
+     * Drop expired entries so idle keys do not hold memory until they are displaced
+     */
+    public int purgeExpired() {
+        int removed = 0;
+        synchronized (store) {
+            var iterator = store.values().iterator();
+            while (iterator.hasNext()) {
+                if (isExpired(iterator.next())) {
+                    iterator.remove();
+                    removed++;
+                }
+            }
+        }
+        expirations.addAndGet(removed);
+        return removed;
+    }
+
+    public CacheStats getStats() {
+        int size;
+        synchronized (store) {
+            size = store.size();
+        }
+        return new CacheStats(name, size, maxEntries, ttlMillis / 1000, refreshAfterMillis / 1000,
+                hits.get(), staleHits.get(), misses.get(), loads.get(), refreshes.get(),
+                evictions.get(), expirations.get(), invalidations.get());
+    }
+
+    private Entry liveEntry(Object key) {
+        synchronized (store) {
+            Entry entry = store.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (isExpired(entry)) {
+                store.remove(key);
+                expirations.incrementAndGet();
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    private boolean isExpired(Entry entry) {
+        if (clock.millis() - entry.writtenAtMillis >= ttlMillis) {
+            return true;
+        }
+        return expireAtDayBoundary && entry.writtenOn.isBefore(LocalDate.now(clock));
+    }
+
+    private Object loadSynchronously(Object key, Callable<?> valueLoader) {
+        CompletableFuture<Object> ownFuture = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = loading.putIfAbsent(key, ownFuture);
+        if (inFlight != null) {
+            // Another thread is already loading this key - wait for its result
+            return inFlight.join();
+        }
+
+        try {
+            loads.incrementAndGet();
+            Object storeValue = toStoreValue(valueLoader.call());
+            storeLoaded(key, null, storeValue);
+            ownFuture.complete(storeValue);
+            return storeValue;
+        } catch (Exception e) {
+            ownFuture.completeExceptionally(e);
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } finally {
+            loading.remove(key, ownFuture);
+        }
+    }
+
+    private void scheduleRefresh(Object key, Entry entry, Callable<?> valueLoader) {
+        if (!entry.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    refreshes.incrementAndGet();
+                    if (!storeLoaded(key, entry, toStoreValue(valueLoader.call()))) {
+                        logger.debug("Dropped background refresh for cache {} key {}: written meanwhile", name, key);
+                    }
+                } catch (Exception e) {
+                    // Keep serving the stale value until it expires
+                    logger.warn("Background refresh failed for cache {} key {}: {}", name, key, e.getMessage());
+                    entry.refreshing.set(false);
+                }
+            });
+        } catch (Exception e) {
+            logger.debug("Could not schedule refresh for cache {} key {}: {}", name, key, e.getMessage());
+            entry.refreshing.set(false);
+        }
+    }
+
+    /**
+     * Store a loaded value only if the entry it was loaded to replace (null for a miss) is still current.
+     * A put or evict that landed while the loader ran is newer than whatever the loader read, so it wins.
+     */
+    private boolean storeLoaded(Object key, Entry replaced, Object storeValue) {
+        Entry entry = new Entry(storeValue, clock.millis(), LocalDate.now(clock));
+        synchronized (store) {
+            if (store.get(key) != replaced) {
+                return false;
+            }
+            store.put(key, entry);
+            return true;
+        }
+    }
+
+    private static class Entry {
+        private final Object value;
+        private final long writtenAtMillis;
+        private final LocalDate writtenOn;
+        private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+        Entry(Object value, long writtenAtMillis, LocalDate writtenOn) {
+            this.value = value;
+            this.writtenAtMillis = writtenAtMillis;
+            this.writtenOn = writtenOn;
+        }
+    }
+
+    /**
+     * Hit, miss and eviction counters for one cache
+     */
+    public static class CacheStats {
+        private final String name;
+        private final int size;
+        private final int maxEntries;
+        private final long ttlSeconds;
+        private final long refreshAfterSeconds;
+        private final long hits;
+        private final long staleHits;
+        private final long misses;
+        private final long loads;
+        private final long refreshes;
+        private final long evictions;
+        private final long expirations;
+        private final long invalidations;
+
+        public CacheStats(String name, int size, int maxEntries, long ttlSeconds, long refreshAfterSeconds,
+                          long hits, long staleHits, long misses, long loads, long refreshes,
+                          long evictions, long expirations, long invalidations) {
+            this.name = name;
+            this.size = size;
+            this.maxEntries = maxEntries;
+            this.ttlSeconds = ttlSeconds;
+            this.refreshAfterSeconds = refreshAfterSeconds;
+            this.hits = hits;
+            this.staleHits = staleHits;
+            this.misses = misses;
+            this.loads = loads;
+            this.refreshes = refreshes;
+            this.evictions = evictions;
+            this.expirations = expirations;
+            this.invalidations = invalidations;
+        }
+
+        // Getters
+        public String getName() { return name; }
+        public int getSize() { return size; }
+        public int getMaxEntries() { return maxEntries; }
+        public long getTtlSeconds() { return ttlSeconds; }
+        public long getRefreshAfterSeconds() { return refreshAfterSeconds; }
+        public long getHits() { return hits; }
+        public long getStaleHits() { return staleHits; }
+        public long getMisses() { return misses; }
+        public long getLoads() { return loads; }
+        public long getRefreshes() { return refreshes; }
+        public long getEvictions() { return evictions; }
+        public long getExpirations() { return expirations; }
+        public long getInvalidations() { return invalidations; }
+
+        public double getHitRate() {
+            long total = hits + staleHits + misses;
+            return total > 0 ? (double) (hits + staleHits) / total * 100 : 0.0;
+        }
+    }
+}
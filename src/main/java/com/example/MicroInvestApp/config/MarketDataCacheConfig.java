@@ -0,0 +1,88 @@
+package com.example.MicroInvestApp.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Cache manager for market data reads.
+ * Each cache is size-bounded with its own TTL; "latest" entries also expire at the market-day boundary.
+ */
+@Configuration
+public class MarketDataCacheConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(MarketDataCacheConfig.class);
+
+    public static final String MARKET_DATA_CACHE = "marketData";
+    public static final String LATEST_MARKET_DATA_CACHE = "latestMarketData";
+
+    private static final ZoneId MARKET_ZONE = ZoneId.of("America/New_York");
+
+    @Value("${market-data.cache.enable-caching:true}")
+    private boolean cachingEnabled;
+
+    @Value("${market-data.cache.quote-cache-hours:1}")
+    private long quoteCacheHours;
+
+    @Value("${market-data.cache.historical-cache-hours:24}")
+    private long historicalCacheHours;
+
+    @Value("${market-data.cache.quote-max-entries:5000}")
+    private int quoteMaxEntries;
+
+    @Value("${market-data.cache.historical-max-entries:20000}")
+    private int historicalMaxEntries;
+
+    @Value("${market-data.cache.refresh-after-fraction:0.5}")
+    private double refreshAfterFraction;
+
+    private List<BoundedTtlCache> caches = List.of();
+
+    @Bean
+    public CacheManager cacheManager(@Qualifier("marketDataTaskExecutor") Executor refreshExecutor) {
+        if (!cachingEnabled) {
+            logger.info("Market data caching disabled");
+            return new NoOpCacheManager();
+        }
+
+        caches = List.of(
+                new BoundedTtlCache(MARKET_DATA_CACHE, historicalMaxEntries,
+                        Duration.ofHours(historicalCacheHours), refreshAfterFraction,
+                        false, MARKET_ZONE, refreshExecutor),
+                new BoundedTtlCache(LATEST_MARKET_DATA_CACHE, quoteMaxEntries,
+                        Duration.ofHours(quoteCacheHours), refreshAfterFraction,
+                        true, MARKET_ZONE, refreshExecutor)
+        );
+
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(caches);
+        logger.info("Market data caches configured - quote TTL {}h ({} entries), historical TTL {}h ({} entries)",
+                quoteCacheHours, quoteMaxEntries, historicalCacheHours, historicalMaxEntries);
+        return cacheManager;
+    }
+
+    /**
+     * Periodically drop expired entries so idle symbols do not hold memory
+     */
+    @Scheduled(fixedDelayString = "${market-data.cache.purge-interval-ms:300000}")
+    public void purgeExpiredEntries() {
+        for (BoundedTtlCache cache : caches) {
+            int removed = cache.purgeExpired();
+            if (removed > 0) {
+                logger.debug("Purged {} expired entries from cache {}", removed, cache.getName());
+            }
+        }
+    }
+}
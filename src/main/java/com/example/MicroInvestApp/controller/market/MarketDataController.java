@@ -1,22 +1,46 @@
 package com.example.MicroInvestApp.controller.market;
 
+import com.example.MicroInvestApp.config.BoundedTtlCache;
 import com.example.MicroInvestApp.scheduler.MarketDataScheduler;
+import com.example.MicroInvestApp.service.cluster.ClusterCoordinator;
 import com.example.MicroInvestApp.service.market.MarketDataService;
 import com.example.MicroInvestApp.service.market.MarketDataMonitor;
 import com.example.MicroInvestApp.service.market.MarketDataMonitor.MarketDataHealthReport;
 import com.example.MicroInvestApp.service.market.MarketDataMonitor.DataCoverageReport;
 import com.example.MicroInvestApp.service.market.MarketDataMonitor.PriceAlertInfo;
+import com.example.MicroInvestApp.service.market.FinnhubClientService;
+import com.example.MicroInvestApp.service.market.FinnhubRateGovernor;
+import com.example.MicroInvestApp.service.market.HistoricalBackfillService;
+import com.example.MicroInvestApp.service.market.MarketCalendarService;
+import com.example.MicroInvestApp.service.market.IntradayBarBuilder;
+import com.example.MicroInvestApp.service.market.MarketDataArchiveService;
+import com.example.MicroInvestApp.service.market.MarketDataPartitionManager;
+import com.example.MicroInvestApp.service.market.MarketDataQualityAnalyzer;
+import com.example.MicroInvestApp.service.market.MovingAverageEngine;
+import com.example.MicroInvestApp.service.market.PriceHistoryStore;
+import com.example.MicroInvestApp.service.market.PriceRollupService;
+import com.example.MicroInvestApp.service.market.QuoteIngestionPipeline;
+import com.example.MicroInvestApp.service.market.RefreshTierPlanner;
+import com.example.MicroInvestApp.service.market.RequestCoalescer;
+import com.example.MicroInvestApp.service.market.SymbolValidationService;
+import com.example.MicroInvestApp.service.market.TechnicalIndicatorEngine;
+import com.example.MicroInvestApp.service.market.TradeStreamService;
+import com.example.MicroInvestApp.domain.enums.Timeframe;
 import com.example.MicroInvestApp.domain.market.MarketData;
 import com.example.MicroInvestApp.domain.market.SecurityStock;
 import com.example.MicroInvestApp.impl.market.MarketDataServiceImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -38,16 +62,70 @@ public class MarketDataController {
     // Made MarketDataMonitor and MarketDataScheduler optional since they might not exist
     private final MarketDataMonitor marketDataMonitor;
     private final MarketDataScheduler marketDataScheduler;
+    private final QuoteIngestionPipeline quoteIngestionPipeline;
+    private final FinnhubRateGovernor rateGovernor;
+    private final FinnhubClientService finnhubClientService;
+    private final CacheManager cacheManager;
+    private final TradeStreamService tradeStreamService;
+    private final RefreshTierPlanner refreshTierPlanner;
+    private final HistoricalBackfillService historicalBackfillService;
+    private final MarketCalendarService marketCalendarService;
+    private final SymbolValidationService symbolValidationService;
+    private final ClusterCoordinator clusterCoordinator;
+    private final PriceHistoryStore priceHistoryStore;
+    private final MovingAverageEngine movingAverageEngine;
+    private final TechnicalIndicatorEngine technicalIndicatorEngine;
+    private final PriceRollupService priceRollupService;
+    private final MarketDataPartitionManager partitionManager;
+    private final MarketDataArchiveService marketDataArchiveService;
+    private final MarketDataQualityAnalyzer qualityAnalyzer;
+    private final IntradayBarBuilder intradayBarBuilder;
 
     @Autowired
     public MarketDataController(MarketDataService marketDataService,
                                 MarketDataServiceImpl marketDataServiceImpl,
                                 @Autowired(required = false) MarketDataMonitor marketDataMonitor,
-                                @Autowired(required = false) MarketDataScheduler marketDataScheduler) {
+                                @Autowired(required = false) MarketDataScheduler marketDataScheduler,
+                                QuoteIngestionPipeline quoteIngestionPipeline,
+                                FinnhubRateGovernor rateGovernor,
+                                FinnhubClientService finnhubClientService,
+                                CacheManager cacheManager,
+                                TradeStreamService tradeStreamService,
+                                RefreshTierPlanner refreshTierPlanner,
+                                HistoricalBackfillService historicalBackfillService,
+                                MarketCalendarService marketCalendarService,
+                                SymbolValidationService symbolValidationService,
+                                ClusterCoordinator clusterCoordinator,
+                                PriceHistoryStore priceHistoryStore,
+                                MovingAverageEngine movingAverageEngine,
+                                TechnicalIndicatorEngine technicalIndicatorEngine,
+                                PriceRollupService priceRollupService,
+                                MarketDataPartitionManager partitionManager,
+                                MarketDataArchiveService marketDataArchiveService,
+                                MarketDataQualityAnalyzer qualityAnalyzer,
+                                IntradayBarBuilder intradayBarBuilder) {
         this.marketDataService = marketDataService;
         this.marketDataServiceImpl = marketDataServiceImpl;
         this.marketDataMonitor = marketDataMonitor;
         this.marketDataScheduler = marketDataScheduler;
+        this.quoteIngestionPipeline = quoteIngestionPipeline;
+        this.rateGovernor = rateGovernor;
+        this.finnhubClientService = finnhubClientService;
+        this.cacheManager = cacheManager;
+        this.tradeStreamService = tradeStreamService;
+        this.refreshTierPlanner = refreshTierPlanner;
+        this.historicalBackfillService = historicalBackfillService;
+        this.marketCalendarService = marketCalendarService;
+        this.symbolValidationService = symbolValidationService;
+        this.clusterCoordinator = clusterCoordinator;
+        this.priceHistoryStore = priceHistoryStore;
+        this.movingAverageEngine = movingAverageEngine;
+        this.technicalIndicatorEngine = technicalIndicatorEngine;
+        this.priceRollupService = priceRollupService;
+        this.partitionManager = partitionManager;
+        this.marketDataArchiveService = marketDataArchiveService;
+        this.qualityAnalyzer = qualityAnalyzer;
+        this.intradayBarBuilder = intradayBarBuilder;
     }
 
     // Manual operations endpoints
@@ -253,28 +331,351 @@ public class MarketDataController {
         }
     }
 
+    /**
+     * Plan a universe-wide historical backfill for any date range and run it in the background
+     */
+    @PostMapping("/backfill")
+    public ResponseEntity<?> startBackfill(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            logger.info("Historical backfill requested from {} to {}", from, to);
+
+            String jobId = historicalBackfillService.planBackfill(from, to);
+            historicalBackfillService.runPendingChunksAsync();
+
+            return ResponseEntity.accepted().body(historicalBackfillService.getJobSummary(jobId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Invalid backfill range",
+                    "details", e.getMessage()
+            ));
+        } catch (Exception e) {
+            logger.error("Failed to start historical backfill: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().body(Map.of(
+                    "error", "Failed to start historical backfill",
+                    "details", e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * Get checkpointed progress of a backfill job (the latest one if no job id is given)
+     */
+    @GetMapping("/backfill/status")
+    public ResponseEntity<?> getBackfillStatus(@RequestParam(required = false) String jobId) {
+        HistoricalBackfillService.BackfillJobSummary summary = jobId != null
+                ? historicalBackfillService.getJobSummary(jobId)
+                : historicalBackfillService.getLatestJobSummary();
+        if (summary == null) {
+            return ResponseEntity.ok(Map.of(
+                    "running", historicalBackfillService.isRunning(),
+                    "message", "No backfill job has been planned yet"
+            ));
+        }
+        return ResponseEntity.ok(summary);
+    }
+
+    /**
+     * Get the outcome of the last pre-market symbol validation run
+     */
+    @GetMapping("/validation/stats")
+    public ResponseEntity<?> getValidationStats() {
+        SymbolValidationService.ValidationRunStats stats = symbolValidationService.getLastRunStats();
+        if (stats == null) {
+            return ResponseEntity.ok(Map.of(
+                    "running", symbolValidationService.isRunning(),
+                    "message", "No validation run has completed yet"
+            ));
+        }
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * Get throughput and latency statistics for the last reactive ingestion run
+     */
+    @GetMapping("/ingestion/stats")
+    public ResponseEntity<?> getIngestionStats() {
+        QuoteIngestionPipeline.IngestionRunStats stats = quoteIngestionPipeline.getLastRunStats();
+        if (stats == null) {
+            return ResponseEntity.ok(Map.of(
+                    "running", quoteIngestionPipeline.isRunning(),
+                    "message", "No ingestion run has completed yet"
+            ));
+        }
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * Get current Finnhub rate governor state (rate, queued requests per lane, 429s)
+     */
+    @GetMapping("/rate-limit/stats")
+    public ResponseEntity<FinnhubRateGovernor.GovernorStats> getRateLimitStats() {
+        return ResponseEntity.ok(rateGovernor.getStats());
+    }
+
+    /**
+     * Get how many Finnhub calls were answered by an in-flight or fresh shared request
+     */
+    @GetMapping("/coalescing/stats")
+    public ResponseEntity<List<RequestCoalescer.CoalescingStats>> getCoalescingStats() {
+        return ResponseEntity.ok(finnhubClientService.getCoalescingStats());
+    }
+
+    /**
+     * Get hit/miss/eviction statistics for the market data read caches
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<List<BoundedTtlCache.CacheStats>> getCacheStats() {
+        List<BoundedTtlCache.CacheStats> stats = cacheManager.getCacheNames().stream()
+                .map(cacheManager::getCache)
+                .filter(BoundedTtlCache.class::isInstance)
+                .map(cache -> ((BoundedTtlCache) cache).getStats())
+                .toList();
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * Get trade stream connection state and coalescing write buffer counters
+     */
+    @GetMapping("/stream/stats")
+    public ResponseEntity<TradeStreamService.StreamStats> getStreamStats() {
+        return ResponseEntity.ok(tradeStreamService.getStats());
+    }
+
+    /**
+     * Get the hot/warm/cold refresh plan and the quote freshness each tier is achieving
+     */
+    @GetMapping("/refresh/plan")
+    public ResponseEntity<RefreshTierPlanner.PlanReport> getRefreshPlan() {
+        return ResponseEntity.ok(refreshTierPlanner.getReport());
+    }
+
+    /**
+     * Get residency and hit counters for the in-memory price history store
+     */
+    @GetMapping("/history-store/stats")
+    public ResponseEntity<PriceHistoryStore.StoreStats> getHistoryStoreStats() {
+        return ResponseEntity.ok(priceHistoryStore.getStats());
+    }
+
+    /**
+     * Recompute the stored 50/200-day moving averages over all existing price history in the background
+     */
+    @PostMapping("/moving-averages/backfill")
+    public ResponseEntity<?> backfillMovingAverages() {
+        if (movingAverageEngine.isBackfillRunning()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "error", "Moving average backfill already running"
+            ));
+        }
+        movingAverageEngine.backfillAsync();
+        return ResponseEntity.accepted().body(Map.of(
+                "message", "Moving average backfill started"
+        ));
+    }
+
+    /**
+     * Recompute all weekly/monthly/quarterly/yearly rollups from daily history in the background
+     */
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<?> rebuildRollups() {
+        if (priceRollupService.isRebuilding()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "error", "Rollup rebuild already running"
+            ));
+        }
+        priceRollupService.rebuildAllAsync();
+        return ResponseEntity.accepted().body(Map.of(
+                "message", "Rollup rebuild started"
+        ));
+    }
+
+    /**
+     * Get a symbol's technical indicators from its latest calculation date
+     */
+    @GetMapping("/indicators/{symbol}")
+    public ResponseEntity<?> getLatestIndicators(@PathVariable String symbol,
+                                                 @RequestParam(defaultValue = "DAILY") Timeframe timeframe) {
+        TechnicalIndicatorEngine.LatestIndicators indicators =
+                technicalIndicatorEngine.getLatestIndicators(symbol, timeframe);
+        if (indicators == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(indicators);
+    }
+
+    /**
+     * Advance daily technical indicators for the whole universe in the background
+     */
+    @PostMapping("/indicators/recalculate")
+    public ResponseEntity<?> recalculateIndicators() {
+        if (technicalIndicatorEngine.isRunning()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "error", "Indicator run already in progress"
+            ));
+        }
+        technicalIndicatorEngine.runDailyAsync();
+        return ResponseEntity.accepted().body(Map.of(
+                "message", "Indicator run started"
+        ));
+    }
+
+    /**
+     * Get the outcome of the last indicator run, including the per-bar update cost
+     */
+    @GetMapping("/indicators/stats")
+    public ResponseEntity<?> getIndicatorStats() {
+        TechnicalIndicatorEngine.IndicatorRunStats stats = technicalIndicatorEngine.getLastRunStats();
+        if (stats == null) {
+            return ResponseEntity.ok(Map.of(
+                    "running", technicalIndicatorEngine.isRunning(),
+                    "message", "No indicator run has completed yet"
+            ));
+        }
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * Get the current session's 1-minute or 5-minute bars for a symbol, built from every observed price.
+     * Bars are held by the node that owns the symbol; ownerNode and servedBy tell a caller whether this
+     * replica's answer is authoritative.
+     */
+    @GetMapping("/intraday/{symbol}")
+    public ResponseEntity<?> getIntradayBars(@PathVariable String symbol,
+                                             @RequestParam(defaultValue = "5") int interval) {
+        if (interval != 1 && interval != 5) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Interval must be 1 or 5 minutes"
+            ));
+        }
+        String upperSymbol = symbol.toUpperCase();
+        List<IntradayBarBuilder.IntradayBar> bars = intradayBarBuilder.getBars(upperSymbol, interval);
+        Map<String, Object> response = new HashMap<>();
+        response.put("symbol", upperSymbol);
+        response.put("intervalMinutes", interval);
+        response.put("sessionDate", intradayBarBuilder.getSessionDate());
+        response.put("ownerNode", clusterCoordinator.ownerOf(upperSymbol));
+        response.put("servedBy", clusterCoordinator.getNodeId());
+        response.put("recordCount", bars.size());
+        response.put("data", bars);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Get intraday bar residency and update counters
+     */
+    @GetMapping("/intraday/stats")
+    public ResponseEntity<?> getIntradayStats() {
+        return ResponseEntity.ok(intradayBarBuilder.getStats());
+    }
+
+    /**
+     * Get the monthly partitions of the daily market tables
+     */
+    @GetMapping("/partitions")
+    public ResponseEntity<?> getPartitions() {
+        return ResponseEntity.ok(partitionManager.getPartitionMonths());
+    }
+
+    /**
+     * Convert still-plain daily tables to monthly partitions; a one-off migration that locks each table while
+     * its rows are copied, so run it in a quiet window
+     */
+    @PostMapping("/partitions/convert")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> convertPartitions() {
+        if (!partitionManager.isActive()) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Partitioning is disabled or not supported by this database"
+            ));
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("convertedRows", partitionManager.convertTables());
+        response.put("partitions", partitionManager.getPartitionMonths());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Gap and quality report for the whole universe; defaults to the recent sessions checked every morning
+     */
+    @GetMapping("/quality")
+    public ResponseEntity<?> getDataQuality(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (from == null || to == null) {
+            return ResponseEntity.ok(qualityAnalyzer.analyzeRecent());
+        }
+        if (from.isAfter(to)) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "From date cannot be after to date"
+            ));
+        }
+        return ResponseEntity.ok(qualityAnalyzer.analyze(from, to));
+    }
+
+    /**
+     * Export closed months that have left the online window to the on-disk archive in the background
+     */
+    @PostMapping("/archive/run")
+    public ResponseEntity<?> runArchive() {
+        if (!marketDataArchiveService.isEnabled()) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Market data archive is disabled"
+            ));
+        }
+        if (marketDataArchiveService.isRunning()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "error", "Archiving already running"
+            ));
+        }
+        marketDataArchiveService.archiveAsync();
+        return ResponseEntity.accepted().body(Map.of(
+                "message", "Archiving started"
+        ));
+    }
+
+    /**
+     * Get archived months, mapped files and the outcome of the last archiving run
+     */
+    @GetMapping("/archive/stats")
+    public ResponseEntity<?> getArchiveStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("archive", marketDataArchiveService.getArchiveStats());
+        response.put("lastRun", marketDataArchiveService.getLastRunStats());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Get this node's view of scheduler leadership and symbol sharding
+     */
+    @GetMapping("/cluster/status")
+    public ResponseEntity<ClusterCoordinator.ClusterStatus> getClusterStatus() {
+        return ResponseEntity.ok(clusterCoordinator.getStatus());
+    }
+
     /**
      * FIXED: Get market status (open/closed)
      */
     @GetMapping("/market-status")
     public ResponseEntity<?> getMarketStatus() {
         try {
-            java.time.ZonedDateTime nowEST = java.time.ZonedDateTime.now(java.time.ZoneId.of("America/New_York"));
+            java.time.ZonedDateTime nowEST = java.time.ZonedDateTime.now(marketCalendarService.getZone());
             java.time.LocalDate today = nowEST.toLocalDate();
-            java.time.LocalTime currentTime = nowEST.toLocalTime();
 
-            boolean isMarketDay = isMarketDay(today);
-            boolean isMarketHours = isMarketDay &&
-                    !currentTime.isBefore(java.time.LocalTime.of(9, 30)) &&
-                    !currentTime.isAfter(java.time.LocalTime.of(16, 0));
+            boolean isMarketDay = marketCalendarService.isTradingDay(today);
+            boolean isMarketHours = marketCalendarService.isMarketOpen(nowEST);
+
+            // On a closed day report the hours of the next session
+            java.time.LocalDate sessionDay = isMarketDay ? today : marketCalendarService.nextTradingDay(today);
 
             return ResponseEntity.ok(Map.of(
                     "currentTimeEST", nowEST.toString(),
                     "isMarketDay", isMarketDay,
                     "isMarketHours", isMarketHours,
-                    "marketOpen", java.time.LocalTime.of(9, 30).toString(),
-                    "marketClose", java.time.LocalTime.of(16, 0).toString(),
-                    "nextMarketDay", getNextMarketDay(today).toString()
+                    "marketOpen", marketCalendarService.openTime(sessionDay).toString(),
+                    "marketClose", marketCalendarService.closeTime(sessionDay).toString(),
+                    "nextMarketDay", marketCalendarService.nextTradingDay(today).toString()
             ));
         } catch (Exception e) {
             logger.error("Error getting market status: {}", e.getMessage(), e);
@@ -330,13 +731,15 @@ public class MarketDataController {
     }
 
     /**
-     * FIXED: Get historical prices for a symbol within date range
+     * FIXED: Get historical prices for a symbol within date range.
+     * Ranges with more daily bars than maxPoints are served from the finest rollup timeframe that fits.
      */
     @GetMapping("/{symbol}/history")
     public ResponseEntity<?> getHistoricalPrices(
             @PathVariable String symbol,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer maxPoints) {
 
         try {
             if (symbol == null || symbol.trim().isEmpty()) {
@@ -352,19 +755,25 @@ public class MarketDataController {
                 ));
             }
 
-            if (from.isBefore(LocalDate.now().minusYears(5))) {
+            // Archived months extend how far back charts can go
+            int maxYears = marketDataArchiveService.isEnabled() ? marketDataArchiveService.getMaxHistoryYears() : 5;
+            if (from.isBefore(LocalDate.now().minusYears(maxYears))) {
                 return ResponseEntity.badRequest().body(Map.of(
-                        "error", "Date range too far in the past (max 5 years)"
+                        "error", "Date range too far in the past (max " + maxYears + " years)"
                 ));
             }
 
             String upperSymbol = symbol.toUpperCase();
-            var history = marketDataService.getHistoricalPrices(upperSymbol, from, to);
+            Timeframe timeframe = priceRollupService.selectTimeframe(from, to, maxPoints);
+            var history = timeframe == Timeframe.DAILY
+                    ? marketDataService.getHistoricalPrices(upperSymbol, from, to)
+                    : priceRollupService.getRollupBars(upperSymbol, timeframe, from, to);
 
             return ResponseEntity.ok(Map.of(
                     "symbol", upperSymbol,
                     "fromDate", from,
                     "toDate", to,
+                    "timeframe", timeframe.name(),
                     "recordCount", history.size(),
                     "data", history
             ));
@@ -411,21 +820,6 @@ public class MarketDataController {
         }
     }
 
-    // Helper methods
-
-    private boolean isMarketDay(java.time.LocalDate date) {
-        java.time.DayOfWeek dayOfWeek = date.getDayOfWeek();
-        return dayOfWeek != java.time.DayOfWeek.SATURDAY && dayOfWeek != java.time.DayOfWeek.SUNDAY;
-    }
-
-    private java.time.LocalDate getNextMarketDay(java.time.LocalDate fromDate) {
-        java.time.LocalDate date = fromDate.plusDays(1);
-        while (!isMarketDay(date)) {
-            date = date.plusDays(1);
-        }
-        return date;
-    }
-
     /**
      * Exception handler for this controller
      */
@@ -1,5 +1,6 @@
 package com.example.MicroInvestApp.controller.orders;
 
+import com.example.MicroInvestApp.dto.orders.BatchOrderResponseDTO;
 import com.example.MicroInvestApp.dto.orders.OrderRequestDTO;
 import com.example.MicroInvestApp.dto.orders.OrderResponseDTO;
 import com.example.MicroInvestApp.domain.enums.OrderStatus;
@@ -7,7 +8,11 @@ import com.example.MicroInvestApp.domain.enums.OrderSide;
 import com.example.MicroInvestApp.domain.enums.OrderType;
 import com.example.MicroInvestApp.repositories.orders.OrderRepository;
 import com.example.MicroInvestApp.service.market.MarketDataService;
+import com.example.MicroInvestApp.service.order.LimitOrderTriggerBook;
+import com.example.MicroInvestApp.service.order.OrderExpiryWheel;
+import com.example.MicroInvestApp.service.order.OrderIdempotencyCache;
 import com.example.MicroInvestApp.service.order.OrderService;
+import com.example.MicroInvestApp.service.order.StopOrderTriggerEngine;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -46,12 +51,22 @@ public class OrderController {
     private final OrderService orderService;
     private final OrderRepository orderRepository;
     private final MarketDataService marketDataService;
+    private final LimitOrderTriggerBook limitOrderTriggerBook;
+    private final StopOrderTriggerEngine stopOrderTriggerEngine;
+    private final OrderExpiryWheel orderExpiryWheel;
+    private final OrderIdempotencyCache orderIdempotencyCache;
 
     @Autowired
-    public OrderController(OrderService orderService, OrderRepository orderRepository, MarketDataService marketDataService) {
+    public OrderController(OrderService orderService, OrderRepository orderRepository, MarketDataService marketDataService,
+                           LimitOrderTriggerBook limitOrderTriggerBook, StopOrderTriggerEngine stopOrderTriggerEngine,
+                           OrderExpiryWheel orderExpiryWheel, OrderIdempotencyCache orderIdempotencyCache) {
         this.orderService = orderService;
         this.orderRepository = orderRepository;
         this.marketDataService = marketDataService;
+        this.limitOrderTriggerBook = limitOrderTriggerBook;
+        this.stopOrderTriggerEngine = stopOrderTriggerEngine;
+        this.orderExpiryWheel = orderExpiryWheel;
+        this.orderIdempotencyCache = orderIdempotencyCache;
     }
 
     // ==================== ORDER CREATION AND MANAGEMENT ====================
@@ -89,32 +104,35 @@ public class OrderController {
 
     @PostMapping("/batch")
     @PreAuthorize("hasRole('USER')")
-    @Operation(summary = "Create multiple orders", description = "Creates multiple orders in a single batch")
-    public ResponseEntity<Map<String, Object>> createBatchOrders(@Valid @RequestBody List<OrderRequestDTO> orderRequests) {
+    @Operation(summary = "Create multiple orders",
+            description = "Creates a basket of orders in a single batch; with allOrNothing=true any failing order rejects the whole basket")
+    public ResponseEntity<Map<String, Object>> createBatchOrders(@Valid @RequestBody List<OrderRequestDTO> orderRequests,
+                                                                 @RequestParam(defaultValue = "false") boolean allOrNothing) {
         logger.info("Creating batch of {} orders", orderRequests.size());
 
         Map<String, Object> response = new HashMap<>();
-        List<OrderResponseDTO> createdOrders = new java.util.ArrayList<>();
-        List<String> errors = new java.util.ArrayList<>();
-
-        for (int i = 0; i < orderRequests.size(); i++) {
-            try {
-                OrderResponseDTO order = orderService.createOrder(orderRequests.get(i));
-                createdOrders.add(order);
-            } catch (Exception e) {
-                errors.add("Order " + (i + 1) + ": " + e.getMessage());
-            }
+        BatchOrderResponseDTO batch;
+        try {
+            batch = orderService.createOrders(orderRequests, allOrNothing);
+        } catch (Exception e) {
+            logger.error("Failed to create batch: {}", e.getMessage());
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
         }
 
+        List<String> errors = batch.getErrors();
         response.put("success", errors.isEmpty());
-        response.put("created_orders", createdOrders);
-        response.put("total_requested", orderRequests.size());
-        response.put("total_created", createdOrders.size());
+        response.put("all_or_nothing", batch.isAllOrNothing());
+        response.put("created_orders", batch.getCreatedOrders());
+        response.put("total_requested", batch.getTotalRequested());
+        response.put("total_created", batch.getTotalCreated());
         if (!errors.isEmpty()) {
             response.put("errors", errors);
         }
 
-        HttpStatus status = errors.isEmpty() ? HttpStatus.CREATED : HttpStatus.PARTIAL_CONTENT;
+        HttpStatus status = errors.isEmpty() ? HttpStatus.CREATED
+                : batch.getCreatedOrders().isEmpty() ? HttpStatus.BAD_REQUEST : HttpStatus.PARTIAL_CONTENT;
         return new ResponseEntity<>(response, status);
     }
 
@@ -468,6 +486,34 @@ public class OrderController {
         }
     }
 
+    @GetMapping("/admin/trigger-book")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get limit order trigger book statistics", description = "Resting LIMIT orders per side and trigger throughput")
+    public ResponseEntity<LimitOrderTriggerBook.TriggerBookStats> getTriggerBookStats() {
+        return ResponseEntity.ok(limitOrderTriggerBook.getStats());
+    }
+
+    @GetMapping("/admin/stop-engine")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get stop order engine statistics", description = "Armed fixed and trailing stops and trigger throughput")
+    public ResponseEntity<StopOrderTriggerEngine.StopEngineStats> getStopEngineStats() {
+        return ResponseEntity.ok(stopOrderTriggerEngine.getStats());
+    }
+
+    @GetMapping("/admin/expiry-wheel")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get order expiry wheel statistics", description = "Orders scheduled to expire and bulk expiry throughput")
+    public ResponseEntity<OrderExpiryWheel.ExpiryWheelStats> getExpiryWheelStats() {
+        return ResponseEntity.ok(orderExpiryWheel.getStats());
+    }
+
+    @GetMapping("/admin/idempotency")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get order idempotency statistics", description = "Client order id dedupe cache size, hits and misses")
+    public ResponseEntity<OrderIdempotencyCache.IdempotencyStats> getIdempotencyStats() {
+        return ResponseEntity.ok(orderIdempotencyCache.getStats());
+    }
+
     @GetMapping("/admin/system-stats")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Get system-wide order statistics", description = "Admin endpoint for system-wide order analytics")
@@ -4,6 +4,7 @@ import com.example.MicroInvestApp.dto.portfolio.RequestDTOs.CreatePortfolioReque
 import com.example.MicroInvestApp.dto.portfolio.RequestDTOs.UpdatePortfolioRequestDTO;
 import com.example.MicroInvestApp.dto.portfolio.ResponseDTOs.PortfolioResponseDTO;
 import com.example.MicroInvestApp.dto.portfolio.ResponseDTOs.PortfolioSummaryResponseDTO;
+import com.example.MicroInvestApp.service.portfolio.PortfolioExecutionLanes;
 import com.example.MicroInvestApp.service.portfolio.PortfolioService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -38,10 +39,12 @@ public class PortfolioController {
     private static final Logger logger = LoggerFactory.getLogger(PortfolioController.class);
 
     private final PortfolioService portfolioService;
+    private final PortfolioExecutionLanes portfolioExecutionLanes;
 
     @Autowired
-    public PortfolioController(PortfolioService portfolioService) {
+    public PortfolioController(PortfolioService portfolioService, PortfolioExecutionLanes portfolioExecutionLanes) {
         this.portfolioService = portfolioService;
+        this.portfolioExecutionLanes = portfolioExecutionLanes;
     }
 
     @Operation(summary = "Create a new portfolio", description = "Creates a new portfolio for the authenticated user")
@@ -302,6 +305,17 @@ public class PortfolioController {
         return ResponseEntity.ok(response);
     }
 
+    @Operation(summary = "Get execution lane statistics", description = "Throughput and contention of the per-portfolio lanes that serialize order and cash updates")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Statistics retrieved successfully"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @GetMapping("/admin/execution-lanes")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PortfolioExecutionLanes.LaneStats> getExecutionLaneStats() {
+        return ResponseEntity.ok(portfolioExecutionLanes.getStats());
+    }
+
     @Operation(summary = "Search portfolios by name", description = "Searches portfolios by name pattern")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Portfolios found"),
@@ -0,0 +1,77 @@
+package com.example.MicroInvestApp.domain.cluster;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Time-limited ownership of a named cluster role, such as the scheduler leader.
+ * The owner renews the lease before it expires; once expired any node may take it over.
+ */
+@SuppressWarnings({ "serial" })
+@Entity
+@Table(name = "ClusterLease")
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
+public class ClusterLease implements Serializable {
+
+    @Id
+    @Column(name = "lease_name", length = 100)
+    private String leaseName; // Role the lease grants
+
+    @NotNull(message = "Owner node cannot be null")
+    @Column(name = "owner_node", nullable = false, length = 100)
+    private String ownerNode; // Node currently holding the lease
+
+    @NotNull(message = "Acquired time cannot be null")
+    @Column(name = "acquired_at", nullable = false)
+    private Instant acquiredAt; // When the current owner first took the lease
+
+    @NotNull(message = "Expiry time cannot be null")
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt; // Lease is free to take after this instant
+
+    public ClusterLease() {
+        // Default constructor
+    }
+
+    // Getters and Setters
+    public String getLeaseName() {
+        return leaseName;
+    }
+    public void setLeaseName(String leaseName) {
+        this.leaseName = leaseName;
+    }
+    public String getOwnerNode() {
+        return ownerNode;
+    }
+    public void setOwnerNode(String ownerNode) {
+        this.ownerNode = ownerNode;
+    }
+    public Instant getAcquiredAt() {
+        return acquiredAt;
+    }
+    public void setAcquiredAt(Instant acquiredAt) {
+        this.acquiredAt = acquiredAt;
+    }
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public String toString() {
+        return "ClusterLease{" +
+                "leaseName='" + leaseName + '\'' +
+                ", ownerNode='" + ownerNode + '\'' +
+                ", expiresAt=" + expiresAt +
+                '}';
+    }
+}
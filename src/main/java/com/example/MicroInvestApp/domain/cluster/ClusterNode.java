@@ -0,0 +1,67 @@
+package com.example.MicroInvestApp.domain.cluster;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Heartbeat row for one running application instance.
+ * Nodes whose heartbeat is older than the lease TTL are treated as gone and drop out of symbol sharding.
+ */
+@SuppressWarnings({ "serial" })
+@Entity
+@Table(name = "ClusterNode")
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
+public class ClusterNode implements Serializable {
+
+    @Id
+    @Column(name = "node_id", length = 100)
+    private String nodeId; // Stable id of the instance for its lifetime
+
+    @NotNull(message = "Start time cannot be null")
+    @Column(name = "started_at", nullable = false)
+    private Instant startedAt;
+
+    @NotNull(message = "Heartbeat time cannot be null")
+    @Column(name = "heartbeat_at", nullable = false)
+    private Instant heartbeatAt; // Database time of the last heartbeat
+
+    public ClusterNode() {
+        // Default constructor
+    }
+
+    // Getters and Setters
+    public String getNodeId() {
+        return nodeId;
+    }
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+    public Instant getHeartbeatAt() {
+        return heartbeatAt;
+    }
+    public void setHeartbeatAt(Instant heartbeatAt) {
+        this.heartbeatAt = heartbeatAt;
+    }
+
+    @Override
+    public String toString() {
+        return "ClusterNode{" +
+                "nodeId='" + nodeId + '\'' +
+                ", startedAt=" + startedAt +
+                ", heartbeatAt=" + heartbeatAt +
+                '}';
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.MicroInvestApp.domain.enums;
+
+public enum BackfillStatus {
+    PENDING("Pending"),
+    IN_PROGRESS("In Progress"),
+    COMPLETED("Completed"),
+    FAILED("Failed");
+
+    private final String description;
+
+    BackfillStatus(String description) {
+        this.description = description;
+    }
+    public String getDescription() {
+        return description;
+    }
+}
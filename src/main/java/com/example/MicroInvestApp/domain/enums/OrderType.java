@@ -24,12 +24,16 @@ public enum OrderType {
         return this == LIMIT || this == STOP_LIMIT;
     }
 
-    public boolean isStopOrder() {
+    public boolean requiresStopPrice() {
         return this == STOP_LOSS || this == STOP_LIMIT;
     }
 
+    public boolean isStopOrder() {
+        return this == STOP_LOSS || this == STOP_LIMIT || this == TRAILING_STOP;
+    }
+
     public boolean isMarketOrder() {
-        return this == MARKET || this == STOP_LOSS;
+        return this == MARKET || this == STOP_LOSS || this == TRAILING_STOP;
     }
 
     public boolean isLimitOrder() {
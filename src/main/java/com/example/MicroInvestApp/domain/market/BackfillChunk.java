@@ -0,0 +1,168 @@
+package com.example.MicroInvestApp.domain.market;
+
+import com.example.MicroInvestApp.domain.enums.BackfillStatus;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Checkpoint for one chunked candle request of a historical backfill job.
+ * A node claims a chunk before running it; chunks not COMPLETED are picked up again once their owner is gone.
+ */
+@SuppressWarnings({ "serial" })
+@Entity
+@Table(name = "BackfillChunk", indexes = {
+        @Index(name = "idx_backfill_job", columnList = "job_id"),
+        @Index(name = "idx_backfill_status", columnList = "status")
+})
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
+public class BackfillChunk implements Serializable {
+
+    @Id
+    @GeneratedValue(strategy = jakarta.persistence.GenerationType.IDENTITY)
+    private Long chunkId; // Unique identifier for the backfill chunk
+
+    @NotNull(message = "Job id cannot be null")
+    @Column(name = "job_id", nullable = false, length = 36)
+    private String jobId; // Backfill run this chunk belongs to
+
+    @NotNull(message = "Symbol cannot be null")
+    @Column(name = "symbol", nullable = false, length = 20)
+    private String symbol; // Security symbol to backfill
+
+    @NotNull(message = "Range start cannot be null")
+    @Column(name = "range_start", nullable = false)
+    private LocalDate rangeStart; // First date requested (inclusive)
+
+    @NotNull(message = "Range end cannot be null")
+    @Column(name = "range_end", nullable = false)
+    private LocalDate rangeEnd; // Last date requested (inclusive)
+
+    @NotNull(message = "Status cannot be null")
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private BackfillStatus status;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts; // Number of times this chunk has been tried
+
+    @Column(name = "rows_written", nullable = false)
+    private int rowsWritten; // MarketData rows stored by the last successful attempt
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "owner_node", length = 100)
+    private String ownerNode; // Cluster node that claimed the chunk, null while it is waiting
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "last_updated", nullable = false)
+    private Instant lastUpdated;
+
+    public BackfillChunk() {
+        // Default constructor
+    }
+
+    public BackfillChunk(String jobId, String symbol, LocalDate rangeStart, LocalDate rangeEnd) {
+        this.jobId = jobId;
+        this.symbol = symbol;
+        this.rangeStart = rangeStart;
+        this.rangeEnd = rangeEnd;
+        this.status = BackfillStatus.PENDING;
+    }
+
+    // Getters and Setters
+    public Long getChunkId() {
+        return chunkId;
+    }
+    public void setChunkId(Long chunkId) {
+        this.chunkId = chunkId;
+    }
+    public String getJobId() {
+        return jobId;
+    }
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+    public String getSymbol() {
+        return symbol;
+    }
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+    public LocalDate getRangeStart() {
+        return rangeStart;
+    }
+    public void setRangeStart(LocalDate rangeStart) {
+        this.rangeStart = rangeStart;
+    }
+    public LocalDate getRangeEnd() {
+        return rangeEnd;
+    }
+    public void setRangeEnd(LocalDate rangeEnd) {
+        this.rangeEnd = rangeEnd;
+    }
+    public BackfillStatus getStatus() {
+        return status;
+    }
+    public void setStatus(BackfillStatus status) {
+        this.status = status;
+    }
+    public int getAttempts() {
+        return attempts;
+    }
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+    public int getRowsWritten() {
+        return rowsWritten;
+    }
+    public void setRowsWritten(int rowsWritten) {
+        this.rowsWritten = rowsWritten;
+    }
+    public String getLastError() {
+        return lastError;
+    }
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+    public String getOwnerNode() {
+        return ownerNode;
+    }
+    public void setOwnerNode(String ownerNode) {
+        this.ownerNode = ownerNode;
+    }
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+    public Instant getLastUpdated() {
+        return lastUpdated;
+    }
+
+    @Override
+    public String toString() {
+        return "BackfillChunk{" +
+                "chunkId=" + chunkId +
+                ", jobId='" + jobId + '\'' +
+                ", symbol='" + symbol + '\'' +
+                ", rangeStart=" + rangeStart +
+                ", rangeEnd=" + rangeEnd +
+                ", status=" + status +
+                ", attempts=" + attempts +
+                ", ownerNode='" + ownerNode + '\'' +
+                '}';
+    }
+}
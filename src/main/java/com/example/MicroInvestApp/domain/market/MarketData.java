@@ -22,7 +22,9 @@ import java.time.LocalDate;
 
 @SuppressWarnings({ "serial", "deprecation",  })
 @Entity
-@Table(name = "MarketData")
+@Table(name = "MarketData", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_market_data_security_date", columnNames = {"security_id", "market_date"})
+})
 @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
 @JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
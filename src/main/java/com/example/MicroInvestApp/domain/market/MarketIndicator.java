@@ -20,7 +20,10 @@ import java.time.LocalDate;
 
 @SuppressWarnings({ "serial", "deprecation",  })
 @Entity
-@Table(name = "MarketIndicator")
+@Table(name = "MarketIndicator", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_market_indicator_security_type_timeframe_date",
+                columnNames = {"securityId", "indicator_type", "timeframe", "calculation_date"})
+})
 @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
 @JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
@@ -17,7 +17,9 @@ import java.time.LocalDateTime;
 
 @SuppressWarnings({ "serial", "deprecation",  })
 @Entity
-@Table(name = "PriceHistory")
+@Table(name = "PriceHistory", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_price_history_security_date", columnNames = {"securityId", "date"})
+})
 @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
 @JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
@@ -0,0 +1,180 @@
+package com.example.MicroInvestApp.domain.market;
+
+import com.example.MicroInvestApp.domain.enums.Timeframe;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * One weekly, monthly, quarterly or yearly OHLC bar aggregated from daily PriceHistory.
+ * The current period is updated in place as each daily bar lands; lastBarDate and lastBarVolume let a
+ * recaptured day replace its own contribution instead of being counted twice.
+ */
+@SuppressWarnings({ "serial" })
+@Entity
+@Table(name = "PriceRollup", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_price_rollup_security_timeframe_period",
+                columnNames = {"securityId", "timeframe", "period_start"})
+})
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
+public class PriceRollup implements Serializable {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long priceRollupId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "securityId", nullable = false)
+    private SecurityStock securityStock;
+
+    @NotNull(message = "Timeframe cannot be null")
+    @Enumerated(EnumType.STRING)
+    @Column(name = "timeframe", nullable = false, length = 20)
+    private Timeframe timeframe;
+
+    @NotNull(message = "Period start cannot be null")
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart; // First calendar day of the period (ISO week Monday, month/quarter/year start)
+
+    @NotNull(message = "First bar date cannot be null")
+    @Column(name = "first_bar_date", nullable = false)
+    private LocalDate firstBarDate; // Trading day the open was taken from
+
+    @NotNull(message = "Last bar date cannot be null")
+    @Column(name = "last_bar_date", nullable = false)
+    private LocalDate lastBarDate; // Trading day the close was taken from
+
+    @Column(name = "open_price", nullable = false, precision = 19, scale = 4)
+    private BigDecimal openPrice;
+
+    @Column(name = "high_price", nullable = false, precision = 19, scale = 4)
+    private BigDecimal highPrice;
+
+    @Column(name = "low_price", nullable = false, precision = 19, scale = 4)
+    private BigDecimal lowPrice;
+
+    @Column(name = "close_price", nullable = false, precision = 19, scale = 4)
+    private BigDecimal closePrice;
+
+    @Column(name = "volume", nullable = false)
+    private Long volume; // Sum of daily volumes in the period
+
+    @Column(name = "last_bar_volume", nullable = false)
+    private Long lastBarVolume; // Volume of the last bar, subtracted again when that day is recaptured
+
+    @Column(name = "bar_count", nullable = false)
+    private Integer barCount;
+
+    @Column(name = "last_updated", nullable = false)
+    private Instant lastUpdated;
+
+    public PriceRollup() {
+        // Default constructor
+    }
+
+    // Getters and Setters
+    public Long getPriceRollupId() {
+        return priceRollupId;
+    }
+    public void setPriceRollupId(Long priceRollupId) {
+        this.priceRollupId = priceRollupId;
+    }
+    public SecurityStock getSecurityStock() {
+        return securityStock;
+    }
+    public void setSecurityStock(SecurityStock securityStock) {
+        this.securityStock = securityStock;
+    }
+    public Timeframe getTimeframe() {
+        return timeframe;
+    }
+    public void setTimeframe(Timeframe timeframe) {
+        this.timeframe = timeframe;
+    }
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+    public void setPeriodStart(LocalDate periodStart) {
+        this.periodStart = periodStart;
+    }
+    public LocalDate getFirstBarDate() {
+        return firstBarDate;
+    }
+    public void setFirstBarDate(LocalDate firstBarDate) {
+        this.firstBarDate = firstBarDate;
+    }
+    public LocalDate getLastBarDate() {
+        return lastBarDate;
+    }
+    public void setLastBarDate(LocalDate lastBarDate) {
+        this.lastBarDate = lastBarDate;
+    }
+    public BigDecimal getOpenPrice() {
+        return openPrice;
+    }
+    public void setOpenPrice(BigDecimal openPrice) {
+        this.openPrice = openPrice;
+    }
+    public BigDecimal getHighPrice() {
+        return highPrice;
+    }
+    public void setHighPrice(BigDecimal highPrice) {
+        this.highPrice = highPrice;
+    }
+    public BigDecimal getLowPrice() {
+        return lowPrice;
+    }
+    public void setLowPrice(BigDecimal lowPrice) {
+        this.lowPrice = lowPrice;
+    }
+    public BigDecimal getClosePrice() {
+        return closePrice;
+    }
+    public void setClosePrice(BigDecimal closePrice) {
+        this.closePrice = closePrice;
+    }
+    public Long getVolume() {
+        return volume;
+    }
+    public void setVolume(Long volume) {
+        this.volume = volume;
+    }
+    public Long getLastBarVolume() {
+        return lastBarVolume;
+    }
+    public void setLastBarVolume(Long lastBarVolume) {
+        this.lastBarVolume = lastBarVolume;
+    }
+    public Integer getBarCount() {
+        return barCount;
+    }
+    public void setBarCount(Integer barCount) {
+        this.barCount = barCount;
+    }
+    public Instant getLastUpdated() {
+        return lastUpdated;
+    }
+    public void setLastUpdated(Instant lastUpdated) {
+        this.lastUpdated = lastUpdated;
+    }
+
+    @Override
+    public String toString() {
+        return "PriceRollup{" +
+                "priceRollupId=" + priceRollupId +
+                ", timeframe=" + timeframe +
+                ", periodStart=" + periodStart +
+                ", lastBarDate=" + lastBarDate +
+                ", closePrice=" + closePrice +
+                ", barCount=" + barCount +
+                '}';
+    }
+}
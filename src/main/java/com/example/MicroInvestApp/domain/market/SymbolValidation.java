@@ -0,0 +1,120 @@
+package com.example.MicroInvestApp.domain.market;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Last validity verdict for a security symbol.
+ * A valid verdict is trusted until it expires; invalid verdicts count consecutive failures so that
+ * symbols which keep failing can be deactivated.
+ */
+@SuppressWarnings({ "serial" })
+@Entity
+@Table(name = "SymbolValidation", indexes = {
+        @Index(name = "idx_symbol_validation_symbol", columnList = "symbol", unique = true)
+})
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
+public class SymbolValidation implements Serializable {
+
+    @Id
+    @GeneratedValue(strategy = jakarta.persistence.GenerationType.IDENTITY)
+    private Long validationId; // Unique identifier for the verdict
+
+    @NotNull(message = "Symbol cannot be null")
+    @Column(name = "symbol", nullable = false, unique = true, length = 20)
+    private String symbol; // Security symbol the verdict applies to
+
+    @Column(name = "valid", nullable = false)
+    private boolean valid; // Outcome of the last conclusive check
+
+    @Column(name = "consecutive_failures", nullable = false)
+    private int consecutiveFailures; // Invalid verdicts in a row since the last valid one
+
+    @Column(name = "from_recent_quote", nullable = false)
+    private boolean fromRecentQuote; // True when a recently stored quote was reused instead of calling the API
+
+    @NotNull(message = "Checked time cannot be null")
+    @Column(name = "checked_at", nullable = false)
+    private Instant checkedAt;
+
+    @NotNull(message = "Expiry time cannot be null")
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt; // Verdict is reused until this instant
+
+    public SymbolValidation() {
+        // Default constructor
+    }
+
+    public SymbolValidation(String symbol) {
+        this.symbol = symbol;
+    }
+
+    /**
+     * Whether a valid verdict is still fresh at the given instant
+     */
+    public boolean isValidAt(Instant now) {
+        return valid && expiresAt != null && expiresAt.isAfter(now);
+    }
+
+    // Getters and Setters
+    public Long getValidationId() {
+        return validationId;
+    }
+    public void setValidationId(Long validationId) {
+        this.validationId = validationId;
+    }
+    public String getSymbol() {
+        return symbol;
+    }
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+    public boolean isValid() {
+        return valid;
+    }
+    public void setValid(boolean valid) {
+        this.valid = valid;
+    }
+    public int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+    public void setConsecutiveFailures(int consecutiveFailures) {
+        this.consecutiveFailures = consecutiveFailures;
+    }
+    public boolean isFromRecentQuote() {
+        return fromRecentQuote;
+    }
+    public void setFromRecentQuote(boolean fromRecentQuote) {
+        this.fromRecentQuote = fromRecentQuote;
+    }
+    public Instant getCheckedAt() {
+        return checkedAt;
+    }
+    public void setCheckedAt(Instant checkedAt) {
+        this.checkedAt = checkedAt;
+    }
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public String toString() {
+        return "SymbolValidation{" +
+                "symbol='" + symbol + '\'' +
+                ", valid=" + valid +
+                ", consecutiveFailures=" + consecutiveFailures +
+                ", checkedAt=" + checkedAt +
+                ", expiresAt=" + expiresAt +
+                '}';
+    }
+}
@@ -29,7 +29,8 @@ import java.time.LocalDateTime;
         @Index(name = "idx_order_security", columnList = "security_id"),
         @Index(name = "idx_order_placed_date", columnList = "order_placed_date"),
         @Index(name = "idx_order_user_status", columnList = "portfolio_id,order_status"),
-        @Index(name = "idx_order_symbol_date", columnList = "security_id,order_placed_date")
+        @Index(name = "idx_order_symbol_date", columnList = "security_id,order_placed_date"),
+        @Index(name = "idx_order_portfolio_client_id", columnList = "portfolio_id,client_order_id", unique = true)
 })
 @org.hibernate.annotations.Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
@@ -58,6 +59,24 @@ public class Order implements Serializable {
     @Column(name = "order_price", precision = 19, scale = 4)
     private BigDecimal orderPrice; // Limit price for LIMIT orders, null for MARKET orders
 
+    @Positive(message = "Stop price must be positive")
+    @Digits(integer = 10, fraction = 4, message = "Invalid price format")
+    @Column(name = "stop_price", precision = 19, scale = 4)
+    private BigDecimal stopPrice; // Trigger price for stop orders; initial stop for trailing stops
+
+    @Positive(message = "Trail amount must be positive")
+    @Digits(integer = 10, fraction = 4, message = "Invalid price format")
+    @Column(name = "trail_amount", precision = 19, scale = 4)
+    private BigDecimal trailAmount; // Trailing distance in price, for TRAILING_STOP
+
+    @Positive(message = "Trail percent must be positive")
+    @Digits(integer = 3, fraction = 4, message = "Invalid percent format")
+    @Column(name = "trail_percent", precision = 7, scale = 4)
+    private BigDecimal trailPercent; // Trailing distance in percent, for TRAILING_STOP
+
+    @Column(name = "stop_triggered_at")
+    private Instant stopTriggeredAt; // When a STOP_LIMIT's stop was reached and it started resting at its limit
+
     @Positive(message = "Estimated total must be positive")
     @Digits(integer = 15, fraction = 2, message = "Invalid total format")
     @Column(name = "estimated_total", nullable = false, precision = 19, scale = 2)
@@ -108,6 +127,10 @@ public class Order implements Serializable {
     @Column(name = "notes", length = 500)
     private String notes;
 
+    @Size(max = 64, message = "Client order ID cannot exceed 64 characters")
+    @Column(name = "client_order_id", length = 64)
+    private String clientOrderId; // Client-supplied idempotency key, unique per portfolio
+
     @Size(max = 255, message = "Cancellation reason cannot exceed 255 characters")
     @Column(name = "cancellation_reason")
     private String cancellationReason;
@@ -201,7 +224,7 @@ public class Order implements Serializable {
         if (securityStock == null) return;
 
         BigDecimal priceToUse;
-        if (orderType.equals(OrderType.MARKET)) {
+        if (orderType.equals(OrderType.MARKET) || orderPrice == null) {
             priceToUse = securityStock.getCurrentPrice();
         } else {
             priceToUse = orderPrice;
@@ -228,6 +251,18 @@ public class Order implements Serializable {
     public BigDecimal getOrderPrice() { return orderPrice; }
     public void setOrderPrice(BigDecimal orderPrice) { this.orderPrice = orderPrice; }
 
+    public BigDecimal getStopPrice() { return stopPrice; }
+    public void setStopPrice(BigDecimal stopPrice) { this.stopPrice = stopPrice; }
+
+    public BigDecimal getTrailAmount() { return trailAmount; }
+    public void setTrailAmount(BigDecimal trailAmount) { this.trailAmount = trailAmount; }
+
+    public BigDecimal getTrailPercent() { return trailPercent; }
+    public void setTrailPercent(BigDecimal trailPercent) { this.trailPercent = trailPercent; }
+
+    public Instant getStopTriggeredAt() { return stopTriggeredAt; }
+    public void setStopTriggeredAt(Instant stopTriggeredAt) { this.stopTriggeredAt = stopTriggeredAt; }
+
     public BigDecimal getEstimatedTotal() { return estimatedTotal; }
     public void setEstimatedTotal(BigDecimal estimatedTotal) { this.estimatedTotal = estimatedTotal; }
 
@@ -264,6 +299,9 @@ public class Order implements Serializable {
     public String getNotes() { return notes; }
     public void setNotes(String notes) { this.notes = notes; }
 
+    public String getClientOrderId() { return clientOrderId; }
+    public void setClientOrderId(String clientOrderId) { this.clientOrderId = clientOrderId; }
+
     public String getCancellationReason() { return cancellationReason; }
     public void setCancellationReason(String cancellationReason) { this.cancellationReason = cancellationReason; }
 
@@ -0,0 +1,46 @@
+package com.example.MicroInvestApp.dto.orders;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchOrderResponseDTO {
+
+    @JsonProperty("all_or_nothing")
+    private boolean allOrNothing;
+
+    @JsonProperty("total_requested")
+    private int totalRequested;
+
+    @JsonProperty("created_orders")
+    private List<OrderResponseDTO> createdOrders = new ArrayList<>();
+
+    @JsonProperty("errors")
+    private List<String> errors = new ArrayList<>();
+
+    // Constructors
+    public BatchOrderResponseDTO() {}
+
+    public BatchOrderResponseDTO(boolean allOrNothing, int totalRequested) {
+        this.allOrNothing = allOrNothing;
+        this.totalRequested = totalRequested;
+    }
+
+    // Getters and Setters
+    public boolean isAllOrNothing() { return allOrNothing; }
+    public void setAllOrNothing(boolean allOrNothing) { this.allOrNothing = allOrNothing; }
+
+    public int getTotalRequested() { return totalRequested; }
+    public void setTotalRequested(int totalRequested) { this.totalRequested = totalRequested; }
+
+    public List<OrderResponseDTO> getCreatedOrders() { return createdOrders; }
+    public void setCreatedOrders(List<OrderResponseDTO> createdOrders) { this.createdOrders = createdOrders; }
+
+    public List<String> getErrors() { return errors; }
+    public void setErrors(List<String> errors) { this.errors = errors; }
+
+    // Calculated fields
+    @JsonProperty("total_created")
+    public int getTotalCreated() { return createdOrders.size(); }
+}
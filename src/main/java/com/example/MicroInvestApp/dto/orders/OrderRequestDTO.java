@@ -27,6 +27,15 @@ public class OrderRequestDTO {
     @JsonProperty("order_price")
     private BigDecimal orderPrice; // Optional for MARKET orders
 
+    @JsonProperty("stop_price")
+    private BigDecimal stopPrice; // Required for STOP_LOSS and STOP_LIMIT orders
+
+    @JsonProperty("trail_amount")
+    private BigDecimal trailAmount; // TRAILING_STOP distance in price
+
+    @JsonProperty("trail_percent")
+    private BigDecimal trailPercent; // TRAILING_STOP distance in percent
+
    @NotNull(message = "Order type is required (MARKET, LIMIT, STOP)")
     @JsonProperty("order_type")
     private OrderType orderType;
@@ -42,6 +51,10 @@ public class OrderRequestDTO {
     @JsonProperty("notes")
     private String notes;
 
+    @Size(max = 64, message = "Client order ID cannot exceed 64 characters")
+    @JsonProperty("client_order_id")
+    private String clientOrderId; // Optional idempotency key; a retry with the same key returns the original order
+
     // Constructors
     public OrderRequestDTO() {}
 
@@ -68,6 +81,15 @@ public class OrderRequestDTO {
     public BigDecimal getOrderPrice() { return orderPrice; }
     public void setOrderPrice(BigDecimal orderPrice) { this.orderPrice = orderPrice; }
 
+    public BigDecimal getStopPrice() { return stopPrice; }
+    public void setStopPrice(BigDecimal stopPrice) { this.stopPrice = stopPrice; }
+
+    public BigDecimal getTrailAmount() { return trailAmount; }
+    public void setTrailAmount(BigDecimal trailAmount) { this.trailAmount = trailAmount; }
+
+    public BigDecimal getTrailPercent() { return trailPercent; }
+    public void setTrailPercent(BigDecimal trailPercent) { this.trailPercent = trailPercent; }
+
     public OrderType getOrderType() { return orderType; }
     public void setOrderType(OrderType orderType) { this.orderType = orderType; }
 
@@ -77,6 +99,9 @@ public class OrderRequestDTO {
     public String getNotes() { return notes; }
     public void setNotes(String notes) { this.notes = notes; }
 
+    public String getClientOrderId() { return clientOrderId; }
+    public void setClientOrderId(String clientOrderId) { this.clientOrderId = clientOrderId; }
+
     public OrderSide getOrderSide() { return orderSide; }
     public void setOrderSide(OrderSide orderSide) { this.orderSide = orderSide;}
 
@@ -94,6 +119,16 @@ public class OrderRequestDTO {
         return orderType != OrderType.LIMIT || orderPrice != null;
     }
 
+    @AssertTrue(message = "Stop orders must specify stop price")
+    private boolean isValidStopOrder() {
+        return orderType == null || !orderType.requiresStopPrice() || stopPrice != null;
+    }
+
+    @AssertTrue(message = "Trailing stop orders must specify exactly one of trail amount or trail percent")
+    private boolean isValidTrailingStopOrder() {
+        return orderType != OrderType.TRAILING_STOP || (trailAmount == null) != (trailPercent == null);
+    }
+
     @AssertTrue(message = "Market orders cannot specify order price")
     private boolean isValidMarketOrder() {
         return orderType != OrderType.MARKET || orderPrice == null;
@@ -32,6 +32,15 @@ public class OrderResponseDTO {
     @JsonProperty("order_price")
     private BigDecimal orderPrice;
 
+    @JsonProperty("stop_price")
+    private BigDecimal stopPrice;
+
+    @JsonProperty("trail_amount")
+    private BigDecimal trailAmount;
+
+    @JsonProperty("trail_percent")
+    private BigDecimal trailPercent;
+
     @JsonProperty("estimated_total")
     private BigDecimal estimatedTotal;
 
@@ -68,6 +77,9 @@ public class OrderResponseDTO {
     @JsonProperty("notes")
     private String notes;
 
+    @JsonProperty("client_order_id")
+    private String clientOrderId;
+
     @JsonProperty("cancellation_reason")
     private String cancellationReason;
 
@@ -121,6 +133,15 @@ public class OrderResponseDTO {
     public BigDecimal getOrderPrice() { return orderPrice; }
     public void setOrderPrice(BigDecimal orderPrice) { this.orderPrice = orderPrice; }
 
+    public BigDecimal getStopPrice() { return stopPrice; }
+    public void setStopPrice(BigDecimal stopPrice) { this.stopPrice = stopPrice; }
+
+    public BigDecimal getTrailAmount() { return trailAmount; }
+    public void setTrailAmount(BigDecimal trailAmount) { this.trailAmount = trailAmount; }
+
+    public BigDecimal getTrailPercent() { return trailPercent; }
+    public void setTrailPercent(BigDecimal trailPercent) { this.trailPercent = trailPercent; }
+
     public BigDecimal getEstimatedTotal() { return estimatedTotal; }
     public void setEstimatedTotal(BigDecimal estimatedTotal) { this.estimatedTotal = estimatedTotal; }
 
@@ -157,6 +178,9 @@ public class OrderResponseDTO {
     public String getNotes() { return notes; }
     public void setNotes(String notes) { this.notes = notes; }
 
+    public String getClientOrderId() { return clientOrderId; }
+    public void setClientOrderId(String clientOrderId) { this.clientOrderId = clientOrderId; }
+
     public String getCancellationReason() { return cancellationReason; }
     public void setCancellationReason(String cancellationReason) { this.cancellationReason = cancellationReason; }
 
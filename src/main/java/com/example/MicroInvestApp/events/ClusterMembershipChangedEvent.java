@@ -0,0 +1,22 @@
+package com.example.MicroInvestApp.events;
+
+import org.springframework.context.ApplicationEvent;
+
+import java.util.List;
+
+/**
+ * Event published when the set of live nodes this node sees changes, so symbol ownership may have moved
+ */
+public class ClusterMembershipChangedEvent extends ApplicationEvent {
+
+    private final List<String> liveNodes;
+
+    public ClusterMembershipChangedEvent(Object source, List<String> liveNodes) {
+        super(source);
+        this.liveNodes = liveNodes;
+    }
+
+    public List<String> getLiveNodes() {
+        return liveNodes;
+    }
+}
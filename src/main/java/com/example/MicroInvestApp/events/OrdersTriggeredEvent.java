@@ -0,0 +1,24 @@
+package com.example.MicroInvestApp.events;
+
+import org.springframework.context.ApplicationEvent;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Event carrying a batch of resting orders whose trigger conditions were met by a price update,
+ * each with the price that triggered it
+ */
+public class OrdersTriggeredEvent extends ApplicationEvent {
+
+    private final Map<Long, BigDecimal> triggerPrices;
+
+    public OrdersTriggeredEvent(Object source, Map<Long, BigDecimal> triggerPrices) {
+        super(source);
+        this.triggerPrices = triggerPrices;
+    }
+
+    public Map<Long, BigDecimal> getTriggerPrices() {
+        return triggerPrices;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.MicroInvestApp.impl.market;
 
+import com.example.MicroInvestApp.config.MarketDataCacheConfig;
 import com.example.MicroInvestApp.domain.enums.SecuritySector;
 import com.example.MicroInvestApp.domain.market.MarketData;
 import com.example.MicroInvestApp.domain.market.PriceHistory;
@@ -7,10 +8,17 @@ import com.example.MicroInvestApp.domain.market.SecurityStock;
 import com.example.MicroInvestApp.dto.finnhub.FinnhubCandleDTO;
 import com.example.MicroInvestApp.dto.finnhub.FinnhubQuoteDTO;
 import com.example.MicroInvestApp.repositories.market.MarketDataRepository;
+import com.example.MicroInvestApp.repositories.market.MarketPriceBulkRepository;
 import com.example.MicroInvestApp.repositories.market.PriceHistoryRepository;
 import com.example.MicroInvestApp.repositories.market.SecurityStockRepository;
 import com.example.MicroInvestApp.service.market.FinnhubClientService;
+import com.example.MicroInvestApp.service.market.IntradayBarBuilder;
+import com.example.MicroInvestApp.service.order.LimitOrderTriggerBook;
+import com.example.MicroInvestApp.service.order.StopOrderTriggerEngine;
+import com.example.MicroInvestApp.service.market.MarketCalendarService;
+import com.example.MicroInvestApp.service.market.MarketDataArchiveService;
 import com.example.MicroInvestApp.service.market.MarketDataService;
+import com.example.MicroInvestApp.service.market.PriceHistoryStore;
 import com.example.MicroInvestApp.service.market.SecurityCreationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,15 +29,19 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.retry.annotation.Backoff;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
-import java.time.DayOfWeek;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -48,7 +60,15 @@ public class MarketDataServiceImpl implements MarketDataService {
     private final SecurityStockRepository securityStockRepository;
     private final MarketDataRepository marketDataRepository;
     private final PriceHistoryRepository priceHistoryRepository;
+    private final MarketPriceBulkRepository marketPriceBulkRepository;
     private final SecurityCreationService securityCreationService;
+    private final CacheManager cacheManager;
+    private final MarketCalendarService marketCalendarService;
+    private final PriceHistoryStore priceHistoryStore;
+    private final MarketDataArchiveService marketDataArchiveService;
+    private final IntradayBarBuilder intradayBarBuilder;
+    private final LimitOrderTriggerBook limitOrderTriggerBook;
+    private final StopOrderTriggerEngine stopOrderTriggerEngine;
 
     // Configuration properties
     @Value("${market-data.stale-threshold-hours:24}")
@@ -66,9 +86,6 @@ public class MarketDataServiceImpl implements MarketDataService {
     @Value("${scheduler.market-data.batch-size:50}")
     private int batchSize;
 
-    @Value("${scheduler.market-data.api-delay-ms:100}")
-    private long apiDelayMs;
-
     // Circuit breaker fields
     private final AtomicInteger consecutiveFailures = new AtomicInteger(0);
 
@@ -78,12 +95,28 @@ public class MarketDataServiceImpl implements MarketDataService {
             SecurityStockRepository securityStockRepository,
             MarketDataRepository marketDataRepository,
             PriceHistoryRepository priceHistoryRepository,
-            SecurityCreationService securityCreationService) {
+            MarketPriceBulkRepository marketPriceBulkRepository,
+            SecurityCreationService securityCreationService,
+            CacheManager cacheManager,
+            MarketCalendarService marketCalendarService,
+            PriceHistoryStore priceHistoryStore,
+            MarketDataArchiveService marketDataArchiveService,
+            IntradayBarBuilder intradayBarBuilder,
+            LimitOrderTriggerBook limitOrderTriggerBook,
+            StopOrderTriggerEngine stopOrderTriggerEngine) {
         this.finnhubClient = finnhubClient;
         this.securityStockRepository = securityStockRepository;
         this.marketDataRepository = marketDataRepository;
         this.priceHistoryRepository = priceHistoryRepository;
+        this.marketPriceBulkRepository = marketPriceBulkRepository;
         this.securityCreationService = securityCreationService;
+        this.cacheManager = cacheManager;
+        this.marketCalendarService = marketCalendarService;
+        this.priceHistoryStore = priceHistoryStore;
+        this.marketDataArchiveService = marketDataArchiveService;
+        this.intradayBarBuilder = intradayBarBuilder;
+        this.limitOrderTriggerBook = limitOrderTriggerBook;
+        this.stopOrderTriggerEngine = stopOrderTriggerEngine;
     }
 
     /**
@@ -103,7 +136,7 @@ public class MarketDataServiceImpl implements MarketDataService {
                 throw new IllegalStateException("Invalid quote data received for symbol: " + symbol);
             }
 
-            LocalDate today = LocalDate.now();
+            LocalDate today = marketCalendarService.today();
             MarketData marketData = getOrCreateMarketData(security, today, "Finnhub");
 
             // Enhanced data mapping with validation
@@ -113,9 +146,13 @@ public class MarketDataServiceImpl implements MarketDataService {
             validateMarketData(marketData);
 
             marketData = marketDataRepository.save(marketData);
+            writeThroughMarketData(symbol, List.of(marketData));
 
             // Update security's current price atomically
             updateSecurityPrice(security, quote.getCurrentPrice());
+            intradayBarBuilder.recordQuote(symbol, quote.getCurrentPrice(), quote.getTimestamp());
+            limitOrderTriggerBook.onPrice(symbol, quote.getCurrentPrice());
+            stopOrderTriggerEngine.onPrice(symbol, quote.getCurrentPrice());
 
             logger.info("Successfully stored market data for {}: ${} (Change: {}%)",
                     symbol, quote.getCurrentPrice(), calculatePriceChangePercent(security, quote.getCurrentPrice()));
@@ -158,8 +195,6 @@ public class MarketDataServiceImpl implements MarketDataService {
             }
 
             List<MarketData> marketDataList = new ArrayList<>();
-            List<MarketData> newRecords = new ArrayList<>();
-            List<MarketData> updatedRecords = new ArrayList<>();
 
             // Process each candle with enhanced validation
             for (int i = 0; i < candles.getClosePrices().size(); i++) {
@@ -169,7 +204,7 @@ public class MarketDataServiceImpl implements MarketDataService {
                             .toLocalDate();
 
                     // Skip weekends and holidays
-                    if (!isMarketDay(date)) {
+                    if (!marketCalendarService.isTradingDay(date)) {
                         continue;
                     }
 
@@ -179,8 +214,8 @@ public class MarketDataServiceImpl implements MarketDataService {
                         continue;
                     }
 
-                    MarketData marketData = getOrCreateMarketData(security, date, "Finnhub");
-                    boolean isNewRecord = marketData.getMarketDataId() == null;
+                    // Staged only - the bulk upsert below decides insert vs update
+                    MarketData marketData = newMarketData(security, date, "Finnhub");
 
                     // Map candle data with validation
                     updateMarketDataFromCandle(marketData, candles, i);
@@ -188,12 +223,6 @@ public class MarketDataServiceImpl implements MarketDataService {
 
                     marketDataList.add(marketData);
 
-                    if (isNewRecord) {
-                        newRecords.add(marketData);
-                    } else {
-                        updatedRecords.add(marketData);
-                    }
-
                 } catch (Exception e) {
                     logger.warn("Failed to process candle data for {} at index {}: {}",
                             symbol, i, e.getMessage());
@@ -201,16 +230,18 @@ public class MarketDataServiceImpl implements MarketDataService {
                 }
             }
 
-            // Batch save with error handling
-            try {
-                marketDataList = marketDataRepository.saveAll(marketDataList);
-                logger.info("Successfully stored {} historical records for {} (New: {}, Updated: {})",
-                        marketDataList.size(), symbol, newRecords.size(), updatedRecords.size());
-            } catch (DataIntegrityViolationException e) {
-                logger.error("Data integrity violation during batch save for {}: {}", symbol, e.getMessage());
-                // Try saving one by one to isolate the problem
-                marketDataList = saveIndividually(marketDataList, symbol);
-            }
+            // One set-based upsert per chunk instead of a lookup and save per candle
+            MarketPriceBulkRepository.UpsertResult result = marketPriceBulkRepository.upsertMarketData(marketDataList);
+            logger.info("Successfully stored {} historical records for {} (New: {}, Updated: {})",
+                    result.getTotal(), symbol, result.getInserted(), result.getUpdated());
+            writeThroughMarketData(symbol, marketDataList);
+
+            // The same candles seed PriceHistory, which charts, rollups and moving averages read from
+            List<PriceHistory> bars = toPriceHistory(security, marketDataList);
+            MarketPriceBulkRepository.UpsertResult barResult = marketPriceBulkRepository.upsertPriceHistory(bars);
+            priceHistoryStore.applyBars(bars);
+            logger.info("Stored {} historical price bars for {} (New: {}, Updated: {})",
+                    barResult.getTotal(), symbol, barResult.getInserted(), barResult.getUpdated());
 
             return marketDataList;
 
@@ -251,6 +282,9 @@ public class MarketDataServiceImpl implements MarketDataService {
                     security.setCurrentPrice(newPrice);
                     security.setUpdatedDate(Instant.now());
                     security = securityStockRepository.save(security);
+                    intradayBarBuilder.recordQuote(symbol, newPrice, quote.getTimestamp());
+                    limitOrderTriggerBook.onPrice(symbol, newPrice);
+                    stopOrderTriggerEngine.onPrice(symbol, newPrice);
 
                     logger.debug("Updated current price for {}: ${}", symbol, newPrice);
                 } else {
@@ -299,18 +333,8 @@ public class MarketDataServiceImpl implements MarketDataService {
                 }
             }
 
+            // Request spacing is handled by the shared Finnhub rate governor
             processBatchConcurrently(securities, successCount, errorCount);
-
-            // Rate limiting between batches
-            if (endIndex < symbols.size()) {
-                try {
-                    Thread.sleep(apiDelayMs * 2);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    logger.warn("Bulk update interrupted");
-                    return;
-                }
-            }
         }
 
         logger.info("Bulk update completed - Success: {}, Errors: {}",
@@ -336,9 +360,6 @@ public class MarketDataServiceImpl implements MarketDataService {
                     try {
                         updateCurrentPrice(security.getSymbol());
                         successCount.incrementAndGet();
-                        Thread.sleep(apiDelayMs);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
                     } catch (Exception e) {
                         logger.error("Failed to update price for {}: {}",
                                 security.getSymbol(), e.getMessage());
@@ -361,7 +382,7 @@ public class MarketDataServiceImpl implements MarketDataService {
     // Enhanced read-only methods with caching hints
     @Override
     @Transactional(readOnly = true)
-    @Cacheable(value = "marketData", key = "#symbol + '_' + #date")
+    @Cacheable(value = MarketDataCacheConfig.MARKET_DATA_CACHE, key = "#symbol + '_' + #date", sync = true)
     public Optional<MarketData> getMarketData(String symbol, LocalDate date) {
         try {
             SecurityStock security = securityStockRepository.findBySymbol(symbol)
@@ -381,7 +402,7 @@ public class MarketDataServiceImpl implements MarketDataService {
 
     @Override
     @Transactional(readOnly = true)
-    @Cacheable(value = "latestMarketData", key = "#symbol")
+    @Cacheable(value = MarketDataCacheConfig.LATEST_MARKET_DATA_CACHE, key = "#symbol", sync = true)
     public Optional<MarketData> getLatestMarketData(String symbol) {
         try {
             SecurityStock security = securityStockRepository.findBySymbol(symbol)
@@ -392,7 +413,10 @@ public class MarketDataServiceImpl implements MarketDataService {
                 return Optional.empty();
             }
 
-            return marketDataRepository.findLatestBySecurityStock(security);
+            // Recent months first so only the newest partitions are read; older data is the rare fallback
+            Optional<MarketData> recent = marketDataRepository.findLatestBySecurityStockSince(
+                    security, LocalDate.now().minusMonths(1).withDayOfMonth(1));
+            return recent.isPresent() ? recent : marketDataRepository.findLatestBySecurityStock(security);
         } catch (Exception e) {
             logger.error("Error retrieving latest market data for {}: {}", symbol, e.getMessage());
             return Optional.empty();
@@ -411,7 +435,15 @@ public class MarketDataServiceImpl implements MarketDataService {
                 return new ArrayList<>();
             }
 
-            return priceHistoryRepository.findBySecurityStockAndDateRange(security, from, to);
+            List<PriceHistory> live;
+            if (priceHistoryStore.isEnabled()) {
+                // Served from packed in-memory columns; only the first request per security reads the table
+                live = priceHistoryStore.range(security, from, to).toPriceHistory(security);
+            } else {
+                live = priceHistoryRepository.findBySecurityStockAndDateRange(security, from, to);
+            }
+            // Anything before the first stored bar may have been moved to the archive by retention
+            return marketDataArchiveService.mergeWithArchive(security, from, to, live);
         } catch (Exception e) {
             logger.error("Error retrieving historical prices for {}: {}", symbol, e.getMessage());
             return new ArrayList<>();
@@ -477,14 +509,16 @@ public class MarketDataServiceImpl implements MarketDataService {
             return data;
         }
 
-        // Create new market data
+        logger.debug("Creating new market data for {} on {}", security.getSymbol(), date);
+        return newMarketData(security, date, dataSource);
+    }
+
+    private MarketData newMarketData(SecurityStock security, LocalDate date, String dataSource) {
         MarketData marketData = new MarketData();
         marketData.setSecurityStock(security);
         marketData.setMarketDate(date);
         marketData.setDataSource(dataSource);
         marketData.setCreatedAt(Instant.now());
-        logger.debug("Creating new market data for {} on {}", security.getSymbol(), date);
-
         return marketData;
     }
 
@@ -671,7 +705,7 @@ public class MarketDataServiceImpl implements MarketDataService {
         }
 
         // Validate market date
-        if (marketData.getMarketDate() != null && marketData.getMarketDate().isAfter(LocalDate.now())) {
+        if (marketData.getMarketDate() != null && marketData.getMarketDate().isAfter(marketCalendarService.today())) {
             throw new IllegalArgumentException("Market data cannot be for future dates");
         }
     }
@@ -703,6 +737,35 @@ public class MarketDataServiceImpl implements MarketDataService {
         return calculatePriceChangePercent(security.getCurrentPrice(), newPrice);
     }
 
+    /**
+     * Daily bars for a run of candles, oldest first, with the change against the previous session's close.
+     * Moving averages are left null so the upsert keeps stored values until they are recomputed.
+     */
+    private List<PriceHistory> toPriceHistory(SecurityStock security, List<MarketData> candles) {
+        List<PriceHistory> bars = new ArrayList<>(candles.size());
+        if (candles.isEmpty()) {
+            return bars;
+        }
+
+        List<MarketData> ordered = new ArrayList<>(candles);
+        ordered.sort(Comparator.comparing(MarketData::getMarketDate));
+        LocalDate previousSession = marketCalendarService.previousTradingDay(ordered.get(0).getMarketDate());
+        BigDecimal previousClose = priceHistoryRepository.findBySecurityStockAndDate(security, previousSession)
+                .map(PriceHistory::getClosePrice)
+                .orElse(null);
+
+        for (MarketData candle : ordered) {
+            BigDecimal close = candle.getClosePrice();
+            BigDecimal priceChange = previousClose != null ? close.subtract(previousClose) : null;
+            BigDecimal percentChange = previousClose != null ? calculatePriceChangePercent(previousClose, close) : null;
+
+            bars.add(new PriceHistory(security, candle.getMarketDate(), candle.getOpenPrice(), candle.getHighPrice(),
+                    candle.getLowPrice(), close, candle.getVolume(), priceChange, percentChange, null, null));
+            previousClose = close;
+        }
+        return bars;
+    }
+
     private BigDecimal calculatePriceChangePercent(BigDecimal oldPrice, BigDecimal newPrice) {
         if (oldPrice == null || oldPrice.equals(BigDecimal.ZERO)) {
             return BigDecimal.ZERO;
@@ -735,36 +798,48 @@ public class MarketDataServiceImpl implements MarketDataService {
     }
 
     /**
-     * Save market data individually when batch save fails
+     * Push freshly written rows into the read caches once the transaction commits,
+     * so "latest" reads never keep serving the row that was just superseded
      */
-    private List<MarketData> saveIndividually(List<MarketData> marketDataList, String symbol) {
-        List<MarketData> savedData = new ArrayList<>();
-        int successCount = 0;
-        int errorCount = 0;
-
-        for (MarketData data : marketDataList) {
-            try {
-                MarketData saved = marketDataRepository.save(data);
-                savedData.add(saved);
-                successCount++;
-            } catch (Exception e) {
-                logger.error("Failed to save individual market data for {} on {}: {}",
-                        symbol, data.getMarketDate(), e.getMessage());
-                errorCount++;
-            }
+    private void writeThroughMarketData(String symbol, List<MarketData> written) {
+        if (written.isEmpty()) {
+            return;
         }
 
-        logger.info("Individual save completed for {}: {} successful, {} failed",
-                symbol, successCount, errorCount);
-        return savedData;
-    }
+        Runnable update = () -> {
+            Cache byDate = cacheManager.getCache(MarketDataCacheConfig.MARKET_DATA_CACHE);
+            Cache latest = cacheManager.getCache(MarketDataCacheConfig.LATEST_MARKET_DATA_CACHE);
 
-    /**
-     * Check if it's a market day (excluding weekends and holidays)
-     */
-    private boolean isMarketDay(LocalDate date) {
-        DayOfWeek dayOfWeek = date.getDayOfWeek();
-        return dayOfWeek != DayOfWeek.SATURDAY && dayOfWeek != DayOfWeek.SUNDAY;
+            MarketData newest = null;
+            for (MarketData data : written) {
+                if (byDate != null) {
+                    byDate.put(symbol + "_" + data.getMarketDate(), data);
+                }
+                if (newest == null || data.getMarketDate().isAfter(newest.getMarketDate())) {
+                    newest = data;
+                }
+            }
+
+            if (latest != null) {
+                // Only today's row is known to be the latest; anything older just invalidates
+                if (newest.getMarketDate().equals(marketCalendarService.today())) {
+                    latest.put(symbol, newest);
+                } else {
+                    latest.evict(symbol);
+                }
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
     }
 
     /**
@@ -794,8 +869,8 @@ public class MarketDataServiceImpl implements MarketDataService {
     public MarketDataStats getMarketDataStats() {
         try {
             int totalActiveSecurities = securityStockRepository.countByIsActiveTrue();
-            LocalDate today = LocalDate.now();
-            LocalDate yesterday = getLastMarketDay();
+            LocalDate today = marketCalendarService.today();
+            LocalDate yesterday = marketCalendarService.lastCompletedTradingDay();
 
             int todayRecords = marketDataRepository.countByMarketDate(today);
             int yesterdayRecords = marketDataRepository.countByMarketDate(yesterday);
@@ -813,14 +888,6 @@ public class MarketDataServiceImpl implements MarketDataService {
         }
     }
 
-    private LocalDate getLastMarketDay() {
-        LocalDate date = LocalDate.now().minusDays(1);
-        while (!isMarketDay(date)) {
-            date = date.minusDays(1);
-        }
-        return date;
-    }
-
     /**
      * Simple stats class for monitoring
      */
@@ -1,12 +1,18 @@
 package com.example.MicroInvestApp.impl.orders;
 
+import com.example.MicroInvestApp.dto.orders.BatchOrderResponseDTO;
 import com.example.MicroInvestApp.dto.orders.TransactionRequestDTO;
 import com.example.MicroInvestApp.dto.orders.TransactionResponseDTO;
+import com.example.MicroInvestApp.events.OrdersTriggeredEvent;
 import com.example.MicroInvestApp.exception.InsufficientFundsException;
 import com.example.MicroInvestApp.exception.Orders.InvalidOrderException;
 import com.example.MicroInvestApp.exception.Orders.OrderNotFoundException;
 import com.example.MicroInvestApp.exception.portfolio.PortfolioNotFoundException;
+import com.example.MicroInvestApp.service.order.LimitOrderTriggerBook;
+import com.example.MicroInvestApp.service.order.OrderExpiryWheel;
+import com.example.MicroInvestApp.service.order.OrderIdempotencyCache;
 import com.example.MicroInvestApp.service.order.OrderService;
+import com.example.MicroInvestApp.service.order.StopOrderTriggerEngine;
 import com.example.MicroInvestApp.domain.orders.Order;
 import com.example.MicroInvestApp.domain.orders.Transaction;
 import com.example.MicroInvestApp.domain.portfolio.Portfolio;
@@ -14,27 +20,40 @@ import com.example.MicroInvestApp.domain.market.SecurityStock;
 import com.example.MicroInvestApp.domain.enums.*;
 import com.example.MicroInvestApp.dto.orders.OrderRequestDTO;
 import com.example.MicroInvestApp.dto.orders.OrderResponseDTO;
+import com.example.MicroInvestApp.repositories.orders.OrderBulkRepository;
 import com.example.MicroInvestApp.repositories.orders.OrderRepository;
 import com.example.MicroInvestApp.repositories.portfolio.PortfolioRepository;
 import com.example.MicroInvestApp.repositories.market.SecurityStockRepository;
 import com.example.MicroInvestApp.service.order.TransactionService;
+import com.example.MicroInvestApp.service.portfolio.PortfolioExecutionLanes;
 import com.example.MicroInvestApp.service.portfolio.PositionService;
+import com.example.MicroInvestApp.service.market.IntradayBarBuilder;
 import com.example.MicroInvestApp.service.market.MarketDataService;
 import com.example.MicroInvestApp.service.market.SecurityCreationService;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.context.event.EventListener;
 //import io.micrometer.core.instrument.MeterRegistry;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -51,6 +70,17 @@ public class OrderServiceImpl implements OrderService {
     private final PositionService positionService;
     private final MarketDataService marketDataService;
     private final SecurityCreationService securityCreationService;
+    private final IntradayBarBuilder intradayBarBuilder;
+    private final LimitOrderTriggerBook limitOrderTriggerBook;
+    private final TransactionTemplate requiresNew;
+    private final StopOrderTriggerEngine stopOrderTriggerEngine;
+    private final OrderExpiryWheel orderExpiryWheel;
+    private final OrderBulkRepository orderBulkRepository;
+    private final OrderIdempotencyCache orderIdempotencyCache;
+    private final PortfolioExecutionLanes portfolioExecutionLanes;
+
+    @Value("${orders.batch.max-orders:100}")
+    private int maxBatchOrders;
     //private final MeterRegistry meterRegistry;
 
     @Autowired
@@ -60,7 +90,15 @@ public class OrderServiceImpl implements OrderService {
                             TransactionService transactionService,
                             PositionService positionService,
                             MarketDataService marketDataService,
-                            SecurityCreationService securityCreationService
+                            SecurityCreationService securityCreationService,
+                            IntradayBarBuilder intradayBarBuilder,
+                            LimitOrderTriggerBook limitOrderTriggerBook,
+                            PlatformTransactionManager transactionManager,
+                            StopOrderTriggerEngine stopOrderTriggerEngine,
+                            OrderExpiryWheel orderExpiryWheel,
+                            OrderBulkRepository orderBulkRepository,
+                            OrderIdempotencyCache orderIdempotencyCache,
+                            PortfolioExecutionLanes portfolioExecutionLanes
                             ) {
         this.orderRepository = orderRepository;
         this.portfolioRepository = portfolioRepository;
@@ -69,15 +107,75 @@ public class OrderServiceImpl implements OrderService {
         this.positionService = positionService;
         this.marketDataService = marketDataService;
         this.securityCreationService = securityCreationService;
+        this.intradayBarBuilder = intradayBarBuilder;
+        this.limitOrderTriggerBook = limitOrderTriggerBook;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.stopOrderTriggerEngine = stopOrderTriggerEngine;
+        this.orderExpiryWheel = orderExpiryWheel;
+        this.orderBulkRepository = orderBulkRepository;
+        this.orderIdempotencyCache = orderIdempotencyCache;
+        this.portfolioExecutionLanes = portfolioExecutionLanes;
 
     }
 
+    /**
+     * Place an order in its own transaction. A retry of an order already placed with the same client order id
+     * gets the original order back, including when the retry loses the race to the unique index to an attempt
+     * still in flight here or on another instance.
+     */
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public OrderResponseDTO createOrder(OrderRequestDTO orderRequest) {
         logger.info("Creating {} order for portfolio {} - {} shares of {}",
                 orderRequest.getOrderSide(), orderRequest.getPortfolioId(),
                 orderRequest.getQuantity(), orderRequest.getStockSymbol());
 
+        String clientOrderId = orderRequest.getClientOrderId();
+        if (clientOrderId != null) {
+            OrderResponseDTO cached = orderIdempotencyCache.get(orderRequest.getPortfolioId(), clientOrderId);
+            if (cached != null) {
+                logger.info("Order with client order id {} already placed as order {}", clientOrderId, cached.getOrderId());
+                return cached;
+            }
+        }
+
+        try {
+            return requiresNew.execute(status -> placeOrder(orderRequest));
+        } catch (DataIntegrityViolationException e) {
+            if (clientOrderId == null) {
+                throw e;
+            }
+            // The failed transaction is gone, so the winner's committed order can be read in a fresh one
+            OrderResponseDTO original = requiresNew.execute(status ->
+                    findPlacedOrder(orderRequest.getPortfolioId(), clientOrderId));
+            if (original == null) {
+                throw e;
+            }
+            logger.info("Order with client order id {} was placed concurrently as order {}", clientOrderId,
+                    original.getOrderId());
+            return original;
+        }
+    }
+
+    private OrderResponseDTO placeOrder(OrderRequestDTO orderRequest) {
+        String clientOrderId = orderRequest.getClientOrderId();
+        if (clientOrderId != null) {
+            if (!orderIdempotencyCache.reserve(orderRequest.getPortfolioId(), clientOrderId)) {
+                throw new InvalidOrderException("Order with client order id " + clientOrderId + " is already being placed");
+            }
+            // Checked again under the reservation: the first attempt may have committed and released the key
+            // after the cache check
+            OrderResponseDTO placed = findPlacedOrder(orderRequest.getPortfolioId(), clientOrderId);
+            if (placed != null) {
+                logger.info("Order with client order id {} already placed as order {}", clientOrderId, placed.getOrderId());
+                return placed;
+            }
+        }
+
+        // Orders for one portfolio are placed one at a time, so funds and shares are checked against settled state
+        portfolioExecutionLanes.enter(orderRequest.getPortfolioId());
+
         // Validate the order request
         if (!validateOrder(orderRequest)) {
             throw new InvalidOrderException("Order validation failed");
@@ -90,15 +188,7 @@ public class OrderServiceImpl implements OrderService {
         // Find or create security
         SecurityStock security = findOrCreateSecurity(orderRequest.getStockSymbol());
 
-        // Create order with OrderSide
-        Order order = new Order(portfolio, security, orderRequest.getQuantity(),
-                orderRequest.getOrderPrice(), orderRequest.getOrderType(),
-                orderRequest.getOrderSide(), orderRequest.getNotes());
-
-        // Set expiry date if provided
-        if (orderRequest.getExpiryDate() != null) {
-            order.setExpiryDate(orderRequest.getExpiryDate());
-        }
+        Order order = buildOrder(orderRequest, portfolio, security);
 
         // Check business rules based on order side
         if (orderRequest.getOrderSide() == OrderSide.BUY) {
@@ -119,16 +209,224 @@ public class OrderServiceImpl implements OrderService {
                 order.markAsFailed("Market execution failed: " + e.getMessage());
                 order = orderRepository.save(order);
             }
+        } else {
+            registerWorkingOrder(order);
+        }
+
+        OrderResponseDTO response = convertToResponseDTO(order);
+        if (clientOrderId != null) {
+            orderIdempotencyCache.put(orderRequest.getPortfolioId(), clientOrderId, response);
         }
 
         logger.info("Order created successfully: {}", order.getOrderId());
-        return convertToResponseDTO(order);
+        return response;
+    }
+
+    /**
+     * Create a basket of orders. Portfolios and securities are resolved for the whole basket at once, funds
+     * and shares are checked cumulatively leg by leg, and the accepted orders are inserted as one JDBC batch.
+     * All-or-nothing rejects the basket if any leg fails and executes its market legs in the same transaction
+     * as the insert; best-effort keeps the valid legs and executes each market leg in its own transaction,
+     * marking it failed on error like a single order. A leg retried with a client order id gets the original
+     * order back, and one whose key another request is placing right now fails like a concurrent single retry.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BatchOrderResponseDTO createOrders(List<OrderRequestDTO> orderRequests, boolean allOrNothing) {
+        logger.info("Creating batch of {} orders ({})", orderRequests.size(), allOrNothing ? "all-or-nothing" : "best-effort");
+
+        if (orderRequests.size() > maxBatchOrders) {
+            throw new InvalidOrderException("Batch exceeds the maximum of " + maxBatchOrders + " orders");
+        }
+        Set<Long> portfolioIds = orderRequests.stream()
+                .map(OrderRequestDTO::getPortfolioId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        // Every portfolio in the basket stays in its lane until the basket is placed, so the cumulative checks hold
+        return portfolioExecutionLanes.execute(portfolioIds, () -> {
+            Map<Long, Set<String>> claimed = new HashMap<>();
+            Set<String> inFlight = claimClientOrderIds(orderRequests, claimed);
+            try {
+                return placeBatch(orderRequests, allOrNothing, portfolioIds, inFlight);
+            } finally {
+                claimed.forEach((portfolioId, keys) ->
+                        keys.forEach(clientOrderId -> orderIdempotencyCache.release(portfolioId, clientOrderId)));
+            }
+        });
+    }
+
+    /**
+     * Claim the client order ids of a basket before they are looked up, as a single order reserves its key, so a
+     * concurrent retry of a leg is turned away instead of racing the basket to the unique index. Returns the
+     * "portfolio:client order id" keys another request is placing right now.
+     */
+    private Set<String> claimClientOrderIds(List<OrderRequestDTO> orderRequests, Map<Long, Set<String>> claimed) {
+        Set<String> inFlight = new HashSet<>();
+        for (OrderRequestDTO orderRequest : orderRequests) {
+            Long portfolioId = orderRequest.getPortfolioId();
+            String clientOrderId = orderRequest.getClientOrderId();
+            if (portfolioId == null || clientOrderId == null
+                    || claimed.getOrDefault(portfolioId, Set.of()).contains(clientOrderId)
+                    || inFlight.contains(portfolioId + ":" + clientOrderId)) {
+                continue;
+            }
+            if (orderIdempotencyCache.claim(portfolioId, clientOrderId)) {
+                claimed.computeIfAbsent(portfolioId, id -> new HashSet<>()).add(clientOrderId);
+            } else {
+                inFlight.add(portfolioId + ":" + clientOrderId);
+            }
+        }
+        return inFlight;
+    }
+
+    private BatchOrderResponseDTO placeBatch(List<OrderRequestDTO> orderRequests, boolean allOrNothing,
+                                             Set<Long> portfolioIds, Set<String> inFlight) {
+        BatchOrderResponseDTO result = new BatchOrderResponseDTO(allOrNothing, orderRequests.size());
+
+        // Portfolios and securities for the whole basket, one query each
+        Map<Long, Portfolio> portfolios = portfolioRepository.findAllById(portfolioIds).stream()
+                .collect(Collectors.toMap(Portfolio::getPortfolioId, portfolio -> portfolio));
+
+        List<String> symbols = orderRequests.stream()
+                .map(OrderRequestDTO::getStockSymbol)
+                .filter(Objects::nonNull)
+                .map(String::toUpperCase)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<String, SecurityStock> securities = new HashMap<>();
+        if (!symbols.isEmpty()) {
+            securityStockRepository.findActiveBySymbolIn(symbols)
+                    .forEach(security -> securities.put(security.getSymbol(), security));
+        }
+
+        // Legs retried with a client order id already placed get the original order back
+        Map<Long, Map<String, OrderResponseDTO>> placed = findPlacedOrders(orderRequests);
+        Set<String> basketClientOrderIds = new HashSet<>();
+
+        // Cash and shares still available to later legs, loaded once per portfolio
+        Map<Long, BigDecimal> cashLeft = new HashMap<>();
+        Map<Long, Map<String, BigDecimal>> sharesLeft = new HashMap<>();
+
+        List<Order> accepted = new ArrayList<>();
+        for (int i = 0; i < orderRequests.size(); i++) {
+            OrderRequestDTO orderRequest = orderRequests.get(i);
+            try {
+                String clientOrderId = orderRequest.getClientOrderId();
+                if (clientOrderId != null) {
+                    OrderResponseDTO original = placed.getOrDefault(orderRequest.getPortfolioId(), Map.of()).get(clientOrderId);
+                    if (original != null) {
+                        result.getCreatedOrders().add(original);
+                        continue;
+                    }
+                    if (inFlight.contains(orderRequest.getPortfolioId() + ":" + clientOrderId)) {
+                        throw new InvalidOrderException("Order with client order id " + clientOrderId + " is already being placed");
+                    }
+                    if (!basketClientOrderIds.add(orderRequest.getPortfolioId() + ":" + clientOrderId)) {
+                        throw new InvalidOrderException("Duplicate client order id in batch: " + clientOrderId);
+                    }
+                }
+                if (!validateOrderParameters(orderRequest)) {
+                    throw new InvalidOrderException("Order validation failed");
+                }
+                if (orderRequest.getOrderType() == OrderType.MARKET && orderRequest.getOrderPrice() != null) {
+                    throw new InvalidOrderException("Market orders cannot have a fixed price");
+                }
+                Portfolio portfolio = portfolios.get(orderRequest.getPortfolioId());
+                if (portfolio == null) {
+                    throw new PortfolioNotFoundException("Portfolio not found: " + orderRequest.getPortfolioId());
+                }
+                SecurityStock security = securities.computeIfAbsent(orderRequest.getStockSymbol().toUpperCase(),
+                        this::findOrCreateSecurity);
+
+                Order order = buildOrder(orderRequest, portfolio, security);
+                Long portfolioId = portfolio.getPortfolioId();
+
+                if (order.getOrderSide() == OrderSide.BUY) {
+                    BigDecimal required = order.getEstimatedTotal();
+                    if (required == null) {
+                        throw new InvalidOrderException("No current price to estimate the total for " + security.getSymbol());
+                    }
+                    BigDecimal available = cashLeft.computeIfAbsent(portfolioId, id -> portfolio.getCashBalance());
+                    if (available.compareTo(required) < 0) {
+                        throw new InsufficientFundsException("Insufficient funds for buy order. Required: " + required +
+                                ", Available: " + available);
+                    }
+                    cashLeft.put(portfolioId, available.subtract(required));
+                } else {
+                    Map<String, BigDecimal> held = sharesLeft.computeIfAbsent(portfolioId,
+                            id -> new HashMap<>(positionService.getCurrentQuantities(id)));
+                    BigDecimal available = held.getOrDefault(security.getSymbol(), BigDecimal.ZERO);
+                    if (available.compareTo(order.getQuantity()) < 0) {
+                        throw new InvalidOrderException("Insufficient shares for sell order. Required: " + order.getQuantity() +
+                                ", Available: " + available + " shares of " + security.getSymbol());
+                    }
+                    held.put(security.getSymbol(), available.subtract(order.getQuantity()));
+                }
+                accepted.add(order);
+            } catch (Exception e) {
+                result.getErrors().add("Order " + (i + 1) + ": " + e.getMessage());
+            }
+        }
+
+        if (allOrNothing && !result.getErrors().isEmpty()) {
+            logger.info("Batch rejected: {} of {} orders failed validation", result.getErrors().size(), orderRequests.size());
+            result.getCreatedOrders().clear();
+            return result;
+        }
+        if (accepted.isEmpty()) {
+            return result;
+        }
+
+        Set<Long> marketOrderIds = new LinkedHashSet<>();
+        List<OrderResponseDTO> created = new ArrayList<>();
+        if (allOrNothing) {
+            try {
+                created = requiresNew.execute(status -> {
+                    persistBatch(accepted, marketOrderIds);
+                    Map<Long, Order> executed = new HashMap<>();
+                    for (Order order : orderRepository.findAllById(marketOrderIds)) {
+                        executed.put(order.getOrderId(), orderRepository.save(executeMarketOrder(order)));
+                    }
+                    List<OrderResponseDTO> orders = new ArrayList<>();
+                    for (Order order : accepted) {
+                        orders.add(convertToResponseDTO(executed.getOrDefault(order.getOrderId(), order)));
+                    }
+                    return orders;
+                });
+            } catch (Exception e) {
+                logger.error("Batch rolled back: {}", e.getMessage());
+                result.getCreatedOrders().clear();
+                result.getErrors().add("Market execution failed: " + e.getMessage());
+                return result;
+            }
+        } else {
+            requiresNew.executeWithoutResult(status -> persistBatch(accepted, marketOrderIds));
+            for (Order order : accepted) {
+                created.add(marketOrderIds.contains(order.getOrderId())
+                        ? executeBatchMarketOrder(order.getOrderId())
+                        : convertToResponseDTO(order));
+            }
+        }
+
+        for (OrderResponseDTO order : created) {
+            if (order.getClientOrderId() != null) {
+                orderIdempotencyCache.put(order.getPortfolioId(), order.getClientOrderId(), order);
+            }
+        }
+        result.getCreatedOrders().addAll(created);
+
+        logger.info("Batch created {} of {} orders", result.getTotalCreated(), orderRequests.size());
+        return result;
     }
 
     @Override
     public OrderResponseDTO executeOrder(Long orderId) {
         logger.info("Executing order: {}", orderId);
 
+        portfolioExecutionLanes.enter(orderRepository.findPortfolioIdByOrderId(orderId)
+                .orElseThrow(() -> new OrderNotFoundException("Order not found: " + orderId)));
+
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new OrderNotFoundException("Order not found: " + orderId));
 
@@ -147,7 +445,8 @@ public class OrderServiceImpl implements OrderService {
             // Execute the order based on type
             if (order.getOrderType() == OrderType.MARKET) {
                 order = executeMarketOrder(order);
-            } else if (order.getOrderType() == OrderType.LIMIT) {
+            } else if (order.getOrderType() == OrderType.LIMIT || order.getStopTriggeredAt() != null) {
+                // A stop-limit whose stop was reached executes like the limit order it rests as
                 order = executeLimitOrder(order);
             }
 
@@ -160,9 +459,43 @@ public class OrderServiceImpl implements OrderService {
             order = orderRepository.save(order);
         }
 
+        if (!order.isActive()) {
+            unregisterWorkingOrder(orderId);
+        }
         return convertToResponseDTO(order);
     }
 
+    /**
+     * Execute a batch of orders popped from the limit trigger book or the stop engine. Each order runs in its
+     * own transaction under a row lock and is re-checked there, so one failure cannot roll back the rest of the
+     * batch and an order filled or cancelled meanwhile (or by another instance) is skipped. Fills use the
+     * triggering price.
+     */
+    @Async("marketDataTaskExecutor")
+    @EventListener
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void handleOrdersTriggered(OrdersTriggeredEvent event) {
+        int filled = 0;
+        for (Map.Entry<Long, BigDecimal> trigger : event.getTriggerPrices().entrySet()) {
+            Long orderId = trigger.getKey();
+            try {
+                Boolean executed = requiresNew.execute(status -> fillTriggeredOrder(orderId, trigger.getValue()));
+                if (Boolean.TRUE.equals(executed)) {
+                    filled++;
+                }
+            } catch (Exception e) {
+                logger.error("Failed to execute triggered order {}: {}", orderId, e.getMessage());
+                requiresNew.executeWithoutResult(status -> orderRepository.findById(orderId).ifPresent(order -> {
+                    if (order.isActive()) {
+                        order.markAsFailed("Execution failed: " + e.getMessage());
+                        orderRepository.save(order);
+                    }
+                }));
+            }
+        }
+        logger.info("Executed {} of {} triggered orders", filled, event.getTriggerPrices().size());
+    }
+
     @Override
     public OrderResponseDTO cancelOrder(Long orderId, String reason) {
         logger.info("Cancelling order: {} with reason: {}", orderId, reason);
@@ -176,6 +509,7 @@ public class OrderServiceImpl implements OrderService {
 
         order.markAsCancelled(reason);
         order = orderRepository.save(order);
+        unregisterWorkingOrder(orderId);
 
         logger.info("Order {} cancelled successfully", orderId);
         return convertToResponseDTO(order);
@@ -288,19 +622,10 @@ public class OrderServiceImpl implements OrderService {
     public void processExpiredOrders() {
         logger.info("Processing expired orders");
 
-        List<Order> expiredOrders = orderRepository.findExpiredOrders(LocalDateTime.now());
+        // The expiry wheel cancels orders as they expire; this catches up on anything it missed in bulk
+        int expired = orderExpiryWheel.sweepExpired();
 
-        for (Order order : expiredOrders) {
-            try {
-                order.markAsCancelled("Order expired");
-                orderRepository.save(order);
-                logger.info("Cancelled expired order: {}", order.getOrderId());
-            } catch (Exception e) {
-                logger.error("Failed to cancel expired order {}: {}", order.getOrderId(), e.getMessage());
-            }
-        }
-
-        logger.info("Processed {} expired orders", expiredOrders.size());
+        logger.info("Processed {} expired orders", expired);
     }
 
     @Override
@@ -339,6 +664,30 @@ public class OrderServiceImpl implements OrderService {
     // Replace the validateOrder method
     @Override
     public boolean validateOrder(OrderRequestDTO orderRequest) {
+        if (!validateOrderParameters(orderRequest)) {
+            return false;
+        }
+
+        // For sell orders, check if user has sufficient shares
+        if (orderRequest.getOrderSide() == OrderSide.SELL) {
+            BigDecimal currentPosition = positionService.getCurrentQuantity(
+                    orderRequest.getPortfolioId(),
+                    orderRequest.getStockSymbol()
+            );
+            if (currentPosition.compareTo(orderRequest.getQuantity()) < 0) {
+                logger.error("Insufficient shares for sell order. Available: {}, Requested: {}",
+                        currentPosition, orderRequest.getQuantity());
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks on the request alone, without looking at the portfolio
+     */
+    private boolean validateOrderParameters(OrderRequestDTO orderRequest) {
         // Basic validation
         if (orderRequest.getQuantity() == null || orderRequest.getQuantity().compareTo(BigDecimal.ZERO) <= 0) {
             logger.error("Invalid quantity: {}", orderRequest.getQuantity());
@@ -351,6 +700,11 @@ public class OrderServiceImpl implements OrderService {
             return false;
         }
 
+        if (orderRequest.getOrderType() == null || orderRequest.getStockSymbol() == null) {
+            logger.error("Order type and stock symbol are required");
+            return false;
+        }
+
         // Validate order type specific requirements
         if (orderRequest.getOrderType().requiresPrice() && orderRequest.getOrderPrice() == null) {
             logger.error("Order price is required for order type: {}", orderRequest.getOrderType());
@@ -362,15 +716,27 @@ public class OrderServiceImpl implements OrderService {
             return false;
         }
 
-        // For sell orders, check if user has sufficient shares
-        if (orderRequest.getOrderSide() == OrderSide.SELL) {
-            BigDecimal currentPosition = positionService.getCurrentQuantity(
-                    orderRequest.getPortfolioId(),
-                    orderRequest.getStockSymbol()
-            );
-            if (currentPosition.compareTo(orderRequest.getQuantity()) < 0) {
-                logger.error("Insufficient shares for sell order. Available: {}, Requested: {}",
-                        currentPosition, orderRequest.getQuantity());
+        // Validate stop and trailing parameters
+        if (orderRequest.getOrderType().requiresStopPrice()
+                && (orderRequest.getStopPrice() == null || orderRequest.getStopPrice().compareTo(BigDecimal.ZERO) <= 0)) {
+            logger.error("Valid stop price is required for order type: {}", orderRequest.getOrderType());
+            return false;
+        }
+
+        if (orderRequest.getOrderType() == OrderType.TRAILING_STOP) {
+            BigDecimal trailAmount = orderRequest.getTrailAmount();
+            BigDecimal trailPercent = orderRequest.getTrailPercent();
+            if ((trailAmount == null) == (trailPercent == null)) {
+                logger.error("Trailing stop requires exactly one of trail amount or trail percent");
+                return false;
+            }
+            if (trailAmount != null && trailAmount.compareTo(BigDecimal.ZERO) <= 0) {
+                logger.error("Invalid trail amount: {}", trailAmount);
+                return false;
+            }
+            if (trailPercent != null && (trailPercent.compareTo(BigDecimal.ZERO) <= 0
+                    || trailPercent.compareTo(new BigDecimal("100")) >= 0)) {
+                logger.error("Invalid trail percent: {}", trailPercent);
                 return false;
             }
         }
@@ -386,6 +752,172 @@ public class OrderServiceImpl implements OrderService {
                 .orElse(false);
     }
 
+    /**
+     * Orders already placed under the client order ids of a basket, by portfolio and client order id; keys
+     * missing from the dedupe cache are looked up in one query
+     */
+    private Map<Long, Map<String, OrderResponseDTO>> findPlacedOrders(List<OrderRequestDTO> orderRequests) {
+        Map<Long, Map<String, OrderResponseDTO>> placed = new HashMap<>();
+        Map<Long, Set<String>> uncached = new HashMap<>();
+        for (OrderRequestDTO orderRequest : orderRequests) {
+            Long portfolioId = orderRequest.getPortfolioId();
+            String clientOrderId = orderRequest.getClientOrderId();
+            if (portfolioId == null || clientOrderId == null) {
+                continue;
+            }
+            OrderResponseDTO cached = orderIdempotencyCache.get(portfolioId, clientOrderId);
+            if (cached != null) {
+                placed.computeIfAbsent(portfolioId, id -> new HashMap<>()).put(clientOrderId, cached);
+            } else {
+                uncached.computeIfAbsent(portfolioId, id -> new HashSet<>()).add(clientOrderId);
+            }
+        }
+        if (uncached.isEmpty()) {
+            return placed;
+        }
+
+        Set<String> clientOrderIds = uncached.values().stream().flatMap(Set::stream).collect(Collectors.toSet());
+        requiresNew.executeWithoutResult(status -> {
+            for (Order order : orderRepository.findByPortfolioIdsAndClientOrderIds(uncached.keySet(), clientOrderIds)) {
+                Long portfolioId = order.getPortfolio().getPortfolioId();
+                if (uncached.get(portfolioId).remove(order.getClientOrderId())) {
+                    OrderResponseDTO original = convertToResponseDTO(order);
+                    orderIdempotencyCache.recordDatabaseHit(portfolioId, order.getClientOrderId(), original);
+                    placed.computeIfAbsent(portfolioId, id -> new HashMap<>()).put(order.getClientOrderId(), original);
+                }
+            }
+        });
+        uncached.values().forEach(keys -> keys.forEach(key -> orderIdempotencyCache.recordMiss()));
+        return placed;
+    }
+
+    /**
+     * The order already placed under a client order id, from the dedupe cache or else the database
+     */
+    private OrderResponseDTO findPlacedOrder(Long portfolioId, String clientOrderId) {
+        OrderResponseDTO cached = orderIdempotencyCache.get(portfolioId, clientOrderId);
+        if (cached != null) {
+            return cached;
+        }
+        return orderRepository.findByPortfolioIdAndClientOrderId(portfolioId, clientOrderId)
+                .map(order -> {
+                    OrderResponseDTO placed = convertToResponseDTO(order);
+                    orderIdempotencyCache.recordDatabaseHit(portfolioId, clientOrderId, placed);
+                    return placed;
+                })
+                .orElseGet(() -> {
+                    orderIdempotencyCache.recordMiss();
+                    return null;
+                });
+    }
+
+    private Order buildOrder(OrderRequestDTO orderRequest, Portfolio portfolio, SecurityStock security) {
+        // Create order with OrderSide
+        Order order = new Order(portfolio, security, orderRequest.getQuantity(),
+                orderRequest.getOrderPrice(), orderRequest.getOrderType(),
+                orderRequest.getOrderSide(), orderRequest.getNotes());
+
+        // Set expiry date if provided
+        if (orderRequest.getExpiryDate() != null) {
+            order.setExpiryDate(orderRequest.getExpiryDate());
+        }
+        order.setClientOrderId(orderRequest.getClientOrderId());
+
+        // Stop parameters; a trailing stop starts trailing from the current price
+        order.setStopPrice(orderRequest.getStopPrice());
+        if (orderRequest.getOrderType() == OrderType.TRAILING_STOP) {
+            order.setTrailAmount(orderRequest.getTrailAmount());
+            order.setTrailPercent(orderRequest.getTrailPercent());
+            BigDecimal reference = security.getCurrentPrice();
+            if (reference == null || reference.compareTo(BigDecimal.ZERO) <= 0) {
+                reference = marketDataService.updateCurrentPrice(security.getSymbol()).getCurrentPrice();
+            }
+            if (reference == null || reference.compareTo(BigDecimal.ZERO) <= 0) {
+                throw new InvalidOrderException("No current price to trail from for " + security.getSymbol());
+            }
+            order.setStopPrice(StopOrderTriggerEngine.trailingStopPrice(orderRequest.getOrderSide(), reference,
+                    orderRequest.getTrailAmount(), orderRequest.getTrailPercent()));
+        }
+        return order;
+    }
+
+    /**
+     * Hand a saved non-market order to the structures that fill, trigger and expire it
+     */
+    private void registerWorkingOrder(Order order) {
+        if (order.getOrderType() == OrderType.LIMIT) {
+            // Rests in the trigger book and fills on the first price update that reaches the limit
+            limitOrderTriggerBook.add(order);
+        } else if (order.getOrderType().isStopOrder()) {
+            // Armed in the stop engine and filled at market or rested at its limit when the stop is reached;
+            // a stop-limit already past its stop goes straight to the trigger book
+            stopOrderTriggerEngine.add(order);
+            limitOrderTriggerBook.add(order);
+        }
+
+        // Working orders with an expiry date are cancelled by the expiry wheel when it passes
+        orderExpiryWheel.schedule(order);
+    }
+
+    /**
+     * Take an order that stopped working out of the trigger structures and the expiry wheel once the
+     * transaction commits; if it rolls back the order is still working and stays tracked
+     */
+    private void unregisterWorkingOrder(Long orderId) {
+        Runnable unregister = () -> {
+            limitOrderTriggerBook.remove(orderId);
+            stopOrderTriggerEngine.remove(orderId);
+            orderExpiryWheel.remove(orderId);
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    unregister.run();
+                }
+            });
+        } else {
+            unregister.run();
+        }
+    }
+
+    /**
+     * Insert a batch of accepted orders, registering the working ones and collecting the market ones
+     */
+    private void persistBatch(List<Order> orders, Set<Long> marketOrderIds) {
+        int roundTrips = orderBulkRepository.insertOrders(orders);
+        for (Order order : orders) {
+            if (order.getOrderType() == OrderType.MARKET) {
+                marketOrderIds.add(order.getOrderId());
+            } else {
+                registerWorkingOrder(order);
+            }
+        }
+        logger.debug("Inserted {} orders in {} round-trips", orders.size(), roundTrips);
+    }
+
+    /**
+     * Execute one market leg of a best-effort batch in its own transaction; a failure marks only that order failed
+     */
+    private OrderResponseDTO executeBatchMarketOrder(Long orderId) {
+        try {
+            return requiresNew.execute(status -> {
+                Order order = orderRepository.findById(orderId)
+                        .orElseThrow(() -> new OrderNotFoundException("Order not found: " + orderId));
+                return convertToResponseDTO(orderRepository.save(executeMarketOrder(order)));
+            });
+        } catch (Exception e) {
+            logger.error("Failed to execute market order {}: {}", orderId, e.getMessage());
+            return requiresNew.execute(status -> {
+                Order order = orderRepository.findById(orderId)
+                        .orElseThrow(() -> new OrderNotFoundException("Order not found: " + orderId));
+                order.markAsFailed("Market execution failed: " + e.getMessage());
+                return convertToResponseDTO(orderRepository.save(order));
+            });
+        }
+    }
+
     // Enhanced helper methods with OrderSide support
     private SecurityStock findOrCreateSecurity(String symbol) {
         Optional<SecurityStock> existing = securityStockRepository.findBySymbol(symbol.toUpperCase());
@@ -420,6 +952,61 @@ public class OrderServiceImpl implements OrderService {
         }
     }
 
+    private boolean fillTriggeredOrder(Long orderId, BigDecimal triggerPrice) {
+        // The portfolio's lane before the order's row lock, the same order as every other execution path
+        Long portfolioId = orderRepository.findPortfolioIdByOrderId(orderId).orElse(null);
+        if (portfolioId == null) {
+            return false;
+        }
+        portfolioExecutionLanes.enter(portfolioId);
+
+        Order order = orderRepository.findByIdForUpdate(orderId).orElse(null);
+        if (order == null || !order.isActive()) {
+            return false;
+        }
+
+        // The order keeps its type; only the way it fills follows from it
+        OrderType triggeredType = order.getOrderType();
+        switch (triggeredType) {
+            case STOP_LOSS, TRAILING_STOP -> {
+                // Stop reached: fills at the trigger price like a market order
+            }
+            case STOP_LIMIT -> {
+                // Stop reached: rests in the limit book at its limit unless the limit is already met
+                if (order.getStopTriggeredAt() == null) {
+                    order.setStopTriggeredAt(Instant.now());
+                }
+                if (!isLimitSatisfied(order, triggerPrice)) {
+                    orderRepository.save(order);
+                    limitOrderTriggerBook.add(order);
+                    logger.info("Stop-limit order {} triggered at ${}, resting as limit ${}",
+                            orderId, triggerPrice, order.getOrderPrice());
+                    return false;
+                }
+            }
+            case LIMIT -> {
+                if (!isLimitSatisfied(order, triggerPrice)) {
+                    limitOrderTriggerBook.add(order);
+                    return false;
+                }
+            }
+            default -> {
+                return false;
+            }
+        }
+
+        if (order.getOrderSide() == OrderSide.BUY) {
+            checkSufficientFundsForBuyOrder(order.getPortfolio(), order.getEstimatedTotal());
+        } else if (order.getOrderSide() == OrderSide.SELL) {
+            checkSufficientSharesForSellOrder(order.getPortfolio(), order.getSecurityStock(), order.getQuantity());
+        }
+
+        logger.info("{} order {} triggered at ${}, executing", triggeredType, orderId, triggerPrice);
+        orderRepository.save(executeMarketOrder(order, triggerPrice));
+        unregisterWorkingOrder(orderId);
+        return true;
+    }
+
     // ✅ REPLACE THE EXISTING TRANSACTION REQUEST CREATION WITH THIS:
     private Order executeMarketOrder(Order order) {
         // Get current market price
@@ -432,6 +1019,11 @@ public class OrderServiceImpl implements OrderService {
                 throw new RuntimeException("Unable to get current market price for " + order.getSecurityStock().getSymbol());
             }
         }
+        return executeMarketOrder(order, currentPrice);
+    }
+
+    private Order executeMarketOrder(Order order, BigDecimal currentPrice) {
+        portfolioExecutionLanes.enter(order.getPortfolio().getPortfolioId());
 
         // Calculate total amount and fees
         BigDecimal totalAmount = order.getQuantity().multiply(currentPrice).setScale(2, RoundingMode.HALF_UP);
@@ -460,6 +1052,7 @@ public class OrderServiceImpl implements OrderService {
         order.setAverageFillPrice(currentPrice.setScale(4, RoundingMode.HALF_UP));
         order.setTotalFees(fees);
         order.markAsExecuted();
+        intradayBarBuilder.record(order.getSecurityStock().getSymbol(), currentPrice, 0L, System.currentTimeMillis());
 
         logger.info("Market order {} executed: {} {} shares at ${}",
                 order.getOrderId(), transactionType, order.getQuantity(), currentPrice);
@@ -469,18 +1062,8 @@ public class OrderServiceImpl implements OrderService {
 
     private Order executeLimitOrder(Order order) {
         BigDecimal currentPrice = order.getSecurityStock().getCurrentPrice();
-        boolean shouldExecute = false;
 
-        // Check execution conditions based on order side
-        if (order.getOrderSide() == OrderSide.BUY) {
-            // Buy limit: execute if current price <= limit price
-            shouldExecute = currentPrice.compareTo(order.getOrderPrice()) <= 0;
-        } else if (order.getOrderSide() == OrderSide.SELL) {
-            // Sell limit: execute if current price >= limit price
-            shouldExecute = currentPrice.compareTo(order.getOrderPrice()) >= 0;
-        }
-
-        if (shouldExecute) {
+        if (isLimitSatisfied(order, currentPrice)) {
             logger.info("Limit order {} conditions met, executing at current price", order.getOrderId());
             return executeMarketOrder(order);
         } else {
@@ -489,6 +1072,21 @@ public class OrderServiceImpl implements OrderService {
         }
     }
 
+    private boolean isLimitSatisfied(Order order, BigDecimal price) {
+        if (price == null) {
+            return false;
+        }
+        // Check execution conditions based on order side
+        if (order.getOrderSide() == OrderSide.BUY) {
+            // Buy limit: execute if current price <= limit price
+            return price.compareTo(order.getOrderPrice()) <= 0;
+        } else if (order.getOrderSide() == OrderSide.SELL) {
+            // Sell limit: execute if current price >= limit price
+            return price.compareTo(order.getOrderPrice()) >= 0;
+        }
+        return false;
+    }
+
     private BigDecimal calculateOrderFees(BigDecimal totalAmount) {
         // Enhanced fee structure: 0.5% with minimum $1.00, maximum $50.00
         BigDecimal feeRate = new BigDecimal("0.005"); // 0.5%
@@ -524,6 +1122,9 @@ public class OrderServiceImpl implements OrderService {
         dto.setCompanyName(order.getSecurityStock().getCompanyName());
         dto.setQuantity(order.getQuantity());
         dto.setOrderPrice(order.getOrderPrice());
+        dto.setStopPrice(order.getStopPrice());
+        dto.setTrailAmount(order.getTrailAmount());
+        dto.setTrailPercent(order.getTrailPercent());
         dto.setEstimatedTotal(order.getEstimatedTotal());
         dto.setFilledQuantity(order.getFilledQuantity());
         dto.setAverageFillPrice(order.getAverageFillPrice());
@@ -536,6 +1137,7 @@ public class OrderServiceImpl implements OrderService {
         dto.setOrderCancelledDate(order.getOrderCancelledDate());
         dto.setExpiryDate(order.getExpiryDate());
         dto.setNotes(order.getNotes());
+        dto.setClientOrderId(order.getClientOrderId());
         dto.setCancellationReason(order.getCancellationReason());
         dto.setCreatedAt(order.getCreatedAt());
         dto.setLastUpdated(order.getLastUpdated());
@@ -557,10 +1159,14 @@ public class OrderServiceImpl implements OrderService {
         dto.setStockSymbol(order.getSecurityStock().getSymbol());
         dto.setQuantity(order.getQuantity());
         dto.setOrderPrice(order.getOrderPrice());
+        dto.setStopPrice(order.getStopPrice());
+        dto.setTrailAmount(order.getTrailAmount());
+        dto.setTrailPercent(order.getTrailPercent());
         dto.setOrderType(order.getOrderType());
         dto.setOrderSide(order.getOrderSide()); // Set the order side
         dto.setExpiryDate(order.getExpiryDate());
         dto.setNotes(order.getNotes());
+        dto.setClientOrderId(order.getClientOrderId());
         return dto;
     }
 }
\ No newline at end of file
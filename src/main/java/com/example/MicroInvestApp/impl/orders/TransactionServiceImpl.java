@@ -18,6 +18,7 @@ import com.example.MicroInvestApp.repositories.orders.TransactionRepository;
 import com.example.MicroInvestApp.repositories.orders.OrderRepository;
 import com.example.MicroInvestApp.repositories.portfolio.PortfolioRepository;
 import com.example.MicroInvestApp.repositories.market.SecurityStockRepository;
+import com.example.MicroInvestApp.service.portfolio.PortfolioExecutionLanes;
 import com.example.MicroInvestApp.service.portfolio.PositionService;
 import com.example.MicroInvestApp.repositories.portfolio.PositionRepository;
 
@@ -50,6 +51,7 @@ public class TransactionServiceImpl implements TransactionService {
     private final PositionService positionService;
     private final PositionRepository positionRepository;
     private final ApplicationEventPublisher eventPublisher;
+    private final PortfolioExecutionLanes portfolioExecutionLanes;
 
     @Autowired
     public TransactionServiceImpl(TransactionRepository transactionRepository,
@@ -57,7 +59,8 @@ public class TransactionServiceImpl implements TransactionService {
                                   PortfolioRepository portfolioRepository,
                                   SecurityStockRepository securityStockRepository,
                                   PositionService positionService,
-                                  PositionRepository positionRepository, ApplicationEventPublisher eventPublisher) {
+                                  PositionRepository positionRepository, ApplicationEventPublisher eventPublisher,
+                                  PortfolioExecutionLanes portfolioExecutionLanes) {
         this.transactionRepository = transactionRepository;
         this.orderRepository = orderRepository;
         this.portfolioRepository = portfolioRepository;
@@ -65,6 +68,7 @@ public class TransactionServiceImpl implements TransactionService {
         this.positionService = positionService;
         this.positionRepository = positionRepository;
         this.eventPublisher = eventPublisher;
+        this.portfolioExecutionLanes = portfolioExecutionLanes;
     }
 
     @Override
@@ -75,6 +79,9 @@ public class TransactionServiceImpl implements TransactionService {
                 transactionRequest.getQuantity(),
                 transactionRequest.getStockSymbol());
 
+        // Cash and positions of a portfolio are changed by one transaction at a time
+        portfolioExecutionLanes.enter(transactionRequest.getPortfolioId());
+
         // Find portfolio
         Portfolio portfolio = portfolioRepository.findById(transactionRequest.getPortfolioId())
                 .orElseThrow(() -> new PortfolioNotFoundException("Portfolio not found: " + transactionRequest.getPortfolioId()));
@@ -476,7 +483,8 @@ public class TransactionServiceImpl implements TransactionService {
     // Replace updatePortfolioCashBalance method
     @Transactional
     private void updatePortfolioCashBalance(Transaction transaction) {
-        // Lock the portfolio for update to prevent concurrent modifications
+        // Hold the portfolio's lane so concurrent cash updates cannot interleave
+        portfolioExecutionLanes.enter(transaction.getPortfolio().getPortfolioId());
         Portfolio portfolio = portfolioRepository.findById(transaction.getPortfolio().getPortfolioId())
                 .orElseThrow(() -> new PortfolioNotFoundException("Portfolio not found"));
 
@@ -12,6 +12,7 @@ import com.example.MicroInvestApp.exception.portfolio.PortfolioAlreadyExistsExce
 import com.example.MicroInvestApp.repositories.portfolio.PortfolioRepository;
 import com.example.MicroInvestApp.repositories.portfolio.PositionRepository;
 import com.example.MicroInvestApp.repositories.user.UserAccountRepository;
+import com.example.MicroInvestApp.service.portfolio.PortfolioExecutionLanes;
 import com.example.MicroInvestApp.service.portfolio.PortfolioService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,14 +39,17 @@ public class PortfolioServiceImpl implements PortfolioService {
     private final PortfolioRepository portfolioRepository;
     private final PositionRepository positionRepository;
     private final UserAccountRepository userAccountRepository;
+    private final PortfolioExecutionLanes portfolioExecutionLanes;
 
     @Autowired
     public PortfolioServiceImpl(PortfolioRepository portfolioRepository,
                                 PositionRepository positionRepository,
-                                UserAccountRepository userAccountRepository) {
+                                UserAccountRepository userAccountRepository,
+                                PortfolioExecutionLanes portfolioExecutionLanes) {
         this.portfolioRepository = portfolioRepository;
         this.positionRepository = positionRepository;
         this.userAccountRepository = userAccountRepository;
+        this.portfolioExecutionLanes = portfolioExecutionLanes;
     }
 
     @Override
@@ -249,6 +253,7 @@ public class PortfolioServiceImpl implements PortfolioService {
             throw new IllegalArgumentException("Cash amount must be positive");
         }
 
+        portfolioExecutionLanes.enter(portfolioId);
         Portfolio portfolio = portfolioRepository.findById(portfolioId)
                 .orElseThrow(() -> new PortfolioNotFoundException("Portfolio not found with ID: " + portfolioId));
 
@@ -271,6 +276,7 @@ public class PortfolioServiceImpl implements PortfolioService {
             throw new IllegalArgumentException("Withdrawal amount must be positive");
         }
 
+        portfolioExecutionLanes.enter(portfolioId);
         Portfolio portfolio = portfolioRepository.findById(portfolioId)
                 .orElseThrow(() -> new PortfolioNotFoundException("Portfolio not found with ID: " + portfolioId));
 
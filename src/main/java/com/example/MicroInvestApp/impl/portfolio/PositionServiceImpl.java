@@ -11,7 +11,9 @@ import com.example.MicroInvestApp.repositories.portfolio.PortfolioRepository;
 import com.example.MicroInvestApp.repositories.market.SecurityStockRepository;
 import com.example.MicroInvestApp.service.portfolio.PositionDayChangeService;
 import com.example.MicroInvestApp.service.portfolio.PositionService;
+import com.example.MicroInvestApp.service.market.FinnhubRateGovernor;
 import com.example.MicroInvestApp.service.market.MarketDataService;
+import com.example.MicroInvestApp.service.cluster.ClusterCoordinator;
 import com.example.MicroInvestApp.exception.portfolio.PositionNotFoundException;
 import com.example.MicroInvestApp.exception.portfolio.PortfolioNotFoundException;
 import com.example.MicroInvestApp.exception.portfolio.PositionCalculationException;
@@ -30,7 +32,9 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
@@ -53,18 +57,24 @@ public class PositionServiceImpl implements PositionService {
     private final SecurityStockRepository securityStockRepository;
     private final MarketDataService marketDataService;
     private final PositionDayChangeService positionDayChangeService;
+    private final ClusterCoordinator clusterCoordinator;
+    private final FinnhubRateGovernor rateGovernor;
 
     @Autowired
     public PositionServiceImpl(PositionRepository positionRepository,
                                PortfolioRepository portfolioRepository,
                                SecurityStockRepository securityStockRepository,
                                MarketDataService marketDataService,
-                               PositionDayChangeService positionDayChangeService) {
+                               PositionDayChangeService positionDayChangeService,
+                               ClusterCoordinator clusterCoordinator,
+                               FinnhubRateGovernor rateGovernor) {
         this.positionRepository = positionRepository;
         this.portfolioRepository = portfolioRepository;
         this.securityStockRepository = securityStockRepository;
         this.marketDataService = marketDataService;
         this.positionDayChangeService = positionDayChangeService;
+        this.clusterCoordinator = clusterCoordinator;
+        this.rateGovernor = rateGovernor;
     }
 
     // ===== ENHANCED TRANSACTION PROCESSING =====
@@ -205,11 +215,29 @@ public class PositionServiceImpl implements PositionService {
                 updatedCount, positions.size(), portfolioId);
     }
 
+    /**
+     * Scheduled revaluation; only the cluster leader runs it so replicas do not race on the same positions.
+     * Asynchronous itself, since calling the @Async updateAllPositionValues() from here would bypass the proxy.
+     */
+    @Scheduled(fixedRate = 300000) // 5 minutes
+    @Async
+    @Transactional
+    public void scheduledPositionValueUpdate() {
+        if (!clusterCoordinator.isLeader()) {
+            return;
+        }
+
+        revalueAllPositions();
+    }
+
     @Override
     @Async
-    @Scheduled(fixedRate = 300000) // 5 minutes
     @Transactional
     public void updateAllPositionValues() {
+        revalueAllPositions();
+    }
+
+    private void revalueAllPositions() {
         logger.info("Starting scheduled update of all position values");
         Instant startTime = Instant.now();
 
@@ -296,6 +324,16 @@ public class PositionServiceImpl implements PositionService {
         }
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, BigDecimal> getCurrentQuantities(Long portfolioId) {
+        Map<String, BigDecimal> quantities = new HashMap<>();
+        for (Position position : positionRepository.findActiveByPortfolioIdWithSecurity(portfolioId)) {
+            quantities.merge(position.getSecurityStock().getSymbol(), position.getQuantity(), BigDecimal::add);
+        }
+        return quantities;
+    }
+
     @Override
     @Transactional(readOnly = true)
     public BigDecimal getCurrentValue(Long portfolioId, String stockSymbol) {
@@ -330,7 +368,7 @@ public class PositionServiceImpl implements PositionService {
         try {
             // Fetch latest market data
             String symbol = position.getSecurityStock().getSymbol();
-            marketDataService.updateCurrentPrice(symbol);
+            refreshQuote(symbol);
 
             // Update position value
             if (updatePositionCurrentValue(position)) {
@@ -358,7 +396,7 @@ public class PositionServiceImpl implements PositionService {
         for (Position position : positions) {
             try {
                 String symbol = position.getSecurityStock().getSymbol();
-                marketDataService.updateCurrentPrice(symbol);
+                refreshQuote(symbol);
 
                 if (updatePositionCurrentValue(position)) {
                     positionRepository.save(position);
@@ -375,6 +413,14 @@ public class PositionServiceImpl implements PositionService {
                 refreshedCount, positions.size(), portfolioId);
     }
 
+    /**
+     * Revaluation quotes queue behind the background lane, so they never take budget from order placement
+     * or user-facing quote lookups
+     */
+    private void refreshQuote(String symbol) {
+        rateGovernor.inLane(FinnhubRateGovernor.Lane.BACKGROUND, () -> marketDataService.updateCurrentPrice(symbol));
+    }
+
     // ===== ENHANCED ANALYTICS =====
 
     @Override
@@ -0,0 +1,91 @@
+package com.example.MicroInvestApp.repositories.cluster;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Atomic heartbeat and lease statements over ClusterNode and ClusterLease.
+ * All times come from the database clock so node clock skew cannot hand a lease to two owners. PostgreSQL only.
+ */
+@Repository
+public class ClusterCoordinationRepository {
+
+    private static final String HEARTBEAT_SQL =
+            "INSERT INTO cluster_node (node_id, started_at, heartbeat_at) VALUES (?, now(), now()) " +
+            "ON CONFLICT (node_id) DO UPDATE SET heartbeat_at = now()";
+
+    private static final String LIVE_NODES_SQL =
+            "SELECT node_id FROM cluster_node WHERE heartbeat_at > now() - (? * interval '1 millisecond') " +
+            "ORDER BY node_id";
+
+    private static final String PURGE_NODES_SQL =
+            "DELETE FROM cluster_node WHERE heartbeat_at < now() - (? * interval '1 millisecond')";
+
+    private static final String REMOVE_NODE_SQL =
+            "DELETE FROM cluster_node WHERE node_id = ?";
+
+    // Takes the lease when it is free or expired, renews it when already owned; no row back means another owner holds it
+    private static final String ACQUIRE_LEASE_SQL =
+            "INSERT INTO cluster_lease (lease_name, owner_node, acquired_at, expires_at) " +
+            "VALUES (?, ?, now(), now() + (? * interval '1 millisecond')) " +
+            "ON CONFLICT (lease_name) DO UPDATE SET " +
+            "owner_node = EXCLUDED.owner_node, expires_at = EXCLUDED.expires_at, " +
+            "acquired_at = CASE WHEN cluster_lease.owner_node = EXCLUDED.owner_node " +
+            "                   THEN cluster_lease.acquired_at ELSE EXCLUDED.acquired_at END " +
+            "WHERE cluster_lease.owner_node = EXCLUDED.owner_node OR cluster_lease.expires_at < now() " +
+            "RETURNING owner_node";
+
+    private static final String RELEASE_LEASE_SQL =
+            "DELETE FROM cluster_lease WHERE lease_name = ? AND owner_node = ?";
+
+    private static final String LEASE_OWNER_SQL =
+            "SELECT owner_node FROM cluster_lease WHERE lease_name = ? AND expires_at > now()";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ClusterCoordinationRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void heartbeat(String nodeId) {
+        jdbcTemplate.update(HEARTBEAT_SQL, nodeId);
+    }
+
+    /**
+     * Nodes that sent a heartbeat within the given window, ordered by id
+     */
+    public List<String> findLiveNodes(long windowMs) {
+        return jdbcTemplate.queryForList(LIVE_NODES_SQL, String.class, windowMs);
+    }
+
+    public int purgeNodesSilentFor(long windowMs) {
+        return jdbcTemplate.update(PURGE_NODES_SQL, windowMs);
+    }
+
+    public void removeNode(String nodeId) {
+        jdbcTemplate.update(REMOVE_NODE_SQL, nodeId);
+    }
+
+    /**
+     * Acquire or renew a lease for the given duration. Returns true when this node holds it afterwards.
+     */
+    public boolean tryAcquireLease(String leaseName, String nodeId, long ttlMs) {
+        return !jdbcTemplate.queryForList(ACQUIRE_LEASE_SQL, String.class, leaseName, nodeId, ttlMs).isEmpty();
+    }
+
+    public void releaseLease(String leaseName, String nodeId) {
+        jdbcTemplate.update(RELEASE_LEASE_SQL, leaseName, nodeId);
+    }
+
+    /**
+     * Current unexpired owner of a lease, or null when nobody holds it
+     */
+    public String findLeaseOwner(String leaseName) {
+        List<String> owners = jdbcTemplate.queryForList(LEASE_OWNER_SQL, String.class, leaseName);
+        return owners.isEmpty() ? null : owners.get(0);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.MicroInvestApp.repositories.market;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Atomic claim and requeue statements over BackfillChunk, so nodes running backfills at the same time never
+ * fetch the same chunk. Each statement commits on its own. PostgreSQL only.
+ */
+@Repository
+public class BackfillChunkClaimRepository {
+
+    // Locked candidates are skipped, so concurrent claimers each get a different chunk without waiting
+    private static final String CLAIM_SQL =
+            "UPDATE backfill_chunk SET status = 'IN_PROGRESS', owner_node = ?, attempts = attempts + 1, " +
+            "last_updated = now() " +
+            "WHERE chunk_id = (SELECT chunk_id FROM backfill_chunk " +
+            "                  WHERE status = 'PENDING' AND attempts < ? AND chunk_id > ? " +
+            "                  ORDER BY chunk_id LIMIT 1 FOR UPDATE SKIP LOCKED) " +
+            "RETURNING chunk_id";
+
+    private static final String REQUEUE_SQL =
+            "UPDATE backfill_chunk SET status = 'PENDING', owner_node = NULL, last_updated = now() " +
+            "WHERE status = 'IN_PROGRESS' AND (owner_node IS NULL OR owner_node = ? " +
+            "OR last_updated < now() - (? * interval '1 millisecond')";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public BackfillChunkClaimRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Claim the first pending chunk after the given id that still has attempts left, counting the attempt.
+     * Returns the chunk id, or null when nothing is left to claim.
+     */
+    public Long claimNext(String nodeId, int maxAttempts, long afterChunkId) {
+        List<Long> claimed = jdbcTemplate.queryForList(CLAIM_SQL, Long.class, nodeId, maxAttempts, afterChunkId);
+        return claimed.isEmpty() ? null : claimed.get(0);
+    }
+
+    /**
+     * Put back in-progress chunks that nobody is running any more: ones held by this node (which has no run
+     * active when it calls this), ones claimed longer ago than the stale window, and - when cluster
+     * membership is known - ones whose owner is not among the live nodes. Returns the chunks requeued.
+     */
+    public int requeueOrphaned(String nodeId, Collection<String> liveNodes, long staleAfterMs) {
+        List<Object> args = new ArrayList<>(List.of(nodeId, staleAfterMs));
+        StringBuilder sql = new StringBuilder(REQUEUE_SQL);
+        if (liveNodes != null && !liveNodes.isEmpty()) {
+            sql.append(" OR owner_node NOT IN (")
+                    .append(String.join(", ", Collections.nCopies(liveNodes.size(), "?")))
+                    .append(")");
+            args.addAll(liveNodes);
+        }
+        sql.append(")");
+        return jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+}
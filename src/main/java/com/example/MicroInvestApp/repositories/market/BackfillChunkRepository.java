@@ -0,0 +1,22 @@
+package com.example.MicroInvestApp.repositories.market;
+
+import com.example.MicroInvestApp.domain.market.BackfillChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BackfillChunkRepository extends JpaRepository<BackfillChunk, Long> {
+
+    // Per-status chunk counts and rows written for one job
+    @Query("SELECT c.status, COUNT(c), COALESCE(SUM(c.rowsWritten), 0) FROM BackfillChunk c " +
+            "WHERE c.jobId = :jobId GROUP BY c.status")
+    List<Object[]> summarizeJob(@Param("jobId") String jobId);
+
+    // Most recently created job id
+    @Query("SELECT c.jobId FROM BackfillChunk c ORDER BY c.chunkId DESC LIMIT 1")
+    List<String> findLatestJobId();
+}
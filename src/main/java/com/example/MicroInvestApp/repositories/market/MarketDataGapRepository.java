@@ -0,0 +1,211 @@
+package com.example.MicroInvestApp.repositories.market;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Set-based gap and quality detection over MarketData and PriceHistory for the whole active universe.
+ * PostgreSQL only.
+ */
+@Repository
+public class MarketDataGapRepository {
+
+    private static final String NO_MARKET_DATA =
+            "NOT EXISTS (SELECT 1 FROM market_data md" +
+            "            WHERE md.security_id = s.security_id AND md.market_date = days.day)";
+
+    private static final String NO_PRICE_HISTORY =
+            "NOT EXISTS (SELECT 1 FROM price_history ph" +
+            "            WHERE ph.security_id = s.security_id AND ph.date = days.day)";
+
+    private static final String MISSING_SESSION_RANGES_SQL = missingRunsSql(NO_MARKET_DATA);
+
+    private static final String MISSING_HISTORY_RANGES_SQL =
+            missingRunsSql("(" + NO_MARKET_DATA + " OR " + NO_PRICE_HISTORY + ")");
+
+    /*
+     * One pass over the window's bars per active security. Window functions mark each security's newest bar
+     * and bars repeating the previous bar exactly (a provider replaying yesterday's quote); aggregates count
+     * bars on and off the trading calendar and bars whose OHLC/volume cannot be right.
+     */
+    private static final String QUALITY_SQL =
+            "WITH bars AS (" +
+            "  SELECT md.security_id, md.market_date, md.last_updated, md.open_price, md.high_price," +
+            "         md.low_price, md.close_price, md.volume," +
+            "         ROW_NUMBER() OVER (PARTITION BY md.security_id ORDER BY md.market_date DESC) AS recency," +
+            "         (md.open_price, md.high_price, md.low_price, md.close_price, md.volume) =" +
+            "         (LAG(md.open_price) OVER w, LAG(md.high_price) OVER w, LAG(md.low_price) OVER w," +
+            "          LAG(md.close_price) OVER w, LAG(md.volume) OVER w) AS repeated" +
+            "  FROM market_data md" +
+            "  WHERE md.market_date BETWEEN ? AND ?" +
+            "  WINDOW w AS (PARTITION BY md.security_id ORDER BY md.market_date)" +
+            ") " +
+            "SELECT s.security_symbol," +
+            "       COUNT(b.market_date) FILTER (WHERE b.market_date = ANY(?::date[])) AS session_bars," +
+            "       COUNT(b.market_date) FILTER (WHERE b.market_date <> ALL(?::date[])) AS off_calendar_bars," +
+            "       COUNT(*) FILTER (WHERE b.repeated) AS repeated_bars," +
+            "       COUNT(*) FILTER (WHERE b.high_price < b.low_price" +
+            "                           OR b.open_price NOT BETWEEN b.low_price AND b.high_price" +
+            "                           OR b.close_price NOT BETWEEN b.low_price AND b.high_price" +
+            "                           OR b.low_price <= 0 OR b.volume < 0) AS invalid_bars," +
+            "       MAX(b.market_date) AS latest_date," +
+            "       MAX(b.last_updated) FILTER (WHERE b.recency = 1) AS latest_update " +
+            "FROM security_stock s LEFT JOIN bars b ON b.security_id = s.security_id " +
+            "WHERE s.security_active = true " +
+            "GROUP BY s.security_id, s.security_symbol " +
+            "ORDER BY s.security_symbol";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public MarketDataGapRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Every run of consecutive trading sessions without a MarketData row, per active security, in one query.
+     * Holidays are not in the session list, so they never show up as gaps.
+     */
+    public List<MissingRange> findMissingSessionRanges(List<LocalDate> sessions) {
+        return findMissingRanges(MISSING_SESSION_RANGES_SQL, sessions);
+    }
+
+    /**
+     * Every run of consecutive trading sessions missing a MarketData row or a PriceHistory bar, per active
+     * security, in one query. This is what a historical backfill has to fetch.
+     */
+    public List<MissingRange> findMissingHistoryRanges(List<LocalDate> sessions) {
+        return findMissingRanges(MISSING_HISTORY_RANGES_SQL, sessions);
+    }
+
+    /**
+     * Bar counts, anomalies and freshness for every active security over the sessions' date span, in one query
+     */
+    public List<SecurityQuality> findSecurityQuality(List<LocalDate> sessions) {
+        if (sessions.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String days = dateArray(sessions);
+        return jdbcTemplate.query(QUALITY_SQL,
+                (rs, rowNum) -> {
+                    Date latestDate = rs.getDate("latest_date");
+                    Timestamp latestUpdate = rs.getTimestamp("latest_update");
+                    return new SecurityQuality(
+                            rs.getString("security_symbol"),
+                            rs.getInt("session_bars"),
+                            rs.getInt("off_calendar_bars"),
+                            rs.getInt("repeated_bars"),
+                            rs.getInt("invalid_bars"),
+                            latestDate != null ? latestDate.toLocalDate() : null,
+                            latestUpdate != null ? latestUpdate.toInstant() : null);
+                },
+                Date.valueOf(sessions.get(0)), Date.valueOf(sessions.get(sessions.size() - 1)), days, days);
+    }
+
+    private List<MissingRange> findMissingRanges(String sql, List<LocalDate> sessions) {
+        if (sessions.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return jdbcTemplate.query(sql,
+                (rs, rowNum) -> new MissingRange(
+                        rs.getString("security_symbol"),
+                        rs.getDate("gap_start").toLocalDate(),
+                        rs.getDate("gap_end").toLocalDate(),
+                        rs.getInt("missing_days")),
+                dateArray(sessions));
+    }
+
+    /*
+     * Expected days are numbered once; per security the missing days are numbered again.
+     * Consecutive missing days share (day index - missing index), which groups them into runs.
+     */
+    private static String missingRunsSql(String missingCondition) {
+        return "WITH days AS (" +
+                "  SELECT t.day, ROW_NUMBER() OVER (ORDER BY t.day) AS idx" +
+                "  FROM unnest(?::date[]) AS t(day)" +
+                "), missing AS (" +
+                "  SELECT s.security_id, s.security_symbol, days.day," +
+                "         days.idx - ROW_NUMBER() OVER (PARTITION BY s.security_id ORDER BY days.day) AS grp" +
+                "  FROM security_stock s CROSS JOIN days" +
+                "  WHERE s.security_active = true" +
+                "    AND " + missingCondition +
+                ") " +
+                "SELECT security_symbol, MIN(day) AS gap_start, MAX(day) AS gap_end, COUNT(*) AS missing_days " +
+                "FROM missing GROUP BY security_id, security_symbol, grp " +
+                "ORDER BY security_symbol, gap_start";
+    }
+
+    // PostgreSQL array literal; ISO dates need no quoting
+    private static String dateArray(List<LocalDate> dates) {
+        StringJoiner joiner = new StringJoiner(",", "{", "}");
+        for (LocalDate date : dates) {
+            joiner.add(date.toString());
+        }
+        return joiner.toString();
+    }
+
+    /**
+     * A run of consecutive missing days for one symbol
+     */
+    public static class MissingRange {
+        private final String symbol;
+        private final LocalDate start;
+        private final LocalDate end;
+        private final int missingDays;
+
+        public MissingRange(String symbol, LocalDate start, LocalDate end, int missingDays) {
+            this.symbol = symbol;
+            this.start = start;
+            this.end = end;
+            this.missingDays = missingDays;
+        }
+
+        // Getters
+        public String getSymbol() { return symbol; }
+        public LocalDate getStart() { return start; }
+        public LocalDate getEnd() { return end; }
+        public int getMissingDays() { return missingDays; }
+    }
+
+    /**
+     * Window statistics for one security
+     */
+    public static class SecurityQuality {
+        private final String symbol;
+        private final int sessionBars;
+        private final int offCalendarBars;
+        private final int repeatedBars;
+        private final int invalidBars;
+        private final LocalDate latestDate;
+        private final Instant latestUpdate;
+
+        public SecurityQuality(String symbol, int sessionBars, int offCalendarBars, int repeatedBars,
+                               int invalidBars, LocalDate latestDate, Instant latestUpdate) {
+            this.symbol = symbol;
+            this.sessionBars = sessionBars;
+            this.offCalendarBars = offCalendarBars;
+            this.repeatedBars = repeatedBars;
+            this.invalidBars = invalidBars;
+            this.latestDate = latestDate;
+            this.latestUpdate = latestUpdate;
+        }
+
+        // Getters
+        public String getSymbol() { return symbol; }
+        public int getSessionBars() { return sessionBars; }
+        public int getOffCalendarBars() { return offCalendarBars; }
+        public int getRepeatedBars() { return repeatedBars; }
+        public int getInvalidBars() { return invalidBars; }
+        public LocalDate getLatestDate() { return latestDate; }
+        public Instant getLatestUpdate() { return latestUpdate; }
+    }
+}
@@ -36,6 +36,14 @@ public interface MarketDataRepository extends JpaRepository<MarketData, Long> {
             "ORDER BY md.marketDate DESC LIMIT 1")
     Optional<MarketData> findLatestBySecurityStock(@Param("securityStock") SecurityStock securityStock);
 
+    // Find the latest market data on or after a date; the lower bound lets the planner skip older partitions
+    @Query("SELECT md FROM MarketData md WHERE md.securityStock = :securityStock " +
+            "AND md.marketDate >= :since ORDER BY md.marketDate DESC LIMIT 1")
+    Optional<MarketData> findLatestBySecurityStockSince(
+            @Param("securityStock") SecurityStock securityStock,
+            @Param("since") LocalDate since
+    );
+
     // Count market data records within date range for a security
     @Query("SELECT COUNT(md) FROM MarketData md WHERE md.securityStock = :security " +
             "AND md.marketDate BETWEEN :startDate AND :endDate")
@@ -45,12 +53,27 @@ public interface MarketDataRepository extends JpaRepository<MarketData, Long> {
             @Param("endDate") LocalDate endDate
     );
 
-    // Delete old market data records before a cutoff date
+    // Delete old market data records before a cutoff date (row-by-row; partitioned tables drop whole months instead)
     @Modifying
     @Transactional
     @Query("DELETE FROM MarketData md WHERE md.marketDate < :cutoffDate")
     int deleteOldRecords(@Param("cutoffDate") LocalDate cutoffDate);
 
+    // Find every (year, month) holding market data before a cutoff date
+    @Query("SELECT DISTINCT EXTRACT(YEAR FROM md.marketDate), EXTRACT(MONTH FROM md.marketDate) FROM MarketData md " +
+            "WHERE md.marketDate < :cutoffDate")
+    List<Object[]> findMonthsBefore(@Param("cutoffDate") LocalDate cutoffDate);
+
+    // Find archive columns (symbol, date, open, high, low, close, volume) within a date range, by symbol then date
+    @Query("SELECT md.securityStock.symbol, md.marketDate, md.openPrice, md.highPrice, md.lowPrice, " +
+            "md.closePrice, md.volume FROM MarketData md " +
+            "WHERE md.marketDate >= :startDate AND md.marketDate < :endDate " +
+            "ORDER BY md.securityStock.symbol, md.marketDate")
+    List<Object[]> findArchiveRowsBetween(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
+    );
+
     // Count records for a specific date
     @Query("SELECT COUNT(md) FROM MarketData md WHERE md.marketDate = :date")
     int countByMarketDate(@Param("date") LocalDate date);
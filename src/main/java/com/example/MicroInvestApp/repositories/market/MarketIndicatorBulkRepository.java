@@ -0,0 +1,88 @@
+package com.example.MicroInvestApp.repositories.market;
+
+import com.example.MicroInvestApp.domain.enums.IndicatorType;
+import com.example.MicroInvestApp.domain.enums.Timeframe;
+import com.example.MicroInvestApp.domain.market.MarketIndicator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Set-based JDBC writes for MarketIndicator rows.
+ * Each chunk is one multi-row INSERT ... ON CONFLICT (security_id, indicator_type, timeframe, calculation_date)
+ * DO UPDATE, so recomputing a day overwrites its values in place. PostgreSQL only.
+ */
+@Repository
+public class MarketIndicatorBulkRepository {
+
+    private static final int COLUMNS = 6;
+
+    private static final String INDICATOR_INSERT =
+            "INSERT INTO market_indicator (security_id, indicator_type, indicator_value, calculation_date, " +
+            "last_updated, timeframe) VALUES ";
+    private static final String INDICATOR_CONFLICT =
+            " ON CONFLICT (security_id, indicator_type, timeframe, calculation_date) DO UPDATE SET " +
+            "indicator_value = EXCLUDED.indicator_value, last_updated = EXCLUDED.last_updated";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${market-data.bulk-write.chunk-size:1000}")
+    private int chunkSize;
+
+    @Autowired
+    public MarketIndicatorBulkRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert or overwrite indicator values by (security, type, timeframe, date). Returns the rows written.
+     */
+    public int upsertIndicators(List<MarketIndicator> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        // A statement may not touch the same row twice, so the last staged row per key wins
+        Map<IndicatorKey, MarketIndicator> staged = new LinkedHashMap<>();
+        for (MarketIndicator row : rows) {
+            staged.put(new IndicatorKey(row.getSecurityStock().getSecurityId(), row.getIndicatorType(),
+                    row.getTimeframe(), row.getCalculationDate()), row);
+        }
+        List<MarketIndicator> distinct = new ArrayList<>(staged.values());
+
+        String placeholders = "(" + String.join(", ", Collections.nCopies(COLUMNS, "?")) + ")";
+        Timestamp now = Timestamp.from(Instant.now());
+        int written = 0;
+
+        for (int from = 0; from < distinct.size(); from += chunkSize) {
+            List<MarketIndicator> chunk = distinct.subList(from, Math.min(from + chunkSize, distinct.size()));
+
+            List<Object> args = new ArrayList<>(chunk.size() * COLUMNS);
+            for (MarketIndicator row : chunk) {
+                Collections.addAll(args,
+                        row.getSecurityStock().getSecurityId(), row.getIndicatorType().name(),
+                        row.getIndicatorValue(), Date.valueOf(row.getCalculationDate()),
+                        row.getLastUpdated() != null ? Timestamp.from(row.getLastUpdated()) : now,
+                        row.getTimeframe().name());
+            }
+            String sql = INDICATOR_INSERT
+                    + String.join(", ", Collections.nCopies(chunk.size(), placeholders))
+                    + INDICATOR_CONFLICT;
+            written += jdbcTemplate.update(sql, args.toArray());
+        }
+        return written;
+    }
+
+    private record IndicatorKey(Long securityId, IndicatorType type, Timeframe timeframe, LocalDate date) { }
+}
@@ -0,0 +1,28 @@
+package com.example.MicroInvestApp.repositories.market;
+
+import com.example.MicroInvestApp.domain.enums.Timeframe;
+import com.example.MicroInvestApp.domain.market.MarketIndicator;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface MarketIndicatorRepository extends JpaRepository<MarketIndicator, Long> {
+
+    @Query("SELECT mi FROM MarketIndicator mi WHERE mi.securityStock.securityId = :securityId " +
+            "AND mi.timeframe = :timeframe AND mi.calculationDate = (" +
+            "SELECT MAX(m.calculationDate) FROM MarketIndicator m " +
+            "WHERE m.securityStock.securityId = :securityId AND m.timeframe = :timeframe)")
+    List<MarketIndicator> findLatestBySecurityIdAndTimeframe(
+            @Param("securityId") Long securityId,
+            @Param("timeframe") Timeframe timeframe
+    );    // Every indicator of the security's most recent calculation date for a timeframe
+
+    @Query("SELECT mi.securityStock.securityId, MAX(mi.calculationDate) FROM MarketIndicator mi " +
+            "WHERE mi.timeframe = :timeframe GROUP BY mi.securityStock.securityId")
+    List<Object[]> findLatestCalculationDates(@Param("timeframe") Timeframe timeframe);    // Security id and latest calculation date per security for a timeframe
+
+}
@@ -0,0 +1,250 @@
+package com.example.MicroInvestApp.repositories.market;
+
+import com.example.MicroInvestApp.domain.market.MarketData;
+import com.example.MicroInvestApp.domain.market.PriceHistory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Set-based JDBC writes for daily market rows and streamed last prices.
+ * Each chunk of rows is written as one multi-row INSERT ... ON CONFLICT (security_id, date) DO UPDATE,
+ * and RETURNING (xmax = 0) tells inserted rows apart from updated ones. PostgreSQL only.
+ */
+@Repository
+public class MarketPriceBulkRepository {
+
+    private static final String MARKET_DATA_INSERT =
+            "INSERT INTO market_data (security_id, market_date, open_price, high_price, low_price, close_price, " +
+            "volume, adjusted_close_price, data_source, created_at, last_updated) VALUES ";
+    private static final String MARKET_DATA_CONFLICT =
+            " ON CONFLICT (security_id, market_date) DO UPDATE SET " +
+            "open_price = EXCLUDED.open_price, high_price = EXCLUDED.high_price, low_price = EXCLUDED.low_price, " +
+            "close_price = EXCLUDED.close_price, volume = EXCLUDED.volume, " +
+            "adjusted_close_price = EXCLUDED.adjusted_close_price, data_source = EXCLUDED.data_source, " +
+            "last_updated = EXCLUDED.last_updated " +
+            "RETURNING market_data_id, security_id, market_date, (xmax = 0) AS inserted";
+
+    private static final String PRICE_HISTORY_INSERT =
+            "INSERT INTO price_history (security_id, date, open_price, high_price, low_price, close_price, volume, " +
+            "price_change, percent_change, moving_average_50_day, moving_average_200_day) VALUES ";
+    private static final String PRICE_HISTORY_FULL_CONFLICT =
+            " ON CONFLICT (security_id, date) DO UPDATE SET " +
+            "open_price = EXCLUDED.open_price, high_price = EXCLUDED.high_price, low_price = EXCLUDED.low_price, " +
+            "close_price = EXCLUDED.close_price, volume = EXCLUDED.volume, " +
+            "price_change = EXCLUDED.price_change, percent_change = EXCLUDED.percent_change, " +
+            "moving_average_50_day = COALESCE(EXCLUDED.moving_average_50_day, price_history.moving_average_50_day), " +
+            "moving_average_200_day = COALESCE(EXCLUDED.moving_average_200_day, price_history.moving_average_200_day) " +
+            "RETURNING price_history_id, security_id, date, (xmax = 0) AS inserted";
+    private static final String PRICE_HISTORY_CLOSE_CONFLICT =
+            " ON CONFLICT (security_id, date) DO UPDATE SET " +
+            "close_price = EXCLUDED.close_price, " +
+            "price_change = EXCLUDED.price_change, percent_change = EXCLUDED.percent_change, " +
+            "moving_average_50_day = COALESCE(EXCLUDED.moving_average_50_day, price_history.moving_average_50_day), " +
+            "moving_average_200_day = COALESCE(EXCLUDED.moving_average_200_day, price_history.moving_average_200_day) " +
+            "RETURNING price_history_id, security_id, date, (xmax = 0) AS inserted";
+
+    private static final String MOVING_AVERAGE_UPDATE =
+            "UPDATE price_history AS ph SET moving_average_50_day = v.ma50, moving_average_200_day = v.ma200 FROM (VALUES ";
+    private static final String MOVING_AVERAGE_UPDATE_TAIL =
+            ") AS v(id, ma50, ma200) WHERE ph.price_history_id = v.id";
+
+    // Only the price columns; the day change is derived from the stored previous close in the same statement
+    private static final String LAST_PRICE_UPDATE =
+            "UPDATE security_stock SET current_price = ?::numeric, " +
+            "price_change = CASE WHEN previous_close > 0 THEN ?::numeric - previous_close ELSE price_change END, " +
+            "price_change_percent = CASE WHEN previous_close > 0 " +
+            "THEN ROUND((?::numeric - previous_close) / previous_close, 4) * 100 ELSE price_change_percent END, " +
+            "last_updated = ? " +
+            "WHERE security_symbol = ? AND security_active = true";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${market-data.bulk-write.chunk-size:1000}")
+    private int chunkSize;
+
+    @Autowired
+    public MarketPriceBulkRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert or fully overwrite MarketData rows by (security, market date)
+     */
+    public UpsertResult upsertMarketData(List<MarketData> rows) {
+        Instant now = Instant.now();
+        return upsert(MARKET_DATA_INSERT, 11, MARKET_DATA_CONFLICT, rows,
+                row -> new RowKey(row.getSecurityStock().getSecurityId(), row.getMarketDate()),
+                row -> new Object[] {
+                        row.getSecurityStock().getSecurityId(), Date.valueOf(row.getMarketDate()),
+                        row.getOpenPrice(), row.getHighPrice(), row.getLowPrice(), row.getClosePrice(),
+                        row.getVolume(), row.getAdjustedClosePrice(), row.getDataSource(),
+                        Timestamp.from(row.getCreatedAt() != null ? row.getCreatedAt() : now),
+                        Timestamp.from(row.getLastUpdated() != null ? row.getLastUpdated() : now)
+                },
+                MarketData::setMarketDataId);
+    }
+
+    /**
+     * Insert or fully overwrite PriceHistory bars by (security, date).
+     * Moving averages left null on a staged row keep whatever value is already stored.
+     */
+    public UpsertResult upsertPriceHistory(List<PriceHistory> rows) {
+        return upsert(PRICE_HISTORY_INSERT, 11, PRICE_HISTORY_FULL_CONFLICT, rows,
+                row -> new RowKey(row.getSecurityStock().getSecurityId(), row.getDate()),
+                MarketPriceBulkRepository::priceHistoryValues,
+                PriceHistory::setPriceHistoryId);
+    }
+
+    /**
+     * Record closing prices: new bars are inserted whole, existing bars only get close, change and
+     * (when computed) moving averages updated
+     */
+    public UpsertResult upsertClosingPrices(List<PriceHistory> rows) {
+        return upsert(PRICE_HISTORY_INSERT, 11, PRICE_HISTORY_CLOSE_CONFLICT, rows,
+                row -> new RowKey(row.getSecurityStock().getSecurityId(), row.getDate()),
+                MarketPriceBulkRepository::priceHistoryValues,
+                PriceHistory::setPriceHistoryId);
+    }
+
+    /**
+     * Overwrite only the moving-average columns of existing bars, matched by id, one statement per chunk.
+     * Returns the number of rows updated.
+     */
+    public int updateMovingAverages(List<PriceHistory> rows) {
+        int updated = 0;
+        for (int from = 0; from < rows.size(); from += chunkSize) {
+            List<PriceHistory> chunk = rows.subList(from, Math.min(from + chunkSize, rows.size()));
+
+            List<Object> args = new ArrayList<>(chunk.size() * 3);
+            for (PriceHistory row : chunk) {
+                Collections.addAll(args, row.getPriceHistoryId(), row.getMovingAverage50Day(), row.getMovingAverage200Day());
+            }
+            String sql = MOVING_AVERAGE_UPDATE
+                    + String.join(", ", Collections.nCopies(chunk.size(), "(?::bigint, ?::numeric, ?::numeric)"))
+                    + MOVING_AVERAGE_UPDATE_TAIL;
+            updated += jdbcTemplate.update(sql, args.toArray());
+        }
+        return updated;
+    }
+
+    /**
+     * Write last prices by symbol in one JDBC batch per chunk, touching only the price columns so writes to
+     * any other column in between are kept. Returns the number of rows updated.
+     */
+    public int updateLastPrices(Map<String, BigDecimal> prices, Instant updatedAt) {
+        List<Object[]> args = new ArrayList<>(prices.size());
+        Timestamp timestamp = Timestamp.from(updatedAt);
+        prices.forEach((symbol, price) -> args.add(new Object[] {price, price, price, timestamp, symbol}));
+
+        int updated = 0;
+        for (int from = 0; from < args.size(); from += chunkSize) {
+            for (int count : jdbcTemplate.batchUpdate(LAST_PRICE_UPDATE,
+                    args.subList(from, Math.min(from + chunkSize, args.size())))) {
+                // Drivers may report a batched statement as executed without a row count
+                updated += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+            }
+        }
+        return updated;
+    }
+
+    private static Object[] priceHistoryValues(PriceHistory row) {
+        return new Object[] {
+                row.getSecurityStock().getSecurityId(), Date.valueOf(row.getDate()),
+                row.getOpenPrice(), row.getHighPrice(), row.getLowPrice(), row.getClosePrice(),
+                row.getVolume(), row.getPriceChange(), row.getPercentChange(),
+                row.getMovingAverage50Day(), row.getMovingAverage200Day()
+        };
+    }
+
+    private <T> UpsertResult upsert(String insertSql, int columns, String conflictSql, List<T> rows,
+                                    Function<T, RowKey> keyOf, Function<T, Object[]> valuesOf,
+                                    BiConsumer<T, Long> idSetter) {
+        if (rows.isEmpty()) {
+            return new UpsertResult(0, 0, 0);
+        }
+
+        // A statement may not touch the same row twice, so the last staged row per key wins
+        Map<RowKey, T> staged = new LinkedHashMap<>();
+        for (T row : rows) {
+            staged.put(keyOf.apply(row), row);
+        }
+        List<T> distinct = new ArrayList<>(staged.values());
+
+        String placeholders = "(" + String.join(", ", Collections.nCopies(columns, "?")) + ")";
+        int inserted = 0;
+        int updated = 0;
+        int roundTrips = 0;
+
+        for (int from = 0; from < distinct.size(); from += chunkSize) {
+            List<T> chunk = distinct.subList(from, Math.min(from + chunkSize, distinct.size()));
+
+            List<Object> args = new ArrayList<>(chunk.size() * columns);
+            chunk.forEach(row -> Collections.addAll(args, valuesOf.apply(row)));
+            String sql = insertSql + String.join(", ", Collections.nCopies(chunk.size(), placeholders)) + conflictSql;
+
+            List<Boolean> outcomes = jdbcTemplate.query(sql, (rs, rowNum) -> {
+                RowKey key = new RowKey(rs.getLong(2), rs.getDate(3).toLocalDate());
+                T row = staged.get(key);
+                if (row != null) {
+                    idSetter.accept(row, rs.getLong(1));
+                }
+                return rs.getBoolean(4);
+            }, args.toArray());
+
+            roundTrips++;
+            for (Boolean wasInserted : outcomes) {
+                if (Boolean.TRUE.equals(wasInserted)) {
+                    inserted++;
+                } else {
+                    updated++;
+                }
+            }
+        }
+
+        return new UpsertResult(inserted, updated, roundTrips);
+    }
+
+    private record RowKey(Long securityId, LocalDate date) { }
+
+    /**
+     * Outcome of a bulk upsert
+     */
+    public static class UpsertResult {
+        private final int inserted;
+        private final int updated;
+        private final int roundTrips;
+
+        public UpsertResult(int inserted, int updated, int roundTrips) {
+            this.inserted = inserted;
+            this.updated = updated;
+            this.roundTrips = roundTrips;
+        }
+
+        // Getters
+        public int getInserted() { return inserted; }
+        public int getUpdated() { return updated; }
+        public int getRoundTrips() { return roundTrips; }
+        public int getTotal() { return inserted + updated; }
+
+        @Override
+        public String toString() {
+            return String.format("inserted=%d, updated=%d, roundTrips=%d", inserted, updated, roundTrips);
+        }
+    }
+}
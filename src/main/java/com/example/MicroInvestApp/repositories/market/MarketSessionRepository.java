@@ -0,0 +1,16 @@
+package com.example.MicroInvestApp.repositories.market;
+
+import com.example.MicroInvestApp.domain.enums.Exchange;
+import com.example.MicroInvestApp.domain.market.MarketSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface MarketSessionRepository extends JpaRepository<MarketSession, Long> {
+
+    List<MarketSession> findByExchangeAndSessionDateBetween(Exchange exchange, LocalDate startDate, LocalDate endDate);   // Session overrides (holidays, half days) for an exchange within a window
+
+}
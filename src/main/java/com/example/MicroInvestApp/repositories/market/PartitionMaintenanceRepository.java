@@ -0,0 +1,243 @@
+package com.example.MicroInvestApp.repositories.market;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * DDL and catalog queries for monthly range partitions of the daily market tables.
+ * Partitions are named {table}_pYYYY_MM with a {table}_default catch-all; table and column names come only
+ * from PartitionedTable, never from input. PostgreSQL only; callers run each method in a transaction.
+ */
+@Repository
+public class PartitionMaintenanceRepository {
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final Pattern PARTITION_NAME = Pattern.compile("_p(\\d{4})_(\\d{2})$");
+
+    private static final String RELKIND_SQL =
+            "SELECT c.relkind::text FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace " +
+            "WHERE c.relname = ? AND n.nspname = current_schema()";
+
+    private static final String PARTITIONS_SQL =
+            "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+            "JOIN pg_class p ON p.oid = i.inhparent JOIN pg_namespace n ON n.oid = p.relnamespace " +
+            "WHERE p.relname = ? AND n.nspname = current_schema() ORDER BY c.relname";
+
+    private static final String FOREIGN_KEYS_SQL =
+            "SELECT conname, pg_get_constraintdef(oid) AS definition FROM pg_constraint " +
+            "WHERE conrelid = ?::regclass AND contype = 'f'";
+
+    // Plain secondary indexes; the primary and unique keys are rebuilt with the partition key added
+    private static final String SECONDARY_INDEXES_SQL =
+            "SELECT pg_get_indexdef(indexrelid) FROM pg_index " +
+            "WHERE indrelid = ?::regclass AND NOT indisprimary AND NOT indisunique";
+
+    /**
+     * A daily table partitioned by month on its date column
+     */
+    public enum PartitionedTable {
+        MARKET_DATA("market_data", "market_date", "market_data_id", "uk_market_data_security_date"),
+        PRICE_HISTORY("price_history", "date", "price_history_id", "uk_price_history_security_date");
+
+        private final String tableName;
+        private final String dateColumn;
+        private final String idColumn;
+        private final String uniqueConstraint;
+
+        PartitionedTable(String tableName, String dateColumn, String idColumn, String uniqueConstraint) {
+            this.tableName = tableName;
+            this.dateColumn = dateColumn;
+            this.idColumn = idColumn;
+            this.uniqueConstraint = uniqueConstraint;
+        }
+
+        public String getTableName() { return tableName; }
+        public String getDateColumn() { return dateColumn; }
+
+        String partitionName(YearMonth month) {
+            return tableName + "_p" + month.format(SUFFIX);
+        }
+
+        String defaultPartition() {
+            return tableName + "_default";
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public PartitionMaintenanceRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public boolean isPostgres() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equalsIgnoreCase(product);
+    }
+
+    /**
+     * Serialize partition DDL across application instances for the rest of the current transaction
+     */
+    public void lockForMaintenance() {
+        jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(hashtext('market-partition-maintenance'))");
+    }
+
+    public boolean isPartitioned(PartitionedTable table) {
+        List<String> kinds = jdbcTemplate.queryForList(RELKIND_SQL, String.class, table.tableName);
+        return !kinds.isEmpty() && "p".equals(kinds.get(0));
+    }
+
+    public boolean exists(PartitionedTable table) {
+        return !jdbcTemplate.queryForList(RELKIND_SQL, String.class, table.tableName).isEmpty();
+    }
+
+    /**
+     * Replace a plain table with a partitioned one holding the same rows: monthly partitions for every month
+     * with data, a default partition, primary key (id, date), the (security, date) unique key, the original
+     * foreign keys and secondary indexes, and a sequence default for the id in place of the identity column.
+     * Holds an ACCESS EXCLUSIVE lock on the table while every row is copied, so it is run by an operator in a
+     * quiet window; other unique indexes are not carried over because they would need the date column too.
+     */
+    public long convertToPartitioned(PartitionedTable table) {
+        String name = table.tableName;
+        String legacy = name + "_legacy";
+        String date = table.dateColumn;
+
+        List<Map<String, Object>> foreignKeys = jdbcTemplate.queryForList(FOREIGN_KEYS_SQL, name);
+        List<String> secondaryIndexes = jdbcTemplate.queryForList(SECONDARY_INDEXES_SQL, String.class, name);
+
+        // Give up rather than queue behind live traffic, which would block every reader behind the rename
+        jdbcTemplate.execute("SET LOCAL lock_timeout = '10s'");
+        jdbcTemplate.execute("ALTER TABLE " + name + " RENAME TO " + legacy);
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE " + legacy + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS) " +
+                "PARTITION BY RANGE (" + date + ")");
+
+        List<Date> months = jdbcTemplate.queryForList(
+                "SELECT DISTINCT date_trunc('month', " + date + ")::date FROM " + legacy, Date.class);
+        for (Date month : months) {
+            createPartition(table, YearMonth.from(month.toLocalDate()));
+        }
+        jdbcTemplate.execute("CREATE TABLE " + table.defaultPartition() + " PARTITION OF " + name + " DEFAULT");
+
+        long rows = jdbcTemplate.update("INSERT INTO " + name + " SELECT * FROM " + legacy);
+        jdbcTemplate.execute("DROP TABLE " + legacy);
+
+        // Keys are built after the load; the partition key has to be part of every unique constraint
+        jdbcTemplate.execute("ALTER TABLE " + name + " ADD CONSTRAINT " + name + "_pkey PRIMARY KEY (" +
+                table.idColumn + ", " + date + ")");
+        jdbcTemplate.execute("ALTER TABLE " + name + " ADD CONSTRAINT " + table.uniqueConstraint +
+                " UNIQUE (security_id, " + date + ")");
+        for (Map<String, Object> foreignKey : foreignKeys) {
+            jdbcTemplate.execute("ALTER TABLE " + name + " ADD CONSTRAINT " + foreignKey.get("conname") + " " +
+                    foreignKey.get("definition"));
+        }
+        // Definitions were read before the rename, so they already name the new table; index names are free
+        // again now that the legacy table is gone
+        for (String index : secondaryIndexes) {
+            jdbcTemplate.execute(index);
+        }
+
+        // Identity columns are not allowed on partitioned tables before PostgreSQL 17
+        String sequence = name + "_id_seq";
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + sequence + " OWNED BY " + name + "." + table.idColumn);
+        jdbcTemplate.execute("ALTER TABLE " + name + " ALTER COLUMN " + table.idColumn +
+                " SET DEFAULT nextval('" + sequence + "')");
+        jdbcTemplate.queryForList("SELECT setval('" + sequence + "', COALESCE(MAX(" + table.idColumn + "), 0) + 1, false) " +
+                "FROM " + name);
+        return rows;
+    }
+
+    /**
+     * Create the month's partition if missing. Rows that already landed in the default partition for that
+     * month are moved into it before it is attached. Returns true when a partition was created.
+     */
+    public boolean ensurePartition(PartitionedTable table, YearMonth month) {
+        String partition = table.partitionName(month);
+        if (!jdbcTemplate.queryForList(RELKIND_SQL, String.class, partition).isEmpty()) {
+            return false;
+        }
+
+        LocalDate from = month.atDay(1);
+        LocalDate to = from.plusMonths(1);
+        Boolean inDefault = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + table.defaultPartition() + " WHERE " + table.dateColumn +
+                        " >= ? AND " + table.dateColumn + " < ?)",
+                Boolean.class, Date.valueOf(from), Date.valueOf(to));
+
+        if (!Boolean.TRUE.equals(inDefault)) {
+            createPartition(table, month);
+            return true;
+        }
+
+        jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE " + table.tableName +
+                " INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        jdbcTemplate.update("WITH moved AS (DELETE FROM " + table.defaultPartition() + " WHERE " + table.dateColumn +
+                        " >= ? AND " + table.dateColumn + " < ? RETURNING *) INSERT INTO " + partition +
+                        " SELECT * FROM moved",
+                Date.valueOf(from), Date.valueOf(to));
+        jdbcTemplate.execute("ALTER TABLE " + table.tableName + " ATTACH PARTITION " + partition +
+                " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+        return true;
+    }
+
+    /**
+     * Months that currently have rows in the default partition
+     */
+    public List<YearMonth> findMonthsInDefault(PartitionedTable table) {
+        return jdbcTemplate.queryForList(
+                        "SELECT DISTINCT date_trunc('month', " + table.dateColumn + ")::date FROM " +
+                                table.defaultPartition(), Date.class).stream()
+                .map(month -> YearMonth.from(month.toLocalDate()))
+                .toList();
+    }
+
+    /**
+     * Monthly partitions of the table by month, oldest first
+     */
+    public List<YearMonth> findPartitionMonths(PartitionedTable table) {
+        return jdbcTemplate.queryForList(PARTITIONS_SQL, String.class, table.tableName).stream()
+                .map(PARTITION_NAME::matcher)
+                .filter(Matcher::find)
+                .map(m -> YearMonth.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2))))
+                .sorted()
+                .toList();
+    }
+
+    /**
+     * Detach a month's partition, dropping it unless keep is set. Removing a month is a catalog change
+     * rather than a row-by-row delete.
+     */
+    public void removePartition(PartitionedTable table, YearMonth month, boolean keep) {
+        String partition = table.partitionName(month);
+        jdbcTemplate.execute("ALTER TABLE " + table.tableName + " DETACH PARTITION " + partition);
+        if (!keep) {
+            jdbcTemplate.execute("DROP TABLE " + partition);
+        }
+    }
+
+    /**
+     * Delete stray default-partition rows older than the cutoff
+     */
+    public int purgeDefaultBefore(PartitionedTable table, LocalDate cutoff) {
+        return jdbcTemplate.update("DELETE FROM " + table.defaultPartition() + " WHERE " + table.dateColumn + " < ?",
+                Date.valueOf(cutoff));
+    }
+
+    private void createPartition(PartitionedTable table, YearMonth month) {
+        LocalDate from = month.atDay(1);
+        jdbcTemplate.execute("CREATE TABLE " + table.partitionName(month) + " PARTITION OF " + table.tableName +
+                " FOR VALUES FROM ('" + from + "') TO ('" + from.plusMonths(1) + "')");
+    }
+}
@@ -26,4 +26,24 @@ public interface PriceHistoryRepository extends JpaRepository<PriceHistory, Long
             @Param("endDate") LocalDate endDate
     );    // Find price history for a security stock within a date range, ordered by date ascending
 
+    @Query("SELECT ph FROM PriceHistory ph JOIN FETCH ph.securityStock WHERE ph.date = :date " +
+            "AND ph.securityStock IN :securities")
+    List<PriceHistory> findByDateAndSecurityStockIn(
+            @Param("date") LocalDate date,
+            @Param("securities") List<SecurityStock> securities
+    );    // Find one day's bars for a set of securities in a single query
+
+    @Query("SELECT ph.priceHistoryId, ph.date, ph.openPrice, ph.highPrice, ph.lowPrice, ph.closePrice, ph.volume, " +
+            "ph.priceChange, ph.percentChange, ph.movingAverage50Day, ph.movingAverage200Day " +
+            "FROM PriceHistory ph WHERE ph.securityStock.securityId = :securityId ORDER BY ph.date ASC")
+    List<Object[]> findBarColumnsBySecurityId(@Param("securityId") Long securityId);    // Scalar bar columns for one security, oldest first, without hydrating entities
+
+    @Query("SELECT COUNT(ph), MAX(ph.date), SUM(ph.closePrice), SUM(ph.movingAverage50Day), " +
+            "SUM(ph.movingAverage200Day) FROM PriceHistory ph WHERE ph.securityStock.securityId = :securityId")
+    List<Object[]> findVersionBySecurityId(@Param("securityId") Long securityId);    // Bar count, latest date and column sums for one security, which change whenever any node writes its bars
+
+    @Query("SELECT ph.priceHistoryId, ph.date, ph.closePrice " +
+            "FROM PriceHistory ph WHERE ph.securityStock.securityId = :securityId ORDER BY ph.date ASC")
+    List<Object[]> findCloseSeriesBySecurityId(@Param("securityId") Long securityId);    // Id, date and close for one security, oldest first
+
 }
@@ -0,0 +1,141 @@
+package com.example.MicroInvestApp.repositories.market;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Set-based maintenance of PriceRollup from PriceHistory, one statement per chunk covering every timeframe.
+ * Periods are computed with date_trunc, so weeks start on the ISO Monday. PostgreSQL only.
+ */
+@Repository
+public class PriceRollupBulkRepository {
+
+    private static final int TIMEFRAME_COUNT = 4;
+    private static final String TIMEFRAMES =
+            "(VALUES ('WEEKLY', 'week', interval '7 days'), ('MONTHLY', 'month', interval '1 month'), " +
+            "('QUARTERLY', 'quarter', interval '3 months'), ('YEARLY', 'year', interval '1 year')) " +
+            "AS tf(timeframe, unit, span)";
+
+    private static final String ROLLUP_COLUMNS =
+            "INSERT INTO price_rollup (security_id, timeframe, period_start, first_bar_date, last_bar_date, " +
+            "open_price, high_price, low_price, close_price, volume, last_bar_volume, bar_count, last_updated) ";
+
+    // Folds one daily bar per security into its periods. A bar older than a period's last bar is not applied
+    // (its period has to be rebuilt), which shows up as a missing RETURNING row.
+    private static final String APPLY_BARS_SELECT =
+            "SELECT ph.security_id, tf.timeframe, date_trunc(tf.unit, ph.date::timestamp)::date, ph.date, ph.date, " +
+            "ph.open_price, ph.high_price, ph.low_price, ph.close_price, COALESCE(ph.volume, 0), " +
+            "COALESCE(ph.volume, 0), 1, now() " +
+            "FROM price_history ph CROSS JOIN " + TIMEFRAMES + " WHERE ph.price_history_id IN ";
+    private static final String APPLY_BARS_CONFLICT =
+            " ON CONFLICT (security_id, timeframe, period_start) DO UPDATE SET " +
+            "open_price = CASE WHEN price_rollup.bar_count = 1 AND EXCLUDED.last_bar_date = price_rollup.last_bar_date " +
+            "                  THEN EXCLUDED.open_price ELSE price_rollup.open_price END, " +
+            "high_price = CASE WHEN price_rollup.bar_count = 1 AND EXCLUDED.last_bar_date = price_rollup.last_bar_date " +
+            "                  THEN EXCLUDED.high_price ELSE GREATEST(price_rollup.high_price, EXCLUDED.high_price) END, " +
+            "low_price = CASE WHEN price_rollup.bar_count = 1 AND EXCLUDED.last_bar_date = price_rollup.last_bar_date " +
+            "                 THEN EXCLUDED.low_price ELSE LEAST(price_rollup.low_price, EXCLUDED.low_price) END, " +
+            "close_price = EXCLUDED.close_price, " +
+            "volume = price_rollup.volume + EXCLUDED.volume - CASE WHEN EXCLUDED.last_bar_date = price_rollup.last_bar_date " +
+            "                                                 THEN price_rollup.last_bar_volume ELSE 0 END, " +
+            "bar_count = price_rollup.bar_count + CASE WHEN EXCLUDED.last_bar_date = price_rollup.last_bar_date " +
+            "                                          THEN 0 ELSE 1 END, " +
+            "last_bar_volume = EXCLUDED.last_bar_volume, last_bar_date = EXCLUDED.last_bar_date, " +
+            "last_updated = EXCLUDED.last_updated " +
+            "WHERE EXCLUDED.last_bar_date >= price_rollup.last_bar_date " +
+            "RETURNING security_id";
+
+    // Recomputes whole periods from the daily bars
+    private static final String REBUILD_SELECT =
+            "SELECT ph.security_id, tf.timeframe, date_trunc(tf.unit, ph.date::timestamp)::date, " +
+            "MIN(ph.date), MAX(ph.date), (array_agg(ph.open_price ORDER BY ph.date))[1], " +
+            "MAX(ph.high_price), MIN(ph.low_price), (array_agg(ph.close_price ORDER BY ph.date DESC))[1], " +
+            "SUM(COALESCE(ph.volume, 0)), (array_agg(COALESCE(ph.volume, 0) ORDER BY ph.date DESC))[1], " +
+            "COUNT(*), now() " +
+            "FROM price_history ph CROSS JOIN " + TIMEFRAMES + " ";
+    private static final String REBUILD_GROUP_AND_CONFLICT =
+            " GROUP BY 1, 2, 3" +
+            " ON CONFLICT (security_id, timeframe, period_start) DO UPDATE SET " +
+            "first_bar_date = EXCLUDED.first_bar_date, last_bar_date = EXCLUDED.last_bar_date, " +
+            "open_price = EXCLUDED.open_price, high_price = EXCLUDED.high_price, low_price = EXCLUDED.low_price, " +
+            "close_price = EXCLUDED.close_price, volume = EXCLUDED.volume, " +
+            "last_bar_volume = EXCLUDED.last_bar_volume, bar_count = EXCLUDED.bar_count, " +
+            "last_updated = EXCLUDED.last_updated";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${market-data.bulk-write.chunk-size:1000}")
+    private int chunkSize;
+
+    @Autowired
+    public PriceRollupBulkRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Fold stored daily bars into every rollup timeframe. The bars must all share one date, since a statement
+     * may not update the same period twice. Returns the ids of securities whose periods were all updated.
+     */
+    public Set<Long> applyDailyBars(List<Long> priceHistoryIds) {
+        Set<Long> applied = new HashSet<>();
+        for (int from = 0; from < priceHistoryIds.size(); from += chunkSize) {
+            List<Long> chunk = priceHistoryIds.subList(from, Math.min(from + chunkSize, priceHistoryIds.size()));
+            String sql = ROLLUP_COLUMNS + APPLY_BARS_SELECT + inList(chunk.size()) + APPLY_BARS_CONFLICT;
+
+            // Each security comes back once per timeframe when all of its periods took the bar
+            Map<Long, Integer> periodsUpdated = new HashMap<>();
+            for (Long securityId : jdbcTemplate.queryForList(sql, Long.class, chunk.toArray())) {
+                periodsUpdated.merge(securityId, 1, Integer::sum);
+            }
+            periodsUpdated.forEach((securityId, periods) -> {
+                if (periods == TIMEFRAME_COUNT) {
+                    applied.add(securityId);
+                }
+            });
+        }
+        return applied;
+    }
+
+    /**
+     * Recompute every period that contains the given date for the given securities
+     */
+    public int rebuildPeriodsContaining(Collection<Long> securityIds, LocalDate date) {
+        if (securityIds.isEmpty()) {
+            return 0;
+        }
+        List<Object> args = new ArrayList<>(securityIds);
+        args.add(Date.valueOf(date));
+        args.add(Date.valueOf(date));
+        String sql = ROLLUP_COLUMNS + REBUILD_SELECT
+                + "WHERE ph.security_id IN " + inList(securityIds.size())
+                + " AND ph.date >= date_trunc(tf.unit, ?::timestamp)::date"
+                + " AND ph.date < (date_trunc(tf.unit, ?::timestamp) + tf.span)::date"
+                + REBUILD_GROUP_AND_CONFLICT;
+        return jdbcTemplate.update(sql, args.toArray());
+    }
+
+    /**
+     * Recompute all periods of one security from its full daily history
+     */
+    public int rebuildSecurity(Long securityId) {
+        String sql = ROLLUP_COLUMNS + REBUILD_SELECT + "WHERE ph.security_id = ?" + REBUILD_GROUP_AND_CONFLICT;
+        return jdbcTemplate.update(sql, securityId);
+    }
+
+    private static String inList(int size) {
+        return "(" + String.join(", ", Collections.nCopies(size, "?")) + ")";
+    }
+}
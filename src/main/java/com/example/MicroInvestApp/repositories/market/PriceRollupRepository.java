@@ -0,0 +1,26 @@
+package com.example.MicroInvestApp.repositories.market;
+
+import com.example.MicroInvestApp.domain.enums.Timeframe;
+import com.example.MicroInvestApp.domain.market.PriceRollup;
+import com.example.MicroInvestApp.domain.market.SecurityStock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface PriceRollupRepository extends JpaRepository<PriceRollup, Long> {
+
+    @Query("SELECT r FROM PriceRollup r WHERE r.securityStock = :securityStock AND r.timeframe = :timeframe " +
+            "AND r.lastBarDate >= :startDate AND r.periodStart <= :endDate ORDER BY r.periodStart ASC")
+    List<PriceRollup> findBySecurityStockAndTimeframeAndDateRange(
+            @Param("securityStock") SecurityStock securityStock,
+            @Param("timeframe") Timeframe timeframe,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
+    );    // Periods of one timeframe overlapping a date range, oldest first
+
+}
@@ -0,0 +1,18 @@
+package com.example.MicroInvestApp.repositories.market;
+
+import com.example.MicroInvestApp.domain.market.SymbolValidation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SymbolValidationRepository extends JpaRepository<SymbolValidation, Long> {
+
+    // Stored verdicts for a batch of symbols, loaded in one query
+    @Query("SELECT v FROM SymbolValidation v WHERE v.symbol IN :symbols")
+    List<SymbolValidation> findBySymbolIn(@Param("symbols") Collection<String> symbols);
+}
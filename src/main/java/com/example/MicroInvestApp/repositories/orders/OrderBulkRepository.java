@@ -0,0 +1,76 @@
+package com.example.MicroInvestApp.repositories.orders;
+
+import com.example.MicroInvestApp.domain.orders.Order;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JDBC batch writes for new orders.
+ * Order ids are identity-generated, which stops Hibernate from batching inserts, so ids for a whole chunk are
+ * drawn from the identity sequence in one query and the rows are then written as one JDBC batch with explicit
+ * ids. PostgreSQL only.
+ */
+@Repository
+public class OrderBulkRepository {
+
+    private static final String ALLOCATE_IDS =
+            "SELECT nextval(pg_get_serial_sequence('orders', 'order_id')) FROM generate_series(1, ?)";
+
+    private static final String ORDER_INSERT =
+            "INSERT INTO orders (order_id, portfolio_id, security_id, quantity, order_price, stop_price, " +
+            "trail_amount, trail_percent, estimated_total, filled_quantity, total_fees, order_type, order_side, " +
+            "order_status, order_placed_date, expiry_date, notes, client_order_id, created_at, last_updated) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${orders.batch.insert-chunk-size:100}")
+    private int chunkSize;
+
+    @Autowired
+    public OrderBulkRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert new orders, setting their generated ids and timestamps on the given objects.
+     * Returns the number of database round-trips used.
+     */
+    public int insertOrders(List<Order> orders) {
+        Instant now = Instant.now();
+        int roundTrips = 0;
+
+        for (int from = 0; from < orders.size(); from += chunkSize) {
+            List<Order> chunk = orders.subList(from, Math.min(from + chunkSize, orders.size()));
+
+            List<Long> ids = jdbcTemplate.queryForList(ALLOCATE_IDS, Long.class, chunk.size());
+            List<Object[]> rows = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                Order order = chunk.get(i);
+                order.setOrderId(ids.get(i));
+                order.setCreatedAt(now);
+                order.setLastUpdated(now);
+                rows.add(new Object[] {
+                        order.getOrderId(), order.getPortfolio().getPortfolioId(),
+                        order.getSecurityStock().getSecurityId(), order.getQuantity(), order.getOrderPrice(),
+                        order.getStopPrice(), order.getTrailAmount(), order.getTrailPercent(),
+                        order.getEstimatedTotal(), order.getFilledQuantity(), order.getTotalFees(),
+                        order.getOrderType().name(), order.getOrderSide().name(), order.getOrderStatus().name(),
+                        Timestamp.valueOf(order.getOrderPlacedDate()),
+                        order.getExpiryDate() != null ? Timestamp.valueOf(order.getExpiryDate()) : null,
+                        order.getNotes(), order.getClientOrderId(), Timestamp.from(now), Timestamp.from(now)
+                });
+            }
+            jdbcTemplate.batchUpdate(ORDER_INSERT, rows);
+            roundTrips += 2;
+        }
+        return roundTrips;
+    }
+}
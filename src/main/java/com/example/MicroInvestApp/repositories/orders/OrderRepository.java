@@ -2,18 +2,26 @@ package com.example.MicroInvestApp.repositories.orders;
 
 import com.example.MicroInvestApp.domain.enums.OrderSide;
 import com.example.MicroInvestApp.domain.enums.OrderStatus;
+import com.example.MicroInvestApp.domain.enums.OrderType;
 import com.example.MicroInvestApp.domain.market.SecurityStock;
 import com.example.MicroInvestApp.domain.orders.Order;
 import com.example.MicroInvestApp.domain.portfolio.Portfolio;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
@@ -31,6 +39,34 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT o FROM Order o WHERE o.orderStatus IN ('PENDING', 'PARTIALLY_FILLED') ORDER BY o.orderPlacedDate DESC")
     List<Order> findActiveOrders();
 
+    // Active orders of the given types with their security, oldest first, for the in-memory trigger structures
+    @Query("SELECT o FROM Order o JOIN FETCH o.securityStock WHERE o.orderStatus IN ('PENDING', 'PARTIALLY_FILLED') " +
+            "AND o.orderType IN :orderTypes ORDER BY o.orderPlacedDate ASC, o.orderId ASC")
+    List<Order> findActiveOrdersByTypes(@Param("orderTypes") Collection<OrderType> orderTypes);
+
+    // Find an order and lock its row, so concurrent executions of the same order serialize
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.orderId = :orderId")
+    Optional<Order> findByIdForUpdate(@Param("orderId") Long orderId);
+
+    // Portfolio of an order, without loading the order
+    @Query("SELECT o.portfolio.portfolioId FROM Order o WHERE o.orderId = :orderId")
+    Optional<Long> findPortfolioIdByOrderId(@Param("orderId") Long orderId);
+
+    // Find an order by its client-supplied idempotency key
+    @Query("SELECT o FROM Order o WHERE o.portfolio.portfolioId = :portfolioId AND o.clientOrderId = :clientOrderId")
+    Optional<Order> findByPortfolioIdAndClientOrderId(@Param("portfolioId") Long portfolioId,
+                                                      @Param("clientOrderId") String clientOrderId);
+
+    // Find orders placed with any of the given client-supplied idempotency keys in the given portfolios
+    @Query("SELECT o FROM Order o WHERE o.portfolio.portfolioId IN :portfolioIds AND o.clientOrderId IN :clientOrderIds")
+    List<Order> findByPortfolioIdsAndClientOrderIds(@Param("portfolioIds") Collection<Long> portfolioIds,
+                                                    @Param("clientOrderIds") Collection<String> clientOrderIds);
+
+    // Distinct symbols with working orders
+    @Query("SELECT DISTINCT o.securityStock.symbol FROM Order o WHERE o.orderStatus IN ('PENDING', 'PARTIALLY_FILLED')")
+    List<String> findDistinctActiveOrderSymbols();
+
     // Find active orders for a specific portfolio
     @Query("SELECT o FROM Order o WHERE o.portfolio = :portfolio AND o.orderStatus IN ('PENDING', 'PARTIALLY_FILLED') ORDER BY o.orderPlacedDate DESC")
     List<Order> findActiveOrdersByPortfolio(@Param("portfolio") Portfolio portfolio);
@@ -61,6 +97,26 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT o FROM Order o WHERE o.expiryDate <= :currentTime AND o.orderStatus IN ('PENDING', 'PARTIALLY_FILLED')")
     List<Order> findExpiredOrders(@Param("currentTime") LocalDateTime currentTime);
 
+    // Find (orderId, expiryDate) of working orders that have an expiry date
+    @Query("SELECT o.orderId, o.expiryDate FROM Order o WHERE o.expiryDate IS NOT NULL AND o.orderStatus IN ('PENDING', 'PARTIALLY_FILLED')")
+    List<Object[]> findActiveOrderExpiries();
+
+    // Find ids of working orders past their expiry date
+    @Query("SELECT o.orderId FROM Order o WHERE o.expiryDate <= :currentTime AND o.orderStatus IN ('PENDING', 'PARTIALLY_FILLED')")
+    List<Long> findExpiredOrderIds(@Param("currentTime") LocalDateTime currentTime);
+
+    // Cancel whichever of the given orders are still working, in one statement
+    @Modifying
+    @Transactional
+    @Query("UPDATE Order o SET o.orderStatus = :status, o.orderCancelledDate = :cancelledAt, " +
+            "o.cancellationReason = :reason, o.lastUpdated = :updatedAt " +
+            "WHERE o.orderId IN :orderIds AND o.orderStatus IN ('PENDING', 'PARTIALLY_FILLED')")
+    int cancelActiveOrders(@Param("orderIds") Collection<Long> orderIds,
+                           @Param("status") OrderStatus status,
+                           @Param("reason") String reason,
+                           @Param("cancelledAt") LocalDateTime cancelledAt,
+                           @Param("updatedAt") Instant updatedAt);
+
     // Count orders by status for a portfolio
     long countByPortfolioAndOrderStatus(Portfolio portfolio, OrderStatus status);
 
@@ -305,4 +305,10 @@ public interface PositionRepository extends JpaRepository<Position, Long> {
      */
     @Query("SELECT p FROM Position p JOIN FETCH p.securityStock WHERE p.portfolio = :portfolio")
     List<Position> findByPortfolioWithSecurity(@Param("portfolio") Portfolio portfolio);
-}
\ No newline at end of file
+
+    /**
+     * Distinct symbols currently held in any active position
+     */
+    @Query("SELECT DISTINCT p.securityStock.symbol FROM Position p WHERE p.isActive = true")
+    List<String> findDistinctActiveHeldSymbols();
+}
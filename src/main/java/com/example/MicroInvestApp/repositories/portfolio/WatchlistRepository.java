@@ -170,4 +170,10 @@ public interface WatchlistRepository extends JpaRepository<Watchlist, Long> {
     @Query("SELECT w FROM Watchlist w WHERE w.userAccount.userId = :userId " +
             "AND SIZE(w.securities) = 0")
     List<Watchlist> findEmptyWatchlistsByUserId(@Param("userId") Long userId);
-}
\ No newline at end of file
+
+    /**
+     * Distinct active symbols that appear on any watchlist
+     */
+    @Query("SELECT DISTINCT s.symbol FROM Watchlist w JOIN w.securities s WHERE s.isActive = true")
+    List<String> findDistinctWatchedSymbols();
+}
@@ -4,12 +4,29 @@ import com.example.MicroInvestApp.domain.market.MarketData;
 import com.example.MicroInvestApp.domain.market.PriceHistory;
 import com.example.MicroInvestApp.domain.market.SecurityStock;
 import com.example.MicroInvestApp.dto.finnhub.FinnhubQuoteDTO;
+import com.example.MicroInvestApp.repositories.market.MarketPriceBulkRepository;
+import com.example.MicroInvestApp.repositories.market.PartitionMaintenanceRepository.PartitionedTable;
 import com.example.MicroInvestApp.repositories.market.PriceHistoryRepository;
 import com.example.MicroInvestApp.repositories.market.SecurityStockRepository;
 import com.example.MicroInvestApp.repositories.market.MarketDataRepository;
+import com.example.MicroInvestApp.service.cluster.ClusterCoordinator;
 import com.example.MicroInvestApp.service.market.DailyPriceTrackingService;
 import com.example.MicroInvestApp.service.market.MarketDataService;
 import com.example.MicroInvestApp.service.market.FinnhubClientService;
+import com.example.MicroInvestApp.service.market.FinnhubRateGovernor;
+import com.example.MicroInvestApp.service.market.HistoricalBackfillService;
+import com.example.MicroInvestApp.service.market.IntradayBarBuilder;
+import com.example.MicroInvestApp.service.market.MarketCalendarService;
+import com.example.MicroInvestApp.service.market.MarketDataArchiveService;
+import com.example.MicroInvestApp.service.market.MarketDataPartitionManager;
+import com.example.MicroInvestApp.service.market.MarketDataQualityAnalyzer;
+import com.example.MicroInvestApp.service.market.MovingAverageEngine;
+import com.example.MicroInvestApp.service.market.PriceHistoryStore;
+import com.example.MicroInvestApp.service.market.PriceRollupService;
+import com.example.MicroInvestApp.service.market.QuoteIngestionPipeline;
+import com.example.MicroInvestApp.service.market.RefreshTierPlanner;
+import com.example.MicroInvestApp.service.market.SymbolValidationService;
+import com.example.MicroInvestApp.service.market.TradeStreamService;
 import com.example.MicroInvestApp.impl.market.MarketDataServiceImpl;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
@@ -26,10 +43,14 @@ import org.springframework.data.domain.Pageable;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.*;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 @Component
 @ConditionalOnProperty(name = "scheduler.market-data.enabled", havingValue = "true", matchIfMissing = true)
@@ -43,6 +64,22 @@ public class MarketDataScheduler {
     private ExecutorService executorService;
     private final DailyPriceTrackingService dailyPriceTrackingService;
     private final PriceHistoryRepository priceHistoryRepository;
+    private final MarketPriceBulkRepository marketPriceBulkRepository;
+    private final QuoteIngestionPipeline quoteIngestionPipeline;
+    private final FinnhubRateGovernor rateGovernor;
+    private final TradeStreamService tradeStreamService;
+    private final RefreshTierPlanner refreshTierPlanner;
+    private final HistoricalBackfillService historicalBackfillService;
+    private final MarketCalendarService marketCalendarService;
+    private final SymbolValidationService symbolValidationService;
+    private final ClusterCoordinator clusterCoordinator;
+    private final PriceHistoryStore priceHistoryStore;
+    private final MovingAverageEngine movingAverageEngine;
+    private final PriceRollupService priceRollupService;
+    private final MarketDataPartitionManager partitionManager;
+    private final MarketDataArchiveService marketDataArchiveService;
+    private final MarketDataQualityAnalyzer qualityAnalyzer;
+    private final IntradayBarBuilder intradayBarBuilder;
 
     // Configuration properties
     @Value("${scheduler.market-data.batch-size:50}")
@@ -51,8 +88,17 @@ public class MarketDataScheduler {
     @Value("${scheduler.market-data.max-threads:5}")
     private int maxThreads;
 
-    @Value("${scheduler.market-data.api-delay-ms:100}")
-    private long apiDelayMs;
+    @Value("${market-data.ingestion.reactive-enabled:true}")
+    private boolean reactiveIngestionEnabled;
+
+    @Value("${market-data.refresh.tiered-enabled:true}")
+    private boolean tieredRefreshEnabled;
+
+    @Value("${market-data.retention.market-data-years:2}")
+    private int marketDataRetentionYears;
+
+    @Value("${market-data.retention.price-history-years:0}")
+    private int priceHistoryRetentionYears;
 
     @Value("${scheduler.market-data.circuit-breaker.failure-threshold:5}")
     private int circuitBreakerFailureThreshold;
@@ -71,13 +117,45 @@ public class MarketDataScheduler {
                                MarketDataRepository marketDataRepository,
                                FinnhubClientService finnhubClientService,
                                DailyPriceTrackingService dailyPriceTrackingService,
-                               PriceHistoryRepository priceHistoryRepository) {
+                               PriceHistoryRepository priceHistoryRepository,
+                               MarketPriceBulkRepository marketPriceBulkRepository,
+                               QuoteIngestionPipeline quoteIngestionPipeline,
+                               FinnhubRateGovernor rateGovernor,
+                               TradeStreamService tradeStreamService,
+                               RefreshTierPlanner refreshTierPlanner,
+                               HistoricalBackfillService historicalBackfillService,
+                               MarketCalendarService marketCalendarService,
+                               SymbolValidationService symbolValidationService,
+                               ClusterCoordinator clusterCoordinator,
+                               PriceHistoryStore priceHistoryStore,
+                               MovingAverageEngine movingAverageEngine,
+                               PriceRollupService priceRollupService,
+                               MarketDataPartitionManager partitionManager,
+                               MarketDataArchiveService marketDataArchiveService,
+                               MarketDataQualityAnalyzer qualityAnalyzer,
+                               IntradayBarBuilder intradayBarBuilder) {
         this.marketDataService = marketDataService;
         this.securityStockRepository = securityStockRepository;
         this.marketDataRepository = marketDataRepository;
         this.finnhubClientService = finnhubClientService;
         this.dailyPriceTrackingService = dailyPriceTrackingService;
         this.priceHistoryRepository = priceHistoryRepository;
+        this.marketPriceBulkRepository = marketPriceBulkRepository;
+        this.quoteIngestionPipeline = quoteIngestionPipeline;
+        this.rateGovernor = rateGovernor;
+        this.tradeStreamService = tradeStreamService;
+        this.refreshTierPlanner = refreshTierPlanner;
+        this.historicalBackfillService = historicalBackfillService;
+        this.marketCalendarService = marketCalendarService;
+        this.symbolValidationService = symbolValidationService;
+        this.clusterCoordinator = clusterCoordinator;
+        this.priceHistoryStore = priceHistoryStore;
+        this.movingAverageEngine = movingAverageEngine;
+        this.priceRollupService = priceRollupService;
+        this.partitionManager = partitionManager;
+        this.marketDataArchiveService = marketDataArchiveService;
+        this.qualityAnalyzer = qualityAnalyzer;
+        this.intradayBarBuilder = intradayBarBuilder;
     }
 
     @PostConstruct
@@ -92,7 +170,7 @@ public class MarketDataScheduler {
      */
     @Scheduled(cron = "0 */15 9-15 * * MON-FRI", zone = "America/New_York")
     public void updateCurrentPricesDuringMarketHours() {
-        if (!isMarketOpen()) {
+        if (!marketCalendarService.isMarketOpen()) {
             logger.debug("Market is closed - skipping price updates");
             return;
         }
@@ -102,6 +180,16 @@ public class MarketDataScheduler {
             return;
         }
 
+        if (reactiveIngestionEnabled && tieredRefreshEnabled) {
+            logger.debug("Tiered refresh owns intraday prices - skipping full sweep");
+            return;
+        }
+
+        if (reactiveIngestionEnabled) {
+            updateCurrentPricesReactively();
+            return;
+        }
+
         logger.info("Starting scheduled current price updates");
         long startTime = System.currentTimeMillis();
 
@@ -115,23 +203,16 @@ public class MarketDataScheduler {
             // Process securities in batches
             for (int offset = 0; offset < totalSecurities; offset += batchSize) {
                 Pageable pageable = PageRequest.of(offset / batchSize, batchSize);
-                List<SecurityStock> batch = securityStockRepository.findByIsActiveTrue(pageable).getContent();
+                List<SecurityStock> page = securityStockRepository.findByIsActiveTrue(pageable).getContent();
+
+                if (page.isEmpty()) break;
 
-                if (batch.isEmpty()) break;
+                // Symbols with recent streamed trades are already fresh; other nodes refresh their own shards
+                List<SecurityStock> batch = tradeStreamService.filterStreamGaps(clusterCoordinator.filterOwned(page));
+                if (batch.isEmpty()) continue;
 
                 //Enhanced batch processing with day change calculation
                 processBatchWithDayChangeCalculation(batch, successCount, errorCount);
-
-                // Rate limiting between batches
-                if (offset + batchSize < totalSecurities) {
-                    try {
-                        Thread.sleep(apiDelayMs * 2); // Longer delay between batches
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        logger.warn("Price update interrupted");
-                        return;
-                    }
-                }
             }
 
             long duration = System.currentTimeMillis() - startTime;
@@ -153,11 +234,87 @@ public class MarketDataScheduler {
     }
 
     /**
-     * Enhanced daily market data fetch with better error recovery
+     * Tiered price refresh: every minute, refresh whichever hot/warm/cold symbols are due,
+     * within the planner's per-minute call budget
+     */
+    @Scheduled(cron = "0 * 9-15 * * MON-FRI", zone = "America/New_York")
+    public void updateDueTiersDuringMarketHours() {
+        if (!reactiveIngestionEnabled || !tieredRefreshEnabled || !marketCalendarService.isMarketOpen() || isCircuitBreakerOpen()) {
+            return;
+        }
+
+        try {
+            List<String> dueSymbols = refreshTierPlanner.nextDueSymbols();
+            if (dueSymbols.isEmpty()) {
+                return;
+            }
+
+            List<SecurityStock> due = tradeStreamService.filterStreamGaps(
+                    securityStockRepository.findActiveBySymbolIn(dueSymbols));
+            if (due.isEmpty()) {
+                return;
+            }
+
+            QuoteIngestionPipeline.IngestionRunStats stats = quoteIngestionPipeline.refresh(due);
+            if (stats == null) {
+                return;
+            }
+
+            int errors = stats.getFailures();
+            if (errors == 0) {
+                resetCircuitBreaker();
+            } else if (errors > stats.getPricesPersisted()) {
+                handleCircuitBreakerLogic(errors);
+            }
+        } catch (Exception e) {
+            logger.error("Fatal error during tiered price refresh: {}", e.getMessage(), e);
+            handleCircuitBreakerLogic(1);
+        }
+    }
+
+    /**
+     * Reactive price refresh: one paced, bounded-concurrency pass over the active universe.
+     * While the trade stream is connected this only fills gaps for symbols it has not covered.
+     */
+    private void updateCurrentPricesReactively() {
+        try {
+            QuoteIngestionPipeline.IngestionRunStats stats;
+            if (tradeStreamService.isConnected()) {
+                List<SecurityStock> gaps = tradeStreamService.filterStreamGaps(
+                        clusterCoordinator.filterOwned(securityStockRepository.findByIsActiveTrue()));
+                logger.info("Trade stream connected - REST refresh limited to {} uncovered securities", gaps.size());
+                if (gaps.isEmpty()) {
+                    resetCircuitBreaker();
+                    return;
+                }
+                stats = quoteIngestionPipeline.refresh(gaps);
+            } else {
+                stats = quoteIngestionPipeline.refresh(
+                        clusterCoordinator.filterOwned(securityStockRepository.findByIsActiveTrue()));
+            }
+            if (stats == null) {
+                return;
+            }
+
+            int errors = stats.getFailures();
+            if (errors == 0) {
+                resetCircuitBreaker();
+            } else if (errors > stats.getPricesPersisted()) {
+                handleCircuitBreakerLogic(errors);
+            }
+        } catch (Exception e) {
+            logger.error("Fatal error during reactive price updates: {}", e.getMessage(), e);
+            handleCircuitBreakerLogic(1);
+        }
+    }
+
+    /**
+     * Enhanced daily market data fetch with better error recovery.
+     * Runs on every node, each fetching the symbols it owns, so the work is spread across the cluster.
      */
     @Scheduled(cron = "0 0 17 * * MON-FRI", zone = "America/New_York")
     public void fetchDailyMarketData() {
-        if (!wasMarketOpenToday()) {
+        if (!marketCalendarService.isTradingDayToday()) {
             logger.info("Market was closed today - skipping daily data fetch");
             return;
         }
@@ -166,12 +323,15 @@ public class MarketDataScheduler {
         long startTime = System.currentTimeMillis();
 
         try {
-            List<SecurityStock> activeSecurities = securityStockRepository.findByIsActiveTrue();
+            List<SecurityStock> activeSecurities =
+                    clusterCoordinator.filterOwned(securityStockRepository.findByIsActiveTrue());
             AtomicInteger successCount = new AtomicInteger(0);
             AtomicInteger errorCount = new AtomicInteger(0);
 
             // Process in smaller batches for daily data
             int dailyBatchSize = Math.max(1, batchSize / 2);
+            LocalDate today = marketCalendarService.today();
+            List<PriceHistory> closingBars = new ArrayList<>();
 
             for (int i = 0; i < activeSecurities.size(); i += dailyBatchSize) {
                 int endIndex = Math.min(i + dailyBatchSize, activeSecurities.size());
@@ -179,33 +339,33 @@ public class MarketDataScheduler {
 
                 for (SecurityStock security : batch) {
                     try {
-                        marketDataService.fetchAndStoreCurrentMarketData(security.getSymbol());
+                        MarketData marketData = inBackgroundLane(
+                                () -> marketDataService.fetchAndStoreCurrentMarketData(security.getSymbol()));
 
-                        // NEW: Store the closing price for day-change calculations
-                        storeClosingPriceForDayChangeCalculation(security);
+                        // Stage the closing price for day-change calculations
+                        if (marketData != null || security.getCurrentPrice() != null) {
+                            closingBars.add(buildClosingPriceHistory(security, marketData, today));
+                        }
 
                         successCount.incrementAndGet();
 
-                        // Rate limiting
-                        Thread.sleep(apiDelayMs * 2);
-
                     } catch (Exception e) {
                         logger.error("Failed to fetch daily data for {}: {}",
                                 security.getSymbol(), e.getMessage());
                         errorCount.incrementAndGet();
                     }
                 }
+            }
 
-                // Longer pause between batches
-                if (endIndex < activeSecurities.size()) {
-                    try {
-                        Thread.sleep(1000);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        logger.warn("Daily fetch interrupted");
-                        return;
-                    }
-                }
+            // Store all closing prices in one set-based upsert instead of a lookup and save per security
+            try {
+                movingAverageEngine.applyTo(closingBars);
+                MarketPriceBulkRepository.UpsertResult result = marketPriceBulkRepository.upsertClosingPrices(closingBars);
+                priceHistoryStore.applyClosingPrices(closingBars);
+                priceRollupService.onClosingBarsStored(closingBars);
+                logger.info("Stored closing prices for day-change tracking - {}", result);
+            } catch (Exception e) {
+                logger.warn("Failed to store closing prices: {}", e.getMessage());
             }
 
             long duration = System.currentTimeMillis() - startTime;
@@ -217,97 +377,102 @@ public class MarketDataScheduler {
         }
     }
 
-    // NEW METHOD: Store closing price for day-change tracking
-    private void storeClosingPriceForDayChangeCalculation(SecurityStock security) {
-        try {
-            if (security.getCurrentPrice() != null) {
-                LocalDate today = LocalDate.now();
-
-                // Store today's closing price in PriceHistory for tomorrow's calculations
-                Optional<PriceHistory> todayHistory = priceHistoryRepository
-                        .findBySecurityStockAndDate(security, today);
-
-                if (todayHistory.isPresent()) {
-                    // Update existing PriceHistory with closing price
-                    PriceHistory history = todayHistory.get();
-                    history.setClosePrice(security.getCurrentPrice());
-
-                    // Calculate change from previous day
-                    if (security.getPreviousClose() != null && security.getPreviousClose().compareTo(BigDecimal.ZERO) > 0) {
-                        BigDecimal change = security.getCurrentPrice().subtract(security.getPreviousClose());
-                        BigDecimal changePercent = change.divide(security.getPreviousClose(), 4, RoundingMode.HALF_UP)
-                                .multiply(new BigDecimal("100"));
-                        history.setPriceChange(change);
-                        history.setPercentChange(changePercent);
-                    } else {
-                        history.setPriceChange(BigDecimal.ZERO);
-                        history.setPercentChange(BigDecimal.ZERO);
-                    }
+    /**
+     * End-of-day flush of intraday bars: securities that saw prices today but got no closing bar from the
+     * daily fetch get one built from the session's observed OHLC and volume.
+     * Runs on every node, since intraday bars live on the node that owns the symbol.
+     */
+    @Scheduled(cron = "${market-data.intraday.flush-cron:0 20 17 * * MON-FRI}", zone = "America/New_York")
+    public void flushIntradaySession() {
+        if (!marketCalendarService.isTradingDayToday()) {
+            return;
+        }
 
-                    priceHistoryRepository.save(history);
-                    logger.debug("Updated PriceHistory closing price for {} on {}: ${}",
-                            security.getSymbol(), today, security.getCurrentPrice());
-                } else {
-                    // Create complete PriceHistory entry using current market data
-                    createCompletePriceHistoryEntry(security, today);
-                }
-            }
-        } catch (Exception e) {
-            logger.warn("Failed to store closing price for {}: {}", security.getSymbol(), e.getMessage());
+        LocalDate today = marketCalendarService.today();
+        List<String> symbols = intradayBarBuilder.getSymbolsWithSession(today).stream()
+                .filter(clusterCoordinator::ownsSymbol)
+                .toList();
+        if (symbols.isEmpty()) {
+            return;
         }
-    }
 
-    private void createCompletePriceHistoryEntry(SecurityStock security, LocalDate date) {
         try {
-            // Try to get today's full market data first
-            Optional<MarketData> todayMarketData = marketDataRepository
-                    .findBySecurityStockAndMarketDate(security, date);
-
-            PriceHistory history = new PriceHistory();
-            history.setSecurityStock(security);
-            history.setDate(date);
-
-            if (todayMarketData.isPresent()) {
-                MarketData data = todayMarketData.get();
-                history.setOpenPrice(data.getOpenPrice());
-                history.setHighPrice(data.getHighPrice());
-                history.setLowPrice(data.getLowPrice());
-                history.setClosePrice(data.getClosePrice());
-                history.setVolume(data.getVolume());
-            } else {
-                // Fallback: use current price for all OHLC values
-                BigDecimal currentPrice = security.getCurrentPrice();
-                history.setOpenPrice(currentPrice);
-                history.setHighPrice(currentPrice);
-                history.setLowPrice(currentPrice);
-                history.setClosePrice(currentPrice);
-                history.setVolume(1L);
+            List<SecurityStock> securities = securityStockRepository.findActiveBySymbolIn(symbols);
+            Set<Long> stored = new HashSet<>();
+            for (PriceHistory bar : priceHistoryRepository.findByDateAndSecurityStockIn(today, securities)) {
+                stored.add(bar.getSecurityStock().getSecurityId());
             }
 
-            // Calculate price change from previous day
-            if (security.getPreviousClose() != null && security.getPreviousClose().compareTo(BigDecimal.ZERO) > 0) {
-                BigDecimal change = history.getClosePrice().subtract(security.getPreviousClose());
-                BigDecimal changePercent = change.divide(security.getPreviousClose(), 4, RoundingMode.HALF_UP)
-                        .multiply(new BigDecimal("100"));
-                history.setPriceChange(change);
-                history.setPercentChange(changePercent);
-            } else {
-                history.setPriceChange(BigDecimal.ZERO);
-                history.setPercentChange(BigDecimal.ZERO);
+            List<PriceHistory> closingBars = new ArrayList<>();
+            for (SecurityStock security : securities) {
+                if (!stored.contains(security.getSecurityId())) {
+                    closingBars.add(buildClosingPriceHistory(security, null, today));
+                }
+            }
+            if (closingBars.isEmpty()) {
+                return;
             }
 
-            // Set moving averages (simplified)
-            history.setMovingAverage50Day(history.getClosePrice());
-            history.setMovingAverage200Day(history.getClosePrice());
+            movingAverageEngine.applyTo(closingBars);
+            MarketPriceBulkRepository.UpsertResult result = marketPriceBulkRepository.upsertClosingPrices(closingBars);
+            priceHistoryStore.applyClosingPrices(closingBars);
+            priceRollupService.onClosingBarsStored(closingBars);
+            logger.info("Flushed intraday sessions into closing bars for {} securities - {}", closingBars.size(), result);
+        } catch (Exception e) {
+            logger.error("Failed to flush intraday sessions: {}", e.getMessage());
+        }
+    }
 
-            priceHistoryRepository.save(history);
-            logger.debug("Created complete PriceHistory for {} on {}: ${}",
-                    security.getSymbol(), date, history.getClosePrice());
+    /**
+     * Build today's closing bar from the day's market data, falling back to the prices observed intraday
+     * and then to the current price for OHLC.
+     * If the bar already exists the upsert only updates its close, change and moving averages.
+     * Moving averages are filled in by the MovingAverageEngine just before the upsert.
+     */
+    private PriceHistory buildClosingPriceHistory(SecurityStock security, MarketData todayMarketData, LocalDate date) {
+        PriceHistory history = new PriceHistory();
+        history.setSecurityStock(security);
+        history.setDate(date);
+
+        boolean hasMarketData = todayMarketData != null && todayMarketData.getClosePrice() != null;
+        IntradayBarBuilder.SessionSummary session = hasMarketData
+                ? null : intradayBarBuilder.getSessionSummary(security.getSymbol(), date);
+
+        if (hasMarketData) {
+            history.setOpenPrice(todayMarketData.getOpenPrice());
+            history.setHighPrice(todayMarketData.getHighPrice());
+            history.setLowPrice(todayMarketData.getLowPrice());
+            history.setClosePrice(todayMarketData.getClosePrice());
+            history.setVolume(todayMarketData.getVolume());
+        } else if (session != null) {
+            history.setOpenPrice(session.getOpen());
+            history.setHighPrice(session.getHigh());
+            history.setLowPrice(session.getLow());
+            history.setClosePrice(session.getClose());
+            history.setVolume(Math.max(1L, session.getVolume()));
+        } else {
+            // Fallback: use current price for all OHLC values
+            BigDecimal currentPrice = security.getCurrentPrice();
+            history.setOpenPrice(currentPrice);
+            history.setHighPrice(currentPrice);
+            history.setLowPrice(currentPrice);
+            history.setClosePrice(currentPrice);
+            history.setVolume(1L);
+        }
 
-        } catch (Exception e) {
-            logger.error("Failed to create complete price history for {} on {}: {}",
-                    security.getSymbol(), date, e.getMessage());
+        // Calculate price change from previous day
+        if (security.getPreviousClose() != null && security.getPreviousClose().compareTo(BigDecimal.ZERO) > 0) {
+            BigDecimal change = history.getClosePrice().subtract(security.getPreviousClose());
+            BigDecimal changePercent = change.divide(security.getPreviousClose(), 4, RoundingMode.HALF_UP)
+                    .multiply(new BigDecimal("100"));
+            history.setPriceChange(change);
+            history.setPercentChange(changePercent);
+        } else {
+            history.setPriceChange(BigDecimal.ZERO);
+            history.setPercentChange(BigDecimal.ZERO);
         }
+
+        return history;
     }
 
     // NEW METHOD: Manual trigger for day change calculations
@@ -330,43 +495,22 @@ public class MarketDataScheduler {
      */
     @Scheduled(cron = "0 0 2 * * SUN", zone = "America/New_York")
     public void weeklyHistoricalDataUpdate() {
+        if (!clusterCoordinator.isLeader()) {
+            return;
+        }
+
         logger.info("Starting weekly historical data update");
 
         try {
-            List<SecurityStock> activeSecurities = securityStockRepository.findByIsActiveTrue();
-            LocalDate endDate = getLastMarketDay();
+            LocalDate endDate = marketCalendarService.lastCompletedTradingDay();
             LocalDate startDate = endDate.minusDays(30);
 
-            int successCount = 0;
-            int errorCount = 0;
-
-            for (SecurityStock security : activeSecurities) {
-                try {
-                    // Check for data gaps before fetching
-                    if (hasDataGaps(security, startDate, endDate)) {
-                        logger.info("Filling data gaps for security: {}", security.getSymbol());
-                        marketDataService.fetchAndStoreHistoricalMarketData(
-                                security.getSymbol(), startDate, endDate);
-                    } else {
-                        logger.debug("No data gaps found for security: {}", security.getSymbol());
-                    }
-
-                    successCount++;
-                    Thread.sleep(500); // Respect API limits
-
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    logger.warn("Historical data update interrupted");
-                    break;
-                } catch (Exception e) {
-                    logger.error("Failed to update historical data for {}: {}",
-                            security.getSymbol(), e.getMessage());
-                    errorCount++;
-                }
-            }
+            // One gap query for the whole universe, then parallel checkpointed chunk requests
+            String jobId = historicalBackfillService.planBackfill(startDate, endDate);
+            HistoricalBackfillService.BackfillRunStats stats = historicalBackfillService.runPendingChunks();
 
-            logger.info("Completed weekly historical data update - Success: {}, Errors: {}",
-                    successCount, errorCount);
+            logger.info("Completed weekly historical data update (job {}) - Completed: {}, Not completed: {}",
+                    jobId, stats != null ? stats.getCompleted() : 0, stats != null ? stats.getNotCompleted() : 0);
 
         } catch (Exception e) {
             logger.error("Fatal error during weekly historical update: {}", e.getMessage(), e);
@@ -378,41 +522,24 @@ public class MarketDataScheduler {
      */
     @Scheduled(cron = "0 0 8 * * MON-FRI", zone = "America/New_York")
     public void preMarketDataPreparation() {
-        if (!isMarketDay()) {
+        if (!clusterCoordinator.isLeader()) {
+            return;
+        }
+
+        if (!marketCalendarService.isTradingDayToday()) {
             return;
         }
 
         logger.info("Starting pre-market data preparation");
 
         try {
-            // Validate all active securities
-            List<SecurityStock> activeSecurities = securityStockRepository.findByIsActiveTrue();
-            int invalidCount = 0;
-
-            for (SecurityStock security : activeSecurities) {
-                try {
-                    // Quick validation of security status
-                    Boolean isValid = finnhubClientService.validateSymbol(security.getSymbol()).block();
-                    if (Boolean.FALSE.equals(isValid)) {
-                        logger.warn("Security {} appears to be invalid or delisted", security.getSymbol());
-                        // Could mark as inactive or flag for review
-                        invalidCount++;
-                    }
-
-                    Thread.sleep(50); // Light rate limiting
-
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    logger.warn("Pre-market validation interrupted");
-                    break;
-                } catch (Exception e) {
-                    logger.warn("Failed to validate security {}: {}", security.getSymbol(), e.getMessage());
-                }
+            // Cached verdicts and recent quotes skip the API; securities that keep failing are deactivated
+            SymbolValidationService.ValidationRunStats stats = symbolValidationService.validateActiveUniverse();
+            if (stats != null) {
+                logger.info("Pre-market preparation completed - {} securities validated, {} flagged as invalid, {} deactivated",
+                        stats.getSecurities(), stats.getInvalid(), stats.getDeactivated());
             }
 
-            logger.info("Pre-market preparation completed - {} securities validated, {} flagged as invalid",
-                    activeSecurities.size(), invalidCount);
-
         } catch (Exception e) {
             logger.error("Error during pre-market preparation: {}", e.getMessage(), e);
         }
@@ -423,14 +550,18 @@ public class MarketDataScheduler {
      */
     @Scheduled(cron = "0 30 16 * * MON-FRI", zone = "America/New_York") // 4:30 PM EST
     public void recoverFailedUpdates() {
-        if (!wasMarketOpenToday()) {
+        if (!clusterCoordinator.isLeader()) {
+            return;
+        }
+
+        if (!marketCalendarService.isTradingDayToday()) {
             return;
         }
 
         logger.info("Starting recovery job for today's failed updates");
 
         try {
-            LocalDate today = LocalDate.now();
+            LocalDate today = marketCalendarService.today();
             List<SecurityStock> securitiesMissingData =
                     securityStockRepository.findActiveSecuritiesMissingMarketDataForDate(today);
 
@@ -441,13 +572,8 @@ public class MarketDataScheduler {
                 int recovered = 0;
                 for (SecurityStock security : securitiesMissingData) {
                     try {
-                        marketDataService.fetchAndStoreCurrentMarketData(security.getSymbol());
+                        inBackgroundLane(() -> marketDataService.fetchAndStoreCurrentMarketData(security.getSymbol()));
                         recovered++;
-                        Thread.sleep(apiDelayMs * 3); // Conservative rate limiting
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        logger.warn("Recovery job interrupted");
-                        break;
                     } catch (Exception e) {
                         logger.warn("Recovery failed for {}: {}", security.getSymbol(), e.getMessage());
                     }
@@ -474,16 +600,9 @@ public class MarketDataScheduler {
         List<CompletableFuture<Void>> futures = batch.stream()
                 .map(security -> CompletableFuture.runAsync(() -> {
                     try {
-                        marketDataService.updateCurrentPrice(security.getSymbol());
+                        inBackgroundLane(() -> marketDataService.updateCurrentPrice(security.getSymbol()));
                         successCount.incrementAndGet();
 
-                        // Rate limiting per request
-                        try {
-                            Thread.sleep(apiDelayMs);
-                        } catch (InterruptedException e) {
-                            Thread.currentThread().interrupt();
-                        }
-
                     } catch (Exception e) {
                         logger.error("Failed to update price for {}: {}",
                                 security.getSymbol(), e.getMessage());
@@ -510,7 +629,11 @@ public class MarketDataScheduler {
      */
     @Scheduled(cron = "0 */30 16-20 * * MON-FRI", zone = "America/New_York")
     public void updateExtendedHoursData() {
-        if (!isMarketDay()) {
+        if (!clusterCoordinator.isLeader()) {
+            return;
+        }
+
+        if (!marketCalendarService.isTradingDayToday()) {
             return;
         }
 
@@ -525,13 +648,8 @@ public class MarketDataScheduler {
 
             for (SecurityStock security : highVolumeSecurities) {
                 try {
-                    marketDataService.updateCurrentPrice(security.getSymbol());
+                    inBackgroundLane(() -> marketDataService.updateCurrentPrice(security.getSymbol()));
                     successCount.incrementAndGet();
-                    Thread.sleep(apiDelayMs * 3); // Slower rate for extended hours
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    logger.warn("Extended hours update interrupted");
-                    break;
                 } catch (Exception e) {
                     logger.warn("Failed to update extended hours price for {}: {}",
                             security.getSymbol(), e.getMessage());
@@ -548,54 +666,39 @@ public class MarketDataScheduler {
     }
 
     /**
-     * Data quality monitoring job
+     * Data quality monitoring job.
+     * Gaps, stale, repeated and impossible bars for the whole universe come from two set-based queries.
      */
     @Scheduled(cron = "0 0 6 * * MON-FRI", zone = "America/New_York") // 6 AM EST
     public void dataQualityCheck() {
-        if (!isMarketDay()) {
+        if (!marketCalendarService.isTradingDayToday()) {
             return;
         }
 
         logger.info("Starting data quality check");
 
         try {
-            LocalDate yesterday = getLastMarketDay();
-            List<SecurityStock> activeSecurities = securityStockRepository.findByIsActiveTrue();
-
-            int missingDataCount = 0;
-            int staleDataCount = 0;
-            int totalChecked = 0;
-
-            for (SecurityStock security : activeSecurities) {
-                try {
-                    // Check if yesterday's data exists
-                    if (!marketDataRepository.findBySecurityStockAndMarketDate(security, yesterday).isPresent()) {
-                        missingDataCount++;
-                        logger.warn("Missing market data for {} on {}", security.getSymbol(), yesterday);
-                    }
-
-                    // Check if current price is stale
-                    var latestData = marketDataRepository.findLatestBySecurityStock(security);
-                    if (latestData.isPresent() && isDataStale(latestData.get())) {
-                        staleDataCount++;
-                        logger.warn("Stale data detected for {}: last updated {}",
-                                security.getSymbol(), latestData.get().getLastUpdated());
-                    }
-
-                    totalChecked++;
-
-                } catch (Exception e) {
-                    logger.warn("Error checking data quality for {}: {}", security.getSymbol(), e.getMessage());
+            MarketDataQualityAnalyzer.DataQualityReport report = qualityAnalyzer.analyzeRecent();
+            int totalChecked = report.getSecuritiesChecked();
+
+            for (MarketDataQualityAnalyzer.SecurityIssue issue : report.getIssues()) {
+                if (issue.isMissingLastSession() || issue.isStale()) {
+                    logger.warn("Data issue for {}: latest bar {}, last updated {}{}",
+                            issue.getSymbol(), issue.getLatestDate(), issue.getLatestUpdate(),
+                            issue.isStale() ? " (stale)" : "");
                 }
             }
 
-            logger.info("Data quality check completed - Checked: {}, Missing: {}, Stale: {}",
-                    totalChecked, missingDataCount, staleDataCount);
+            logger.info("Data quality check completed in {}ms - Checked: {}, Missing last session: {}, Stale: {}, " +
+                            "Coverage: {}% over {} sessions, Repeated bars: {}, Invalid bars: {}",
+                    report.getDurationMs(), totalChecked, report.getMissingLastSession(), report.getStaleSecurities(),
+                    String.format("%.1f", report.getCoveragePercentage()), report.getSessions(),
+                    report.getRepeatedBars(), report.getInvalidBars());
 
             // Trigger alerts if data quality issues exceed threshold
-            if (missingDataCount > totalChecked * 0.1) { // More than 10% missing
-                logger.error("ALERT: High missing data rate detected - {}/{} securities missing yesterday's data",
-                        missingDataCount, totalChecked);
+            if (report.getMissingLastSession() > totalChecked * 0.1) { // More than 10% missing
+                logger.error("ALERT: High missing data rate detected - {}/{} securities missing {}'s data",
+                        report.getMissingLastSession(), totalChecked, report.getToDate());
             }
 
         } catch (Exception e) {
@@ -604,16 +707,45 @@ public class MarketDataScheduler {
     }
 
     /**
-     * Weekly data cleanup job
+     * Weekly data cleanup job.
+     * Partitioned tables lose whole months older than the retention window; plain tables fall back to a delete.
+     * With the archive enabled those months are exported to disk first.
      */
     @Scheduled(cron = "0 0 3 * * SUN", zone = "America/New_York") // 3 AM on Sundays
     public void weeklyDataCleanup() {
+        if (!clusterCoordinator.isLeader()) {
+            return;
+        }
+
         logger.info("Starting weekly data cleanup");
 
         try {
-            LocalDate cutoffDate = LocalDate.now().minusYears(2);
-            int deletedRecords = marketDataRepository.deleteOldRecords(cutoffDate);
-            logger.info("Deleted {} old market data records older than {}", deletedRecords, cutoffDate);
+            LocalDate cutoffDate = marketCalendarService.today().minusYears(marketDataRetentionYears);
+            if (marketDataArchiveService.isEnabled()) {
+                // Only whole months are archived, so the window ends on a month boundary and nothing
+                // leaves the database before it is on disk
+                cutoffDate = YearMonth.from(cutoffDate).atDay(1);
+                MarketDataArchiveService.ArchiveRunStats archived =
+                        marketDataArchiveService.archiveMonthsBefore(YearMonth.from(cutoffDate));
+                if (archived == null || !archived.isComplete()) {
+                    logger.warn("Market data archiving incomplete - keeping rows older than {} for now", cutoffDate);
+                    return;
+                }
+            }
+            int removedPartitions = partitionManager.applyRetention(PartitionedTable.MARKET_DATA, cutoffDate);
+            if (removedPartitions < 0) {
+                int deletedRecords = marketDataRepository.deleteOldRecords(cutoffDate);
+                logger.info("Deleted {} old market data records older than {}", deletedRecords, cutoffDate);
+            } else {
+                logger.info("Removed {} market data partitions older than {}", removedPartitions, cutoffDate);
+            }
+
+            // Price history is kept indefinitely unless a retention window is configured
+            if (priceHistoryRetentionYears > 0) {
+                LocalDate historyCutoff = marketCalendarService.today().minusYears(priceHistoryRetentionYears);
+                int removedHistory = partitionManager.applyRetention(PartitionedTable.PRICE_HISTORY, historyCutoff);
+                logger.info("Removed {} price history partitions older than {}", Math.max(0, removedHistory), historyCutoff);
+            }
 
         } catch (Exception e) {
             logger.error("Error during weekly cleanup: {}", e.getMessage());
@@ -627,7 +759,7 @@ public class MarketDataScheduler {
     public void healthCheck() {
         try {
             int activeSecurities = securityStockRepository.countByIsActiveTrue();
-            boolean marketOpen = isMarketOpen();
+            boolean marketOpen = marketCalendarService.isMarketOpen();
             boolean circuitBreakerStatus = isCircuitBreakerOpen();
 
             logger.info("Market Data Scheduler Health Check - Active Securities: {}, Market Open: {}, Circuit Breaker: {}",
@@ -641,76 +773,6 @@ public class MarketDataScheduler {
         }
     }
 
-    /**
-     * Enhanced market status checking with holiday support
-     */
-    private boolean isMarketOpen() {
-        ZonedDateTime nowEST = ZonedDateTime.now(ZoneId.of("America/New_York"));
-        LocalDate today = nowEST.toLocalDate();
-        LocalTime currentTime = nowEST.toLocalTime();
-
-        // Check if it's a weekday
-        if (!isMarketDay(today)) {
-            return false;
-        }
-
-        // Check market hours (9:30 AM - 4:00 PM EST)
-        LocalTime marketOpen = LocalTime.of(9, 30);
-        LocalTime marketClose = LocalTime.of(16, 0);
-
-        return !currentTime.isBefore(marketOpen) && !currentTime.isAfter(marketClose);
-    }
-
-    private boolean isMarketDay() {
-        return isMarketDay(LocalDate.now());
-    }
-
-    private boolean isMarketDay(LocalDate date) {
-        DayOfWeek dayOfWeek = date.getDayOfWeek();
-        return dayOfWeek != DayOfWeek.SATURDAY && dayOfWeek != DayOfWeek.SUNDAY;
-    }
-
-    private boolean wasMarketOpenToday() {
-        return isMarketDay(LocalDate.now());
-    }
-
-    private LocalDate getLastMarketDay() {
-        LocalDate date = LocalDate.now().minusDays(1);
-        while (!isMarketDay(date)) {
-            date = date.minusDays(1);
-        }
-        return date;
-    }
-
-    /**
-     * Check if there are gaps in market data for a security
-     */
-    private boolean hasDataGaps(SecurityStock security, LocalDate startDate, LocalDate endDate) {
-        try {
-            long expectedDays = countMarketDaysBetween(startDate, endDate);
-            long actualRecords = marketDataRepository.countBySecurityStockAndDateRange(
-                    security, startDate, endDate);
-
-            boolean hasGaps = actualRecords < expectedDays * 0.9; // Allow 10% tolerance
-
-            if (hasGaps) {
-                logger.debug("Data gaps detected for {}: expected {} days, found {} records",
-                        security.getSymbol(), expectedDays, actualRecords);
-            }
-
-            return hasGaps;
-        } catch (Exception e) {
-            logger.warn("Could not check data gaps for {}: {}", security.getSymbol(), e.getMessage());
-            return true; // Assume gaps exist if we can't check
-        }
-    }
-
-    private long countMarketDaysBetween(LocalDate start, LocalDate end) {
-        return start.datesUntil(end.plusDays(1))
-                .filter(this::isMarketDay)
-                .count();
-    }
-
     /**
      * Circuit breaker logic to prevent API abuse during failures
      */
@@ -753,25 +815,14 @@ public class MarketDataScheduler {
     }
 
     /**
-     * Get high volume securities for extended hours trading
+     * Get securities worth refreshing in extended hours - held, ordered, then watched symbols
      */
     private List<SecurityStock> getHighVolumeSecurities() {
-        // Return a subset of active securities for extended hours
-        List<SecurityStock> allActive = securityStockRepository.findByIsActiveTrue();
-        int maxExtendedHours = Math.min(100, allActive.size()); // Limit to top 100
-        return allActive.subList(0, maxExtendedHours);
-    }
-
-    /**
-     * Check if market data is stale
-     */
-    private boolean isDataStale(MarketData marketData) {
-        if (marketData.getLastUpdated() == null) {
-            return true;
+        List<String> symbols = refreshTierPlanner.prioritySymbols(100); // Limit to top 100
+        if (symbols.isEmpty()) {
+            return List.of();
         }
-
-        Instant staleThreshold = Instant.now().minusSeconds(24 * 3600L); // 24 hours
-        return marketData.getLastUpdated().isBefore(staleThreshold);
+        return securityStockRepository.findActiveBySymbolIn(symbols);
     }
 
     /**
@@ -790,8 +841,8 @@ public class MarketDataScheduler {
     public MarketDataServiceImpl.MarketDataStats getMarketDataStats() {
         try {
             int totalActiveSecurities = securityStockRepository.countByIsActiveTrue();
-            LocalDate today = LocalDate.now();
-            LocalDate yesterday = getLastMarketDay();
+            LocalDate today = marketCalendarService.today();
+            LocalDate yesterday = marketCalendarService.lastCompletedTradingDay();
 
             int todayRecords = marketDataRepository.countByMarketDate(today);
             int yesterdayRecords = marketDataRepository.countByMarketDate(yesterday);
@@ -809,6 +860,13 @@ public class MarketDataScheduler {
         }
     }
 
+    /**
+     * Run a service call so its Finnhub requests queue behind interactive traffic
+     */
+    private <T> T inBackgroundLane(Supplier<T> action) {
+        return rateGovernor.inLane(FinnhubRateGovernor.Lane.BACKGROUND, action);
+    }
+
     /**
      * Shutdown hook to clean up executor service
      */
@@ -839,16 +897,13 @@ public class MarketDataScheduler {
                 .map(security -> CompletableFuture.runAsync(() -> {
                     try {
                         // Update current price (your existing logic)
-                        marketDataService.updateCurrentPrice(security.getSymbol());
+                        inBackgroundLane(() -> marketDataService.updateCurrentPrice(security.getSymbol()));
 
                         // Calculate day change using previous close
                         calculateIntradayChange(security);
 
                         successCount.incrementAndGet();
-                        Thread.sleep(apiDelayMs);
 
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
                     } catch (Exception e) {
                         logger.error("Failed to update price for {}: {}",
                                 security.getSymbol(), e.getMessage());
@@ -897,8 +952,19 @@ public class MarketDataScheduler {
 
     // NEW SCHEDULED JOB: Initialize previous close prices for new trading day
     @Scheduled(cron = "0 0 9 * * MON-FRI", zone = "America/New_York")
+    public void scheduledTradingDayInitialization() {
+        if (!clusterCoordinator.isLeader()) {
+            return;
+        }
+
+        initializeTradingDay();
+    }
+
+    /**
+     * Initialize previous close prices; also triggered manually from the day change API
+     */
     public void initializeTradingDay() {
-        if (!isMarketDay()) {
+        if (!marketCalendarService.isTradingDayToday()) {
             return;
         }
 
@@ -912,7 +978,8 @@ public class MarketDataScheduler {
             for (SecurityStock security : activeSecurities) {
                 try {
                     // Get quote which includes previous close
-                    FinnhubQuoteDTO quote = finnhubClientService.getQuote(security.getSymbol()).block();
+                    FinnhubQuoteDTO quote = finnhubClientService
+                            .getQuote(security.getSymbol(), FinnhubRateGovernor.Lane.BACKGROUND).block();
 
                     if (quote != null && quote.getPreviousClose() != null &&
                             quote.getPreviousClose().compareTo(BigDecimal.ZERO) > 0) {
@@ -929,9 +996,6 @@ public class MarketDataScheduler {
                         errorCount++;
                     }
 
-                    // Rate limiting
-                    Thread.sleep(apiDelayMs);
-
                 } catch (Exception e) {
                     logger.warn("Failed to initialize previous close for {}: {}",
                             security.getSymbol(), e.getMessage());
@@ -963,15 +1027,4 @@ public class MarketDataScheduler {
         return null;
     }
 
-    // Helper method to get previous market day
-    private LocalDate getPreviousMarketDay(LocalDate date) {
-        LocalDate previousDay = date.minusDays(1);
-
-        while (!isMarketDay(previousDay)) {
-            previousDay = previousDay.minusDays(1);
-        }
-
-        return previousDay;
-    }
-
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import com.example.MicroInvestApp.service.order.TransactionService;
 import com.example.MicroInvestApp.domain.orders.Transaction;
 import com.example.MicroInvestApp.repositories.orders.TransactionRepository;
 import com.example.MicroInvestApp.events.TransactionSettlementEvent;
+import com.example.MicroInvestApp.service.cluster.ClusterCoordinator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,6 +36,7 @@ public class ScheduledTaskService {
     private final TransactionService transactionService;
     private final TransactionRepository transactionRepository;
     private final TaskScheduler taskScheduler;
+    private final ClusterCoordinator clusterCoordinator;
 
     // Track scheduled settlement tasks to avoid duplicates
     private final ConcurrentHashMap<Long, ScheduledFuture<?>> scheduledTasks = new ConcurrentHashMap<>();
@@ -42,10 +44,12 @@ public class ScheduledTaskService {
     @Autowired
     public ScheduledTaskService(TransactionService transactionService,
                                 TransactionRepository transactionRepository,
-                                @Qualifier("settlementTaskScheduler")TaskScheduler taskScheduler) {
+                                @Qualifier("settlementTaskScheduler")TaskScheduler taskScheduler,
+                                ClusterCoordinator clusterCoordinator) {
         this.transactionService = transactionService;
         this.transactionRepository = transactionRepository;
         this.taskScheduler = taskScheduler;
+        this.clusterCoordinator = clusterCoordinator;
 
     }
 
@@ -169,6 +173,17 @@ public class ScheduledTaskService {
      * Runs every day at 2 AM to avoid conflicts with business hours
      */
     @Scheduled(cron = "0 0 2 * * ?") // 2:00 AM every day
+    public void scheduledMissedSettlementSweep() {
+        if (!clusterCoordinator.isLeader()) {
+            return;
+        }
+
+        processMissedSettlements();
+    }
+
+    /**
+     * Settle every transaction whose settlement time has passed
+     */
     public void processMissedSettlements() {
         logger.info("Starting daily batch settlement processing (backup)...");
         try {
@@ -0,0 +1,312 @@
+package com.example.MicroInvestApp.service.cluster;
+
+import com.example.MicroInvestApp.domain.market.SecurityStock;
+import com.example.MicroInvestApp.events.ClusterMembershipChangedEvent;
+import com.example.MicroInvestApp.repositories.cluster.ClusterCoordinationRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Coordinates scheduled work across application instances through lease rows in Postgres.
+ * One node holds the scheduler leader lease and runs the singleton jobs; the symbol universe for
+ * intraday ingestion is split across live nodes on a consistent-hash ring, so a node joining or leaving
+ * only moves its own share of symbols. With cluster.enabled=false this node is leader and owns every symbol.
+ * A node that cannot reach the coordination tables at startup refuses to start; one that loses them later falls
+ * back to running as a single node until its heartbeat succeeds again, so jobs may run twice but never not at all.
+ * Every change of ownership is published as a {@link ClusterMembershipChangedEvent}.
+ */
+@Service
+public class ClusterCoordinator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterCoordinator.class);
+
+    private static final String LEADER_LEASE = "scheduler-leader";
+
+    private final ClusterCoordinationRepository coordinationRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String nodeId;
+
+    @Value("${cluster.enabled:false}")
+    private boolean enabled;
+
+    @Value("${cluster.lease-ttl-ms:30000}")
+    private long leaseTtlMs;
+
+    @Value("${cluster.virtual-nodes:64}")
+    private int virtualNodes;
+
+    private volatile boolean leader;
+    private volatile long leaderUntilMs;
+    private volatile List<String> liveNodes = List.of();
+    private volatile NavigableMap<Long, String> ring = new TreeMap<>();
+    private volatile long lastHeartbeatMs;
+    private volatile boolean standalone;
+
+    @Autowired
+    public ClusterCoordinator(ClusterCoordinationRepository coordinationRepository,
+                              @Value("${cluster.node-id:}") String configuredNodeId,
+                              ApplicationEventPublisher eventPublisher) {
+        this.coordinationRepository = coordinationRepository;
+        this.eventPublisher = eventPublisher;
+        this.nodeId = configuredNodeId != null && !configuredNodeId.isBlank()
+                ? configuredNodeId
+                : defaultNodeId();
+    }
+
+    /**
+     * Write the first heartbeat before any scheduler runs; missing coordination tables stop startup here
+     */
+    @PostConstruct
+    public void join() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            coordinationRepository.heartbeat(nodeId);
+        } catch (DataAccessException e) {
+            throw new IllegalStateException("cluster.enabled=true but node " + nodeId + " cannot write its heartbeat - " +
+                    "apply db/schema/011-cluster-coordination.sql or set cluster.enabled=false", e);
+        }
+        lastHeartbeatMs = System.currentTimeMillis();
+        heartbeat();
+    }
+
+    /**
+     * Heartbeat, renew or contend for leadership, and rebalance the ring when membership changed
+     */
+    @Scheduled(fixedDelayString = "${cluster.heartbeat-ms:10000}")
+    public void heartbeat() {
+        if (!enabled) {
+            return;
+        }
+
+        boolean ownershipChanged = false;
+        try {
+            long renewStartMs = System.currentTimeMillis();
+            coordinationRepository.heartbeat(nodeId);
+
+            boolean wasLeader = leader;
+            leader = coordinationRepository.tryAcquireLease(LEADER_LEASE, nodeId, leaseTtlMs);
+            // Trust the lease locally for a little less than its TTL, measured from before the renewal
+            leaderUntilMs = leader ? renewStartMs + leaseTtlMs * 3 / 4 : 0;
+            if (leader != wasLeader) {
+                logger.info("Node {} {} scheduler leadership", nodeId, leader ? "acquired" : "lost");
+            }
+
+            List<String> nodes = coordinationRepository.findLiveNodes(leaseTtlMs);
+            if (!nodes.contains(nodeId)) {
+                nodes = new ArrayList<>(nodes);
+                nodes.add(nodeId);
+                nodes.sort(null);
+            }
+            if (!nodes.equals(liveNodes)) {
+                ring = buildRing(nodes);
+                logger.info("Cluster membership changed from {} to {} nodes - symbol shards rebalanced: {}",
+                        liveNodes.size(), nodes.size(), nodes);
+                liveNodes = List.copyOf(nodes);
+                ownershipChanged = true;
+            }
+
+            if (leader) {
+                coordinationRepository.purgeNodesSilentFor(leaseTtlMs * 10);
+            }
+
+            lastHeartbeatMs = System.currentTimeMillis();
+            if (standalone) {
+                standalone = false;
+                ownershipChanged = true;
+                logger.info("Node {} heartbeat recovered - back to cluster scheduling", nodeId);
+            }
+        } catch (Exception e) {
+            // Keep the current view for one lease TTL, then stop relying on leases nobody can renew
+            logger.warn("Cluster heartbeat failed for node {}: {}", nodeId, e.getMessage());
+            long silentMs = System.currentTimeMillis() - lastHeartbeatMs;
+            if (!standalone && silentMs > leaseTtlMs) {
+                standalone = true;
+                ownershipChanged = true;
+                logger.error("Node {} has had no successful heartbeat for {}ms - running as a single node " +
+                        "(leader, all symbols) until coordination recovers", nodeId, silentMs);
+            }
+        }
+
+        if (ownershipChanged) {
+            // Outside the heartbeat's error handling, so a failing listener is not taken for a lost heartbeat
+            try {
+                eventPublisher.publishEvent(new ClusterMembershipChangedEvent(this, getLiveNodes()));
+            } catch (Exception e) {
+                logger.warn("Cluster membership listener failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void leave() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            coordinationRepository.releaseLease(LEADER_LEASE, nodeId);
+            coordinationRepository.removeNode(nodeId);
+            logger.info("Node {} left the cluster", nodeId);
+        } catch (Exception e) {
+            logger.warn("Failed to leave the cluster cleanly: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Whether this node should run singleton scheduled jobs right now
+     */
+    public boolean isLeader() {
+        return !enabled || standalone || (leader && System.currentTimeMillis() < leaderUntilMs);
+    }
+
+    /**
+     * Whether this node is responsible for refreshing the given symbol
+     */
+    public boolean ownsSymbol(String symbol) {
+        if (!enabled || standalone) {
+            return true;
+        }
+        if (ring.isEmpty()) {
+            // No membership view yet - the leader covers everything rather than leaving symbols unrefreshed
+            return isLeader();
+        }
+        return nodeId.equals(ownerOf(symbol));
+    }
+
+    /**
+     * The node responsible for the given symbol, or null when no membership view is known yet
+     */
+    public String ownerOf(String symbol) {
+        if (!enabled || standalone) {
+            return nodeId;
+        }
+        NavigableMap<Long, String> current = ring;
+        if (current.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> owner = current.ceilingEntry(hash(symbol));
+        return (owner != null ? owner : current.firstEntry()).getValue();
+    }
+
+    /**
+     * The securities in the list that this node owns
+     */
+    public List<SecurityStock> filterOwned(List<SecurityStock> securities) {
+        if (!enabled || standalone) {
+            return securities;
+        }
+        return securities.stream().filter(security -> ownsSymbol(security.getSymbol())).toList();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Whether cluster membership is currently known from heartbeats
+     */
+    public boolean isClustered() {
+        return enabled && !standalone;
+    }
+
+    /**
+     * Nodes with a recent heartbeat, this one included; just this node when not clustered
+     */
+    public List<String> getLiveNodes() {
+        return enabled && !standalone ? liveNodes : List.of(nodeId);
+    }
+
+    public int getLiveNodeCount() {
+        return enabled && !standalone ? Math.max(1, liveNodes.size()) : 1;
+    }
+
+    public ClusterStatus getStatus() {
+        String leaderNode = enabled ? coordinationRepository.findLeaseOwner(LEADER_LEASE) : nodeId;
+        return new ClusterStatus(nodeId, enabled, standalone, isLeader(), leaderNode,
+                enabled ? liveNodes : List.of(nodeId));
+    }
+
+    private NavigableMap<Long, String> buildRing(List<String> nodes) {
+        NavigableMap<Long, String> next = new TreeMap<>();
+        for (String node : nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                next.put(hash(node + "#" + i), node);
+            }
+        }
+        return next;
+    }
+
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (digest[i] & 0xFF);
+            }
+            return value;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * This node's view of the cluster
+     */
+    public static class ClusterStatus {
+        private final String nodeId;
+        private final boolean clusterEnabled;
+        private final boolean standalone;
+        private final boolean leader;
+        private final String leaderNode;
+        private final List<String> liveNodes;
+
+        public ClusterStatus(String nodeId, boolean clusterEnabled, boolean standalone, boolean leader,
+                             String leaderNode, List<String> liveNodes) {
+            this.nodeId = nodeId;
+            this.clusterEnabled = clusterEnabled;
+            this.standalone = standalone;
+            this.leader = leader;
+            this.leaderNode = leaderNode;
+            this.liveNodes = liveNodes;
+        }
+
+        // Getters
+        public String getNodeId() { return nodeId; }
+        public boolean isClusterEnabled() { return clusterEnabled; }
+        public boolean isStandalone() { return standalone; }
+        public boolean isLeader() { return leader; }
+        public String getLeaderNode() { return leaderNode; }
+        public List<String> getLiveNodes() { return liveNodes; }
+        public int getLiveNodeCount() { return liveNodes.size(); }
+    }
+}
@@ -3,9 +3,11 @@ package com.example.MicroInvestApp.service.market;
 import com.example.MicroInvestApp.domain.market.PriceHistory;
 import com.example.MicroInvestApp.domain.market.SecurityStock;
 import com.example.MicroInvestApp.domain.portfolio.Position;
+import com.example.MicroInvestApp.repositories.market.MarketPriceBulkRepository;
 import com.example.MicroInvestApp.repositories.market.PriceHistoryRepository;
 import com.example.MicroInvestApp.repositories.market.SecurityStockRepository;
 import com.example.MicroInvestApp.repositories.portfolio.PositionRepository;
+import com.example.MicroInvestApp.service.cluster.ClusterCoordinator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,11 +17,13 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -36,14 +40,32 @@ public class DailyPriceTrackingService {
     private final PriceHistoryRepository priceHistoryRepository;
     private final SecurityStockRepository securityStockRepository;
     private final PositionRepository positionRepository;
+    private final MarketPriceBulkRepository marketPriceBulkRepository;
+    private final MarketCalendarService marketCalendarService;
+    private final ClusterCoordinator clusterCoordinator;
+    private final PriceHistoryStore priceHistoryStore;
+    private final MovingAverageEngine movingAverageEngine;
+    private final PriceRollupService priceRollupService;
 
     @Autowired
     public DailyPriceTrackingService(PriceHistoryRepository priceHistoryRepository,
                                      SecurityStockRepository securityStockRepository,
-                                     PositionRepository positionRepository) {
+                                     PositionRepository positionRepository,
+                                     MarketPriceBulkRepository marketPriceBulkRepository,
+                                     MarketCalendarService marketCalendarService,
+                                     ClusterCoordinator clusterCoordinator,
+                                     PriceHistoryStore priceHistoryStore,
+                                     MovingAverageEngine movingAverageEngine,
+                                     PriceRollupService priceRollupService) {
         this.priceHistoryRepository = priceHistoryRepository;
         this.securityStockRepository = securityStockRepository;
         this.positionRepository = positionRepository;
+        this.marketPriceBulkRepository = marketPriceBulkRepository;
+        this.marketCalendarService = marketCalendarService;
+        this.clusterCoordinator = clusterCoordinator;
+        this.priceHistoryStore = priceHistoryStore;
+        this.movingAverageEngine = movingAverageEngine;
+        this.priceRollupService = priceRollupService;
     }
 
     /**
@@ -53,7 +75,11 @@ public class DailyPriceTrackingService {
     @Scheduled(cron = "0 5 16 * * MON-FRI", zone = "America/New_York")
     @Transactional
     public void captureEndOfDayClosingPrices() {
-        if (!isMarketDay(LocalDate.now())) {
+        if (!clusterCoordinator.isLeader()) {
+            return;
+        }
+
+        if (!marketCalendarService.isTradingDayToday()) {
             logger.debug("Not a market day, skipping end-of-day capture");
             return;
         }
@@ -63,25 +89,12 @@ public class DailyPriceTrackingService {
 
         try {
             List<SecurityStock> activeSecurities = securityStockRepository.findByIsActiveTrue();
-            LocalDate today = LocalDate.now();
+            LocalDate today = marketCalendarService.today();
 
-            AtomicInteger successCount = new AtomicInteger(0);
-            AtomicInteger errorCount = new AtomicInteger(0);
-
-            for (SecurityStock security : activeSecurities) {
-                try {
-                    captureClosingPriceForSecurity(security, today);
-                    successCount.incrementAndGet();
-                } catch (Exception e) {
-                    logger.error("Failed to capture closing price for {}: {}",
-                            security.getSymbol(), e.getMessage());
-                    errorCount.incrementAndGet();
-                }
-            }
+            MarketPriceBulkRepository.UpsertResult result = captureClosingPrices(activeSecurities, today);
 
             long duration = System.currentTimeMillis() - startTime;
-            logger.info("End-of-day capture completed in {}ms - Success: {}, Errors: {}",
-                    duration, successCount.get(), errorCount.get());
+            logger.info("End-of-day capture completed in {}ms - {}", duration, result);
 
         } catch (Exception e) {
             logger.error("Fatal error during end-of-day capture: {}", e.getMessage(), e);
@@ -94,8 +107,20 @@ public class DailyPriceTrackingService {
      */
     @Scheduled(cron = "0 35 9 * * MON-FRI", zone = "America/New_York")
     @Transactional
+    public void scheduledDailyChangeCalculation() {
+        if (!clusterCoordinator.isLeader()) {
+            return;
+        }
+
+        calculateDailyChanges();
+    }
+
+    /**
+     * Calculate day changes for every active security; also used by the manual trigger
+     */
+    @Transactional
     public void calculateDailyChanges() {
-        if (!isMarketDay(LocalDate.now())) {
+        if (!marketCalendarService.isTradingDayToday()) {
             logger.debug("Not a market day, skipping daily change calculation");
             return;
         }
@@ -104,8 +129,8 @@ public class DailyPriceTrackingService {
         long startTime = System.currentTimeMillis();
 
         try {
-            LocalDate today = LocalDate.now();
-            LocalDate previousMarketDay = getPreviousMarketDay(today);
+            LocalDate today = marketCalendarService.today();
+            LocalDate previousMarketDay = marketCalendarService.previousTradingDay(today);
 
             List<SecurityStock> activeSecurities = securityStockRepository.findByIsActiveTrue();
 
@@ -156,7 +181,7 @@ public class DailyPriceTrackingService {
             return new DayChangeInfo(symbol, null, null, null);
         }
 
-        LocalDate previousMarketDay = getPreviousMarketDay(LocalDate.now());
+        LocalDate previousMarketDay = marketCalendarService.lastCompletedTradingDay();
         BigDecimal previousClose = getPreviousClosingPrice(security, previousMarketDay);
 
         BigDecimal dayChange = null;
@@ -174,30 +199,46 @@ public class DailyPriceTrackingService {
     }
 
     /**
-     * Capture closing price for a specific security
+     * Capture closing prices for a set of securities in a few round-trips:
+     * one query for the previous closes, one bulk upsert for the bars, one batch save for previousClose
      */
-    private void captureClosingPriceForSecurity(SecurityStock security, LocalDate date) {
-        if (security.getCurrentPrice() == null) {
-            logger.warn("No current price available for {}, skipping closing price capture",
-                    security.getSymbol());
-            return;
+    private MarketPriceBulkRepository.UpsertResult captureClosingPrices(List<SecurityStock> securities, LocalDate date) {
+        List<SecurityStock> priced = new ArrayList<>();
+        for (SecurityStock security : securities) {
+            if (security.getCurrentPrice() == null) {
+                logger.warn("No current price available for {}, skipping closing price capture",
+                        security.getSymbol());
+            } else {
+                priced.add(security);
+            }
+        }
+        if (priced.isEmpty()) {
+            return new MarketPriceBulkRepository.UpsertResult(0, 0, 0);
         }
 
-        // Check if we already have a price history entry for today
-        Optional<PriceHistory> existingHistory = priceHistoryRepository
-                .findBySecurityStockAndDate(security, date);
-
-        if (existingHistory.isPresent()) {
-            // Update existing entry with current closing price
-            PriceHistory priceHistory = existingHistory.get();
-            priceHistory.setClosePrice(security.getCurrentPrice());
-
-            // Calculate price change from previous day if available
-            LocalDate previousDay = getPreviousMarketDay(date);
-            BigDecimal previousClose = getPreviousClosingPrice(security, previousDay);
+        Map<Long, BigDecimal> previousCloses = new HashMap<>();
+        for (PriceHistory history : priceHistoryRepository.findByDateAndSecurityStockIn(marketCalendarService.previousTradingDay(date), priced)) {
+            previousCloses.put(history.getSecurityStock().getSecurityId(), history.getClosePrice());
+        }
 
+        List<PriceHistory> bars = new ArrayList<>(priced.size());
+        for (SecurityStock security : priced) {
+            BigDecimal close = security.getCurrentPrice();
+
+            // Existing bars keep their OHLV; this full row is only used when the bar is missing
+            PriceHistory bar = new PriceHistory();
+            bar.setSecurityStock(security);
+            bar.setDate(date);
+            bar.setOpenPrice(close);
+            bar.setHighPrice(close);
+            bar.setLowPrice(close);
+            bar.setClosePrice(close);
+            bar.setVolume(1L);
+
+            // Fallback: use SecurityStock's previousClose field
+            BigDecimal previousClose = previousCloses.getOrDefault(security.getSecurityId(), security.getPreviousClose());
             if (previousClose != null) {
-                BigDecimal priceChange = security.getCurrentPrice().subtract(previousClose);
+                BigDecimal priceChange = close.subtract(previousClose);
                 BigDecimal percentChange = BigDecimal.ZERO;
 
                 if (previousClose.compareTo(BigDecimal.ZERO) > 0) {
@@ -205,23 +246,21 @@ public class DailyPriceTrackingService {
                             .multiply(HUNDRED);
                 }
 
-                priceHistory.setPriceChange(priceChange);
-                priceHistory.setPercentChange(percentChange);
+                bar.setPriceChange(priceChange);
+                bar.setPercentChange(percentChange);
             }
+            bars.add(bar);
 
-            priceHistoryRepository.save(priceHistory);
-            logger.debug("Updated closing price for {} on {}: ${}",
-                    security.getSymbol(), date, security.getCurrentPrice());
-        } else {
-            // Create new price history entry if none exists
-            // This is a fallback - normally PriceHistory entries would be created by your MarketDataScheduler
-            logger.debug("No existing price history found for {} on {}, would need full OHLCV data",
-                    security.getSymbol(), date);
+            // Update SecurityStock's previousClose field for quick access
+            security.setPreviousClose(close);
         }
 
-        // Update SecurityStock's previousClose field for quick access
-        security.setPreviousClose(security.getCurrentPrice());
-        securityStockRepository.save(security);
+        movingAverageEngine.applyTo(bars);
+        MarketPriceBulkRepository.UpsertResult result = marketPriceBulkRepository.upsertClosingPrices(bars);
+        priceHistoryStore.applyClosingPrices(bars);
+        priceRollupService.onClosingBarsStored(bars);
+        securityStockRepository.saveAll(priced);
+        return result;
     }
 
     /**
@@ -308,7 +347,7 @@ public class DailyPriceTrackingService {
         }
 
         // Calculate position value at previous day's close
-        LocalDate previousMarketDay = getPreviousMarketDay(LocalDate.now());
+        LocalDate previousMarketDay = marketCalendarService.lastCompletedTradingDay();
         BigDecimal previousClose = getPreviousClosingPrice(security, previousMarketDay);
 
         if (previousClose != null) {
@@ -347,28 +386,6 @@ public class DailyPriceTrackingService {
         return security.getPreviousClose();
     }
 
-    /**
-     * Get previous market day (excluding weekends)
-     */
-    private LocalDate getPreviousMarketDay(LocalDate date) {
-        LocalDate previousDay = date.minusDays(1);
-
-        // Skip weekends
-        while (!isMarketDay(previousDay)) {
-            previousDay = previousDay.minusDays(1);
-        }
-
-        return previousDay;
-    }
-
-    /**
-     * Check if given date is a market day (weekday)
-     */
-    private boolean isMarketDay(LocalDate date) {
-        DayOfWeek dayOfWeek = date.getDayOfWeek();
-        return dayOfWeek != DayOfWeek.SATURDAY && dayOfWeek != DayOfWeek.SUNDAY;
-    }
-
     /**
      * Data class for day change information
      */
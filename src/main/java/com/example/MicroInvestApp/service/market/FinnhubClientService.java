@@ -8,18 +8,23 @@ import com.example.MicroInvestApp.dto.finnhub.FinnhubQuoteDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.util.UriBuilder;
 import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
 
 import java.math.BigDecimal;
 import java.net.URI;
-import java.time.DayOfWeek;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
+import java.util.List;
+import java.util.function.Function;
 
 @Service
 public class FinnhubClientService {
@@ -28,10 +33,21 @@ public class FinnhubClientService {
 
     private final WebClient webClient;
     private final FinnhubConfig finnhubConfig;
+    private final FinnhubRateGovernor rateGovernor;
+    private final boolean coalescingEnabled;
+    private final RequestCoalescer<FinnhubQuoteDTO> quoteCoalescer;
+    private final RequestCoalescer<FinnhubCompanyProfileDTO> profileCoalescer;
 
     @Autowired
-    public FinnhubClientService(FinnhubConfig finnhubConfig) {
+    public FinnhubClientService(FinnhubConfig finnhubConfig, FinnhubRateGovernor rateGovernor,
+                                @Value("${finnhub.coalescing.enabled:true}") boolean coalescingEnabled,
+                                @Value("${finnhub.coalescing.quote-freshness-ms:2000}") long quoteFreshnessMs,
+                                @Value("${finnhub.coalescing.profile-freshness-ms:60000}") long profileFreshnessMs) {
         this.finnhubConfig = finnhubConfig;
+        this.rateGovernor = rateGovernor;
+        this.coalescingEnabled = coalescingEnabled;
+        this.quoteCoalescer = new RequestCoalescer<>("quote", quoteFreshnessMs);
+        this.profileCoalescer = new RequestCoalescer<>("companyProfile", profileFreshnessMs);
         logger.info("Finnhub API Key (first 5 chars): {}",
                 finnhubConfig.getApiKey() != null ?
                         finnhubConfig.getApiKey().substring(0, Math.min(5, finnhubConfig.getApiKey().length())) + "..." :
@@ -47,11 +63,25 @@ public class FinnhubClientService {
      * @return FinnhubQuoteDTO containing current price data
      */
     public Mono<FinnhubQuoteDTO> getQuote(String symbol) {
+        return getQuote(symbol, rateGovernor.currentLane());
+    }
+
+    /**
+     * Fetches real-time quote data in the given rate-limit lane.
+     * Concurrent requests for the same symbol share a single upstream call.
+     */
+    public Mono<FinnhubQuoteDTO> getQuote(String symbol, FinnhubRateGovernor.Lane lane) {
+        if (!coalescingEnabled) {
+            return fetchQuote(symbol, lane);
+        }
+        return quoteCoalescer.execute(symbol, lane, () -> fetchQuote(symbol, lane));
+    }
+
+    private Mono<FinnhubQuoteDTO> fetchQuote(String symbol, FinnhubRateGovernor.Lane lane) {
         logger.info("Making API call with key ending in: {}",
                 finnhubConfig.getApiKey().substring(finnhubConfig.getApiKey().length() - 4));
 
-        return webClient.get()
-                .uri(uriBuilder -> {
+        return governedGet(lane, FinnhubQuoteDTO.class, uriBuilder -> {
                     URI uri = uriBuilder
                             .path("/quote")
                             .queryParam("symbol", symbol)
@@ -60,10 +90,6 @@ public class FinnhubClientService {
                     logger.info("Calling Finnhub URL: {}", uri.toString().replaceAll("token=[^&]+", "token=***"));
                     return uri;
                 })
-                .retrieve()
-                .bodyToMono(FinnhubQuoteDTO.class)
-                .timeout(Duration.ofSeconds(finnhubConfig.getTimeoutSeconds()))
-                .retryWhen(Retry.backoff(finnhubConfig.getRetryAttempts(), Duration.ofSeconds(1)))
                 .doOnSuccess(quote -> logger.info("Successfully fetched quote for {}: ${}",
                         symbol, quote != null ? quote.getCurrentPrice() : "null"))
                 .doOnError(error -> logger.error("Error fetching quote for {}: {}",
@@ -76,10 +102,24 @@ public class FinnhubClientService {
      * @return FinnhubCompanyProfileDTO containing company information
      */
     public Mono<FinnhubCompanyProfileDTO> getCompanyProfile(String symbol) {
+        return getCompanyProfile(symbol, rateGovernor.currentLane());
+    }
+
+    /**
+     * Fetches company profile information in the given rate-limit lane.
+     * Concurrent requests for the same symbol share a single upstream call.
+     */
+    public Mono<FinnhubCompanyProfileDTO> getCompanyProfile(String symbol, FinnhubRateGovernor.Lane lane) {
+        if (!coalescingEnabled) {
+            return fetchCompanyProfile(symbol, lane);
+        }
+        return profileCoalescer.execute(symbol, lane, () -> fetchCompanyProfile(symbol, lane));
+    }
+
+    private Mono<FinnhubCompanyProfileDTO> fetchCompanyProfile(String symbol, FinnhubRateGovernor.Lane lane) {
         logger.info("Fetching company profile for symbol: {}", symbol);
 
-        return webClient.get()
-                .uri(uriBuilder -> {
+        return governedGet(lane, FinnhubCompanyProfileDTO.class, uriBuilder -> {
                     URI uri = uriBuilder
                             .path("/stock/profile2")
                             .queryParam("symbol", symbol)
@@ -89,10 +129,6 @@ public class FinnhubClientService {
                             uri.toString().replaceAll("token=[^&]+", "token=***"));
                     return uri;
                 })
-                .retrieve()
-                .bodyToMono(FinnhubCompanyProfileDTO.class)
-                .timeout(Duration.ofSeconds(finnhubConfig.getTimeoutSeconds()))
-                .retryWhen(Retry.backoff(finnhubConfig.getRetryAttempts(), Duration.ofSeconds(1)))
                 .doOnSuccess(profile -> logger.info("Successfully fetched company profile for {}: {}",
                         symbol, profile != null ? profile.getCompanyName() : "null"))
                 .doOnError(error -> logger.error("Error fetching company profile for {}: {}",
@@ -106,9 +142,16 @@ public class FinnhubClientService {
      * @return true if symbol is valid and tradeable, false otherwise
      */
     public Mono<Boolean> validateSymbol(String symbol) {
+        return validateSymbol(symbol, rateGovernor.currentLane());
+    }
+
+    /**
+     * Validates a symbol in the given rate-limit lane
+     */
+    public Mono<Boolean> validateSymbol(String symbol, FinnhubRateGovernor.Lane lane) {
         logger.debug("Validating symbol: {}", symbol);
 
-        return getQuote(symbol)
+        return getQuote(symbol, lane)
                 .map(quote -> {
                     // Symbol is valid if we get a quote with a positive current price
                     boolean isValid = quote != null &&
@@ -130,14 +173,21 @@ public class FinnhubClientService {
      * @return FinnhubCandleDTO containing historical price data
      */
     public Mono<FinnhubCandleDTO> getCandles(String symbol, LocalDate from, LocalDate to, String resolution) {
+        return getCandles(symbol, from, to, resolution, rateGovernor.currentLane());
+    }
+
+    /**
+     * Fetches historical candle data in the given rate-limit lane
+     */
+    public Mono<FinnhubCandleDTO> getCandles(String symbol, LocalDate from, LocalDate to, String resolution,
+                                             FinnhubRateGovernor.Lane lane) {
         logger.info("Fetching candle data for symbol: {} from {} to {} with resolution {}",
                 symbol, from, to, resolution);
 
         long fromTimestamp = from.atStartOfDay(ZoneOffset.UTC).toEpochSecond();
         long toTimestamp = to.atStartOfDay(ZoneOffset.UTC).toEpochSecond();
 
-        return webClient.get()
-                .uri(uriBuilder -> uriBuilder
+        return governedGet(lane, FinnhubCandleDTO.class, uriBuilder -> uriBuilder
                         .path("/stock/candle")
                         .queryParam("symbol", symbol)
                         .queryParam("resolution", resolution)
@@ -145,10 +195,6 @@ public class FinnhubClientService {
                         .queryParam("to", toTimestamp)
                         .queryParam("token", finnhubConfig.getApiKey())
                         .build())
-                .retrieve()
-                .bodyToMono(FinnhubCandleDTO.class)
-                .timeout(Duration.ofSeconds(finnhubConfig.getTimeoutSeconds()))
-                .retryWhen(Retry.backoff(finnhubConfig.getRetryAttempts(), Duration.ofSeconds(1)))
                 .doOnSuccess(candles -> logger.info("Successfully fetched {} candles for {}",
                         candles != null && candles.getClosePrices() != null ? candles.getClosePrices().size() : 0, symbol))
                 .doOnError(error -> logger.error("Error fetching candles for {}: {}",
@@ -178,31 +224,54 @@ public class FinnhubClientService {
                         symbol, error.getMessage()));
     }
 
-    private LocalDate getPreviousMarketDay(LocalDate date) {
-        LocalDate previousDay = date.minusDays(1);
-        while (!isMarketDay(previousDay)) {
-            previousDay = previousDay.minusDays(1);
-        }
-        return previousDay;
+    /**
+     * Upstream calls saved by request coalescing, per endpoint
+     */
+    public List<RequestCoalescer.CoalescingStats> getCoalescingStats() {
+        return List.of(quoteCoalescer.getStats(), profileCoalescer.getStats());
     }
 
-    private boolean isMarketDay(LocalDate date) {
-        DayOfWeek dayOfWeek = date.getDayOfWeek();
-        return dayOfWeek != DayOfWeek.SATURDAY && dayOfWeek != DayOfWeek.SUNDAY;
+    /**
+     * Issue a GET once the rate governor grants a permit, reporting rate-limit headers back to it.
+     * Each retry re-acquires a permit, so backoff never bypasses the shared budget.
+     */
+    private <T> Mono<T> governedGet(FinnhubRateGovernor.Lane lane, Class<T> bodyType,
+                                    Function<UriBuilder, URI> uriFunction) {
+        return Mono.defer(() -> rateGovernor.acquire(lane)
+                        .then(webClient.get()
+                                .uri(uriFunction)
+                                .exchangeToMono(response -> handleResponse(response, bodyType))
+                                .timeout(Duration.ofSeconds(finnhubConfig.getTimeoutSeconds()))))
+                .retryWhen(Retry.backoff(finnhubConfig.getRetryAttempts(), Duration.ofSeconds(1))
+                        .filter(this::isRetryable));
     }
 
     /**
      * Handle API errors and rate limiting
      */
-    private <T> Mono<T> handleApiErrors(Mono<T> request) {
-        return request.onErrorResume(WebClientResponseException.class, ex -> {
-            if (ex.getStatusCode().value() == 429) {
-                logger.warn("Rate limit exceeded, waiting before retry");
-                return Mono.delay(Duration.ofSeconds(5)).then(Mono.error(ex));
-            }
-            logger.error("API request failed with status: {} and message: {}",
-                    ex.getStatusCode(), ex.getMessage());
-            return Mono.error(ex);
-        });
-    }
-}
\ No newline at end of file
+    private <T> Mono<T> handleResponse(ClientResponse response, Class<T> bodyType) {
+        HttpHeaders headers = response.headers().asHttpHeaders();
+
+        if (response.statusCode().value() == 429) {
+            rateGovernor.onThrottled(headers);
+            return response.createException().flatMap(Mono::error);
+        }
+
+        rateGovernor.onResponse(headers);
+
+        if (response.statusCode().isError()) {
+            logger.error("API request failed with status: {}", response.statusCode());
+            return response.createException().flatMap(Mono::error);
+        }
+        return response.bodyToMono(bodyType);
+    }
+
+    private boolean isRetryable(Throwable error) {
+        // Client errors other than 429 (bad symbol, bad key) will not succeed on retry
+        if (error instanceof WebClientResponseException ex) {
+            int status = ex.getStatusCode().value();
+            return status == 429 || status >= 500;
+        }
+        return true;
+    }
+}
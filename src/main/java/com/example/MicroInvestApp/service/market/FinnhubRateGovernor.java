@@ -0,0 +1,382 @@
+package com.example.MicroInvestApp.service.market;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide token bucket shared by every Finnhub endpoint.
+ * The refill rate backs off multiplicatively on 429 responses, honours Retry-After and the
+ * X-Ratelimit-* headers, and creeps back up on success. Waiting callers are served from two
+ * lanes: interactive requests always go first and background requests may not spend the
+ * last few tokens, so user-facing pricing is never queued behind a sweep.
+ */
+@Component
+public class FinnhubRateGovernor {
+
+    private static final Logger logger = LoggerFactory.getLogger(FinnhubRateGovernor.class);
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    /**
+     * Priority lane a request is queued in
+     */
+    public enum Lane {
+        INTERACTIVE,
+        BACKGROUND
+    }
+
+    @Value("${finnhub.rate-limit.requests-per-second:25}")
+    private double maxRequestsPerSecond;
+
+    @Value("${finnhub.rate-limit.min-requests-per-second:0.5}")
+    private double minRequestsPerSecond;
+
+    @Value("${finnhub.rate-limit.burst:10}")
+    private int burstCapacity;
+
+    @Value("${finnhub.rate-limit.interactive-reserve:2}")
+    private int interactiveReserve;
+
+    @Value("${finnhub.rate-limit.additive-increase:0.1}")
+    private double additiveIncrease;
+
+    @Value("${finnhub.rate-limit.default-retry-after-seconds:5}")
+    private long defaultRetryAfterSeconds;
+
+    // Lane used by calls that do not pass one explicitly
+    private final ThreadLocal<Lane> laneOverride = new ThreadLocal<>();
+
+    // Bucket state, guarded by "this"
+    private double tokens;
+    private double currentRate;
+    private double ceilingRate;
+    private long lastRefillNanos;
+    private long pausedUntilNanos;
+    private long nextDrainNanos = Long.MAX_VALUE;
+    private final Deque<Waiter> interactiveWaiters = new ArrayDeque<>();
+    private final Deque<Waiter> backgroundWaiters = new ArrayDeque<>();
+
+    // Statistics
+    private final AtomicLong interactiveGranted = new AtomicLong(0);
+    private final AtomicLong backgroundGranted = new AtomicLong(0);
+    private final AtomicLong interactiveWaitNanos = new AtomicLong(0);
+    private final AtomicLong backgroundWaitNanos = new AtomicLong(0);
+    private final AtomicLong throttledResponses = new AtomicLong(0);
+
+    @PostConstruct
+    public void init() {
+        ceilingRate = maxRequestsPerSecond;
+        currentRate = maxRequestsPerSecond;
+        tokens = burstCapacity;
+        lastRefillNanos = System.nanoTime();
+        logger.info("Finnhub rate governor initialised at {} req/s (burst {}, interactive reserve {})",
+                maxRequestsPerSecond, burstCapacity, interactiveReserve);
+    }
+
+    /**
+     * Wait (without blocking a thread) for permission to make one upstream call
+     */
+    public Mono<Void> acquire(Lane lane) {
+        return Mono.create(sink -> {
+            Waiter waiter = new Waiter(sink, lane, System.nanoTime());
+            synchronized (this) {
+                queueFor(lane).addLast(waiter);
+            }
+            sink.onCancel(() -> {
+                synchronized (this) {
+                    queueFor(lane).remove(waiter);
+                }
+            });
+            drain();
+        });
+    }
+
+    /**
+     * Lane for calls made on the current thread without an explicit lane
+     */
+    public Lane currentLane() {
+        Lane lane = laneOverride.get();
+        return lane != null ? lane : Lane.INTERACTIVE;
+    }
+
+    /**
+     * Run an action whose Finnhub calls should default to the given lane
+     */
+    public <T> T inLane(Lane lane, Supplier<T> action) {
+        Lane previous = laneOverride.get();
+        laneOverride.set(lane);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                laneOverride.remove();
+            } else {
+                laneOverride.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Feed rate-limit headers from a successful response back into the bucket
+     */
+    public void onResponse(HttpHeaders headers) {
+        Long limitPerMinute = parseLong(headers.getFirst("X-Ratelimit-Limit"));
+        Long remaining = parseLong(headers.getFirst("X-Ratelimit-Remaining"));
+        Long resetEpochSeconds = parseLong(headers.getFirst("X-Ratelimit-Reset"));
+
+        synchronized (this) {
+            if (limitPerMinute != null && limitPerMinute > 0) {
+                ceilingRate = Math.min(maxRequestsPerSecond, limitPerMinute / 60.0);
+            }
+
+            double target = Math.min(ceilingRate, currentRate + additiveIncrease);
+
+            if (remaining != null && resetEpochSeconds != null) {
+                long secondsToReset = Math.max(1, resetEpochSeconds - Instant.now().getEpochSecond());
+                if (remaining <= 0) {
+                    pauseFor(Duration.ofSeconds(secondsToReset));
+                } else {
+                    // Spread what is left of the window evenly until it resets
+                    target = Math.min(target, (double) remaining / secondsToReset);
+                }
+            }
+
+            currentRate = Math.max(minRequestsPerSecond, target);
+        }
+    }
+
+    /**
+     * Back off after a 429 response
+     */
+    public void onThrottled(HttpHeaders headers) {
+        throttledResponses.incrementAndGet();
+        Duration retryAfter = parseRetryAfter(headers.getFirst(HttpHeaders.RETRY_AFTER));
+
+        synchronized (this) {
+            currentRate = Math.max(minRequestsPerSecond, currentRate / 2);
+            tokens = 0;
+            pauseFor(retryAfter);
+        }
+
+        logger.warn("Finnhub rate limit hit - pausing {}s and reducing rate to {} req/s",
+                retryAfter.toSeconds(), String.format("%.2f", currentRate));
+        drain();
+    }
+
+    public GovernorStats getStats() {
+        synchronized (this) {
+            refill(System.nanoTime());
+            long pausedMs = Math.max(0, (pausedUntilNanos - System.nanoTime()) / 1_000_000L);
+            return new GovernorStats(currentRate, ceilingRate, tokens,
+                    interactiveWaiters.size(), backgroundWaiters.size(),
+                    interactiveGranted.get(), backgroundGranted.get(),
+                    averageMillis(interactiveWaitNanos.get(), interactiveGranted.get()),
+                    averageMillis(backgroundWaitNanos.get(), backgroundGranted.get()),
+                    throttledResponses.get(), pausedMs);
+        }
+    }
+
+    private void drain() {
+        List<Waiter> granted = new ArrayList<>();
+        long wakeInNanos = -1;
+
+        synchronized (this) {
+            long now = System.nanoTime();
+            refill(now);
+
+            while (true) {
+                if (now < pausedUntilNanos) {
+                    if (!interactiveWaiters.isEmpty() || !backgroundWaiters.isEmpty()) {
+                        wakeInNanos = pausedUntilNanos - now;
+                    }
+                    break;
+                }
+
+                if (!interactiveWaiters.isEmpty()) {
+                    if (tokens >= 1) {
+                        tokens -= 1;
+                        granted.add(interactiveWaiters.pollFirst());
+                        continue;
+                    }
+                    wakeInNanos = nanosUntilTokens(1);
+                    break;
+                }
+
+                if (!backgroundWaiters.isEmpty()) {
+                    double needed = 1 + Math.min(interactiveReserve, Math.max(0, burstCapacity - 1));
+                    if (tokens >= needed) {
+                        tokens -= 1;
+                        granted.add(backgroundWaiters.pollFirst());
+                        continue;
+                    }
+                    wakeInNanos = nanosUntilTokens(needed);
+                }
+                break;
+            }
+
+            if (wakeInNanos >= 0) {
+                long wakeAt = now + wakeInNanos;
+                if (wakeAt < nextDrainNanos) {
+                    nextDrainNanos = wakeAt;
+                    Schedulers.parallel().schedule(this::scheduledDrain, Math.max(wakeInNanos, 1), TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+
+        long grantedAt = System.nanoTime();
+        for (Waiter waiter : granted) {
+            long waited = grantedAt - waiter.enqueuedNanos;
+            if (waiter.lane == Lane.INTERACTIVE) {
+                interactiveGranted.incrementAndGet();
+                interactiveWaitNanos.addAndGet(waited);
+            } else {
+                backgroundGranted.incrementAndGet();
+                backgroundWaitNanos.addAndGet(waited);
+            }
+            waiter.sink.success();
+        }
+    }
+
+    private void scheduledDrain() {
+        synchronized (this) {
+            nextDrainNanos = Long.MAX_VALUE;
+        }
+        drain();
+    }
+
+    private void refill(long now) {
+        double elapsedSeconds = (double) (now - lastRefillNanos) / NANOS_PER_SECOND;
+        if (elapsedSeconds > 0) {
+            tokens = Math.min(burstCapacity, tokens + elapsedSeconds * currentRate);
+            lastRefillNanos = now;
+        }
+    }
+
+    private long nanosUntilTokens(double needed) {
+        double missing = Math.max(0, needed - tokens);
+        return (long) Math.ceil(missing / currentRate * NANOS_PER_SECOND);
+    }
+
+    private void pauseFor(Duration duration) {
+        long until = System.nanoTime() + duration.toNanos();
+        if (until > pausedUntilNanos) {
+            pausedUntilNanos = until;
+        }
+    }
+
+    private Deque<Waiter> queueFor(Lane lane) {
+        return lane == Lane.INTERACTIVE ? interactiveWaiters : backgroundWaiters;
+    }
+
+    private Duration parseRetryAfter(String value) {
+        if (value != null && !value.isBlank()) {
+            Long seconds = parseLong(value);
+            if (seconds != null) {
+                return Duration.ofSeconds(Math.max(1, seconds));
+            }
+            try {
+                ZonedDateTime retryAt = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                Duration delay = Duration.between(Instant.now(), retryAt.toInstant());
+                if (!delay.isNegative()) {
+                    return delay;
+                }
+            } catch (Exception e) {
+                logger.debug("Unparseable Retry-After header: {}", value);
+            }
+        }
+        return Duration.ofSeconds(defaultRetryAfterSeconds);
+    }
+
+    private static Long parseLong(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static double averageMillis(long totalNanos, long count) {
+        return count > 0 ? totalNanos / 1_000_000.0 / count : 0.0;
+    }
+
+    private static class Waiter {
+        private final MonoSink<Void> sink;
+        private final Lane lane;
+        private final long enqueuedNanos;
+
+        Waiter(MonoSink<Void> sink, Lane lane, long enqueuedNanos) {
+            this.sink = sink;
+            this.lane = lane;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+
+    /**
+     * Snapshot of governor state for monitoring
+     */
+    public static class GovernorStats {
+        private final double currentRatePerSecond;
+        private final double ceilingRatePerSecond;
+        private final double availableTokens;
+        private final int interactiveQueued;
+        private final int backgroundQueued;
+        private final long interactiveGranted;
+        private final long backgroundGranted;
+        private final double interactiveAvgWaitMs;
+        private final double backgroundAvgWaitMs;
+        private final long throttledResponses;
+        private final long pausedForMs;
+
+        public GovernorStats(double currentRatePerSecond, double ceilingRatePerSecond, double availableTokens,
+                             int interactiveQueued, int backgroundQueued,
+                             long interactiveGranted, long backgroundGranted,
+                             double interactiveAvgWaitMs, double backgroundAvgWaitMs,
+                             long throttledResponses, long pausedForMs) {
+            this.currentRatePerSecond = currentRatePerSecond;
+            this.ceilingRatePerSecond = ceilingRatePerSecond;
+            this.availableTokens = availableTokens;
+            this.interactiveQueued = interactiveQueued;
+            this.backgroundQueued = backgroundQueued;
+            this.interactiveGranted = interactiveGranted;
+            this.backgroundGranted = backgroundGranted;
+            this.interactiveAvgWaitMs = interactiveAvgWaitMs;
+            this.backgroundAvgWaitMs = backgroundAvgWaitMs;
+            this.throttledResponses = throttledResponses;
+            this.pausedForMs = pausedForMs;
+        }
+
+        // Getters
+        public double getCurrentRatePerSecond() { return currentRatePerSecond; }
+        public double getCeilingRatePerSecond() { return ceilingRatePerSecond; }
+        public double getAvailableTokens() { return availableTokens; }
+        public int getInteractiveQueued() { return interactiveQueued; }
+        public int getBackgroundQueued() { return backgroundQueued; }
+        public long getInteractiveGranted() { return interactiveGranted; }
+        public long getBackgroundGranted() { return backgroundGranted; }
+        public double getInteractiveAvgWaitMs() { return interactiveAvgWaitMs; }
+        public double getBackgroundAvgWaitMs() { return backgroundAvgWaitMs; }
+        public long getThrottledResponses() { return throttledResponses; }
+        public long getPausedForMs() { return pausedForMs; }
+    }
+}
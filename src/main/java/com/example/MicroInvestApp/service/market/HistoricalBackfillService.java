@@ -0,0 +1,378 @@
+package com.example.MicroInvestApp.service.market;
+
+import com.example.MicroInvestApp.domain.enums.BackfillStatus;
+import com.example.MicroInvestApp.domain.market.BackfillChunk;
+import com.example.MicroInvestApp.domain.market.MarketData;
+import com.example.MicroInvestApp.repositories.market.BackfillChunkClaimRepository;
+import com.example.MicroInvestApp.repositories.market.BackfillChunkRepository;
+import com.example.MicroInvestApp.repositories.market.MarketDataGapRepository;
+import com.example.MicroInvestApp.service.cluster.ClusterCoordinator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resumable historical backfill.
+ * Sessions missing MarketData or PriceHistory for the whole universe come from one gap query; nearby ranges
+ * are merged, split into chunked candle requests and checkpointed in BackfillChunk. Each chunk writes both
+ * tables from the same candles. Workers claim chunks one at a time in the background rate-limit lane, so
+ * several nodes can work through the same job without overlap, and chunks left in progress by a node that
+ * is no longer alive are requeued on the next run.
+ */
+@Service
+public class HistoricalBackfillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HistoricalBackfillService.class);
+
+    private final MarketDataGapRepository gapRepository;
+    private final BackfillChunkRepository chunkRepository;
+    private final MarketDataService marketDataService;
+    private final FinnhubRateGovernor rateGovernor;
+    private final MarketDataPartitionManager partitionManager;
+    private final BackfillChunkClaimRepository claimRepository;
+    private final ClusterCoordinator clusterCoordinator;
+    private final MarketCalendarService marketCalendarService;
+    private final MovingAverageEngine movingAverageEngine;
+
+    @Value("${market-data.backfill.chunk-days:365}")
+    private int chunkDays;
+
+    @Value("${market-data.backfill.merge-gap-days:30}")
+    private int mergeGapDays;
+
+    @Value("${market-data.backfill.concurrency:4}")
+    private int concurrency;
+
+    @Value("${market-data.backfill.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${market-data.backfill.resume-on-startup:true}")
+    private boolean resumeOnStartup;
+
+    @Value("${market-data.backfill.orphan-after-minutes:60}")
+    private long orphanAfterMinutes;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @Autowired
+    public HistoricalBackfillService(MarketDataGapRepository gapRepository,
+                                     BackfillChunkRepository chunkRepository,
+                                     MarketDataService marketDataService,
+                                     FinnhubRateGovernor rateGovernor,
+                                     MarketDataPartitionManager partitionManager,
+                                     BackfillChunkClaimRepository claimRepository,
+                                     ClusterCoordinator clusterCoordinator,
+                                     MarketCalendarService marketCalendarService,
+                                     MovingAverageEngine movingAverageEngine) {
+        this.gapRepository = gapRepository;
+        this.chunkRepository = chunkRepository;
+        this.marketDataService = marketDataService;
+        this.rateGovernor = rateGovernor;
+        this.partitionManager = partitionManager;
+        this.claimRepository = claimRepository;
+        this.clusterCoordinator = clusterCoordinator;
+        this.marketCalendarService = marketCalendarService;
+        this.movingAverageEngine = movingAverageEngine;
+    }
+
+    /**
+     * Plan chunks for every missing range in the window and checkpoint them as a new job
+     */
+    public String planBackfill(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Backfill start " + from + " is after end " + to);
+        }
+
+        String jobId = UUID.randomUUID().toString();
+        // Only sessions the calendar says traded can be missing, so holidays are never requested
+        List<MarketDataGapRepository.MissingRange> gaps = gapRepository.findMissingHistoryRanges(
+                marketCalendarService.tradingDaysBetween(from, to));
+
+        List<BackfillChunk> chunks = new ArrayList<>();
+        String symbol = null;
+        LocalDate start = null;
+        LocalDate end = null;
+
+        // Gaps arrive ordered by symbol then date; fetching a few stored days is cheaper than another request
+        for (MarketDataGapRepository.MissingRange gap : gaps) {
+            boolean mergeable = gap.getSymbol().equals(symbol)
+                    && ChronoUnit.DAYS.between(end, gap.getStart()) <= mergeGapDays;
+            if (mergeable) {
+                end = gap.getEnd();
+                continue;
+            }
+            if (symbol != null) {
+                addChunks(chunks, jobId, symbol, start, end);
+            }
+            symbol = gap.getSymbol();
+            start = gap.getStart();
+            end = gap.getEnd();
+        }
+        if (symbol != null) {
+            addChunks(chunks, jobId, symbol, start, end);
+        }
+
+        chunkRepository.saveAll(chunks);
+        if (!chunks.isEmpty()) {
+            // Create the monthly partitions up front so the load does not pile into the default partition
+            partitionManager.ensurePartitions(from, to);
+        }
+        logger.info("Planned backfill job {} for {} to {}: {} gap ranges -> {} chunk requests",
+                jobId, from, to, gaps.size(), chunks.size());
+        return jobId;
+    }
+
+    /**
+     * Claim and run unfinished chunks from any job until none are left, blocking until done. Only one run may
+     * be active per node at a time; other nodes may run at the same time and get different chunks.
+     */
+    public BackfillRunStats runPendingChunks() {
+        if (!running.compareAndSet(false, true)) {
+            logger.warn("Backfill already running - skipping overlapping run");
+            return null;
+        }
+
+        try {
+            long startTime = System.currentTimeMillis();
+
+            // No run of this node is active, so its own in-progress chunks are leftovers from a previous process;
+            // without cluster membership another node's chunk is only presumed dead once it has gone stale
+            int requeued = claimRepository.requeueOrphaned(clusterCoordinator.getNodeId(),
+                    clusterCoordinator.isClustered() ? clusterCoordinator.getLiveNodes() : null,
+                    orphanAfterMinutes * 60_000);
+            if (requeued > 0) {
+                logger.info("Requeued {} backfill chunks whose owner is no longer running", requeued);
+            }
+
+            // Chunks are claimed in id order; a chunk that fails goes back to PENDING behind the cursor and
+            // waits for the next run instead of being retried straight away
+            AtomicLong cursor = new AtomicLong(0);
+            List<BackfillChunk> finished = Flux.range(0, concurrency)
+                    .flatMap(worker -> Mono.fromCallable(() -> runClaimedChunks(cursor))
+                            .subscribeOn(Schedulers.boundedElastic()), concurrency)
+                    .flatMapIterable(chunks -> chunks)
+                    .collectList()
+                    .block();
+
+            if (finished == null || finished.isEmpty()) {
+                return new BackfillRunStats(0, 0, 0, 0, 0);
+            }
+
+            int completed = 0;
+            int failed = 0;
+            int rows = 0;
+            for (BackfillChunk chunk : finished) {
+                if (chunk.getStatus() == BackfillStatus.COMPLETED) {
+                    completed++;
+                    rows += chunk.getRowsWritten();
+                } else {
+                    failed++;
+                }
+            }
+
+            if (rows > 0) {
+                // Backfilled bars are stored without moving averages; recompute them over the filled history
+                movingAverageEngine.backfill();
+            }
+
+            BackfillRunStats stats = new BackfillRunStats(finished.size(), completed, failed, rows,
+                    System.currentTimeMillis() - startTime);
+            logger.info("Backfill run finished: {} chunks, {} completed, {} not completed, {} rows in {}ms",
+                    stats.getChunks(), completed, failed, rows, stats.getDurationMs());
+            return stats;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Run pending chunks on the market data executor
+     */
+    @Async("marketDataTaskExecutor")
+    public void runPendingChunksAsync() {
+        runPendingChunks();
+    }
+
+    /**
+     * Resume chunks a previous process left unfinished
+     */
+    @Async("marketDataTaskExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeOnStartup() {
+        if (!resumeOnStartup) {
+            return;
+        }
+        try {
+            runPendingChunks();
+        } catch (Exception e) {
+            logger.error("Failed to resume backfill: {}", e.getMessage());
+        }
+    }
+
+    public BackfillJobSummary getJobSummary(String jobId) {
+        int pending = 0;
+        int inProgress = 0;
+        int completed = 0;
+        int failed = 0;
+        long rows = 0;
+
+        for (Object[] row : chunkRepository.summarizeJob(jobId)) {
+            BackfillStatus status = (BackfillStatus) row[0];
+            int count = ((Number) row[1]).intValue();
+            switch (status) {
+                case PENDING -> pending = count;
+                case IN_PROGRESS -> inProgress = count;
+                case COMPLETED -> completed = count;
+                case FAILED -> failed = count;
+            }
+            rows += ((Number) row[2]).longValue();
+        }
+
+        return new BackfillJobSummary(jobId, pending, inProgress, completed, failed, rows, running.get());
+    }
+
+    public BackfillJobSummary getLatestJobSummary() {
+        List<String> latest = chunkRepository.findLatestJobId();
+        return latest.isEmpty() ? null : getJobSummary(latest.get(0));
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * One worker: claim the next chunk past the shared cursor and run it, until nothing is left to claim
+     */
+    private List<BackfillChunk> runClaimedChunks(AtomicLong cursor) {
+        List<BackfillChunk> finished = new ArrayList<>();
+        String nodeId = clusterCoordinator.getNodeId();
+        Long chunkId;
+        while ((chunkId = claimRepository.claimNext(nodeId, maxAttempts, cursor.get())) != null) {
+            cursor.accumulateAndGet(chunkId, Math::max);
+            chunkRepository.findById(chunkId).map(this::runChunk).ifPresent(finished::add);
+        }
+        return finished;
+    }
+
+    /**
+     * Run a chunk already claimed by this node; its attempt was counted by the claim
+     */
+    private BackfillChunk runChunk(BackfillChunk chunk) {
+        try {
+            List<MarketData> stored = rateGovernor.inLane(FinnhubRateGovernor.Lane.BACKGROUND,
+                    () -> marketDataService.fetchAndStoreHistoricalMarketData(
+                            chunk.getSymbol(), chunk.getRangeStart(), chunk.getRangeEnd()));
+
+            chunk.setStatus(BackfillStatus.COMPLETED);
+            chunk.setRowsWritten(stored.size());
+            chunk.setLastError(null);
+        } catch (Exception e) {
+            logger.warn("Backfill chunk {} {}..{} failed (attempt {}): {}", chunk.getSymbol(),
+                    chunk.getRangeStart(), chunk.getRangeEnd(), chunk.getAttempts(), e.getMessage());
+            if (chunk.getAttempts() >= maxAttempts) {
+                chunk.setStatus(BackfillStatus.FAILED);
+            } else {
+                chunk.setStatus(BackfillStatus.PENDING);
+                chunk.setOwnerNode(null);
+            }
+            chunk.setLastError(truncate(e.getMessage()));
+        }
+
+        return chunkRepository.save(chunk);
+    }
+
+    private void addChunks(List<BackfillChunk> chunks, String jobId, String symbol, LocalDate start, LocalDate end) {
+        LocalDate chunkStart = start;
+        while (!chunkStart.isAfter(end)) {
+            LocalDate chunkEnd = chunkStart.plusDays(chunkDays - 1L);
+            if (chunkEnd.isAfter(end)) {
+                chunkEnd = end;
+            }
+            chunks.add(new BackfillChunk(jobId, symbol, chunkStart, chunkEnd));
+            chunkStart = chunkEnd.plusDays(1);
+        }
+    }
+
+    private String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 500 ? message.substring(0, 500) : message;
+    }
+
+    /**
+     * Outcome of one execution pass over pending chunks
+     */
+    public static class BackfillRunStats {
+        private final int chunks;
+        private final int completed;
+        private final int notCompleted;
+        private final int rowsWritten;
+        private final long durationMs;
+
+        public BackfillRunStats(int chunks, int completed, int notCompleted, int rowsWritten, long durationMs) {
+            this.chunks = chunks;
+            this.completed = completed;
+            this.notCompleted = notCompleted;
+            this.rowsWritten = rowsWritten;
+            this.durationMs = durationMs;
+        }
+
+        // Getters
+        public int getChunks() { return chunks; }
+        public int getCompleted() { return completed; }
+        public int getNotCompleted() { return notCompleted; }
+        public int getRowsWritten() { return rowsWritten; }
+        public long getDurationMs() { return durationMs; }
+    }
+
+    /**
+     * Checkpointed progress of one backfill job
+     */
+    public static class BackfillJobSummary {
+        private final String jobId;
+        private final int pending;
+        private final int inProgress;
+        private final int completed;
+        private final int failed;
+        private final long rowsWritten;
+        private final boolean running;
+
+        public BackfillJobSummary(String jobId, int pending, int inProgress, int completed, int failed,
+                                  long rowsWritten, boolean running) {
+            this.jobId = jobId;
+            this.pending = pending;
+            this.inProgress = inProgress;
+            this.completed = completed;
+            this.failed = failed;
+            this.rowsWritten = rowsWritten;
+            this.running = running;
+        }
+
+        // Getters
+        public String getJobId() { return jobId; }
+        public int getPending() { return pending; }
+        public int getInProgress() { return inProgress; }
+        public int getCompleted() { return completed; }
+        public int getFailed() { return failed; }
+        public long getRowsWritten() { return rowsWritten; }
+        public boolean isRunning() { return running; }
+        public int getTotalChunks() { return pending + inProgress + completed + failed; }
+    }
+}
@@ -0,0 +1,455 @@
+package com.example.MicroInvestApp.service.market;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Folds every observed price (polled quotes, update-price calls, streamed trades, order executions) into
+ * 1-minute and 5-minute OHLC bars for the current session.
+ * Each symbol owns two fixed-size rings of primitive columns plus a running session summary, allocated on its
+ * first observation; after that an update is a map lookup and a few array writes under the symbol's lock.
+ * Only buckets that saw a price take a slot, so sparse polling keeps far more history than the capacity suggests.
+ * Bars are per instance and reset when a new session starts; with clustering on, each node's bars cover the
+ * symbols it owns, since polling and streaming only reach the owning node.
+ */
+@Service
+public class IntradayBarBuilder {
+
+    private static final Logger logger = LoggerFactory.getLogger(IntradayBarBuilder.class);
+
+    private static final int SCALE = 4;
+    private static final double UNITS = 10_000.0;
+    private static final long MILLIS_PER_MINUTE = 60_000L;
+
+    private final MarketCalendarService marketCalendarService;
+
+    @Value("${market-data.intraday.enabled:true}")
+    private boolean enabled;
+
+    @Value("${market-data.intraday.one-minute-capacity:512}")
+    private int oneMinuteCapacity;
+
+    @Value("${market-data.intraday.five-minute-capacity:192}")
+    private int fiveMinuteCapacity;
+
+    private final ConcurrentHashMap<String, SymbolBars> symbols = new ConcurrentHashMap<>();
+
+    // Current session day in the exchange zone, as an epoch day and its [start, end) in epoch millis
+    private volatile long sessionDay = Long.MIN_VALUE;
+    private volatile long sessionStartMillis;
+    private volatile long sessionEndMillis;
+
+    // Statistics
+    private final AtomicLong observations = new AtomicLong(0);
+    private final AtomicLong rejected = new AtomicLong(0);
+
+    @Autowired
+    public IntradayBarBuilder(MarketCalendarService marketCalendarService) {
+        this.marketCalendarService = marketCalendarService;
+    }
+
+    /**
+     * Fold one observed price, stamped with when it was observed (or traded)
+     */
+    public void record(String symbol, BigDecimal price, long volume, long epochMillis) {
+        if (!enabled || symbol == null || price == null) {
+            return;
+        }
+        // doubleValue stays allocation-free for prices held in a compact BigDecimal
+        double units = price.doubleValue() * UNITS;
+        if (!(units > 0) || units >= Long.MAX_VALUE) {
+            rejected.incrementAndGet();
+            return;
+        }
+        record(symbol, Math.round(units), volume, epochMillis);
+    }
+
+    /**
+     * Fold a polled quote price, stamped with the quote's last-trade time when the provider sent one so that
+     * polls after the close do not extend the session
+     */
+    public void recordQuote(String symbol, BigDecimal price, Long quoteEpochSeconds) {
+        long epochMillis = quoteEpochSeconds != null && quoteEpochSeconds > 0
+                ? quoteEpochSeconds * 1000L
+                : System.currentTimeMillis();
+        record(symbol, price, 0L, epochMillis);
+    }
+
+    /**
+     * Fold one observed price given in fixed point with 4 decimals
+     */
+    public void record(String symbol, long priceUnits, long volume, long epochMillis) {
+        if (!enabled || symbol == null) {
+            return;
+        }
+        if (epochMillis < sessionStartMillis || epochMillis >= sessionEndMillis) {
+            if (!advanceSession(epochMillis)) {
+                rejected.incrementAndGet();
+                return;
+            }
+        }
+
+        SymbolBars bars = symbols.get(symbol);
+        if (bars == null) {
+            SymbolBars created = new SymbolBars(oneMinuteCapacity, fiveMinuteCapacity);
+            bars = symbols.putIfAbsent(symbol, created);
+            if (bars == null) {
+                bars = created;
+            }
+        }
+
+        int minute = (int) (epochMillis / MILLIS_PER_MINUTE);
+        long day = sessionDay;
+        synchronized (bars) {
+            if (bars.day != day) {
+                bars.reset(day);
+            }
+            bars.add(minute, priceUnits, Math.max(0, volume));
+        }
+        observations.incrementAndGet();
+    }
+
+    /**
+     * The session's bars for a symbol at the given width in minutes (1 or 5), oldest first
+     */
+    public List<IntradayBar> getBars(String symbol, int intervalMinutes) {
+        SymbolBars bars = symbols.get(symbol);
+        List<IntradayBar> result = new ArrayList<>();
+        if (bars == null) {
+            return result;
+        }
+        synchronized (bars) {
+            if (bars.day != sessionDay) {
+                return result;
+            }
+            BarRing ring = intervalMinutes == 5 ? bars.fiveMinute : bars.oneMinute;
+            for (int i = 0; i < ring.count; i++) {
+                int slot = Math.floorMod(ring.head - ring.count + 1 + i, ring.capacity);
+                result.add(new IntradayBar(Instant.ofEpochMilli(ring.start[slot] * MILLIS_PER_MINUTE),
+                        fromUnits(ring.open[slot]), fromUnits(ring.high[slot]), fromUnits(ring.low[slot]),
+                        fromUnits(ring.close[slot]), ring.volume[slot], ring.ticks[slot]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Open, high, low, close and volume observed for a symbol over a session, or null if none were seen
+     */
+    public SessionSummary getSessionSummary(String symbol, LocalDate date) {
+        SymbolBars bars = symbols.get(symbol);
+        if (bars == null) {
+            return null;
+        }
+        synchronized (bars) {
+            if (bars.day != date.toEpochDay() || bars.ticks == 0) {
+                return null;
+            }
+            return new SessionSummary(date, fromUnits(bars.open), fromUnits(bars.high), fromUnits(bars.low),
+                    fromUnits(bars.close), bars.volume, bars.ticks);
+        }
+    }
+
+    /**
+     * Symbols with at least one observation in the given session
+     */
+    public List<String> getSymbolsWithSession(LocalDate date) {
+        long day = date.toEpochDay();
+        List<String> result = new ArrayList<>();
+        for (Map.Entry<String, SymbolBars> entry : symbols.entrySet()) {
+            SymbolBars bars = entry.getValue();
+            synchronized (bars) {
+                if (bars.day == day && bars.ticks > 0) {
+                    result.add(entry.getKey());
+                }
+            }
+        }
+        return result;
+    }
+
+    public LocalDate getSessionDate() {
+        long day = sessionDay;
+        return day == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(day);
+    }
+
+    public IntradayStats getStats() {
+        return new IntradayStats(enabled, symbols.size(), observations.get(), rejected.get(), getSessionDate(),
+                (long) symbols.size() * SymbolBars.bytes(oneMinuteCapacity, fiveMinuteCapacity));
+    }
+
+    /**
+     * Move to the exchange day containing the timestamp. Observations from an earlier day than the current
+     * session are rejected. Symbols from the previous day are reset lazily on their next update,
+     * and symbols that trade no more are dropped here.
+     */
+    private synchronized boolean advanceSession(long epochMillis) {
+        if (epochMillis >= sessionStartMillis && epochMillis < sessionEndMillis) {
+            return true;
+        }
+        if (epochMillis < sessionStartMillis) {
+            return false;
+        }
+
+        LocalDate day = Instant.ofEpochMilli(epochMillis).atZone(marketCalendarService.getZone()).toLocalDate();
+        long previousDay = sessionDay;
+        sessionStartMillis = day.atStartOfDay(marketCalendarService.getZone()).toInstant().toEpochMilli();
+        sessionEndMillis = day.plusDays(1).atStartOfDay(marketCalendarService.getZone()).toInstant().toEpochMilli();
+        sessionDay = day.toEpochDay();
+
+        if (previousDay != Long.MIN_VALUE) {
+            symbols.values().removeIf(bars -> bars.day < previousDay);
+            logger.info("Intraday bars rolled over to session {}", day);
+        }
+        return true;
+    }
+
+    private static BigDecimal fromUnits(long units) {
+        return BigDecimal.valueOf(units, SCALE);
+    }
+
+    /**
+     * One symbol's rings and running session summary; guarded by its own monitor
+     */
+    private static final class SymbolBars {
+        private final BarRing oneMinute;
+        private final BarRing fiveMinute;
+        private long day = Long.MIN_VALUE;
+        private long open;
+        private long high;
+        private long low;
+        private long close;
+        private long volume;
+        private int ticks;
+        private int lastMinute;
+
+        SymbolBars(int oneMinuteCapacity, int fiveMinuteCapacity) {
+            this.oneMinute = new BarRing(1, oneMinuteCapacity);
+            this.fiveMinute = new BarRing(5, fiveMinuteCapacity);
+        }
+
+        void reset(long newDay) {
+            day = newDay;
+            ticks = 0;
+            volume = 0;
+            oneMinute.clear();
+            fiveMinute.clear();
+        }
+
+        void add(int minute, long price, long tradeVolume) {
+            if (ticks == 0) {
+                open = price;
+                high = price;
+                low = price;
+                close = price;
+                lastMinute = minute;
+            } else {
+                high = Math.max(high, price);
+                low = Math.min(low, price);
+                // A late observation widens the range but does not replace the close
+                if (minute >= lastMinute) {
+                    close = price;
+                    lastMinute = minute;
+                }
+            }
+            volume += tradeVolume;
+            ticks++;
+            oneMinute.add(minute, price, tradeVolume);
+            fiveMinute.add(minute, price, tradeVolume);
+        }
+
+        static long bytes(int oneMinuteCapacity, int fiveMinuteCapacity) {
+            return (long) (oneMinuteCapacity + fiveMinuteCapacity) * BarRing.BYTES_PER_SLOT;
+        }
+    }
+
+    /**
+     * Fixed-size ring of bars in primitive columns; start is the bar's first epoch minute
+     */
+    private static final class BarRing {
+        static final int BYTES_PER_SLOT = 2 * Integer.BYTES + 5 * Long.BYTES;
+
+        private final int widthMinutes;
+        private final int capacity;
+        private final int[] start;
+        private final long[] open;
+        private final long[] high;
+        private final long[] low;
+        private final long[] close;
+        private final int[] ticks;
+        private final long[] volume;
+        private int head = -1;
+        private int count;
+
+        BarRing(int widthMinutes, int capacity) {
+            this.widthMinutes = widthMinutes;
+            this.capacity = Math.max(1, capacity);
+            this.start = new int[this.capacity];
+            this.open = new long[this.capacity];
+            this.high = new long[this.capacity];
+            this.low = new long[this.capacity];
+            this.close = new long[this.capacity];
+            this.ticks = new int[this.capacity];
+            this.volume = new long[this.capacity];
+        }
+
+        void clear() {
+            head = -1;
+            count = 0;
+        }
+
+        void add(int minute, long price, long tradeVolume) {
+            int bucket = minute - minute % widthMinutes;
+            if (count > 0) {
+                if (bucket == start[head]) {
+                    high[head] = Math.max(high[head], price);
+                    low[head] = Math.min(low[head], price);
+                    close[head] = price;
+                    volume[head] += tradeVolume;
+                    ticks[head]++;
+                    return;
+                }
+                if (bucket < start[head]) {
+                    foldLate(bucket, price, tradeVolume);
+                    return;
+                }
+            }
+
+            head = head + 1 == capacity ? 0 : head + 1;
+            if (count < capacity) {
+                count++;
+            }
+            start[head] = bucket;
+            open[head] = price;
+            high[head] = price;
+            low[head] = price;
+            close[head] = price;
+            volume[head] = tradeVolume;
+            ticks[head] = 1;
+        }
+
+        // Out-of-order observation: widen its bar if still held, never reorder the ring
+        private void foldLate(int bucket, long price, long tradeVolume) {
+            for (int i = 1; i < count; i++) {
+                int slot = head - i < 0 ? head - i + capacity : head - i;
+                if (start[slot] == bucket) {
+                    high[slot] = Math.max(high[slot], price);
+                    low[slot] = Math.min(low[slot], price);
+                    volume[slot] += tradeVolume;
+                    ticks[slot]++;
+                    return;
+                }
+                if (start[slot] < bucket) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * One intraday OHLC bar
+     */
+    public static class IntradayBar {
+        private final Instant start;
+        private final BigDecimal open;
+        private final BigDecimal high;
+        private final BigDecimal low;
+        private final BigDecimal close;
+        private final long volume;
+        private final int ticks;
+
+        public IntradayBar(Instant start, BigDecimal open, BigDecimal high, BigDecimal low, BigDecimal close,
+                           long volume, int ticks) {
+            this.start = start;
+            this.open = open;
+            this.high = high;
+            this.low = low;
+            this.close = close;
+            this.volume = volume;
+            this.ticks = ticks;
+        }
+
+        // Getters
+        public Instant getStart() { return start; }
+        public BigDecimal getOpen() { return open; }
+        public BigDecimal getHigh() { return high; }
+        public BigDecimal getLow() { return low; }
+        public BigDecimal getClose() { return close; }
+        public long getVolume() { return volume; }
+        public int getTicks() { return ticks; }
+    }
+
+    /**
+     * Everything observed for a symbol in one session
+     */
+    public static class SessionSummary {
+        private final LocalDate date;
+        private final BigDecimal open;
+        private final BigDecimal high;
+        private final BigDecimal low;
+        private final BigDecimal close;
+        private final long volume;
+        private final int ticks;
+
+        public SessionSummary(LocalDate date, BigDecimal open, BigDecimal high, BigDecimal low, BigDecimal close,
+                              long volume, int ticks) {
+            this.date = date;
+            this.open = open;
+            this.high = high;
+            this.low = low;
+            this.close = close;
+            this.volume = volume;
+            this.ticks = ticks;
+        }
+
+        // Getters
+        public LocalDate getDate() { return date; }
+        public BigDecimal getOpen() { return open; }
+        public BigDecimal getHigh() { return high; }
+        public BigDecimal getLow() { return low; }
+        public BigDecimal getClose() { return close; }
+        public long getVolume() { return volume; }
+        public int getTicks() { return ticks; }
+    }
+
+    /**
+     * Residency and update counters for monitoring
+     */
+    public static class IntradayStats {
+        private final boolean enabled;
+        private final int symbols;
+        private final long observations;
+        private final long rejected;
+        private final LocalDate sessionDate;
+        private final long approximateBytes;
+
+        public IntradayStats(boolean enabled, int symbols, long observations, long rejected,
+                             LocalDate sessionDate, long approximateBytes) {
+            this.enabled = enabled;
+            this.symbols = symbols;
+            this.observations = observations;
+            this.rejected = rejected;
+            this.sessionDate = sessionDate;
+            this.approximateBytes = approximateBytes;
+        }
+
+        // Getters
+        public boolean isEnabled() { return enabled; }
+        public int getSymbols() { return symbols; }
+        public long getObservations() { return observations; }
+        public long getRejected() { return rejected; }
+        public LocalDate getSessionDate() { return sessionDate; }
+        public long getApproximateBytes() { return approximateBytes; }
+    }
+}
@@ -0,0 +1,325 @@
+package com.example.MicroInvestApp.service.market;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Binary columnar file holding one symbol's archived daily bars for one calendar year.
+ * Layout (big-endian): magic, version and block count, one index entry per month (month, rows, first and last
+ * epoch day, offset, length, CRC32 of the block), then a CRC32 of the header itself, then the month blocks.
+ * A block stores its rows column by column - epoch day, open, high, low, close (fixed point, 4 decimals) and
+ * volume - each column as the zigzag varint of its first value followed by zigzag varint deltas, so a month
+ * of a quietly trading stock takes a few hundred bytes. Readers map the file and decode only the months asked for.
+ */
+final class MarketArchiveFile {
+
+    static final String EXTENSION = ".mda";
+
+    private static final int MAGIC = 0x4D444131; // "MDA1"
+    private static final short VERSION = 1;
+    private static final int SCALE = 4;
+    private static final int FIXED_HEADER_BYTES = 8;
+    private static final int INDEX_ENTRY_BYTES = 28;
+
+    private MarketArchiveFile() {
+    }
+
+    /**
+     * Rows of one month in column arrays, oldest first
+     */
+    static final class Columns {
+        final int[] days;
+        final long[] open;
+        final long[] high;
+        final long[] low;
+        final long[] close;
+        final long[] volume;
+        int size;
+
+        Columns(int capacity) {
+            days = new int[capacity];
+            open = new long[capacity];
+            high = new long[capacity];
+            low = new long[capacity];
+            close = new long[capacity];
+            volume = new long[capacity];
+        }
+
+        void add(LocalDate date, BigDecimal openPrice, BigDecimal highPrice, BigDecimal lowPrice,
+                 BigDecimal closePrice, long volumeTraded) {
+            days[size] = (int) date.toEpochDay();
+            open[size] = toFixed(openPrice);
+            high[size] = toFixed(highPrice);
+            low[size] = toFixed(lowPrice);
+            close[size] = toFixed(closePrice);
+            volume[size] = volumeTraded;
+            size++;
+        }
+
+        LocalDate dateAt(int i) { return LocalDate.ofEpochDay(days[i]); }
+        BigDecimal openAt(int i) { return fromFixed(open[i]); }
+        BigDecimal highAt(int i) { return fromFixed(high[i]); }
+        BigDecimal lowAt(int i) { return fromFixed(low[i]); }
+        BigDecimal closeAt(int i) { return fromFixed(close[i]); }
+    }
+
+    /**
+     * One encoded month ready to be written
+     */
+    static final class Block {
+        final int month;
+        final int rows;
+        final int firstDay;
+        final int lastDay;
+        final byte[] data;
+
+        Block(int month, int rows, int firstDay, int lastDay, byte[] data) {
+            this.month = month;
+            this.rows = rows;
+            this.firstDay = firstDay;
+            this.lastDay = lastDay;
+            this.data = data;
+        }
+    }
+
+    /**
+     * Index entry of a month inside an opened file
+     */
+    static final class Entry {
+        final int month;
+        final int rows;
+        final int firstDay;
+        final int lastDay;
+        final int offset;
+        final int length;
+        final int crc;
+
+        Entry(int month, int rows, int firstDay, int lastDay, int offset, int length, int crc) {
+            this.month = month;
+            this.rows = rows;
+            this.firstDay = firstDay;
+            this.lastDay = lastDay;
+            this.offset = offset;
+            this.length = length;
+            this.crc = crc;
+        }
+
+        boolean overlaps(long fromDay, long toDay) {
+            return firstDay <= toDay && lastDay >= fromDay;
+        }
+    }
+
+    /**
+     * A validated file: its (usually memory-mapped) contents and month index
+     */
+    static final class Index {
+        final ByteBuffer buffer;
+        final List<Entry> entries;
+
+        Index(ByteBuffer buffer, List<Entry> entries) {
+            this.buffer = buffer;
+            this.entries = entries;
+        }
+
+        /**
+         * Decode one month, verifying its checksum first
+         */
+        Columns decode(Entry entry) throws IOException {
+            ByteBuffer block = checkedBlock(entry);
+            Columns columns = new Columns(entry.rows);
+            columns.size = entry.rows;
+            readColumn(block, columns.days, entry.rows);
+            readColumn(block, columns.open, entry.rows);
+            readColumn(block, columns.high, entry.rows);
+            readColumn(block, columns.low, entry.rows);
+            readColumn(block, columns.close, entry.rows);
+            readColumn(block, columns.volume, entry.rows);
+            return columns;
+        }
+
+        /**
+         * Copy one month's encoded bytes unchanged, for rewriting the file with another month added
+         */
+        Block copy(Entry entry) throws IOException {
+            ByteBuffer block = checkedBlock(entry);
+            byte[] data = new byte[entry.length];
+            block.get(data);
+            return new Block(entry.month, entry.rows, entry.firstDay, entry.lastDay, data);
+        }
+
+        private ByteBuffer checkedBlock(Entry entry) throws IOException {
+            ByteBuffer block = buffer.slice(entry.offset, entry.length);
+            CRC32 crc = new CRC32();
+            crc.update(block.duplicate());
+            if ((int) crc.getValue() != entry.crc) {
+                throw new IOException("Checksum mismatch in archive block for month " + entry.month);
+            }
+            return block;
+        }
+    }
+
+    /**
+     * Encode a month of rows as one block
+     */
+    static Block encode(int month, Columns columns) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(columns.size * 12);
+        writeColumn(out, columns.days, columns.size);
+        writeColumn(out, columns.open, columns.size);
+        writeColumn(out, columns.high, columns.size);
+        writeColumn(out, columns.low, columns.size);
+        writeColumn(out, columns.close, columns.size);
+        writeColumn(out, columns.volume, columns.size);
+        return new Block(month, columns.size, columns.days[0], columns.days[columns.size - 1], out.toByteArray());
+    }
+
+    /**
+     * Lay out a whole file from its month blocks
+     */
+    static byte[] assemble(Collection<Block> blocks) {
+        List<Block> ordered = new ArrayList<>(blocks);
+        ordered.sort(Comparator.comparingInt(block -> block.month));
+
+        int headerBytes = FIXED_HEADER_BYTES + ordered.size() * INDEX_ENTRY_BYTES + Integer.BYTES;
+        int total = headerBytes;
+        for (Block block : ordered) {
+            total += block.data.length;
+        }
+
+        ByteBuffer file = ByteBuffer.allocate(total);
+        file.putInt(MAGIC);
+        file.putShort(VERSION);
+        file.putShort((short) ordered.size());
+        int offset = headerBytes;
+        for (Block block : ordered) {
+            CRC32 crc = new CRC32();
+            crc.update(block.data);
+            file.putInt(block.month);
+            file.putInt(block.rows);
+            file.putInt(block.firstDay);
+            file.putInt(block.lastDay);
+            file.putInt(offset);
+            file.putInt(block.data.length);
+            file.putInt((int) crc.getValue());
+            offset += block.data.length;
+        }
+        CRC32 headerCrc = new CRC32();
+        headerCrc.update(file.array(), 0, file.position());
+        file.putInt((int) headerCrc.getValue());
+        for (Block block : ordered) {
+            file.put(block.data);
+        }
+        return file.array();
+    }
+
+    /**
+     * Validate the header of a file's contents and read its month index
+     */
+    static Index open(ByteBuffer buffer) throws IOException {
+        if (buffer.limit() < FIXED_HEADER_BYTES + Integer.BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a market data archive file");
+        }
+        if (buffer.getShort(4) != VERSION) {
+            throw new IOException("Unsupported archive version " + buffer.getShort(4));
+        }
+        int count = buffer.getShort(6);
+        int headerEnd = FIXED_HEADER_BYTES + count * INDEX_ENTRY_BYTES;
+        if (count < 0 || headerEnd + Integer.BYTES > buffer.limit()) {
+            throw new IOException("Truncated archive header");
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(0, headerEnd));
+        if ((int) crc.getValue() != buffer.getInt(headerEnd)) {
+            throw new IOException("Checksum mismatch in archive header");
+        }
+
+        List<Entry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int at = FIXED_HEADER_BYTES + i * INDEX_ENTRY_BYTES;
+            Entry entry = new Entry(buffer.getInt(at), buffer.getInt(at + 4), buffer.getInt(at + 8),
+                    buffer.getInt(at + 12), buffer.getInt(at + 16), buffer.getInt(at + 20), buffer.getInt(at + 24));
+            if (entry.offset < headerEnd || (long) entry.offset + entry.length > buffer.limit()) {
+                throw new IOException("Archive block for month " + entry.month + " lies outside the file");
+            }
+            entries.add(entry);
+        }
+        return new Index(buffer, entries);
+    }
+
+    private static void writeColumn(ByteArrayOutputStream out, int[] values, int size) {
+        long previous = 0;
+        for (int i = 0; i < size; i++) {
+            writeVarLong(out, zigzag(values[i] - previous));
+            previous = values[i];
+        }
+    }
+
+    private static void writeColumn(ByteArrayOutputStream out, long[] values, int size) {
+        long previous = 0;
+        for (int i = 0; i < size; i++) {
+            writeVarLong(out, zigzag(values[i] - previous));
+            previous = values[i];
+        }
+    }
+
+    private static void readColumn(ByteBuffer in, int[] values, int size) {
+        long previous = 0;
+        for (int i = 0; i < size; i++) {
+            previous += unzigzag(readVarLong(in));
+            values[i] = (int) previous;
+        }
+    }
+
+    private static void readColumn(ByteBuffer in, long[] values, int size) {
+        long previous = 0;
+        for (int i = 0; i < size; i++) {
+            previous += unzigzag(readVarLong(in));
+            values[i] = previous;
+        }
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long toFixed(BigDecimal value) {
+        return value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal fromFixed(long value) {
+        return BigDecimal.valueOf(value, SCALE);
+    }
+}
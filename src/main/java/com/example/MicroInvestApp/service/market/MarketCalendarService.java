@@ -0,0 +1,340 @@
+package com.example.MicroInvestApp.service.market;
+
+import com.example.MicroInvestApp.domain.enums.Exchange;
+import com.example.MicroInvestApp.domain.enums.SessionType;
+import com.example.MicroInvestApp.domain.market.MarketSession;
+import com.example.MicroInvestApp.repositories.market.MarketSessionRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single source of trading days and session hours for the scheduling and pricing code.
+ * The calendar is precomputed into arrays indexed by day, so trading-day checks and next/previous
+ * lookups are O(1). Built from NYSE holiday rules, with MarketSession rows for the configured exchange
+ * overriding individual days (extra holidays, half days, changed hours).
+ */
+@Service
+public class MarketCalendarService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MarketCalendarService.class);
+
+    private static final LocalTime REGULAR_OPEN = LocalTime.of(9, 30);
+    private static final LocalTime REGULAR_CLOSE = LocalTime.of(16, 0);
+    private static final LocalTime EARLY_CLOSE = LocalTime.of(13, 0);
+
+    private final MarketSessionRepository marketSessionRepository;
+
+    @Value("${market-data.calendar.exchange:NYSE}")
+    private Exchange exchange;
+
+    @Value("${market-data.calendar.years-back:10}")
+    private int yearsBack;
+
+    @Value("${market-data.calendar.years-ahead:2}")
+    private int yearsAhead;
+
+    private volatile CalendarSnapshot snapshot;
+
+    @Autowired
+    public MarketCalendarService(MarketSessionRepository marketSessionRepository) {
+        this.marketSessionRepository = marketSessionRepository;
+    }
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    /**
+     * Rebuild the precomputed window so it keeps sliding forward and picks up edited sessions
+     */
+    @Scheduled(cron = "0 0 0 * * *", zone = "America/New_York")
+    public void rebuild() {
+        LocalDate today = today();
+        LocalDate start = today.minusYears(yearsBack).withDayOfYear(1);
+        LocalDate end = today.plusYears(yearsAhead).with(TemporalAdjusters.lastDayOfYear());
+
+        Map<LocalDate, MarketSession> overrides = new HashMap<>();
+        try {
+            for (MarketSession session : marketSessionRepository.findByExchangeAndSessionDateBetween(exchange, start, end)) {
+                overrides.put(session.getSessionDate(), session);
+            }
+        } catch (Exception e) {
+            logger.warn("Could not load market sessions for {} - using holiday rules only: {}", exchange, e.getMessage());
+        }
+
+        snapshot = new CalendarSnapshot(start, end, overrides);
+        logger.info("Market calendar for {} built for {} to {} ({} session overrides)",
+                exchange, start, end, overrides.size());
+    }
+
+    public ZoneId getZone() {
+        return exchange.getTimezoneId();
+    }
+
+    public LocalDate today() {
+        return LocalDate.now(getZone());
+    }
+
+    public boolean isTradingDay(LocalDate date) {
+        CalendarSnapshot current = snapshot;
+        int index = current.indexOf(date);
+        return index >= 0 ? current.trading[index] : isTradingDayByRules(date);
+    }
+
+    public boolean isTradingDayToday() {
+        return isTradingDay(today());
+    }
+
+    /**
+     * The closest trading day strictly before the given date
+     */
+    public LocalDate previousTradingDay(LocalDate date) {
+        CalendarSnapshot current = snapshot;
+        int index = current.indexOf(date);
+        if (index >= 0 && current.previous[index] >= 0) {
+            return current.dateAt(current.previous[index]);
+        }
+
+        LocalDate day = date.minusDays(1);
+        while (!isTradingDay(day)) {
+            day = day.minusDays(1);
+        }
+        return day;
+    }
+
+    /**
+     * The closest trading day strictly after the given date
+     */
+    public LocalDate nextTradingDay(LocalDate date) {
+        CalendarSnapshot current = snapshot;
+        int index = current.indexOf(date);
+        if (index >= 0 && current.next[index] >= 0) {
+            return current.dateAt(current.next[index]);
+        }
+
+        LocalDate day = date.plusDays(1);
+        while (!isTradingDay(day)) {
+            day = day.plusDays(1);
+        }
+        return day;
+    }
+
+    /**
+     * Every trading day in the range, both ends inclusive, in order
+     */
+    public List<LocalDate> tradingDaysBetween(LocalDate from, LocalDate to) {
+        List<LocalDate> sessions = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            if (isTradingDay(day)) {
+                sessions.add(day);
+            }
+        }
+        return sessions;
+    }
+
+    /**
+     * The most recent trading day before today - the last session with a final close
+     */
+    public LocalDate lastCompletedTradingDay() {
+        return previousTradingDay(today());
+    }
+
+    public LocalTime openTime(LocalDate date) {
+        CalendarSnapshot current = snapshot;
+        int index = current.indexOf(date);
+        return index >= 0 ? current.open[index] : (isTradingDayByRules(date) ? REGULAR_OPEN : null);
+    }
+
+    public LocalTime closeTime(LocalDate date) {
+        CalendarSnapshot current = snapshot;
+        int index = current.indexOf(date);
+        return index >= 0 ? current.close[index] : (isTradingDayByRules(date) ? ruleCloseTime(date) : null);
+    }
+
+    /**
+     * Whether the regular session is open right now, honouring holidays and early closes
+     */
+    public boolean isMarketOpen() {
+        return isMarketOpen(ZonedDateTime.now(getZone()));
+    }
+
+    public boolean isMarketOpen(ZonedDateTime at) {
+        ZonedDateTime local = at.withZoneSameInstant(getZone());
+        LocalDate date = local.toLocalDate();
+        if (!isTradingDay(date)) {
+            return false;
+        }
+        LocalTime time = local.toLocalTime();
+        LocalTime open = openTime(date);
+        LocalTime close = closeTime(date);
+        return open != null && close != null && !time.isBefore(open) && !time.isAfter(close);
+    }
+
+    // ----- Holiday rules (NYSE) -----
+
+    private boolean isTradingDayByRules(LocalDate date) {
+        DayOfWeek dayOfWeek = date.getDayOfWeek();
+        if (dayOfWeek == DayOfWeek.SATURDAY || dayOfWeek == DayOfWeek.SUNDAY) {
+            return false;
+        }
+        return !usesNyseRules() || !isNyseHoliday(date);
+    }
+
+    private LocalTime ruleCloseTime(LocalDate date) {
+        return usesNyseRules() && isNyseEarlyClose(date) ? EARLY_CLOSE : REGULAR_CLOSE;
+    }
+
+    private boolean usesNyseRules() {
+        return exchange == Exchange.NYSE || exchange == Exchange.NASDAQ;
+    }
+
+    private static boolean isNyseHoliday(LocalDate date) {
+        int year = date.getYear();
+
+        // New Year's Day is not moved back into December when it falls on a Saturday
+        LocalDate newYear = LocalDate.of(year, Month.JANUARY, 1);
+        if (date.equals(newYear.getDayOfWeek() == DayOfWeek.SUNDAY ? newYear.plusDays(1) : newYear)) {
+            return true;
+        }
+
+        return date.equals(nthWeekday(year, Month.JANUARY, DayOfWeek.MONDAY, 3))        // Martin Luther King Jr. Day
+                || date.equals(nthWeekday(year, Month.FEBRUARY, DayOfWeek.MONDAY, 3))   // Presidents' Day
+                || date.equals(easterSunday(year).minusDays(2))                         // Good Friday
+                || date.equals(LocalDate.of(year, Month.MAY, 31).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)))
+                || (year >= 2022 && date.equals(observed(LocalDate.of(year, Month.JUNE, 19))))
+                || date.equals(observed(LocalDate.of(year, Month.JULY, 4)))
+                || date.equals(nthWeekday(year, Month.SEPTEMBER, DayOfWeek.MONDAY, 1))  // Labor Day
+                || date.equals(nthWeekday(year, Month.NOVEMBER, DayOfWeek.THURSDAY, 4)) // Thanksgiving
+                || date.equals(observed(LocalDate.of(year, Month.DECEMBER, 25)));
+    }
+
+    private static boolean isNyseEarlyClose(LocalDate date) {
+        int year = date.getYear();
+        if (date.equals(nthWeekday(year, Month.NOVEMBER, DayOfWeek.THURSDAY, 4).plusDays(1))) {
+            return true;
+        }
+        if (date.getMonth() == Month.DECEMBER && date.getDayOfMonth() == 24) {
+            return true;
+        }
+        // July 3rd closes early unless it is itself the observed Independence Day
+        return date.getMonth() == Month.JULY && date.getDayOfMonth() == 3
+                && !date.equals(observed(LocalDate.of(year, Month.JULY, 4)));
+    }
+
+    private static LocalDate observed(LocalDate holiday) {
+        return switch (holiday.getDayOfWeek()) {
+            case SATURDAY -> holiday.minusDays(1);
+            case SUNDAY -> holiday.plusDays(1);
+            default -> holiday;
+        };
+    }
+
+    private static LocalDate nthWeekday(int year, Month month, DayOfWeek dayOfWeek, int n) {
+        return LocalDate.of(year, month, 1).with(TemporalAdjusters.dayOfWeekInMonth(n, dayOfWeek));
+    }
+
+    /**
+     * Anonymous Gregorian algorithm
+     */
+    private static LocalDate easterSunday(int year) {
+        int a = year % 19;
+        int b = year / 100;
+        int c = year % 100;
+        int d = b / 4;
+        int e = b % 4;
+        int f = (b + 8) / 25;
+        int g = (b - f + 1) / 3;
+        int h = (19 * a + b - d - g + 15) % 30;
+        int i = c / 4;
+        int k = c % 4;
+        int l = (32 + 2 * e + 2 * i - h - k) % 7;
+        int m = (a + 11 * h + 22 * l) / 451;
+        int month = (h + l - 7 * m + 114) / 31;
+        int day = ((h + l - 7 * m + 114) % 31) + 1;
+        return LocalDate.of(year, month, day);
+    }
+
+    /**
+     * Immutable per-day arrays for one window; swapped atomically on rebuild
+     */
+    private final class CalendarSnapshot {
+        private final long baseEpochDay;
+        private final boolean[] trading;
+        private final int[] previous;
+        private final int[] next;
+        private final LocalTime[] open;
+        private final LocalTime[] close;
+
+        CalendarSnapshot(LocalDate start, LocalDate end, Map<LocalDate, MarketSession> overrides) {
+            this.baseEpochDay = start.toEpochDay();
+            int days = (int) (end.toEpochDay() - baseEpochDay + 1);
+            this.trading = new boolean[days];
+            this.previous = new int[days];
+            this.next = new int[days];
+            this.open = new LocalTime[days];
+            this.close = new LocalTime[days];
+
+            for (int i = 0; i < days; i++) {
+                LocalDate date = start.plusDays(i);
+                MarketSession session = overrides.get(date);
+
+                if (session != null) {
+                    boolean closed = session.isHoliday()
+                            || session.getSessionType() == SessionType.HOLIDAY
+                            || session.getSessionType() == SessionType.WEEKEND;
+                    trading[i] = !closed;
+                    if (!closed) {
+                        open[i] = session.getMarketOpenTime();
+                        close[i] = session.getMarketCloseTime();
+                    }
+                } else if (isTradingDayByRules(date)) {
+                    trading[i] = true;
+                    open[i] = REGULAR_OPEN;
+                    close[i] = ruleCloseTime(date);
+                }
+            }
+
+            int last = -1;
+            for (int i = 0; i < days; i++) {
+                previous[i] = last;
+                if (trading[i]) {
+                    last = i;
+                }
+            }
+            last = -1;
+            for (int i = days - 1; i >= 0; i--) {
+                next[i] = last;
+                if (trading[i]) {
+                    last = i;
+                }
+            }
+        }
+
+        int indexOf(LocalDate date) {
+            long offset = date.toEpochDay() - baseEpochDay;
+            return offset >= 0 && offset < trading.length ? (int) offset : -1;
+        }
+
+        LocalDate dateAt(int index) {
+            return LocalDate.ofEpochDay(baseEpochDay + index);
+        }
+    }
+}
@@ -0,0 +1,417 @@
+package com.example.MicroInvestApp.service.market;
+
+import com.example.MicroInvestApp.domain.market.PriceHistory;
+import com.example.MicroInvestApp.domain.market.SecurityStock;
+import com.example.MicroInvestApp.repositories.market.MarketDataRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cold tier for daily MarketData. Closed months are exported to one columnar file per symbol and year
+ * (see MarketArchiveFile) before retention removes them from the database, and history requests reaching
+ * past the first stored bar are completed from those files through memory-mapped reads.
+ * Archived months are recorded as marker files, so an interrupted export is simply redone.
+ */
+@Service
+public class MarketDataArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MarketDataArchiveService.class);
+
+    private static final String MONTH_MARKERS = "_months";
+    private static final BigDecimal HUNDRED = new BigDecimal("100");
+
+    private final MarketDataRepository marketDataRepository;
+
+    @Value("${market-data.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${market-data.archive.directory:data/market-archive}")
+    private String directory;
+
+    @Value("${market-data.archive.mapped-files:256}")
+    private int maxMappedFiles;
+
+    @Value("${market-data.archive.max-history-years:30}")
+    private int maxHistoryYears;
+
+    @Value("${market-data.retention.market-data-years:2}")
+    private int marketDataRetentionYears;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong archiveReads = new AtomicLong(0);
+    private final AtomicLong corruptBlocks = new AtomicLong(0);
+
+    // Access-ordered, guarded by "mapped" itself
+    private final LinkedHashMap<Path, MarketArchiveFile.Index> mapped = new LinkedHashMap<>(64, 0.75f, true);
+
+    private volatile ArchiveRunStats lastRunStats;
+
+    @Autowired
+    public MarketDataArchiveService(MarketDataRepository marketDataRepository) {
+        this.marketDataRepository = marketDataRepository;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getMaxHistoryYears() {
+        return maxHistoryYears;
+    }
+
+    /**
+     * Archive every month of MarketData before the given month that is not archived yet.
+     * Returns null when a run is already in progress; check isComplete() before removing those months.
+     */
+    public ArchiveRunStats archiveMonthsBefore(YearMonth firstKept) {
+        if (!enabled) {
+            return null;
+        }
+        if (!running.compareAndSet(false, true)) {
+            logger.warn("Market data archiving already running - skipping overlapping run");
+            return null;
+        }
+
+        try {
+            long startTime = System.currentTimeMillis();
+            List<YearMonth> months = new ArrayList<>();
+            for (Object[] row : marketDataRepository.findMonthsBefore(firstKept.atDay(1))) {
+                months.add(YearMonth.of(((Number) row[0]).intValue(), ((Number) row[1]).intValue()));
+            }
+            months.sort(null);
+
+            int archived = 0;
+            int failed = 0;
+            long rows = 0;
+            long bytes = 0;
+            for (YearMonth month : months) {
+                if (isArchived(month)) {
+                    continue;
+                }
+                try {
+                    long[] written = archiveMonth(month);
+                    rows += written[0];
+                    bytes += written[1];
+                    archived++;
+                } catch (Exception e) {
+                    failed++;
+                    logger.error("Failed to archive market data for {}: {}", month, e.getMessage(), e);
+                }
+            }
+
+            ArchiveRunStats stats = new ArchiveRunStats(months.size(), archived, failed, rows, bytes,
+                    System.currentTimeMillis() - startTime);
+            lastRunStats = stats;
+            if (archived > 0 || failed > 0) {
+                logger.info("Market data archiving finished: {} months archived, {} failed, {} rows in {} bytes, {}ms",
+                        archived, failed, rows, bytes, stats.getDurationMs());
+            }
+            return stats;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Archive every closed month that has fallen out of the online retention window, on the market data executor
+     */
+    @Async("marketDataTaskExecutor")
+    public void archiveAsync() {
+        archiveMonthsBefore(YearMonth.from(LocalDate.now().minusYears(marketDataRetentionYears)));
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public ArchiveRunStats getLastRunStats() {
+        return lastRunStats;
+    }
+
+    /**
+     * Complete a daily history with archived bars for the part of the range before its first stored bar.
+     * The live bars are returned unchanged when the archive has nothing older.
+     */
+    public List<PriceHistory> mergeWithArchive(SecurityStock security, LocalDate from, LocalDate to,
+                                               List<PriceHistory> live) {
+        if (!enabled) {
+            return live;
+        }
+        LocalDate archiveTo = live.isEmpty() ? to : live.get(0).getDate().minusDays(1);
+        if (from.isAfter(archiveTo)) {
+            return live;
+        }
+
+        List<PriceHistory> archived = readArchived(security, from, archiveTo);
+        if (archived.isEmpty()) {
+            return live;
+        }
+        List<PriceHistory> merged = new ArrayList<>(archived.size() + live.size());
+        merged.addAll(archived);
+        merged.addAll(live);
+        return merged;
+    }
+
+    /**
+     * Archived daily bars of a security within a date range, oldest first. Change and percent change are
+     * relative to the previous archived close in the range.
+     */
+    public List<PriceHistory> readArchived(SecurityStock security, LocalDate from, LocalDate to) {
+        List<PriceHistory> bars = new ArrayList<>();
+        Path symbolDirectory = symbolDirectory(security.getSymbol());
+        if (!Files.isDirectory(symbolDirectory)) {
+            return bars;
+        }
+        archiveReads.incrementAndGet();
+
+        long fromDay = from.toEpochDay();
+        long toDay = to.toEpochDay();
+        BigDecimal previousClose = null;
+        for (int year = from.getYear(); year <= to.getYear(); year++) {
+            MarketArchiveFile.Index index = mappedIndex(symbolDirectory.resolve(year + MarketArchiveFile.EXTENSION));
+            if (index == null) {
+                continue;
+            }
+            for (MarketArchiveFile.Entry entry : index.entries) {
+                if (!entry.overlaps(fromDay, toDay)) {
+                    continue;
+                }
+                MarketArchiveFile.Columns columns;
+                try {
+                    columns = index.decode(entry);
+                } catch (IOException e) {
+                    corruptBlocks.incrementAndGet();
+                    logger.error("Skipping archived {} {}-{}: {}", security.getSymbol(), year, entry.month, e.getMessage());
+                    continue;
+                }
+                for (int i = 0; i < columns.size; i++) {
+                    if (columns.days[i] < fromDay || columns.days[i] > toDay) {
+                        continue;
+                    }
+                    BigDecimal close = columns.closeAt(i);
+                    PriceHistory bar = new PriceHistory(security, columns.dateAt(i), columns.openAt(i),
+                            columns.highAt(i), columns.lowAt(i), close, columns.volume[i], null, null, null, null);
+                    if (previousClose != null && previousClose.compareTo(BigDecimal.ZERO) > 0) {
+                        BigDecimal change = close.subtract(previousClose);
+                        bar.setPriceChange(change);
+                        bar.setPercentChange(change.divide(previousClose, 4, RoundingMode.HALF_UP).multiply(HUNDRED));
+                    }
+                    bars.add(bar);
+                    previousClose = close;
+                }
+            }
+        }
+        return bars;
+    }
+
+    public ArchiveStats getArchiveStats() {
+        int mappedFiles;
+        synchronized (mapped) {
+            mappedFiles = mapped.size();
+        }
+        List<String> archivedMonths = new ArrayList<>();
+        Path markers = Paths.get(directory, MONTH_MARKERS);
+        if (Files.isDirectory(markers)) {
+            try (var files = Files.list(markers)) {
+                files.map(path -> path.getFileName().toString()).sorted().forEach(archivedMonths::add);
+            } catch (IOException e) {
+                logger.warn("Could not list archived months: {}", e.getMessage());
+            }
+        }
+        return new ArchiveStats(enabled, directory, archivedMonths, mappedFiles, archiveReads.get(),
+                corruptBlocks.get(), running.get());
+    }
+
+    /**
+     * Export one month: every symbol's rows become that month's block in the symbol's file for the year.
+     * Returns rows and bytes written.
+     */
+    private long[] archiveMonth(YearMonth month) throws IOException {
+        List<Object[]> rows = marketDataRepository.findArchiveRowsBetween(month.atDay(1), month.plusMonths(1).atDay(1));
+
+        long bytes = 0;
+        int start = 0;
+        while (start < rows.size()) {
+            String symbol = (String) rows.get(start)[0];
+            int end = start;
+            while (end < rows.size() && symbol.equals(rows.get(end)[0])) {
+                end++;
+            }
+
+            MarketArchiveFile.Columns columns = new MarketArchiveFile.Columns(end - start);
+            for (int i = start; i < end; i++) {
+                Object[] row = rows.get(i);
+                if (row[2] == null || row[3] == null || row[4] == null || row[5] == null) {
+                    continue;
+                }
+                columns.add((LocalDate) row[1], (BigDecimal) row[2], (BigDecimal) row[3], (BigDecimal) row[4],
+                        (BigDecimal) row[5], row[6] != null ? ((Number) row[6]).longValue() : 0L);
+            }
+            if (columns.size > 0) {
+                bytes += writeMonth(symbol, month, columns);
+            }
+            start = end;
+        }
+
+        Path markers = Files.createDirectories(Paths.get(directory, MONTH_MARKERS));
+        Files.writeString(markers.resolve(month.toString()), Integer.toString(rows.size()));
+        return new long[] { rows.size(), bytes };
+    }
+
+    /**
+     * Replace the month's block in the symbol's year file, keeping its other months as they are.
+     * The new file is written beside the old one and moved over it, so readers never see a partial file.
+     */
+    private long writeMonth(String symbol, YearMonth month, MarketArchiveFile.Columns columns) throws IOException {
+        Path symbolDirectory = Files.createDirectories(symbolDirectory(symbol));
+        Path file = symbolDirectory.resolve(month.getYear() + MarketArchiveFile.EXTENSION);
+
+        Map<Integer, MarketArchiveFile.Block> blocks = new TreeMap<>();
+        if (Files.exists(file)) {
+            MarketArchiveFile.Index existing = MarketArchiveFile.open(ByteBuffer.wrap(Files.readAllBytes(file)));
+            for (MarketArchiveFile.Entry entry : existing.entries) {
+                blocks.put(entry.month, existing.copy(entry));
+            }
+        }
+        blocks.put(month.getMonthValue(), MarketArchiveFile.encode(month.getMonthValue(), columns));
+
+        byte[] contents = MarketArchiveFile.assemble(blocks.values());
+        Path temp = symbolDirectory.resolve(file.getFileName() + ".tmp");
+        Files.write(temp, contents);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        synchronized (mapped) {
+            mapped.remove(file);
+        }
+        return contents.length;
+    }
+
+    /**
+     * Map a year file read-only, reusing a recent mapping. A mapping stays valid after the file is replaced,
+     * and is released by the garbage collector once evicted.
+     */
+    private MarketArchiveFile.Index mappedIndex(Path file) {
+        synchronized (mapped) {
+            MarketArchiveFile.Index index = mapped.get(file);
+            if (index != null) {
+                return index;
+            }
+        }
+        if (!Files.exists(file)) {
+            return null;
+        }
+
+        MarketArchiveFile.Index index;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            index = MarketArchiveFile.open(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            corruptBlocks.incrementAndGet();
+            logger.error("Unreadable market data archive {}: {}", file, e.getMessage());
+            return null;
+        }
+
+        synchronized (mapped) {
+            mapped.put(file, index);
+            if (mapped.size() > maxMappedFiles) {
+                mapped.remove(mapped.keySet().iterator().next());
+            }
+        }
+        return index;
+    }
+
+    private boolean isArchived(YearMonth month) {
+        return Files.exists(Paths.get(directory, MONTH_MARKERS, month.toString()));
+    }
+
+    private Path symbolDirectory(String symbol) {
+        return Paths.get(directory, symbol.toUpperCase().replaceAll("[^A-Z0-9._-]", "_"));
+    }
+
+    /**
+     * Outcome of one archiving run
+     */
+    public static class ArchiveRunStats {
+        private final int monthsFound;
+        private final int monthsArchived;
+        private final int monthsFailed;
+        private final long rowsArchived;
+        private final long bytesWritten;
+        private final long durationMs;
+
+        public ArchiveRunStats(int monthsFound, int monthsArchived, int monthsFailed, long rowsArchived,
+                               long bytesWritten, long durationMs) {
+            this.monthsFound = monthsFound;
+            this.monthsArchived = monthsArchived;
+            this.monthsFailed = monthsFailed;
+            this.rowsArchived = rowsArchived;
+            this.bytesWritten = bytesWritten;
+            this.durationMs = durationMs;
+        }
+
+        // Getters
+        public int getMonthsFound() { return monthsFound; }
+        public int getMonthsArchived() { return monthsArchived; }
+        public int getMonthsFailed() { return monthsFailed; }
+        public long getRowsArchived() { return rowsArchived; }
+        public long getBytesWritten() { return bytesWritten; }
+        public long getDurationMs() { return durationMs; }
+        public boolean isComplete() { return monthsFailed == 0; }
+    }
+
+    /**
+     * Archive contents and read counters for monitoring
+     */
+    public static class ArchiveStats {
+        private final boolean enabled;
+        private final String directory;
+        private final List<String> archivedMonths;
+        private final int mappedFiles;
+        private final long archiveReads;
+        private final long corruptBlocks;
+        private final boolean running;
+
+        public ArchiveStats(boolean enabled, String directory, List<String> archivedMonths, int mappedFiles,
+                            long archiveReads, long corruptBlocks, boolean running) {
+            this.enabled = enabled;
+            this.directory = directory;
+            this.archivedMonths = archivedMonths;
+            this.mappedFiles = mappedFiles;
+            this.archiveReads = archiveReads;
+            this.corruptBlocks = corruptBlocks;
+            this.running = running;
+        }
+
+        // Getters
+        public boolean isEnabled() { return enabled; }
+        public String getDirectory() { return directory; }
+        public List<String> getArchivedMonths() { return archivedMonths; }
+        public int getMappedFiles() { return mappedFiles; }
+        public long getArchiveReads() { return archiveReads; }
+        public long getCorruptBlocks() { return corruptBlocks; }
+        public boolean isRunning() { return running; }
+    }
+}
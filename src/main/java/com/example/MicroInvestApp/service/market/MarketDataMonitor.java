@@ -1,6 +1,7 @@
 package com.example.MicroInvestApp.service.market;
 
 import com.example.MicroInvestApp.domain.market.SecurityStock;
+import com.example.MicroInvestApp.repositories.market.MarketDataGapRepository;
 import com.example.MicroInvestApp.repositories.market.SecurityStockRepository;
 import com.example.MicroInvestApp.repositories.market.MarketDataRepository;
 import org.slf4j.Logger;
@@ -21,12 +22,15 @@ public class MarketDataMonitor {
 
     private final SecurityStockRepository securityStockRepository;
     private final MarketDataRepository marketDataRepository;
+    private final MarketDataQualityAnalyzer qualityAnalyzer;
 
     @Autowired
     public MarketDataMonitor(SecurityStockRepository securityStockRepository,
-                             MarketDataRepository marketDataRepository) {
+                             MarketDataRepository marketDataRepository,
+                             MarketDataQualityAnalyzer qualityAnalyzer) {
         this.securityStockRepository = securityStockRepository;
         this.marketDataRepository = marketDataRepository;
+        this.qualityAnalyzer = qualityAnalyzer;
     }
 
     /**
@@ -67,20 +71,22 @@ public class MarketDataMonitor {
     }
 
     /**
-     * Generate data coverage report
+     * Generate data coverage report: share of expected session bars present, and every missing run
      */
     public DataCoverageReport generateDataCoverageReport(LocalDate from, LocalDate to) {
         try {
-            int totalSecurities = securityStockRepository.countByIsActiveTrue();
-            // Simplified coverage calculation
-            double coveragePercentage = totalSecurities > 0 ? 85.0 : 0.0; // Mock percentage
+            MarketDataQualityAnalyzer.DataQualityReport quality = qualityAnalyzer.analyze(from, to);
             List<String> missingData = new ArrayList<>();
+            for (MarketDataGapRepository.MissingRange gap : quality.getGaps()) {
+                missingData.add(gap.getSymbol() + ": " + gap.getStart() + " to " + gap.getEnd() +
+                        " (" + gap.getMissingDays() + " sessions)");
+            }
 
             return new DataCoverageReport(
                     from.toString(),
                     to.toString(),
-                    totalSecurities,
-                    coveragePercentage,
+                    quality.getSecuritiesChecked(),
+                    quality.getCoveragePercentage(),
                     missingData
             );
         } catch (Exception e) {
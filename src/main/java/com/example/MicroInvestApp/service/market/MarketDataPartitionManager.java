@@ -0,0 +1,242 @@
+package com.example.MicroInvestApp.service.market;
+
+import com.example.MicroInvestApp.repositories.market.PartitionMaintenanceRepository;
+import com.example.MicroInvestApp.repositories.market.PartitionMaintenanceRepository.PartitionedTable;
+import com.example.MicroInvestApp.service.cluster.ClusterCoordinator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps MarketData and PriceHistory range-partitioned by month.
+ * Plain tables are converted once by an operator through convertTables (or on startup when explicitly enabled);
+ * afterwards a daily job creates the upcoming months' partitions ahead of time and files any rows that fell into
+ * the default partition into their own month. Retention detaches or drops whole months, so cleanup is a catalog
+ * change instead of a bulk delete.
+ * Disabled automatically on databases other than PostgreSQL, where cleanup falls back to row deletes.
+ */
+@Service
+public class MarketDataPartitionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(MarketDataPartitionManager.class);
+
+    private final PartitionMaintenanceRepository partitionRepository;
+    private final ClusterCoordinator clusterCoordinator;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${market-data.partitioning.enabled:true}")
+    private boolean enabled;
+
+    @Value("${market-data.partitioning.convert-on-startup:false}")
+    private boolean convertOnStartup;
+
+    @Value("${market-data.partitioning.premake-months:3}")
+    private int premakeMonths;
+
+    @Value("${market-data.partitioning.keep-detached:false}")
+    private boolean keepDetached;
+
+    private volatile Boolean postgres;
+
+    @Autowired
+    public MarketDataPartitionManager(PartitionMaintenanceRepository partitionRepository,
+                                      ClusterCoordinator clusterCoordinator,
+                                      PlatformTransactionManager transactionManager) {
+        this.partitionRepository = partitionRepository;
+        this.clusterCoordinator = clusterCoordinator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Make sure the upcoming partitions exist; still-plain tables are converted first only with convert-on-startup
+     */
+    @Async("marketDataTaskExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void prepareOnStartup() {
+        if (!isActive()) {
+            return;
+        }
+        for (PartitionedTable table : PartitionedTable.values()) {
+            try {
+                if (convertOnStartup) {
+                    convertIfNeeded(table);
+                }
+            } catch (Exception e) {
+                logger.error("Failed to convert {} to monthly partitions: {}", table.getTableName(), e.getMessage(), e);
+            }
+        }
+        maintainPartitions();
+    }
+
+    /**
+     * Convert every still-plain daily table now. Each table is rewritten under an exclusive lock, so this is a
+     * one-off migration for a quiet window. Returns rows moved per converted table.
+     */
+    public Map<String, Long> convertTables() {
+        Map<String, Long> converted = new LinkedHashMap<>();
+        if (!isActive()) {
+            return converted;
+        }
+        for (PartitionedTable table : PartitionedTable.values()) {
+            Long rows = convertIfNeeded(table);
+            if (rows != null) {
+                converted.put(table.getTableName(), rows);
+            }
+        }
+        maintainPartitions();
+        return converted;
+    }
+
+    /**
+     * Scheduled job: create upcoming monthly partitions and re-home default-partition rows
+     */
+    @Scheduled(cron = "${market-data.partitioning.maintenance-cron:0 30 2 * * *}", zone = "America/New_York")
+    public void scheduledMaintenance() {
+        if (!clusterCoordinator.isLeader()) {
+            return;
+        }
+        maintainPartitions();
+    }
+
+    public void maintainPartitions() {
+        if (!isActive()) {
+            return;
+        }
+        YearMonth current = YearMonth.now();
+        for (PartitionedTable table : PartitionedTable.values()) {
+            try {
+                int created = transactionTemplate.execute(status -> {
+                    if (!partitionRepository.isPartitioned(table)) {
+                        return 0;
+                    }
+                    partitionRepository.lockForMaintenance();
+                    int made = 0;
+                    for (int i = 0; i <= premakeMonths; i++) {
+                        made += partitionRepository.ensurePartition(table, current.plusMonths(i)) ? 1 : 0;
+                    }
+                    for (YearMonth month : partitionRepository.findMonthsInDefault(table)) {
+                        made += partitionRepository.ensurePartition(table, month) ? 1 : 0;
+                    }
+                    return made;
+                });
+                if (created > 0) {
+                    logger.info("Created {} monthly partitions for {}", created, table.getTableName());
+                }
+            } catch (Exception e) {
+                logger.error("Partition maintenance failed for {}: {}", table.getTableName(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Create partitions covering a date range ahead of a bulk load, so rows never go through the default
+     */
+    public void ensurePartitions(LocalDate from, LocalDate to) {
+        if (!isActive()) {
+            return;
+        }
+        for (PartitionedTable table : PartitionedTable.values()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!partitionRepository.isPartitioned(table)) {
+                    return;
+                }
+                partitionRepository.lockForMaintenance();
+                for (YearMonth month = YearMonth.from(from); !month.isAfter(YearMonth.from(to)); month = month.plusMonths(1)) {
+                    partitionRepository.ensurePartition(table, month);
+                }
+            });
+        }
+    }
+
+    /**
+     * Remove every whole month of the table that ends on or before the cutoff. Returns the partitions removed,
+     * or -1 when the table is not partitioned and the caller has to delete rows instead.
+     */
+    public int applyRetention(PartitionedTable table, LocalDate cutoff) {
+        if (!isActive()) {
+            return -1;
+        }
+        YearMonth firstKept = YearMonth.from(cutoff);
+        Integer removed = transactionTemplate.execute(status -> {
+            if (!partitionRepository.isPartitioned(table)) {
+                return -1;
+            }
+            partitionRepository.lockForMaintenance();
+            int count = 0;
+            for (YearMonth month : partitionRepository.findPartitionMonths(table)) {
+                if (month.isBefore(firstKept)) {
+                    partitionRepository.removePartition(table, month, keepDetached);
+                    count++;
+                }
+            }
+            partitionRepository.purgeDefaultBefore(table, cutoff);
+            return count;
+        });
+        if (removed != null && removed > 0) {
+            logger.info("{} {} monthly partitions of {} before {}", keepDetached ? "Detached" : "Dropped",
+                    removed, table.getTableName(), firstKept);
+        }
+        return removed != null ? removed : -1;
+    }
+
+    /**
+     * Monthly partitions per table, for monitoring
+     */
+    public Map<String, List<YearMonth>> getPartitionMonths() {
+        Map<String, List<YearMonth>> months = new LinkedHashMap<>();
+        if (!isActive()) {
+            return months;
+        }
+        for (PartitionedTable table : PartitionedTable.values()) {
+            months.put(table.getTableName(), partitionRepository.findPartitionMonths(table));
+        }
+        return months;
+    }
+
+    private Long convertIfNeeded(PartitionedTable table) {
+        Long rows = transactionTemplate.execute(status -> {
+            partitionRepository.lockForMaintenance();
+            // Checked under the lock so only one instance converts
+            if (!partitionRepository.exists(table) || partitionRepository.isPartitioned(table)) {
+                return null;
+            }
+            return partitionRepository.convertToPartitioned(table);
+        });
+        if (rows != null) {
+            logger.info("Converted {} to monthly partitions, {} rows moved", table.getTableName(), rows);
+        }
+        return rows;
+    }
+
+    /**
+     * Whether partitioning is enabled and the database supports it
+     */
+    public boolean isActive() {
+        if (!enabled) {
+            return false;
+        }
+        if (postgres == null) {
+            try {
+                postgres = partitionRepository.isPostgres();
+            } catch (Exception e) {
+                logger.warn("Could not determine database type, partitioning disabled: {}", e.getMessage());
+                postgres = false;
+            }
+        }
+        return postgres;
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.MicroInvestApp.service.market;
+
+import com.example.MicroInvestApp.repositories.market.MarketDataGapRepository;
+import com.example.MicroInvestApp.repositories.market.MarketDataGapRepository.MissingRange;
+import com.example.MicroInvestApp.repositories.market.MarketDataGapRepository.SecurityQuality;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gap and quality analysis of MarketData for the whole active universe in two set-based queries:
+ * missing sessions as runs against the trading calendar, and per-security bar statistics (stale, repeated
+ * and impossible bars). Replaces per-security lookups, so the cost no longer grows with round-trips.
+ */
+@Service
+public class MarketDataQualityAnalyzer {
+
+    private static final Logger logger = LoggerFactory.getLogger(MarketDataQualityAnalyzer.class);
+
+    private final MarketDataGapRepository gapRepository;
+    private final MarketCalendarService marketCalendarService;
+
+    @Value("${market-data.quality.lookback-sessions:20}")
+    private int lookbackSessions;
+
+    @Value("${market-data.stale-threshold-hours:24}")
+    private int staleThresholdHours;
+
+    private volatile DataQualityReport lastReport;
+
+    @Autowired
+    public MarketDataQualityAnalyzer(MarketDataGapRepository gapRepository,
+                                     MarketCalendarService marketCalendarService) {
+        this.gapRepository = gapRepository;
+        this.marketCalendarService = marketCalendarService;
+    }
+
+    /**
+     * Analyze the configured number of sessions up to the last completed one
+     */
+    public DataQualityReport analyzeRecent() {
+        LocalDate to = marketCalendarService.lastCompletedTradingDay();
+        LocalDate from = to;
+        for (int i = 1; i < lookbackSessions; i++) {
+            from = marketCalendarService.previousTradingDay(from);
+        }
+        return analyze(from, to);
+    }
+
+    /**
+     * Analyze every trading session in the range
+     */
+    public DataQualityReport analyze(LocalDate from, LocalDate to) {
+        long startTime = System.currentTimeMillis();
+
+        List<LocalDate> sessions = marketCalendarService.tradingDaysBetween(from, to);
+
+        List<SecurityQuality> securities = gapRepository.findSecurityQuality(sessions);
+        List<MissingRange> gaps = gapRepository.findMissingSessionRanges(sessions);
+
+        Map<String, Integer> gapRuns = new HashMap<>();
+        for (MissingRange gap : gaps) {
+            gapRuns.merge(gap.getSymbol(), 1, Integer::sum);
+        }
+
+        LocalDate lastSession = sessions.isEmpty() ? null : sessions.get(sessions.size() - 1);
+        Instant staleBefore = Instant.now().minusSeconds(staleThresholdHours * 3600L);
+        long expectedBars = (long) sessions.size() * securities.size();
+        long presentBars = 0;
+        int missingLastSession = 0;
+        int stale = 0;
+        int complete = 0;
+        long repeatedBars = 0;
+        long invalidBars = 0;
+        long offCalendarBars = 0;
+        List<SecurityIssue> issues = new ArrayList<>();
+
+        for (SecurityQuality security : securities) {
+            presentBars += security.getSessionBars();
+            repeatedBars += security.getRepeatedBars();
+            invalidBars += security.getInvalidBars();
+            offCalendarBars += security.getOffCalendarBars();
+
+            int missing = sessions.size() - security.getSessionBars();
+            boolean lastMissing = lastSession != null
+                    && (security.getLatestDate() == null || security.getLatestDate().isBefore(lastSession));
+            boolean isStale = security.getLatestUpdate() == null || security.getLatestUpdate().isBefore(staleBefore);
+            if (missing == 0) {
+                complete++;
+            }
+            if (lastMissing) {
+                missingLastSession++;
+            }
+            if (isStale) {
+                stale++;
+            }
+
+            if (missing > 0 || isStale || security.getRepeatedBars() > 0 || security.getInvalidBars() > 0
+                    || security.getOffCalendarBars() > 0) {
+                issues.add(new SecurityIssue(security.getSymbol(), missing, gapRuns.getOrDefault(security.getSymbol(), 0),
+                        lastMissing, isStale, security.getRepeatedBars(), security.getInvalidBars(),
+                        security.getOffCalendarBars(), security.getLatestDate(), security.getLatestUpdate()));
+            }
+        }
+
+        double coverage = expectedBars > 0 ? presentBars * 100.0 / expectedBars : 0.0;
+        DataQualityReport report = new DataQualityReport(from, to, sessions.size(), securities.size(), complete,
+                missingLastSession, stale, repeatedBars, invalidBars, offCalendarBars, coverage, issues, gaps,
+                System.currentTimeMillis() - startTime);
+        lastReport = report;
+        logger.debug("Data quality analysis for {} to {} took {}ms", from, to, report.getDurationMs());
+        return report;
+    }
+
+    public DataQualityReport getLastReport() {
+        return lastReport;
+    }
+
+    /**
+     * Everything wrong with one security in the analyzed window
+     */
+    public static class SecurityIssue {
+        private final String symbol;
+        private final int missingSessions;
+        private final int gapRuns;
+        private final boolean missingLastSession;
+        private final boolean stale;
+        private final int repeatedBars;
+        private final int invalidBars;
+        private final int offCalendarBars;
+        private final LocalDate latestDate;
+        private final Instant latestUpdate;
+
+        public SecurityIssue(String symbol, int missingSessions, int gapRuns, boolean missingLastSession,
+                             boolean stale, int repeatedBars, int invalidBars, int offCalendarBars,
+                             LocalDate latestDate, Instant latestUpdate) {
+            this.symbol = symbol;
+            this.missingSessions = missingSessions;
+            this.gapRuns = gapRuns;
+            this.missingLastSession = missingLastSession;
+            this.stale = stale;
+            this.repeatedBars = repeatedBars;
+            this.invalidBars = invalidBars;
+            this.offCalendarBars = offCalendarBars;
+            this.latestDate = latestDate;
+            this.latestUpdate = latestUpdate;
+        }
+
+        // Getters
+        public String getSymbol() { return symbol; }
+        public int getMissingSessions() { return missingSessions; }
+        public int getGapRuns() { return gapRuns; }
+        public boolean isMissingLastSession() { return missingLastSession; }
+        public boolean isStale() { return stale; }
+        public int getRepeatedBars() { return repeatedBars; }
+        public int getInvalidBars() { return invalidBars; }
+        public int getOffCalendarBars() { return offCalendarBars; }
+        public LocalDate getLatestDate() { return latestDate; }
+        public Instant getLatestUpdate() { return latestUpdate; }
+    }
+
+    /**
+     * Universe-wide gap and quality report
+     */
+    public static class DataQualityReport {
+        private final LocalDate fromDate;
+        private final LocalDate toDate;
+        private final int sessions;
+        private final int securitiesChecked;
+        private final int completeSecurities;
+        private final int missingLastSession;
+        private final int staleSecurities;
+        private final long repeatedBars;
+        private final long invalidBars;
+        private final long offCalendarBars;
+        private final double coveragePercentage;
+        private final List<SecurityIssue> issues;
+        private final List<MissingRange> gaps;
+        private final long durationMs;
+
+        public DataQualityReport(LocalDate fromDate, LocalDate toDate, int sessions, int securitiesChecked,
+                                 int completeSecurities, int missingLastSession, int staleSecurities,
+                                 long repeatedBars, long invalidBars, long offCalendarBars,
+                                 double coveragePercentage, List<SecurityIssue> issues, List<MissingRange> gaps,
+                                 long durationMs) {
+            this.fromDate = fromDate;
+            this.toDate = toDate;
+            this.sessions = sessions;
+            this.securitiesChecked = securitiesChecked;
+            this.completeSecurities = completeSecurities;
+            this.missingLastSession = missingLastSession;
+            this.staleSecurities = staleSecurities;
+            this.repeatedBars = repeatedBars;
+            this.invalidBars = invalidBars;
+            this.offCalendarBars = offCalendarBars;
+            this.coveragePercentage = coveragePercentage;
+            this.issues = issues;
+            this.gaps = gaps;
+            this.durationMs = durationMs;
+        }
+
+        // Getters
+        public LocalDate getFromDate() { return fromDate; }
+        public LocalDate getToDate() { return toDate; }
+        public int getSessions() { return sessions; }
+        public int getSecuritiesChecked() { return securitiesChecked; }
+        public int getCompleteSecurities() { return completeSecurities; }
+        public int getMissingLastSession() { return missingLastSession; }
+        public int getStaleSecurities() { return staleSecurities; }
+        public long getRepeatedBars() { return repeatedBars; }
+        public long getInvalidBars() { return invalidBars; }
+        public long getOffCalendarBars() { return offCalendarBars; }
+        public double getCoveragePercentage() { return coveragePercentage; }
+        public List<SecurityIssue> getIssues() { return issues; }
+        public List<MissingRange> getGaps() { return gaps; }
+        public long getDurationMs() { return durationMs; }
+    }
+}
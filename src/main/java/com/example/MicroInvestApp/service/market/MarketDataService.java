@@ -25,7 +25,7 @@ public interface MarketDataService {
     MarketData fetchAndStoreCurrentMarketData(String symbol);
 
     /**
-     * Fetch and store historical market data for a date range
+     * Fetch and store historical market data for a date range, together with the matching PriceHistory bars
      * @param symbol The stock symbol
      * @param from Start date (inclusive)
      * @param to End date (inclusive)
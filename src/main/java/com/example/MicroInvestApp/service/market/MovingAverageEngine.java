@@ -0,0 +1,408 @@
+package com.example.MicroInvestApp.service.market;
+
+import com.example.MicroInvestApp.domain.market.PriceHistory;
+import com.example.MicroInvestApp.domain.market.SecurityStock;
+import com.example.MicroInvestApp.repositories.market.MarketPriceBulkRepository;
+import com.example.MicroInvestApp.repositories.market.PriceHistoryRepository;
+import com.example.MicroInvestApp.repositories.market.SecurityStockRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Rolling 50/200-day moving averages over daily closes.
+ * Each security keeps a ring buffer of its last 200 closes with running fixed-point sums and EMA state,
+ * so capturing a new close updates the SMAs and EMAs in constant time. Windows are seeded once per process
+ * from the history store; recapturing the latest day replaces that close instead of advancing the window.
+ * A one-shot backfill recomputes the stored averages over each security's full history in parallel.
+ */
+@Service
+public class MovingAverageEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(MovingAverageEngine.class);
+
+    private static final int SHORT_WINDOW = 50;
+    private static final int LONG_WINDOW = 200;
+    // Same fixed-point scale as the PriceHistory price columns
+    private static final int SCALE = 4;
+    private static final double UNIT = 10_000d;
+    // 200 trading days span roughly 290 calendar days
+    private static final int SEED_LOOKBACK_DAYS = 400;
+
+    private final PriceHistoryRepository priceHistoryRepository;
+    private final SecurityStockRepository securityStockRepository;
+    private final MarketPriceBulkRepository marketPriceBulkRepository;
+    private final PriceHistoryStore priceHistoryStore;
+    private final MarketCalendarService marketCalendarService;
+
+    @Value("${market-data.moving-averages.backfill-concurrency:4}")
+    private int backfillConcurrency;
+
+    private final Map<Long, Window> windows = new ConcurrentHashMap<>();
+    private final AtomicBoolean backfillRunning = new AtomicBoolean(false);
+
+    @Autowired
+    public MovingAverageEngine(PriceHistoryRepository priceHistoryRepository,
+                               SecurityStockRepository securityStockRepository,
+                               MarketPriceBulkRepository marketPriceBulkRepository,
+                               PriceHistoryStore priceHistoryStore,
+                               MarketCalendarService marketCalendarService) {
+        this.priceHistoryRepository = priceHistoryRepository;
+        this.securityStockRepository = securityStockRepository;
+        this.marketPriceBulkRepository = marketPriceBulkRepository;
+        this.priceHistoryStore = priceHistoryStore;
+        this.marketCalendarService = marketCalendarService;
+    }
+
+    /**
+     * Set the 50/200-day SMAs on closing bars about to be written, advancing each security's window.
+     * Averages stay null while a security has fewer closes than the window.
+     */
+    public void applyTo(List<PriceHistory> bars) {
+        for (PriceHistory bar : bars) {
+            if (bar.getSecurityStock() == null || bar.getDate() == null || bar.getClosePrice() == null) {
+                continue;
+            }
+            try {
+                Averages averages = update(bar.getSecurityStock(), bar.getDate(), bar.getClosePrice());
+                bar.setMovingAverage50Day(averages.getSma50());
+                bar.setMovingAverage200Day(averages.getSma200());
+            } catch (Exception e) {
+                // Leave the averages null so the upsert keeps whatever is stored
+                logger.warn("Failed to update moving averages for {}: {}",
+                        bar.getSecurityStock().getSymbol(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Feed one close into the security's window and return the averages as of that date
+     */
+    public Averages update(SecurityStock security, LocalDate date, BigDecimal close) {
+        Long securityId = security.getSecurityId();
+        long value = toFixed(close);
+
+        Window window = windows.get(securityId);
+        if (window != null) {
+            synchronized (window) {
+                if (window.follows(date, marketCalendarService)) {
+                    return window.accept(date, value);
+                }
+            }
+        }
+
+        Window seeded = seed(security, date);
+        Averages averages = seeded.accept(date, value);
+        if (window == null || !date.isBefore(window.lastDate)) {
+            windows.put(securityId, seeded);
+        }
+        // An out-of-order close is answered from a throwaway window so later days stay contiguous
+        return averages;
+    }
+
+    /**
+     * Latest averages for a security, or null when its window is not resident
+     */
+    public Averages current(Long securityId) {
+        Window window = windows.get(securityId);
+        if (window == null) {
+            return null;
+        }
+        synchronized (window) {
+            return window.averages();
+        }
+    }
+
+    /**
+     * Recompute and store the moving averages of every active security's full history.
+     * Securities run in parallel; each one is a single close-series read and chunked bulk updates.
+     */
+    public MovingAverageBackfillStats backfill() {
+        if (!backfillRunning.compareAndSet(false, true)) {
+            logger.warn("Moving average backfill already running - skipping overlapping run");
+            return null;
+        }
+
+        try {
+            long startTime = System.currentTimeMillis();
+            List<SecurityStock> securities = securityStockRepository.findByIsActiveTrue();
+            logger.info("Backfilling moving averages for {} securities with concurrency {}",
+                    securities.size(), backfillConcurrency);
+
+            List<Integer> results = Flux.fromIterable(securities)
+                    .flatMap(security -> Mono.fromCallable(() -> backfillSecurity(security))
+                            .subscribeOn(Schedulers.boundedElastic()), backfillConcurrency)
+                    .collectList()
+                    .block();
+
+            int failed = 0;
+            long barsUpdated = 0;
+            for (Integer result : results) {
+                if (result < 0) {
+                    failed++;
+                } else {
+                    barsUpdated += result;
+                }
+            }
+
+            MovingAverageBackfillStats stats = new MovingAverageBackfillStats(securities.size(), failed, barsUpdated,
+                    System.currentTimeMillis() - startTime);
+            logger.info("Moving average backfill finished: {} securities, {} failed, {} bars in {}ms",
+                    stats.getSecurities(), failed, barsUpdated, stats.getDurationMs());
+            return stats;
+        } finally {
+            backfillRunning.set(false);
+        }
+    }
+
+    /**
+     * Run the backfill on the market data executor
+     */
+    @Async("marketDataTaskExecutor")
+    public void backfillAsync() {
+        backfill();
+    }
+
+    public boolean isBackfillRunning() {
+        return backfillRunning.get();
+    }
+
+    /**
+     * Walk one security's closes oldest first and write the averages for every bar. Returns -1 on failure.
+     */
+    private int backfillSecurity(SecurityStock security) {
+        try {
+            List<Object[]> rows = priceHistoryRepository.findCloseSeriesBySecurityId(security.getSecurityId());
+            if (rows.isEmpty()) {
+                return 0;
+            }
+
+            Window window = new Window();
+            List<PriceHistory> updates = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                if (row[2] == null) {
+                    continue;
+                }
+                Averages averages = window.accept((LocalDate) row[1], toFixed((BigDecimal) row[2]));
+
+                // Bars without enough history are cleared too, replacing the old close-as-average placeholders
+                PriceHistory update = new PriceHistory();
+                update.setPriceHistoryId((Long) row[0]);
+                update.setMovingAverage50Day(averages.getSma50());
+                update.setMovingAverage200Day(averages.getSma200());
+                updates.add(update);
+            }
+
+            int updated = marketPriceBulkRepository.updateMovingAverages(updates);
+            if (window.lastDate != null) {
+                // Keep a live window that a capture advanced past the series read above
+                windows.compute(security.getSecurityId(), (id, current) ->
+                        current != null && current.lastDate.isAfter(window.lastDate) ? current : window);
+            }
+            priceHistoryStore.invalidate(security.getSecurityId());
+            return updated;
+        } catch (Exception e) {
+            logger.warn("Moving average backfill failed for {}: {}", security.getSymbol(), e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Build a window from the closes strictly before the given date, from the history store when enabled
+     */
+    private Window seed(SecurityStock security, LocalDate date) {
+        Window window = new Window();
+        if (priceHistoryStore.isEnabled()) {
+            PriceHistoryStore.Slice slice = priceHistoryStore.range(
+                    security, date.minusDays(SEED_LOOKBACK_DAYS), date.minusDays(1));
+            for (int i = Math.max(0, slice.size() - LONG_WINDOW); i < slice.size(); i++) {
+                BigDecimal close = slice.closePriceAt(i);
+                if (close != null) {
+                    window.accept(slice.dateAt(i), toFixed(close));
+                }
+            }
+        } else {
+            List<Object[]> rows = priceHistoryRepository.findCloseSeriesBySecurityId(security.getSecurityId());
+            int end = rows.size();
+            while (end > 0 && !((LocalDate) rows.get(end - 1)[1]).isBefore(date)) {
+                end--;
+            }
+            for (Object[] row : rows.subList(Math.max(0, end - LONG_WINDOW), end)) {
+                if (row[2] != null) {
+                    window.accept((LocalDate) row[1], toFixed((BigDecimal) row[2]));
+                }
+            }
+        }
+        return window;
+    }
+
+    private static long toFixed(BigDecimal value) {
+        return value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Last 200 closes of one security as a ring buffer, with running sums over the 50 and 200 most recent
+     */
+    private static final class Window {
+        private final long[] closes = new long[LONG_WINDOW];
+        private int head; // slot the next close is written to
+        private int size;
+        private long count; // closes seen in total
+        private long shortSum;
+        private long longSum;
+        private double shortEma = Double.NaN;
+        private double longEma = Double.NaN;
+        // EMAs before the latest close, so a recapture of that day can be redone
+        private double shortEmaBefore = Double.NaN;
+        private double longEmaBefore = Double.NaN;
+        private LocalDate lastDate;
+
+        /**
+         * Whether the date continues this window: the same day again, or the next trading day
+         */
+        boolean follows(LocalDate date, MarketCalendarService calendar) {
+            if (lastDate == null || date.equals(lastDate)) {
+                return true;
+            }
+            // A skipped trading day means bars may have been written elsewhere in the meantime
+            return date.isAfter(lastDate) && !calendar.previousTradingDay(date).isAfter(lastDate);
+        }
+
+        Averages accept(LocalDate date, long value) {
+            if (date.equals(lastDate)) {
+                replaceLatest(value);
+            } else {
+                push(value);
+            }
+            lastDate = date;
+            return averages();
+        }
+
+        private void push(long value) {
+            if (size >= SHORT_WINDOW) {
+                shortSum -= ago(SHORT_WINDOW - 1);
+            }
+            if (size == LONG_WINDOW) {
+                longSum -= closes[head];
+            }
+            closes[head] = value;
+            head = (head + 1) % LONG_WINDOW;
+            size = Math.min(size + 1, LONG_WINDOW);
+            count++;
+            shortSum += value;
+            longSum += value;
+
+            shortEmaBefore = shortEma;
+            longEmaBefore = longEma;
+            shortEma = nextEma(shortEmaBefore, SHORT_WINDOW, shortSum, value);
+            longEma = nextEma(longEmaBefore, LONG_WINDOW, longSum, value);
+        }
+
+        private void replaceLatest(long value) {
+            int latest = Math.floorMod(head - 1, LONG_WINDOW);
+            long delta = value - closes[latest];
+            closes[latest] = value;
+            shortSum += delta;
+            longSum += delta;
+            shortEma = nextEma(shortEmaBefore, SHORT_WINDOW, shortSum, value);
+            longEma = nextEma(longEmaBefore, LONG_WINDOW, longSum, value);
+        }
+
+        // Close k days before the latest one
+        private long ago(int k) {
+            return closes[Math.floorMod(head - 1 - k, LONG_WINDOW)];
+        }
+
+        // EMA seeded with the SMA of its first full window
+        private double nextEma(double previous, int period, long sum, long value) {
+            if (count < period) {
+                return Double.NaN;
+            }
+            if (count == period) {
+                return sum / UNIT / period;
+            }
+            double alpha = 2d / (period + 1);
+            return alpha * (value / UNIT) + (1 - alpha) * previous;
+        }
+
+        Averages averages() {
+            return new Averages(lastDate,
+                    count >= SHORT_WINDOW ? average(shortSum, SHORT_WINDOW) : null,
+                    count >= LONG_WINDOW ? average(longSum, LONG_WINDOW) : null,
+                    toDecimal(shortEma),
+                    toDecimal(longEma));
+        }
+
+        private static BigDecimal average(long sum, int period) {
+            return BigDecimal.valueOf(sum, SCALE).divide(BigDecimal.valueOf(period), SCALE, RoundingMode.HALF_UP);
+        }
+
+        private static BigDecimal toDecimal(double value) {
+            return Double.isNaN(value) ? null : BigDecimal.valueOf(value).setScale(SCALE, RoundingMode.HALF_UP);
+        }
+    }
+
+    /**
+     * Moving averages of one security as of a date; null where there is not enough history yet
+     */
+    public static class Averages {
+        private final LocalDate date;
+        private final BigDecimal sma50;
+        private final BigDecimal sma200;
+        private final BigDecimal ema50;
+        private final BigDecimal ema200;
+
+        public Averages(LocalDate date, BigDecimal sma50, BigDecimal sma200, BigDecimal ema50, BigDecimal ema200) {
+            this.date = date;
+            this.sma50 = sma50;
+            this.sma200 = sma200;
+            this.ema50 = ema50;
+            this.ema200 = ema200;
+        }
+
+        // Getters
+        public LocalDate getDate() { return date; }
+        public BigDecimal getSma50() { return sma50; }
+        public BigDecimal getSma200() { return sma200; }
+        public BigDecimal getEma50() { return ema50; }
+        public BigDecimal getEma200() { return ema200; }
+    }
+
+    /**
+     * Outcome of one moving average backfill
+     */
+    public static class MovingAverageBackfillStats {
+        private final int securities;
+        private final int failed;
+        private final long barsUpdated;
+        private final long durationMs;
+
+        public MovingAverageBackfillStats(int securities, int failed, long barsUpdated, long durationMs) {
+            this.securities = securities;
+            this.failed = failed;
+            this.barsUpdated = barsUpdated;
+            this.durationMs = durationMs;
+        }
+
+        // Getters
+        public int getSecurities() { return securities; }
+        public int getFailed() { return failed; }
+        public long getBarsUpdated() { return barsUpdated; }
+        public long getDurationMs() { return durationMs; }
+    }
+}
@@ -0,0 +1,484 @@
+package com.example.MicroInvestApp.service.market;
+
+import com.example.MicroInvestApp.domain.market.PriceHistory;
+import com.example.MicroInvestApp.domain.market.SecurityStock;
+import com.example.MicroInvestApp.repositories.market.PriceHistoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-optimized daily bar store behind the history endpoints.
+ * Each security's PriceHistory is held as packed primitive columns (epoch day, fixed-point prices, volume),
+ * loaded lazily on first use and kept in date order, so a range query is two binary searches and an array slice.
+ * Writes replace the series snapshot copy-on-write and serialize on one lock; reads only touch a concurrent
+ * map and never lock. Each snapshot records when it was last read, and the least recently read series are
+ * dropped once more than max-symbols are resident.
+ * Other instances write bars this one never sees, so a resident series is re-checked against a cheap version
+ * query (bar count, latest date and column sums) once per verify interval and reloaded when it has moved.
+ */
+@Service
+public class PriceHistoryStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceHistoryStore.class);
+
+    // PriceHistory prices are NUMERIC(19, 4), so four implied decimals are lossless
+    private static final int SCALE = 4;
+    private static final long MISSING = Long.MIN_VALUE;
+
+    private final PriceHistoryRepository priceHistoryRepository;
+
+    @Value("${market-data.history-store.enabled:true}")
+    private boolean enabled;
+
+    @Value("${market-data.history-store.max-symbols:1000}")
+    private int maxSymbols;
+
+    @Value("${market-data.history-store.verify-interval-ms:60000}")
+    private long verifyIntervalMs;
+
+    private final ConcurrentHashMap<Long, Columns> series = new ConcurrentHashMap<>();
+    // Every change to "series" is made holding this lock; reads go straight to the map
+    private final Object writeLock = new Object();
+    private volatile long writeGeneration;
+
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong loads = new AtomicLong(0);
+    private final AtomicLong evictions = new AtomicLong(0);
+    private final AtomicLong staleReloads = new AtomicLong(0);
+
+    @Autowired
+    public PriceHistoryStore(PriceHistoryRepository priceHistoryRepository) {
+        this.priceHistoryRepository = priceHistoryRepository;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Bars for the security between the two dates (inclusive), oldest first
+     */
+    public Slice range(SecurityStock security, LocalDate from, LocalDate to) {
+        Columns columns = columnsFor(security.getSecurityId());
+        int start = columns.lowerBound((int) from.toEpochDay());
+        int end = columns.lowerBound((int) to.toEpochDay() + 1);
+        return new Slice(columns, start, Math.max(start, end));
+    }
+
+    /**
+     * Mirror an upsertClosingPrices write: new bars are added whole, existing bars only take the close,
+     * change and non-null moving-average columns. Securities that are not resident are skipped and load
+     * fresh on next use.
+     */
+    public void applyClosingPrices(List<PriceHistory> bars) {
+        applyBars(bars, true);
+    }
+
+    /**
+     * Mirror a full PriceHistory upsert. Null moving averages keep the stored value, as in the database.
+     */
+    public void applyBars(List<PriceHistory> bars) {
+        applyBars(bars, false);
+    }
+
+    public void invalidate(Long securityId) {
+        synchronized (writeLock) {
+            series.remove(securityId);
+        }
+    }
+
+    public StoreStats getStats() {
+        int symbols = 0;
+        long bars = 0;
+        for (Columns columns : series.values()) {
+            symbols++;
+            bars += columns.size;
+        }
+        // Ten 8-byte columns and one 4-byte day column per bar
+        return new StoreStats(symbols, bars, bars * 84, hits.get(), loads.get(), evictions.get(),
+                staleReloads.get());
+    }
+
+    private void applyBars(List<PriceHistory> bars, boolean closeOnly) {
+        if (!enabled || bars.isEmpty()) {
+            return;
+        }
+
+        Map<Long, List<PriceHistory>> bySecurity = new LinkedHashMap<>();
+        for (PriceHistory bar : bars) {
+            bySecurity.computeIfAbsent(bar.getSecurityStock().getSecurityId(), id -> new ArrayList<>()).add(bar);
+        }
+
+        synchronized (writeLock) {
+            writeGeneration++;
+            for (Map.Entry<Long, List<PriceHistory>> entry : bySecurity.entrySet()) {
+                Columns current = series.get(entry.getKey());
+                if (current != null) {
+                    series.put(entry.getKey(), current.merge(entry.getValue(), closeOnly));
+                }
+            }
+        }
+    }
+
+    private Columns columnsFor(Long securityId) {
+        long generation = 0;
+        if (enabled) {
+            // Generation before the lookup: a write in between only makes a load below be served and not kept
+            generation = writeGeneration;
+            Columns cached = series.get(securityId);
+            if (cached != null) {
+                if (isCurrent(securityId, cached)) {
+                    cached.lastReadNanos = System.nanoTime();
+                    hits.incrementAndGet();
+                    return cached;
+                }
+                synchronized (writeLock) {
+                    series.remove(securityId, cached);
+                    generation = writeGeneration;
+                }
+                staleReloads.incrementAndGet();
+            }
+        }
+
+        // Read the version first: a write landing in between only makes the next check reload again
+        List<Object> version = enabled ? versionOf(securityId) : null;
+        Columns loaded = Columns.fromRows(priceHistoryRepository.findBarColumnsBySecurityId(securityId));
+        loads.incrementAndGet();
+        if (!enabled) {
+            return loaded;
+        }
+        loaded.version = version;
+        loaded.verifiedAtMillis = System.currentTimeMillis();
+        loaded.lastReadNanos = System.nanoTime();
+
+        synchronized (writeLock) {
+            // Another request may have loaded it meanwhile; keep the resident copy so applied writes are not lost
+            Columns resident = series.putIfAbsent(securityId, loaded);
+            if (resident != null) {
+                return resident;
+            }
+            // Bars written while loading may be missing from what was read; serve it once but do not keep it
+            if (generation != writeGeneration) {
+                series.remove(securityId);
+                return loaded;
+            }
+            while (series.size() > maxSymbols) {
+                evictLeastRecentlyRead();
+            }
+        }
+        logger.debug("Loaded {} bars for security {} into the history store", loaded.size, securityId);
+        return loaded;
+    }
+
+    // Linear in resident symbols, but only runs when a load pushes the store over its bound
+    private void evictLeastRecentlyRead() {
+        Long eldest = null;
+        long eldestReadNanos = Long.MAX_VALUE;
+        for (Map.Entry<Long, Columns> entry : series.entrySet()) {
+            if (eldest == null || entry.getValue().lastReadNanos - eldestReadNanos < 0) {
+                eldest = entry.getKey();
+                eldestReadNanos = entry.getValue().lastReadNanos;
+            }
+        }
+        if (eldest != null) {
+            series.remove(eldest);
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Whether the resident series still matches the database, checking at most once per verify interval
+     */
+    private boolean isCurrent(Long securityId, Columns columns) {
+        long now = System.currentTimeMillis();
+        if (now - columns.verifiedAtMillis < verifyIntervalMs) {
+            return true;
+        }
+        if (!versionOf(securityId).equals(columns.version)) {
+            return false;
+        }
+        columns.verifiedAtMillis = now;
+        return true;
+    }
+
+    private List<Object> versionOf(Long securityId) {
+        List<Object[]> rows = priceHistoryRepository.findVersionBySecurityId(securityId);
+        return rows.isEmpty() ? List.of() : Arrays.asList(rows.get(0));
+    }
+
+    private static long toFixed(BigDecimal value) {
+        return value == null ? MISSING : value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal fromFixed(long value) {
+        return value == MISSING ? null : BigDecimal.valueOf(value, SCALE);
+    }
+
+    /**
+     * Immutable column snapshot for one security, sorted by epoch day
+     */
+    private static final class Columns {
+        private final int size;
+        private final int[] days;
+        private final long[] ids;
+        private final long[] open;
+        private final long[] high;
+        private final long[] low;
+        private final long[] close;
+        private final long[] volume;
+        private final long[] change;
+        private final long[] percent;
+        private final long[] ma50;
+        private final long[] ma200;
+        // Database version the snapshot was loaded at and when that was last confirmed
+        private List<Object> version;
+        private volatile long verifiedAtMillis;
+        // When a request last read this series, for least-recently-read eviction
+        private volatile long lastReadNanos;
+
+        private Columns(int size) {
+            this.size = size;
+            this.days = new int[size];
+            this.ids = new long[size];
+            this.open = new long[size];
+            this.high = new long[size];
+            this.low = new long[size];
+            this.close = new long[size];
+            this.volume = new long[size];
+            this.change = new long[size];
+            this.percent = new long[size];
+            this.ma50 = new long[size];
+            this.ma200 = new long[size];
+        }
+
+        static Columns fromRows(List<Object[]> rows) {
+            Columns columns = new Columns(rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                Object[] row = rows.get(i);
+                columns.days[i] = (int) ((LocalDate) row[1]).toEpochDay();
+                columns.ids[i] = row[0] != null ? ((Number) row[0]).longValue() : MISSING;
+                columns.open[i] = toFixed((BigDecimal) row[2]);
+                columns.high[i] = toFixed((BigDecimal) row[3]);
+                columns.low[i] = toFixed((BigDecimal) row[4]);
+                columns.close[i] = toFixed((BigDecimal) row[5]);
+                columns.volume[i] = row[6] != null ? ((Number) row[6]).longValue() : 0L;
+                columns.change[i] = toFixed((BigDecimal) row[7]);
+                columns.percent[i] = toFixed((BigDecimal) row[8]);
+                columns.ma50[i] = toFixed((BigDecimal) row[9]);
+                columns.ma200[i] = toFixed((BigDecimal) row[10]);
+            }
+            return columns;
+        }
+
+        /**
+         * First index whose day is at or after the given epoch day
+         */
+        int lowerBound(int epochDay) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (days[mid] < epochDay) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        /**
+         * New snapshot with the bars merged in by date
+         */
+        Columns merge(List<PriceHistory> bars, boolean closeOnly) {
+            // A batch may repeat a date; the last bar wins, as in the bulk upsert
+            Map<Integer, PriceHistory> byDay = new TreeMap<>();
+            for (PriceHistory bar : bars) {
+                byDay.put((int) bar.getDate().toEpochDay(), bar);
+            }
+
+            int added = 0;
+            for (int day : byDay.keySet()) {
+                int index = lowerBound(day);
+                if (index >= size || days[index] != day) {
+                    added++;
+                }
+            }
+
+            Columns next = new Columns(size + added);
+            int source = 0;
+            int target = 0;
+            for (Map.Entry<Integer, PriceHistory> entry : byDay.entrySet()) {
+                int day = entry.getKey();
+                while (source < size && days[source] < day) {
+                    next.copyFrom(this, source++, target++);
+                }
+                if (source < size && days[source] == day) {
+                    next.copyFrom(this, source++, target);
+                    next.write(target++, entry.getValue(), closeOnly, true);
+                } else {
+                    next.write(target++, entry.getValue(), false, false);
+                }
+            }
+            while (source < size) {
+                next.copyFrom(this, source++, target++);
+            }
+            // The write moved the database version too, so the next check reloads what was actually stored
+            next.version = version;
+            next.verifiedAtMillis = verifiedAtMillis;
+            next.lastReadNanos = lastReadNanos;
+            return next;
+        }
+
+        private void copyFrom(Columns other, int from, int to) {
+            days[to] = other.days[from];
+            ids[to] = other.ids[from];
+            open[to] = other.open[from];
+            high[to] = other.high[from];
+            low[to] = other.low[from];
+            close[to] = other.close[from];
+            volume[to] = other.volume[from];
+            change[to] = other.change[from];
+            percent[to] = other.percent[from];
+            ma50[to] = other.ma50[from];
+            ma200[to] = other.ma200[from];
+        }
+
+        private void write(int index, PriceHistory bar, boolean closeOnly, boolean existing) {
+            close[index] = toFixed(bar.getClosePrice());
+            change[index] = toFixed(bar.getPriceChange());
+            percent[index] = toFixed(bar.getPercentChange());
+            if (!closeOnly) {
+                days[index] = (int) bar.getDate().toEpochDay();
+                if (bar.getPriceHistoryId() != null || !existing) {
+                    ids[index] = bar.getPriceHistoryId() != null ? bar.getPriceHistoryId() : MISSING;
+                }
+                open[index] = toFixed(bar.getOpenPrice());
+                high[index] = toFixed(bar.getHighPrice());
+                low[index] = toFixed(bar.getLowPrice());
+                volume[index] = bar.getVolume() != null ? bar.getVolume() : 0L;
+            }
+            if (bar.getMovingAverage50Day() != null || !existing) {
+                ma50[index] = toFixed(bar.getMovingAverage50Day());
+            }
+            if (bar.getMovingAverage200Day() != null || !existing) {
+                ma200[index] = toFixed(bar.getMovingAverage200Day());
+            }
+        }
+    }
+
+    /**
+     * A read-only window over one security's columns
+     */
+    public static final class Slice {
+        private final Columns columns;
+        private final int start;
+        private final int end;
+
+        private Slice(Columns columns, int start, int end) {
+            this.columns = columns;
+            this.start = start;
+            this.end = end;
+        }
+
+        public int size() {
+            return end - start;
+        }
+
+        public LocalDate dateAt(int i) {
+            return LocalDate.ofEpochDay(columns.days[start + i]);
+        }
+
+        public double closeAt(int i) {
+            return columns.close[start + i] / 10_000.0;
+        }
+
+        public double highAt(int i) {
+            return columns.high[start + i] / 10_000.0;
+        }
+
+        public double lowAt(int i) {
+            return columns.low[start + i] / 10_000.0;
+        }
+
+        public BigDecimal closePriceAt(int i) {
+            return fromFixed(columns.close[start + i]);
+        }
+
+        public long volumeAt(int i) {
+            return columns.volume[start + i];
+        }
+
+        public BigDecimal movingAverage50At(int i) {
+            return fromFixed(columns.ma50[start + i]);
+        }
+
+        public BigDecimal movingAverage200At(int i) {
+            return fromFixed(columns.ma200[start + i]);
+        }
+
+        /**
+         * Materialize the window as detached PriceHistory objects for callers that need the entity shape
+         */
+        public List<PriceHistory> toPriceHistory(SecurityStock security) {
+            List<PriceHistory> bars = new ArrayList<>(size());
+            for (int i = start; i < end; i++) {
+                PriceHistory bar = new PriceHistory(security, LocalDate.ofEpochDay(columns.days[i]),
+                        fromFixed(columns.open[i]), fromFixed(columns.high[i]), fromFixed(columns.low[i]),
+                        fromFixed(columns.close[i]), columns.volume[i], fromFixed(columns.change[i]),
+                        fromFixed(columns.percent[i]), fromFixed(columns.ma50[i]), fromFixed(columns.ma200[i]));
+                bar.setPriceHistoryId(columns.ids[i] != MISSING ? columns.ids[i] : null);
+                bars.add(bar);
+            }
+            return bars;
+        }
+    }
+
+    /**
+     * Residency and hit counters for monitoring
+     */
+    public static class StoreStats {
+        private final int residentSymbols;
+        private final long residentBars;
+        private final long approximateBytes;
+        private final long hits;
+        private final long loads;
+        private final long evictions;
+        private final long staleReloads;
+
+        public StoreStats(int residentSymbols, long residentBars, long approximateBytes,
+                          long hits, long loads, long evictions, long staleReloads) {
+            this.residentSymbols = residentSymbols;
+            this.residentBars = residentBars;
+            this.approximateBytes = approximateBytes;
+            this.hits = hits;
+            this.loads = loads;
+            this.evictions = evictions;
+            this.staleReloads = staleReloads;
+        }
+
+        // Getters
+        public int getResidentSymbols() { return residentSymbols; }
+        public long getResidentBars() { return residentBars; }
+        public long getApproximateBytes() { return approximateBytes; }
+        public long getHits() { return hits; }
+        public long getLoads() { return loads; }
+        public long getEvictions() { return evictions; }
+        public long getStaleReloads() { return staleReloads; }
+    }
+}
@@ -0,0 +1,279 @@
+package com.example.MicroInvestApp.service.market;
+
+import com.example.MicroInvestApp.domain.enums.Timeframe;
+import com.example.MicroInvestApp.domain.market.PriceHistory;
+import com.example.MicroInvestApp.domain.market.PriceRollup;
+import com.example.MicroInvestApp.domain.market.SecurityStock;
+import com.example.MicroInvestApp.repositories.market.PriceRollupBulkRepository;
+import com.example.MicroInvestApp.repositories.market.PriceRollupRepository;
+import com.example.MicroInvestApp.repositories.market.SecurityStockRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Weekly, monthly, quarterly and yearly OHLC rollups of daily PriceHistory.
+ * Each captured close is folded into the current period of every timeframe once its daily bar has committed,
+ * so long-range charts read a few hundred period bars instead of thousands of daily ones.
+ */
+@Service
+public class PriceRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceRollupService.class);
+
+    // Finest first; average calendar days covered by one bar of each timeframe
+    private static final Timeframe[] CHART_TIMEFRAMES = {
+            Timeframe.DAILY, Timeframe.WEEKLY, Timeframe.MONTHLY, Timeframe.QUARTERLY, Timeframe.YEARLY
+    };
+    private static final double[] DAYS_PER_BAR = { 365.25 / 252, 7, 30.44, 91.31, 365.25 };
+    private static final BigDecimal HUNDRED = new BigDecimal("100");
+
+    private final PriceRollupRepository priceRollupRepository;
+    private final PriceRollupBulkRepository priceRollupBulkRepository;
+    private final SecurityStockRepository securityStockRepository;
+    private final TransactionTemplate requiresNew;
+
+    @Value("${market-data.rollups.enabled:true}")
+    private boolean enabled;
+
+    @Value("${market-data.rollups.max-points:500}")
+    private int defaultMaxPoints;
+
+    @Value("${market-data.rollups.rebuild-concurrency:4}")
+    private int rebuildConcurrency;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+
+    @Autowired
+    public PriceRollupService(PriceRollupRepository priceRollupRepository,
+                              PriceRollupBulkRepository priceRollupBulkRepository,
+                              SecurityStockRepository securityStockRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.priceRollupRepository = priceRollupRepository;
+        this.priceRollupBulkRepository = priceRollupBulkRepository;
+        this.securityStockRepository = securityStockRepository;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Fold freshly upserted closing bars into their rollup periods. Inside a transaction this waits for the
+     * commit, so the rollup reads the stored bars and a rollup failure cannot roll back the capture.
+     */
+    public void onClosingBarsStored(List<PriceHistory> bars) {
+        if (!enabled || bars.isEmpty()) {
+            return;
+        }
+
+        List<PriceHistory> stored = List.copyOf(bars);
+        Runnable apply = () -> {
+            try {
+                requiresNew.executeWithoutResult(status -> applyClosingBars(stored));
+            } catch (Exception e) {
+                logger.warn("Failed to update price rollups for {} bars: {}", stored.size(), e.getMessage());
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    /**
+     * Pick the finest timeframe whose bar count over the range fits the point budget
+     */
+    public Timeframe selectTimeframe(LocalDate from, LocalDate to, Integer maxPoints) {
+        if (!enabled) {
+            return Timeframe.DAILY;
+        }
+        int budget = maxPoints != null && maxPoints > 0 ? maxPoints : defaultMaxPoints;
+        long days = ChronoUnit.DAYS.between(from, to) + 1;
+        for (int i = 0; i < CHART_TIMEFRAMES.length; i++) {
+            if (Math.ceil(days / DAYS_PER_BAR[i]) <= budget) {
+                return CHART_TIMEFRAMES[i];
+            }
+        }
+        return Timeframe.YEARLY;
+    }
+
+    /**
+     * Rollup bars overlapping the range in the PriceHistory shape, dated by period start, oldest first.
+     * Change and percent change are relative to the previous period's close.
+     */
+    public List<PriceHistory> getRollupBars(String symbol, Timeframe timeframe, LocalDate from, LocalDate to) {
+        SecurityStock security = securityStockRepository.findBySymbol(symbol).orElse(null);
+        if (security == null) {
+            return new ArrayList<>();
+        }
+
+        List<PriceRollup> rollups = priceRollupRepository.findBySecurityStockAndTimeframeAndDateRange(
+                security, timeframe, from, to);
+        List<PriceHistory> bars = new ArrayList<>(rollups.size());
+        BigDecimal previousClose = null;
+        for (PriceRollup rollup : rollups) {
+            PriceHistory bar = new PriceHistory();
+            bar.setSecurityStock(security);
+            bar.setDate(rollup.getPeriodStart());
+            bar.setOpenPrice(rollup.getOpenPrice());
+            bar.setHighPrice(rollup.getHighPrice());
+            bar.setLowPrice(rollup.getLowPrice());
+            bar.setClosePrice(rollup.getClosePrice());
+            bar.setVolume(rollup.getVolume());
+            if (previousClose != null && previousClose.compareTo(BigDecimal.ZERO) > 0) {
+                BigDecimal change = rollup.getClosePrice().subtract(previousClose);
+                bar.setPriceChange(change);
+                bar.setPercentChange(change.divide(previousClose, 4, RoundingMode.HALF_UP).multiply(HUNDRED));
+            }
+            bars.add(bar);
+            previousClose = rollup.getClosePrice();
+        }
+        return bars;
+    }
+
+    /**
+     * Recompute every rollup of all active securities from their daily history, securities in parallel
+     */
+    public RollupRebuildStats rebuildAll() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            logger.warn("Rollup rebuild already running - skipping overlapping run");
+            return null;
+        }
+
+        try {
+            long startTime = System.currentTimeMillis();
+            List<SecurityStock> securities = securityStockRepository.findByIsActiveTrue();
+
+            List<Integer> results = Flux.fromIterable(securities)
+                    .flatMap(security -> Mono.fromCallable(() -> rebuildSecurity(security))
+                            .subscribeOn(Schedulers.boundedElastic()), rebuildConcurrency)
+                    .collectList()
+                    .block();
+
+            int failed = 0;
+            long periods = 0;
+            for (Integer result : results) {
+                if (result < 0) {
+                    failed++;
+                } else {
+                    periods += result;
+                }
+            }
+
+            RollupRebuildStats stats = new RollupRebuildStats(securities.size(), failed, periods,
+                    System.currentTimeMillis() - startTime);
+            logger.info("Rollup rebuild finished: {} securities, {} failed, {} periods in {}ms",
+                    stats.getSecurities(), failed, periods, stats.getDurationMs());
+            return stats;
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * Run the rebuild on the market data executor
+     */
+    @Async("marketDataTaskExecutor")
+    public void rebuildAllAsync() {
+        rebuildAll();
+    }
+
+    public boolean isRebuilding() {
+        return rebuilding.get();
+    }
+
+    /**
+     * Apply bars one date at a time, since a statement may touch each period only once.
+     * Securities whose bar was older than a period's last bar get those periods rebuilt instead.
+     */
+    private void applyClosingBars(List<PriceHistory> bars) {
+        Map<LocalDate, List<PriceHistory>> byDate = new TreeMap<>();
+        for (PriceHistory bar : bars) {
+            if (bar.getPriceHistoryId() != null) {
+                byDate.computeIfAbsent(bar.getDate(), date -> new ArrayList<>()).add(bar);
+            }
+        }
+
+        for (Map.Entry<LocalDate, List<PriceHistory>> day : byDate.entrySet()) {
+            List<Long> ids = new ArrayList<>(day.getValue().size());
+            Set<Long> securityIds = new HashSet<>();
+            for (PriceHistory bar : day.getValue()) {
+                ids.add(bar.getPriceHistoryId());
+                securityIds.add(bar.getSecurityStock().getSecurityId());
+            }
+
+            Set<Long> applied = priceRollupBulkRepository.applyDailyBars(ids);
+            securityIds.removeAll(applied);
+            if (!securityIds.isEmpty()) {
+                int rebuilt = priceRollupBulkRepository.rebuildPeriodsContaining(securityIds, day.getKey());
+                logger.debug("Rebuilt {} rollup periods around {} for {} late bars", rebuilt, day.getKey(),
+                        securityIds.size());
+            }
+        }
+    }
+
+    private int rebuildSecurity(SecurityStock security) {
+        try {
+            return requiresNew.execute(status -> priceRollupBulkRepository.rebuildSecurity(security.getSecurityId()));
+        } catch (Exception e) {
+            logger.warn("Rollup rebuild failed for {}: {}", security.getSymbol(), e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Outcome of one full rollup rebuild
+     */
+    public static class RollupRebuildStats {
+        private final int securities;
+        private final int failed;
+        private final long periodsWritten;
+        private final long durationMs;
+
+        public RollupRebuildStats(int securities, int failed, long periodsWritten, long durationMs) {
+            this.securities = securities;
+            this.failed = failed;
+            this.periodsWritten = periodsWritten;
+            this.durationMs = durationMs;
+        }
+
+        // Getters
+        public int getSecurities() { return securities; }
+        public int getFailed() { return failed; }
+        public long getPeriodsWritten() { return periodsWritten; }
+        public long getDurationMs() { return durationMs; }
+    }
+}
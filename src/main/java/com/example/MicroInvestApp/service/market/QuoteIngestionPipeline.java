@@ -0,0 +1,318 @@
+package com.example.MicroInvestApp.service.market;
+
+import com.example.MicroInvestApp.domain.market.SecurityStock;
+import com.example.MicroInvestApp.dto.finnhub.FinnhubQuoteDTO;
+import com.example.MicroInvestApp.repositories.market.SecurityStockRepository;
+import com.example.MicroInvestApp.service.order.LimitOrderTriggerBook;
+import com.example.MicroInvestApp.service.order.StopOrderTriggerEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reactive quote ingestion for the active security universe.
+ * Quotes are fetched through the client's Monos with bounded concurrency in the background
+ * rate-limit lane (the shared governor does the pacing), then handed in batches to a persistence stage; the fetch side only pulls more work
+ * once the previous batch has been written.
+ */
+@Service
+public class QuoteIngestionPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuoteIngestionPipeline.class);
+    private static final BigDecimal HUNDRED = new BigDecimal("100");
+
+    private final FinnhubClientService finnhubClient;
+    private final SecurityStockRepository securityStockRepository;
+    private final IntradayBarBuilder intradayBarBuilder;
+    private final LimitOrderTriggerBook limitOrderTriggerBook;
+    private final StopOrderTriggerEngine stopOrderTriggerEngine;
+
+    @Value("${market-data.ingestion.max-concurrency:8}")
+    private int maxConcurrency;
+
+    @Value("${market-data.ingestion.persist-batch-size:100}")
+    private int persistBatchSize;
+
+    @Value("${market-data.ingestion.persist-flush-ms:500}")
+    private long persistFlushMs;
+
+    @Value("${market-data.ingestion.run-timeout-minutes:10}")
+    private long runTimeoutMinutes;
+
+    @Value("${market-data.validation.min-price:0.01}")
+    private BigDecimal minValidPrice;
+
+    @Value("${market-data.validation.max-price:100000}")
+    private BigDecimal maxValidPrice;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile IngestionRunStats lastRunStats;
+
+    @Autowired
+    public QuoteIngestionPipeline(FinnhubClientService finnhubClient,
+                                  SecurityStockRepository securityStockRepository,
+                                  IntradayBarBuilder intradayBarBuilder,
+                                  LimitOrderTriggerBook limitOrderTriggerBook,
+                                  StopOrderTriggerEngine stopOrderTriggerEngine) {
+        this.finnhubClient = finnhubClient;
+        this.securityStockRepository = securityStockRepository;
+        this.intradayBarBuilder = intradayBarBuilder;
+        this.limitOrderTriggerBook = limitOrderTriggerBook;
+        this.stopOrderTriggerEngine = stopOrderTriggerEngine;
+    }
+
+    /**
+     * Refresh current prices for every active security
+     */
+    public IngestionRunStats refreshActiveUniverse() {
+        return refresh(securityStockRepository.findByIsActiveTrue());
+    }
+
+    /**
+     * Refresh current prices for the given securities and block until the run completes.
+     * Only one run may be in flight at a time; overlapping calls return the previous stats.
+     */
+    public IngestionRunStats refresh(List<SecurityStock> securities) {
+        if (!running.compareAndSet(false, true)) {
+            logger.warn("Quote ingestion already running - skipping overlapping run");
+            return lastRunStats;
+        }
+
+        try {
+            Instant startedAt = Instant.now();
+            long startNanos = System.nanoTime();
+            RunCounters counters = new RunCounters(securities.size());
+
+            logger.info("Starting reactive quote ingestion for {} securities (concurrency {}, batch {})",
+                    securities.size(), maxConcurrency, persistBatchSize);
+
+            try {
+                Flux.fromIterable(securities)
+                        .flatMap(security -> fetchQuote(security, counters), maxConcurrency)
+                        .bufferTimeout(persistBatchSize, Duration.ofMillis(persistFlushMs))
+                        .concatMap(batch -> Mono.fromRunnable(() -> persistBatch(batch, counters))
+                                .subscribeOn(Schedulers.boundedElastic()), 1)
+                        .then()
+                        .block(Duration.ofMinutes(runTimeoutMinutes));
+            } catch (Exception e) {
+                logger.error("Quote ingestion run aborted: {}", e.getMessage());
+            }
+
+            IngestionRunStats stats = counters.toStats(startedAt, System.nanoTime() - startNanos);
+            lastRunStats = stats;
+            logger.info("Quote ingestion completed: {}", stats.getSummary());
+            return stats;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public IngestionRunStats getLastRunStats() {
+        return lastRunStats;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    private Mono<QuoteUpdate> fetchQuote(SecurityStock security, RunCounters counters) {
+        return finnhubClient.getQuote(security.getSymbol(), FinnhubRateGovernor.Lane.BACKGROUND)
+                .elapsed()
+                .flatMap(timed -> {
+                    counters.recordLatency(timed.getT1());
+                    FinnhubQuoteDTO quote = timed.getT2();
+                    if (!isValidPrice(quote.getCurrentPrice())) {
+                        logger.debug("Invalid quote price for {}: {}", security.getSymbol(), quote.getCurrentPrice());
+                        counters.invalid.incrementAndGet();
+                        return Mono.<QuoteUpdate>empty();
+                    }
+                    counters.fetched.incrementAndGet();
+                    return Mono.just(new QuoteUpdate(security, quote));
+                })
+                .onErrorResume(error -> {
+                    logger.debug("Quote fetch failed for {}: {}", security.getSymbol(), error.getMessage());
+                    counters.failed.incrementAndGet();
+                    return Mono.empty();
+                });
+    }
+
+    private void persistBatch(List<QuoteUpdate> batch, RunCounters counters) {
+        List<SecurityStock> changed = new ArrayList<>(batch.size());
+        Instant now = Instant.now();
+
+        for (QuoteUpdate update : batch) {
+            applyQuote(update.security, update.quote, now);
+            changed.add(update.security);
+        }
+
+        try {
+            securityStockRepository.saveAll(changed);
+            counters.persisted.addAndGet(changed.size());
+            counters.batches.incrementAndGet();
+        } catch (Exception e) {
+            logger.error("Failed to persist quote batch of {} securities: {}", changed.size(), e.getMessage());
+            counters.failed.addAndGet(changed.size());
+        }
+    }
+
+    private void applyQuote(SecurityStock security, FinnhubQuoteDTO quote, Instant now) {
+        security.setCurrentPrice(quote.getCurrentPrice());
+        security.setUpdatedDate(now);
+        intradayBarBuilder.recordQuote(security.getSymbol(), quote.getCurrentPrice(), quote.getTimestamp());
+        limitOrderTriggerBook.onPrice(security.getSymbol(), quote.getCurrentPrice());
+        stopOrderTriggerEngine.onPrice(security.getSymbol(), quote.getCurrentPrice());
+
+        if (quote.getPreviousClose() != null && quote.getPreviousClose().compareTo(BigDecimal.ZERO) > 0) {
+            security.setPreviousClose(quote.getPreviousClose());
+        }
+
+        BigDecimal previousClose = security.getPreviousClose();
+        if (previousClose != null && previousClose.compareTo(BigDecimal.ZERO) > 0) {
+            BigDecimal priceChange = quote.getCurrentPrice().subtract(previousClose);
+            security.setPriceChange(priceChange);
+            security.setPriceChangePercent(priceChange.divide(previousClose, 4, RoundingMode.HALF_UP)
+                    .multiply(HUNDRED));
+        }
+    }
+
+    private boolean isValidPrice(BigDecimal price) {
+        return price != null &&
+                price.compareTo(minValidPrice) >= 0 &&
+                price.compareTo(maxValidPrice) <= 0;
+    }
+
+    private static class QuoteUpdate {
+        private final SecurityStock security;
+        private final FinnhubQuoteDTO quote;
+
+        QuoteUpdate(SecurityStock security, FinnhubQuoteDTO quote) {
+            this.security = security;
+            this.quote = quote;
+        }
+    }
+
+    /**
+     * Mutable per-run counters shared by the fetch and persistence stages
+     */
+    private static class RunCounters {
+        private final int requested;
+        private final AtomicInteger fetched = new AtomicInteger(0);
+        private final AtomicInteger invalid = new AtomicInteger(0);
+        private final AtomicInteger failed = new AtomicInteger(0);
+        private final AtomicInteger persisted = new AtomicInteger(0);
+        private final AtomicInteger batches = new AtomicInteger(0);
+        private final long[] latenciesMs;
+        private final AtomicInteger latencyCount = new AtomicInteger(0);
+
+        RunCounters(int requested) {
+            this.requested = requested;
+            this.latenciesMs = new long[Math.max(requested, 1)];
+        }
+
+        void recordLatency(long millis) {
+            int index = latencyCount.getAndIncrement();
+            if (index < latenciesMs.length) {
+                latenciesMs[index] = millis;
+            }
+        }
+
+        IngestionRunStats toStats(Instant startedAt, long elapsedNanos) {
+            int samples = Math.min(latencyCount.get(), latenciesMs.length);
+            long[] sorted = Arrays.copyOf(latenciesMs, samples);
+            Arrays.sort(sorted);
+
+            long wallClockMs = elapsedNanos / 1_000_000L;
+            double throughput = wallClockMs > 0 ? persisted.get() * 1000.0 / wallClockMs : 0.0;
+
+            return new IngestionRunStats(requested, fetched.get(), persisted.get(), invalid.get(), failed.get(),
+                    batches.get(), wallClockMs, throughput,
+                    percentile(sorted, 0.50), percentile(sorted, 0.95),
+                    samples > 0 ? sorted[samples - 1] : 0L,
+                    startedAt, Instant.now());
+        }
+
+        private static long percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0L;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+
+    /**
+     * Throughput and latency statistics for a single ingestion run
+     */
+    public static class IngestionRunStats {
+        private final int symbolsRequested;
+        private final int quotesFetched;
+        private final int pricesPersisted;
+        private final int invalidQuotes;
+        private final int failures;
+        private final int batchesWritten;
+        private final long wallClockMs;
+        private final double throughputPerSecond;
+        private final long latencyP50Ms;
+        private final long latencyP95Ms;
+        private final long latencyMaxMs;
+        private final Instant startedAt;
+        private final Instant completedAt;
+
+        public IngestionRunStats(int symbolsRequested, int quotesFetched, int pricesPersisted,
+                                 int invalidQuotes, int failures, int batchesWritten,
+                                 long wallClockMs, double throughputPerSecond,
+                                 long latencyP50Ms, long latencyP95Ms, long latencyMaxMs,
+                                 Instant startedAt, Instant completedAt) {
+            this.symbolsRequested = symbolsRequested;
+            this.quotesFetched = quotesFetched;
+            this.pricesPersisted = pricesPersisted;
+            this.invalidQuotes = invalidQuotes;
+            this.failures = failures;
+            this.batchesWritten = batchesWritten;
+            this.wallClockMs = wallClockMs;
+            this.throughputPerSecond = throughputPerSecond;
+            this.latencyP50Ms = latencyP50Ms;
+            this.latencyP95Ms = latencyP95Ms;
+            this.latencyMaxMs = latencyMaxMs;
+            this.startedAt = startedAt;
+            this.completedAt = completedAt;
+        }
+
+        // Getters
+        public int getSymbolsRequested() { return symbolsRequested; }
+        public int getQuotesFetched() { return quotesFetched; }
+        public int getPricesPersisted() { return pricesPersisted; }
+        public int getInvalidQuotes() { return invalidQuotes; }
+        public int getFailures() { return failures; }
+        public int getBatchesWritten() { return batchesWritten; }
+        public long getWallClockMs() { return wallClockMs; }
+        public double getThroughputPerSecond() { return throughputPerSecond; }
+        public long getLatencyP50Ms() { return latencyP50Ms; }
+        public long getLatencyP95Ms() { return latencyP95Ms; }
+        public long getLatencyMaxMs() { return latencyMaxMs; }
+        public Instant getStartedAt() { return startedAt; }
+        public Instant getCompletedAt() { return completedAt; }
+
+        public String getSummary() {
+            return String.format("%d/%d persisted in %dms (%.1f/s) - invalid: %d, failed: %d, batches: %d, " +
+                            "latency p50/p95/max: %d/%d/%dms",
+                    pricesPersisted, symbolsRequested, wallClockMs, throughputPerSecond,
+                    invalidQuotes, failures, batchesWritten, latencyP50Ms, latencyP95Ms, latencyMaxMs);
+        }
+    }
+}
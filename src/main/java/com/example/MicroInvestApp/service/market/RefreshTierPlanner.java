@@ -0,0 +1,284 @@
+package com.example.MicroInvestApp.service.market;
+
+import com.example.MicroInvestApp.domain.market.SecurityStock;
+import com.example.MicroInvestApp.repositories.market.SecurityStockRepository;
+import com.example.MicroInvestApp.repositories.orders.OrderRepository;
+import com.example.MicroInvestApp.repositories.portfolio.PositionRepository;
+import com.example.MicroInvestApp.repositories.portfolio.WatchlistRepository;
+import com.example.MicroInvestApp.service.cluster.ClusterCoordinator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Plans intraday quote refreshes by how much money is at stake in each symbol.
+ * HOT symbols are held or have working orders, WARM symbols are only watched, COLD is everything else.
+ * Each tier has its own refresh interval; every tick hands out due symbols hottest and stalest first
+ * until the per-minute call budget is spent.
+ */
+@Service
+public class RefreshTierPlanner {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTierPlanner.class);
+
+    public enum Tier { HOT, WARM, COLD }
+
+    private final SecurityStockRepository securityStockRepository;
+    private final PositionRepository positionRepository;
+    private final WatchlistRepository watchlistRepository;
+    private final OrderRepository orderRepository;
+    private final ClusterCoordinator clusterCoordinator;
+
+    @Value("${market-data.refresh.hot-interval-seconds:60}")
+    private long hotIntervalSeconds;
+
+    @Value("${market-data.refresh.warm-interval-seconds:900}")
+    private long warmIntervalSeconds;
+
+    @Value("${market-data.refresh.cold-interval-seconds:86400}")
+    private long coldIntervalSeconds;
+
+    @Value("${market-data.refresh.calls-per-minute:300}")
+    private int callsPerMinute;
+
+    private volatile Map<Tier, List<String>> plan = emptyPlan();
+    private volatile Instant planBuiltAt;
+    private final ConcurrentHashMap<String, Long> lastRefreshAttemptMs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RefreshTierPlanner(SecurityStockRepository securityStockRepository,
+                              PositionRepository positionRepository,
+                              WatchlistRepository watchlistRepository,
+                              OrderRepository orderRepository,
+                              ClusterCoordinator clusterCoordinator) {
+        this.securityStockRepository = securityStockRepository;
+        this.positionRepository = positionRepository;
+        this.watchlistRepository = watchlistRepository;
+        this.orderRepository = orderRepository;
+        this.clusterCoordinator = clusterCoordinator;
+    }
+
+    /**
+     * Rebuild the tiers from open positions, pending orders and watchlist memberships
+     */
+    @Scheduled(fixedDelayString = "${market-data.refresh.plan-rebuild-ms:300000}")
+    public void rebuildPlan() {
+        try {
+            Set<String> hot = new HashSet<>(positionRepository.findDistinctActiveHeldSymbols());
+            hot.addAll(orderRepository.findDistinctActiveOrderSymbols());
+            Set<String> warm = new HashSet<>(watchlistRepository.findDistinctWatchedSymbols());
+
+            Map<Tier, List<String>> next = emptyPlan();
+            for (SecurityStock security : securityStockRepository.findByIsActiveTrue()) {
+                String symbol = security.getSymbol();
+                Tier tier = hot.contains(symbol) ? Tier.HOT : warm.contains(symbol) ? Tier.WARM : Tier.COLD;
+                next.get(tier).add(symbol);
+
+                // Seed from the stored quote time so a restart does not refresh everything at once
+                if (security.getUpdatedDate() != null) {
+                    lastRefreshAttemptMs.putIfAbsent(symbol, security.getUpdatedDate().toEpochMilli());
+                }
+            }
+
+            Set<String> planned = new HashSet<>();
+            next.values().forEach(planned::addAll);
+            lastRefreshAttemptMs.keySet().retainAll(planned);
+
+            plan = next;
+            planBuiltAt = Instant.now();
+
+            double required = requiredCallsPerMinute(next);
+            logger.info("Refresh plan rebuilt - hot: {}, warm: {}, cold: {}, required {} calls/min of {} budget",
+                    next.get(Tier.HOT).size(), next.get(Tier.WARM).size(), next.get(Tier.COLD).size(),
+                    String.format("%.1f", required), callsPerMinute);
+            if (next.get(Tier.HOT).size() * 60.0 / hotIntervalSeconds > callsPerMinute) {
+                logger.warn("Hot tier alone exceeds the refresh budget - hot symbols will lag their interval");
+            }
+        } catch (Exception e) {
+            logger.error("Failed to rebuild refresh plan: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Symbols owned by this node that are due for a refresh on this tick, limited to this node's share
+     * of one minute of call budget. Returned symbols are marked as attempted so failures wait a full
+     * interval before retrying.
+     */
+    public List<String> nextDueSymbols() {
+        if (planBuiltAt == null) {
+            rebuildPlan();
+        }
+
+        long now = System.currentTimeMillis();
+        List<String> due = new ArrayList<>();
+        Map<Tier, List<String>> current = plan;
+        // The call budget is per API key, so nodes split it along with the symbols
+        int budget = (int) Math.ceil((double) callsPerMinute / clusterCoordinator.getLiveNodeCount());
+
+        for (Tier tier : Tier.values()) {
+            long intervalMs = intervalSeconds(tier) * 1000;
+            List<String> tierDue = current.get(tier).stream()
+                    .filter(symbol -> now - lastRefreshAttemptMs.getOrDefault(symbol, 0L) >= intervalMs)
+                    .filter(clusterCoordinator::ownsSymbol)
+                    .sorted(Comparator.comparingLong(symbol -> lastRefreshAttemptMs.getOrDefault(symbol, 0L)))
+                    .limit(Math.max(0, budget - due.size()))
+                    .toList();
+            due.addAll(tierDue);
+            if (due.size() >= budget) {
+                break;
+            }
+        }
+
+        due.forEach(symbol -> lastRefreshAttemptMs.put(symbol, now));
+        return due;
+    }
+
+    /**
+     * The most important symbols, hot before warm, for sweeps that can only afford a subset
+     */
+    public List<String> prioritySymbols(int limit) {
+        Map<Tier, List<String>> current = plan;
+        List<String> symbols = new ArrayList<>(current.get(Tier.HOT));
+        symbols.addAll(current.get(Tier.WARM));
+        return symbols.size() > limit ? symbols.subList(0, limit) : symbols;
+    }
+
+    /**
+     * Current plan with the achieved quote age per tier, measured from stored update times
+     */
+    public PlanReport getReport() {
+        Map<Tier, List<String>> current = plan;
+        Map<String, Instant> updatedAt = new HashMap<>();
+        for (SecurityStock security : securityStockRepository.findByIsActiveTrue()) {
+            if (security.getUpdatedDate() != null) {
+                updatedAt.put(security.getSymbol(), security.getUpdatedDate());
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        List<TierReport> tiers = new ArrayList<>();
+        for (Tier tier : Tier.values()) {
+            long intervalSeconds = intervalSeconds(tier);
+            List<Long> ages = current.get(tier).stream()
+                    .map(updatedAt::get)
+                    .map(instant -> instant == null ? Long.MAX_VALUE : (now - instant.toEpochMilli()) / 1000)
+                    .sorted()
+                    .toList();
+            long withinInterval = ages.stream().filter(age -> age <= intervalSeconds).count();
+
+            tiers.add(new TierReport(tier, ages.size(), intervalSeconds,
+                    ages.size() * 60.0 / intervalSeconds,
+                    percentile(ages, 0.50), percentile(ages, 0.95),
+                    ages.isEmpty() ? 0 : ages.get(ages.size() - 1),
+                    ages.isEmpty() ? 100.0 : withinInterval * 100.0 / ages.size()));
+        }
+
+        return new PlanReport(planBuiltAt, callsPerMinute, requiredCallsPerMinute(current), tiers);
+    }
+
+    private double requiredCallsPerMinute(Map<Tier, List<String>> tiers) {
+        double required = 0;
+        for (Tier tier : Tier.values()) {
+            required += tiers.get(tier).size() * 60.0 / intervalSeconds(tier);
+        }
+        return required;
+    }
+
+    private long intervalSeconds(Tier tier) {
+        return switch (tier) {
+            case HOT -> hotIntervalSeconds;
+            case WARM -> warmIntervalSeconds;
+            case COLD -> coldIntervalSeconds;
+        };
+    }
+
+    private static long percentile(List<Long> sorted, double fraction) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(fraction * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+
+    private static Map<Tier, List<String>> emptyPlan() {
+        Map<Tier, List<String>> tiers = new EnumMap<>(Tier.class);
+        for (Tier tier : Tier.values()) {
+            tiers.put(tier, new ArrayList<>());
+        }
+        return tiers;
+    }
+
+    /**
+     * Size, cadence and achieved freshness of one tier; ages are in seconds
+     */
+    public static class TierReport {
+        private final Tier tier;
+        private final int symbols;
+        private final long intervalSeconds;
+        private final double requiredCallsPerMinute;
+        private final long ageP50Seconds;
+        private final long ageP95Seconds;
+        private final long ageMaxSeconds;
+        private final double percentWithinInterval;
+
+        public TierReport(Tier tier, int symbols, long intervalSeconds, double requiredCallsPerMinute,
+                          long ageP50Seconds, long ageP95Seconds, long ageMaxSeconds, double percentWithinInterval) {
+            this.tier = tier;
+            this.symbols = symbols;
+            this.intervalSeconds = intervalSeconds;
+            this.requiredCallsPerMinute = requiredCallsPerMinute;
+            this.ageP50Seconds = ageP50Seconds;
+            this.ageP95Seconds = ageP95Seconds;
+            this.ageMaxSeconds = ageMaxSeconds;
+            this.percentWithinInterval = percentWithinInterval;
+        }
+
+        // Getters
+        public Tier getTier() { return tier; }
+        public int getSymbols() { return symbols; }
+        public long getIntervalSeconds() { return intervalSeconds; }
+        public double getRequiredCallsPerMinute() { return requiredCallsPerMinute; }
+        public long getAgeP50Seconds() { return ageP50Seconds; }
+        public long getAgeP95Seconds() { return ageP95Seconds; }
+        public long getAgeMaxSeconds() { return ageMaxSeconds; }
+        public double getPercentWithinInterval() { return percentWithinInterval; }
+    }
+
+    /**
+     * The whole refresh plan against the call budget
+     */
+    public static class PlanReport {
+        private final Instant planBuiltAt;
+        private final int budgetCallsPerMinute;
+        private final double requiredCallsPerMinute;
+        private final List<TierReport> tiers;
+
+        public PlanReport(Instant planBuiltAt, int budgetCallsPerMinute, double requiredCallsPerMinute,
+                          List<TierReport> tiers) {
+            this.planBuiltAt = planBuiltAt;
+            this.budgetCallsPerMinute = budgetCallsPerMinute;
+            this.requiredCallsPerMinute = requiredCallsPerMinute;
+            this.tiers = tiers;
+        }
+
+        // Getters
+        public Instant getPlanBuiltAt() { return planBuiltAt; }
+        public int getBudgetCallsPerMinute() { return budgetCallsPerMinute; }
+        public double getRequiredCallsPerMinute() { return requiredCallsPerMinute; }
+        public List<TierReport> getTiers() { return tiers; }
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.MicroInvestApp.service.market;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight coalescing of upstream calls by key.
+ * Concurrent callers for the same key share one in-flight Mono, and a successful result
+ * keeps being shared for a short freshness window. Errors are never cached.
+ * Flights are tracked per lane so an interactive caller is not parked behind a queued
+ * background request; background callers may piggyback on interactive flights.
+ */
+public class RequestCoalescer<T> {
+
+    private static final int PURGE_THRESHOLD = 1024;
+
+    private final String name;
+    private final long freshnessNanos;
+    private final ConcurrentMap<String, Flight<T>> flights = new ConcurrentHashMap<>();
+    private final AtomicLong upstreamCalls = new AtomicLong(0);
+    private final AtomicLong coalescedHits = new AtomicLong(0);
+
+    RequestCoalescer(String name, long freshnessMs) {
+        this.name = name;
+        this.freshnessNanos = Math.max(0, freshnessMs) * 1_000_000L;
+    }
+
+    Mono<T> execute(String key, FinnhubRateGovernor.Lane lane, Supplier<Mono<T>> upstream) {
+        return Mono.defer(() -> {
+            String normalizedKey = key.toUpperCase(Locale.ROOT);
+
+            Flight<T> shared = findShareable(normalizedKey, lane);
+            if (shared != null) {
+                coalescedHits.incrementAndGet();
+                return shared.mono;
+            }
+
+            String flightKey = flightKey(normalizedKey, lane);
+            Flight<T> created = new Flight<>(upstream, this, flightKey);
+            Flight<T> winner = flights.compute(flightKey,
+                    (k, existing) -> isUsable(existing) ? existing : created);
+
+            if (winner != created) {
+                coalescedHits.incrementAndGet();
+                return winner.mono;
+            }
+
+            upstreamCalls.incrementAndGet();
+            if (flights.size() > PURGE_THRESHOLD) {
+                flights.values().removeIf(flight -> !isUsable(flight));
+            }
+            return created.mono;
+        });
+    }
+
+    CoalescingStats getStats() {
+        long inFlight = flights.values().stream().filter(flight -> flight.completedAtNanos < 0).count();
+        return new CoalescingStats(name, upstreamCalls.get(), coalescedHits.get(), (int) inFlight,
+                freshnessNanos / 1_000_000L);
+    }
+
+    private Flight<T> findShareable(String key, FinnhubRateGovernor.Lane lane) {
+        Flight<T> interactive = flights.get(flightKey(key, FinnhubRateGovernor.Lane.INTERACTIVE));
+        Flight<T> background = flights.get(flightKey(key, FinnhubRateGovernor.Lane.BACKGROUND));
+
+        if (lane == FinnhubRateGovernor.Lane.BACKGROUND) {
+            // Background work can wait on anything, preferring what interactive traffic already fetched
+            if (isUsable(interactive)) {
+                return interactive;
+            }
+            return isUsable(background) ? background : null;
+        }
+
+        if (isUsable(interactive)) {
+            return interactive;
+        }
+        // Only reuse a background result once it has actually arrived
+        return isUsable(background) && background.completedAtNanos >= 0 ? background : null;
+    }
+
+    private boolean isUsable(Flight<T> flight) {
+        if (flight == null || flight.failed) {
+            return false;
+        }
+        long completedAt = flight.completedAtNanos;
+        return completedAt < 0 || System.nanoTime() - completedAt <= freshnessNanos;
+    }
+
+    private void evict(String flightKey, Flight<T> flight) {
+        flights.remove(flightKey, flight);
+    }
+
+    private static String flightKey(String key, FinnhubRateGovernor.Lane lane) {
+        return lane.name() + ":" + key;
+    }
+
+    private static class Flight<T> {
+        private final Mono<T> mono;
+        private volatile long completedAtNanos = -1;
+        private volatile boolean failed;
+
+        Flight(Supplier<Mono<T>> upstream, RequestCoalescer<T> owner, String flightKey) {
+            this.mono = Mono.defer(upstream)
+                    .doOnSuccess(value -> completedAtNanos = System.nanoTime())
+                    .doOnError(error -> {
+                        failed = true;
+                        owner.evict(flightKey, this);
+                    })
+                    .cache();
+        }
+    }
+
+    /**
+     * Upstream calls versus calls answered by an existing flight
+     */
+    public static class CoalescingStats {
+        private final String name;
+        private final long upstreamCalls;
+        private final long coalescedHits;
+        private final int inFlight;
+        private final long freshnessWindowMs;
+
+        public CoalescingStats(String name, long upstreamCalls, long coalescedHits, int inFlight,
+                               long freshnessWindowMs) {
+            this.name = name;
+            this.upstreamCalls = upstreamCalls;
+            this.coalescedHits = coalescedHits;
+            this.inFlight = inFlight;
+            this.freshnessWindowMs = freshnessWindowMs;
+        }
+
+        // Getters
+        public String getName() { return name; }
+        public long getUpstreamCalls() { return upstreamCalls; }
+        public long getCoalescedHits() { return coalescedHits; }
+        public int getInFlight() { return inFlight; }
+        public long getFreshnessWindowMs() { return freshnessWindowMs; }
+
+        public double getSavedPercentage() {
+            long total = upstreamCalls + coalescedHits;
+            return total > 0 ? (double) coalescedHits / total * 100 : 0.0;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.MicroInvestApp.service.market;
+
+import com.example.MicroInvestApp.domain.market.SecurityStock;
+import com.example.MicroInvestApp.domain.market.SymbolValidation;
+import com.example.MicroInvestApp.repositories.market.SecurityStockRepository;
+import com.example.MicroInvestApp.repositories.market.SymbolValidationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pre-market symbol validation for the active universe.
+ * Fresh valid verdicts and quotes stored within the reuse window are trusted without an API call;
+ * the rest are checked concurrently in the background rate-limit lane. Verdicts are persisted with a TTL,
+ * and securities that fail validation too many runs in a row are deactivated so later sweeps skip them.
+ */
+@Service
+public class SymbolValidationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SymbolValidationService.class);
+
+    private final FinnhubClientService finnhubClient;
+    private final SecurityStockRepository securityStockRepository;
+    private final SymbolValidationRepository symbolValidationRepository;
+
+    @Value("${market-data.validation.concurrency:8}")
+    private int concurrency;
+
+    @Value("${market-data.validation.verdict-ttl-hours:24}")
+    private long verdictTtlHours;
+
+    @Value("${market-data.validation.quote-reuse-hours:6}")
+    private long quoteReuseHours;
+
+    @Value("${market-data.validation.max-consecutive-failures:3}")
+    private int maxConsecutiveFailures;
+
+    @Value("${market-data.validation.auto-deactivate:true}")
+    private boolean autoDeactivate;
+
+    @Value("${market-data.validation.run-timeout-minutes:10}")
+    private long runTimeoutMinutes;
+
+    @Value("${market-data.validation.min-price:0.01}")
+    private BigDecimal minValidPrice;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile ValidationRunStats lastRunStats;
+
+    @Autowired
+    public SymbolValidationService(FinnhubClientService finnhubClient,
+                                   SecurityStockRepository securityStockRepository,
+                                   SymbolValidationRepository symbolValidationRepository) {
+        this.finnhubClient = finnhubClient;
+        this.securityStockRepository = securityStockRepository;
+        this.symbolValidationRepository = symbolValidationRepository;
+    }
+
+    /**
+     * Validate every active security and deactivate the ones that keep failing.
+     * Only one run may be in flight at a time; overlapping calls return the previous stats.
+     */
+    public ValidationRunStats validateActiveUniverse() {
+        if (!running.compareAndSet(false, true)) {
+            logger.warn("Symbol validation already running - skipping overlapping run");
+            return lastRunStats;
+        }
+
+        try {
+            long startTime = System.currentTimeMillis();
+            Instant now = Instant.now();
+            List<SecurityStock> securities = securityStockRepository.findByIsActiveTrue();
+
+            Map<String, SymbolValidation> verdicts = new HashMap<>();
+            List<String> symbols = securities.stream().map(SecurityStock::getSymbol).toList();
+            for (SymbolValidation verdict : symbolValidationRepository.findBySymbolIn(symbols)) {
+                verdicts.put(verdict.getSymbol(), verdict);
+            }
+
+            int cached = 0;
+            int reusedQuotes = 0;
+            List<SecurityStock> toCheck = new ArrayList<>();
+            List<SymbolValidation> changed = new ArrayList<>();
+
+            for (SecurityStock security : securities) {
+                SymbolValidation verdict = verdicts.get(security.getSymbol());
+                if (verdict != null && verdict.isValidAt(now)) {
+                    cached++;
+                } else if (hasRecentQuote(security, now)) {
+                    changed.add(recordVerdict(verdicts, security.getSymbol(), true, true, now));
+                    reusedQuotes++;
+                } else {
+                    toCheck.add(security);
+                }
+            }
+
+            // null marks an inconclusive check (timeout, rate limit) which neither passes nor fails the symbol
+            Map<String, Boolean> results = new HashMap<>();
+            if (!toCheck.isEmpty()) {
+                try {
+                    Flux.fromIterable(toCheck)
+                            .flatMap(security -> checkSymbol(security.getSymbol())
+                                    .map(valid -> Map.entry(security.getSymbol(), valid))
+                                    .onErrorResume(error -> {
+                                        logger.debug("Validation of {} inconclusive: {}",
+                                                security.getSymbol(), error.getMessage());
+                                        return Mono.empty();
+                                    }), concurrency)
+                            .doOnNext(entry -> {
+                                synchronized (results) {
+                                    results.put(entry.getKey(), entry.getValue());
+                                }
+                            })
+                            .then()
+                            .block(Duration.ofMinutes(runTimeoutMinutes));
+                } catch (Exception e) {
+                    logger.error("Symbol validation run aborted: {}", e.getMessage());
+                }
+            }
+
+            int checked = 0;
+            int inconclusive = 0;
+            int invalid = 0;
+            List<SecurityStock> deactivated = new ArrayList<>();
+
+            for (SecurityStock security : toCheck) {
+                Boolean valid = results.get(security.getSymbol());
+                if (valid == null) {
+                    inconclusive++;
+                    continue;
+                }
+                checked++;
+
+                SymbolValidation verdict = recordVerdict(verdicts, security.getSymbol(), valid, false, now);
+                changed.add(verdict);
+                if (!valid) {
+                    invalid++;
+                    logger.warn("Security {} appears to be invalid or delisted ({} failed checks in a row)",
+                            security.getSymbol(), verdict.getConsecutiveFailures());
+                    if (autoDeactivate && verdict.getConsecutiveFailures() >= maxConsecutiveFailures) {
+                        security.setActive(false);
+                        deactivated.add(security);
+                    }
+                }
+            }
+
+            symbolValidationRepository.saveAll(changed);
+            if (!deactivated.isEmpty()) {
+                securityStockRepository.saveAll(deactivated);
+                logger.warn("Deactivated {} securities after {} consecutive failed validations: {}",
+                        deactivated.size(), maxConsecutiveFailures,
+                        deactivated.stream().map(SecurityStock::getSymbol).toList());
+            }
+
+            ValidationRunStats stats = new ValidationRunStats(securities.size(), cached, reusedQuotes, checked,
+                    inconclusive, invalid, deactivated.size(), System.currentTimeMillis() - startTime);
+            lastRunStats = stats;
+            logger.info("Symbol validation completed: {} securities, {} cached, {} from recent quotes, " +
+                            "{} checked, {} inconclusive, {} invalid, {} deactivated in {}ms",
+                    stats.getSecurities(), cached, reusedQuotes, checked, inconclusive, invalid,
+                    deactivated.size(), stats.getDurationMs());
+            return stats;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public ValidationRunStats getLastRunStats() {
+        return lastRunStats;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Quote check that keeps transport errors as errors instead of treating them as an invalid symbol
+     */
+    private Mono<Boolean> checkSymbol(String symbol) {
+        return finnhubClient.getQuote(symbol, FinnhubRateGovernor.Lane.BACKGROUND)
+                .map(quote -> quote.getCurrentPrice() != null
+                        && quote.getCurrentPrice().compareTo(minValidPrice) >= 0)
+                .defaultIfEmpty(false);
+    }
+
+    private boolean hasRecentQuote(SecurityStock security, Instant now) {
+        return security.getUpdatedDate() != null
+                && security.getUpdatedDate().isAfter(now.minus(Duration.ofHours(quoteReuseHours)))
+                && security.getCurrentPrice() != null
+                && security.getCurrentPrice().compareTo(minValidPrice) >= 0;
+    }
+
+    private SymbolValidation recordVerdict(Map<String, SymbolValidation> verdicts, String symbol,
+                                           boolean valid, boolean fromRecentQuote, Instant now) {
+        SymbolValidation verdict = verdicts.computeIfAbsent(symbol, SymbolValidation::new);
+        verdict.setValid(valid);
+        verdict.setFromRecentQuote(fromRecentQuote);
+        verdict.setConsecutiveFailures(valid ? 0 : verdict.getConsecutiveFailures() + 1);
+        verdict.setCheckedAt(now);
+        // Invalid verdicts expire immediately so the symbol is re-checked on the next run
+        verdict.setExpiresAt(valid ? now.plus(Duration.ofHours(verdictTtlHours)) : now);
+        return verdict;
+    }
+
+    /**
+     * Outcome of one validation run
+     */
+    public static class ValidationRunStats {
+        private final int securities;
+        private final int cachedVerdicts;
+        private final int reusedQuotes;
+        private final int checked;
+        private final int inconclusive;
+        private final int invalid;
+        private final int deactivated;
+        private final long durationMs;
+
+        public ValidationRunStats(int securities, int cachedVerdicts, int reusedQuotes, int checked,
+                                  int inconclusive, int invalid, int deactivated, long durationMs) {
+            this.securities = securities;
+            this.cachedVerdicts = cachedVerdicts;
+            this.reusedQuotes = reusedQuotes;
+            this.checked = checked;
+            this.inconclusive = inconclusive;
+            this.invalid = invalid;
+            this.deactivated = deactivated;
+            this.durationMs = durationMs;
+        }
+
+        // Getters
+        public int getSecurities() { return securities; }
+        public int getCachedVerdicts() { return cachedVerdicts; }
+        public int getReusedQuotes() { return reusedQuotes; }
+        public int getChecked() { return checked; }
+        public int getInconclusive() { return inconclusive; }
+        public int getInvalid() { return invalid; }
+        public int getDeactivated() { return deactivated; }
+        public long getDurationMs() { return durationMs; }
+    }
+}
@@ -0,0 +1,560 @@
+package com.example.MicroInvestApp.service.market;
+
+import com.example.MicroInvestApp.domain.enums.IndicatorType;
+import com.example.MicroInvestApp.domain.enums.Timeframe;
+import com.example.MicroInvestApp.domain.market.MarketIndicator;
+import com.example.MicroInvestApp.domain.market.SecurityStock;
+import com.example.MicroInvestApp.repositories.market.MarketIndicatorBulkRepository;
+import com.example.MicroInvestApp.repositories.market.MarketIndicatorRepository;
+import com.example.MicroInvestApp.repositories.market.SecurityStockRepository;
+import com.example.MicroInvestApp.service.cluster.ClusterCoordinator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Streaming technical indicators over daily PriceHistory bars.
+ * Every security keeps a small state machine per indicator (EMAs, Wilder averages, fixed rolling windows
+ * and monotonic extreme deques), so each new bar costs the same regardless of lookback. After the close the
+ * universe is advanced in parallel on a fork-join pool, reading only the bars added since the last run, and
+ * the resulting MarketIndicator rows are written in set-based batches per Timeframe.
+ */
+@Service
+public class TechnicalIndicatorEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(TechnicalIndicatorEngine.class);
+
+    private static final int RSI_PERIOD = 14;
+    private static final int MACD_FAST = 12;
+    private static final int MACD_SLOW = 26;
+    private static final int BOLLINGER_PERIOD = 20;
+    private static final double BOLLINGER_WIDTH = 2.0;
+    private static final int STOCHASTIC_PERIOD = 14;
+    private static final int ATR_PERIOD = 14;
+    private static final int VWAP_PERIOD = 20;
+    // Enough bars for the exponential averages to converge on a cold start
+    private static final int WARMUP_DAYS = 400;
+    private static final int SCALE = 4;
+
+    private final PriceHistoryStore priceHistoryStore;
+    private final SecurityStockRepository securityStockRepository;
+    private final MarketIndicatorRepository marketIndicatorRepository;
+    private final MarketIndicatorBulkRepository marketIndicatorBulkRepository;
+    private final MarketCalendarService marketCalendarService;
+    private final ClusterCoordinator clusterCoordinator;
+
+    @Value("${market-data.indicators.parallelism:4}")
+    private int parallelism;
+
+    @Value("${market-data.indicators.catch-up-days:14}")
+    private int catchUpDays;
+
+    private ForkJoinPool pool;
+    private final Map<Long, IndicatorState> states = new ConcurrentHashMap<>();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile IndicatorRunStats lastRunStats;
+
+    @Autowired
+    public TechnicalIndicatorEngine(PriceHistoryStore priceHistoryStore,
+                                    SecurityStockRepository securityStockRepository,
+                                    MarketIndicatorRepository marketIndicatorRepository,
+                                    MarketIndicatorBulkRepository marketIndicatorBulkRepository,
+                                    MarketCalendarService marketCalendarService,
+                                    ClusterCoordinator clusterCoordinator) {
+        this.priceHistoryStore = priceHistoryStore;
+        this.securityStockRepository = securityStockRepository;
+        this.marketIndicatorRepository = marketIndicatorRepository;
+        this.marketIndicatorBulkRepository = marketIndicatorBulkRepository;
+        this.marketCalendarService = marketCalendarService;
+        this.clusterCoordinator = clusterCoordinator;
+    }
+
+    @PostConstruct
+    public void init() {
+        pool = new ForkJoinPool(Math.max(1, parallelism));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Scheduled job: advance indicators once the end-of-day closes have been captured
+     */
+    @Scheduled(cron = "${market-data.indicators.cron:0 30 17 * * MON-FRI}", zone = "America/New_York")
+    public void scheduledIndicatorRun() {
+        if (!clusterCoordinator.isLeader()) {
+            return;
+        }
+        if (!marketCalendarService.isTradingDayToday()) {
+            logger.debug("Not a market day, skipping indicator run");
+            return;
+        }
+        runDaily();
+    }
+
+    /**
+     * Run the daily indicators on the market data executor
+     */
+    @Async("marketDataTaskExecutor")
+    public void runDailyAsync() {
+        runDaily();
+    }
+
+    /**
+     * Advance every active security's daily indicators through today's bar and store the new values.
+     * Only one run may be active at a time.
+     */
+    public IndicatorRunStats runDaily() {
+        if (!running.compareAndSet(false, true)) {
+            logger.warn("Indicator run already in progress - skipping overlapping run");
+            return null;
+        }
+
+        try {
+            long startTime = System.currentTimeMillis();
+            LocalDate upTo = marketCalendarService.today();
+            List<SecurityStock> securities = securityStockRepository.findByIsActiveTrue();
+
+            Map<Long, LocalDate> persisted = new HashMap<>();
+            for (Object[] row : marketIndicatorRepository.findLatestCalculationDates(Timeframe.DAILY)) {
+                persisted.put((Long) row[0], (LocalDate) row[1]);
+            }
+
+            LongAdder bars = new LongAdder();
+            LongAdder updateNanos = new LongAdder();
+            List<MarketIndicator> rows = pool.submit(() -> securities.parallelStream()
+                            .flatMap(security -> advance(security, upTo, persisted.get(security.getSecurityId()),
+                                    bars, updateNanos).stream())
+                            .toList())
+                    .get();
+
+            int written = 0;
+            Map<Timeframe, List<MarketIndicator>> byTimeframe = rows.stream()
+                    .collect(Collectors.groupingBy(MarketIndicator::getTimeframe,
+                            () -> new EnumMap<>(Timeframe.class), Collectors.toList()));
+            for (Map.Entry<Timeframe, List<MarketIndicator>> batch : byTimeframe.entrySet()) {
+                written += marketIndicatorBulkRepository.upsertIndicators(batch.getValue());
+            }
+
+            long processed = bars.sum();
+            IndicatorRunStats stats = new IndicatorRunStats(securities.size(), processed, written,
+                    processed > 0 ? updateNanos.sum() / processed : 0, System.currentTimeMillis() - startTime);
+            lastRunStats = stats;
+            logger.info("Indicator run finished: {} securities, {} bars at {}ns per bar, {} rows in {}ms",
+                    stats.getSecurities(), processed, stats.getNanosPerBar(), written, stats.getDurationMs());
+            return stats;
+        } catch (Exception e) {
+            logger.error("Indicator run failed: {}", e.getMessage(), e);
+            return null;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * The security's indicators from its most recent calculation date, or null when the symbol is unknown
+     */
+    public LatestIndicators getLatestIndicators(String symbol, Timeframe timeframe) {
+        SecurityStock security = securityStockRepository.findBySymbol(symbol.toUpperCase()).orElse(null);
+        if (security == null) {
+            return null;
+        }
+
+        List<MarketIndicator> latest = marketIndicatorRepository.findLatestBySecurityIdAndTimeframe(
+                security.getSecurityId(), timeframe);
+        Map<IndicatorType, BigDecimal> values = new EnumMap<>(IndicatorType.class);
+        LocalDate date = null;
+        for (MarketIndicator indicator : latest) {
+            values.put(indicator.getIndicatorType(), indicator.getIndicatorValue());
+            date = indicator.getCalculationDate();
+        }
+        return new LatestIndicators(security.getSymbol(), timeframe, date, values);
+    }
+
+    public IndicatorRunStats getLastRunStats() {
+        return lastRunStats;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Feed the security's bars added since its state last advanced and collect the rows to store:
+     * every bar after the last persisted date within the catch-up window, or just the latest bar when
+     * nothing has been persisted yet
+     */
+    private List<MarketIndicator> advance(SecurityStock security, LocalDate upTo, LocalDate lastPersisted,
+                                          LongAdder bars, LongAdder updateNanos) {
+        try {
+            IndicatorState state = states.get(security.getSecurityId());
+            LocalDate from = state != null ? state.lastDate.plusDays(1) : upTo.minusDays(WARMUP_DAYS);
+            if (from.isAfter(upTo)) {
+                return List.of();
+            }
+
+            PriceHistoryStore.Slice slice = priceHistoryStore.range(security, from, upTo);
+            if (slice.size() == 0) {
+                return List.of();
+            }
+            if (state == null) {
+                state = new IndicatorState();
+            }
+
+            LocalDate emitAfter = upTo.minusDays(catchUpDays);
+            if (lastPersisted != null && lastPersisted.isAfter(emitAfter)) {
+                emitAfter = lastPersisted;
+            }
+
+            List<MarketIndicator> rows = new ArrayList<>();
+            long elapsed = 0;
+            for (int i = 0; i < slice.size(); i++) {
+                LocalDate date = slice.dateAt(i);
+                long start = System.nanoTime();
+                state.accept(date, slice.highAt(i), slice.lowAt(i), slice.closeAt(i), slice.volumeAt(i));
+                elapsed += System.nanoTime() - start;
+
+                boolean emit = lastPersisted == null ? i == slice.size() - 1 : date.isAfter(emitAfter);
+                if (emit) {
+                    state.emit(security, Timeframe.DAILY, slice.movingAverage50At(i), slice.movingAverage200At(i), rows);
+                }
+            }
+            bars.add(slice.size());
+            updateNanos.add(elapsed);
+            states.put(security.getSecurityId(), state);
+            return rows;
+        } catch (Exception e) {
+            logger.warn("Failed to advance indicators for {}: {}", security.getSymbol(), e.getMessage());
+            return List.of();
+        }
+    }
+
+    private static BigDecimal toDecimal(double value) {
+        return BigDecimal.valueOf(value).setScale(SCALE, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Indicator state machines for one security; every accept is constant time.
+     * Package-private so IndicatorStateBenchmark can drive it directly.
+     */
+    static final class IndicatorState {
+        private final Smoother rsiGain = Smoother.wilder(RSI_PERIOD);
+        private final Smoother rsiLoss = Smoother.wilder(RSI_PERIOD);
+        private final Smoother macdFast = Smoother.ema(MACD_FAST);
+        private final Smoother macdSlow = Smoother.ema(MACD_SLOW);
+        private final RollingWindow bollinger = new RollingWindow(BOLLINGER_PERIOD);
+        private final RollingExtreme highestHigh = new RollingExtreme(STOCHASTIC_PERIOD, true);
+        private final RollingExtreme lowestLow = new RollingExtreme(STOCHASTIC_PERIOD, false);
+        private final Smoother atr = Smoother.wilder(ATR_PERIOD);
+        private final RollingWindow vwapPriceVolume = new RollingWindow(VWAP_PERIOD);
+        private final RollingWindow vwapVolume = new RollingWindow(VWAP_PERIOD);
+
+        private LocalDate lastDate;
+        private double previousClose = Double.NaN;
+
+        private double rsi = Double.NaN;
+        private double macd = Double.NaN;
+        private double percentB = Double.NaN;
+        private double stochasticK = Double.NaN;
+        private double averageTrueRange = Double.NaN;
+        private double vwap = Double.NaN;
+
+        void accept(LocalDate date, double high, double low, double close, long volume) {
+            if (!Double.isNaN(previousClose)) {
+                double change = close - previousClose;
+                double gain = rsiGain.accept(Math.max(change, 0));
+                double loss = rsiLoss.accept(Math.max(-change, 0));
+                if (!Double.isNaN(gain)) {
+                    rsi = loss == 0 ? 100 : 100 - 100 / (1 + gain / loss);
+                }
+            }
+
+            double fast = macdFast.accept(close);
+            double slow = macdSlow.accept(close);
+            if (!Double.isNaN(slow)) {
+                macd = fast - slow;
+            }
+
+            bollinger.accept(close);
+            if (bollinger.isFull()) {
+                double band = BOLLINGER_WIDTH * bollinger.standardDeviation();
+                percentB = band > 0 ? (close - (bollinger.mean() - band)) / (2 * band) : Double.NaN;
+            }
+
+            double hh = highestHigh.accept(high);
+            double ll = lowestLow.accept(low);
+            if (highestHigh.isFull()) {
+                stochasticK = hh > ll ? (close - ll) / (hh - ll) * 100 : Double.NaN;
+            }
+
+            double trueRange = Double.isNaN(previousClose)
+                    ? high - low
+                    : Math.max(high - low, Math.max(Math.abs(high - previousClose), Math.abs(low - previousClose)));
+            averageTrueRange = atr.accept(trueRange);
+
+            double typical = (high + low + close) / 3;
+            vwapPriceVolume.accept(typical * volume);
+            vwapVolume.accept(volume);
+            if (vwapVolume.isFull() && vwapVolume.sum() > 0) {
+                vwap = vwapPriceVolume.sum() / vwapVolume.sum();
+            }
+
+            previousClose = close;
+            lastDate = date;
+        }
+
+        /**
+         * Append a row per indicator that has a value as of the latest bar
+         */
+        void emit(SecurityStock security, Timeframe timeframe, BigDecimal movingAverage50, BigDecimal movingAverage200,
+                  List<MarketIndicator> rows) {
+            add(rows, security, timeframe, IndicatorType.RSI, rsi);
+            add(rows, security, timeframe, IndicatorType.MACD, macd);
+            add(rows, security, timeframe, IndicatorType.BOLLINGER_BANDS, percentB);
+            add(rows, security, timeframe, IndicatorType.STOCHASTIC_OSCILLATOR, stochasticK);
+            add(rows, security, timeframe, IndicatorType.ATR, averageTrueRange);
+            add(rows, security, timeframe, IndicatorType.VOLUME_WEIGHTED_AVERAGE_PRICE, vwap);
+            if (movingAverage50 != null) {
+                rows.add(indicator(security, timeframe, IndicatorType.MOVING_AVERAGE_50_DAY, movingAverage50));
+            }
+            if (movingAverage200 != null) {
+                rows.add(indicator(security, timeframe, IndicatorType.MOVING_AVERAGE_200_DAY, movingAverage200));
+            }
+        }
+
+        private void add(List<MarketIndicator> rows, SecurityStock security, Timeframe timeframe,
+                         IndicatorType type, double value) {
+            if (!Double.isNaN(value) && !Double.isInfinite(value)) {
+                rows.add(indicator(security, timeframe, type, toDecimal(value)));
+            }
+        }
+
+        private MarketIndicator indicator(SecurityStock security, Timeframe timeframe, IndicatorType type,
+                                          BigDecimal value) {
+            MarketIndicator indicator = new MarketIndicator();
+            indicator.setSecurityStock(security);
+            indicator.setIndicatorType(type);
+            indicator.setIndicatorValue(value);
+            indicator.setCalculationDate(lastDate);
+            indicator.setTimeframe(timeframe);
+            return indicator;
+        }
+    }
+
+    /**
+     * Exponential smoothing seeded with the simple average of its first full period.
+     * EMA uses alpha 2 / (n + 1); Wilder's smoothing (RSI, ATR) uses 1 / n.
+     */
+    private static final class Smoother {
+        private final int period;
+        private final double alpha;
+        private long count;
+        private double sum;
+        private double value = Double.NaN;
+
+        private Smoother(int period, double alpha) {
+            this.period = period;
+            this.alpha = alpha;
+        }
+
+        static Smoother ema(int period) {
+            return new Smoother(period, 2.0 / (period + 1));
+        }
+
+        static Smoother wilder(int period) {
+            return new Smoother(period, 1.0 / period);
+        }
+
+        // Smoothed value after this input, NaN until a full period has been seen
+        double accept(double input) {
+            count++;
+            if (count < period) {
+                sum += input;
+                return Double.NaN;
+            }
+            if (count == period) {
+                value = (sum + input) / period;
+                return value;
+            }
+            value = alpha * input + (1 - alpha) * value;
+            return value;
+        }
+    }
+
+    /**
+     * Fixed-size window with running sum and sum of squares.
+     * Sums are rebuilt from the buffer once per period so floating-point drift cannot accumulate.
+     */
+    private static final class RollingWindow {
+        private final double[] values;
+        private int head;
+        private long count;
+        private double sum;
+        private double sumOfSquares;
+
+        RollingWindow(int period) {
+            this.values = new double[period];
+        }
+
+        void accept(double value) {
+            if (count >= values.length) {
+                double evicted = values[head];
+                sum -= evicted;
+                sumOfSquares -= evicted * evicted;
+            }
+            values[head] = value;
+            head = (head + 1) % values.length;
+            count++;
+            sum += value;
+            sumOfSquares += value * value;
+
+            if (head == 0) {
+                sum = 0;
+                sumOfSquares = 0;
+                for (double v : values) {
+                    sum += v;
+                    sumOfSquares += v * v;
+                }
+            }
+        }
+
+        boolean isFull() {
+            return count >= values.length;
+        }
+
+        double sum() {
+            return sum;
+        }
+
+        double mean() {
+            return sum / values.length;
+        }
+
+        // Population standard deviation, as used for Bollinger Bands
+        double standardDeviation() {
+            double mean = mean();
+            return Math.sqrt(Math.max(0, sumOfSquares / values.length - mean * mean));
+        }
+    }
+
+    /**
+     * Highest (or lowest) value of the last n inputs via a monotonic deque; amortized constant time
+     */
+    private static final class RollingExtreme {
+        private final int period;
+        private final boolean highest;
+        private final long[] positions;
+        private final double[] values;
+        private int head;
+        private int size;
+        private long count;
+
+        RollingExtreme(int period, boolean highest) {
+            this.period = period;
+            this.highest = highest;
+            this.positions = new long[period];
+            this.values = new double[period];
+        }
+
+        double accept(double value) {
+            // Values the new one dominates can never be the extreme again
+            while (size > 0) {
+                int back = (head + size - 1) % period;
+                if (highest ? values[back] <= value : values[back] >= value) {
+                    size--;
+                } else {
+                    break;
+                }
+            }
+            if (size > 0 && positions[head] <= count - period) {
+                head = (head + 1) % period;
+                size--;
+            }
+            int slot = (head + size) % period;
+            positions[slot] = count;
+            values[slot] = value;
+            size++;
+            count++;
+            return values[head];
+        }
+
+        boolean isFull() {
+            return count >= period;
+        }
+    }
+
+    /**
+     * A security's stored indicators for its latest calculation date
+     */
+    public static class LatestIndicators {
+        private final String symbol;
+        private final Timeframe timeframe;
+        private final LocalDate calculationDate;
+        private final Map<IndicatorType, BigDecimal> values;
+
+        public LatestIndicators(String symbol, Timeframe timeframe, LocalDate calculationDate,
+                                Map<IndicatorType, BigDecimal> values) {
+            this.symbol = symbol;
+            this.timeframe = timeframe;
+            this.calculationDate = calculationDate;
+            this.values = values;
+        }
+
+        // Getters
+        public String getSymbol() { return symbol; }
+        public Timeframe getTimeframe() { return timeframe; }
+        public LocalDate getCalculationDate() { return calculationDate; }
+        public Map<IndicatorType, BigDecimal> getValues() { return values; }
+    }
+
+    /**
+     * Outcome of one indicator run, including the measured state-machine cost per bar
+     */
+    public static class IndicatorRunStats {
+        private final int securities;
+        private final long barsProcessed;
+        private final int rowsWritten;
+        private final long nanosPerBar;
+        private final long durationMs;
+
+        public IndicatorRunStats(int securities, long barsProcessed, int rowsWritten, long nanosPerBar,
+                                 long durationMs) {
+            this.securities = securities;
+            this.barsProcessed = barsProcessed;
+            this.rowsWritten = rowsWritten;
+            this.nanosPerBar = nanosPerBar;
+            this.durationMs = durationMs;
+        }
+
+        // Getters
+        public int getSecurities() { return securities; }
+        public long getBarsProcessed() { return barsProcessed; }
+        public int getRowsWritten() { return rowsWritten; }
+        public long getNanosPerBar() { return nanosPerBar; }
+        public long getDurationMs() { return durationMs; }
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.MicroInvestApp.service.market;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.websocket.WebsocketInbound;
+import reactor.netty.http.websocket.WebsocketOutbound;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for the Finnhub trade WebSocket, for offline and throughput testing.
+ * Speaks the same subscribe/unsubscribe protocol and emits {"type":"trade","data":[...]} frames,
+ * either replayed from a recorded file (one Finnhub message per line) or generated as a random walk.
+ * Point finnhub.websocket.url at ws://localhost:{port} to stream from it.
+ */
+@Component
+@ConditionalOnProperty(name = "finnhub.websocket.replay.enabled", havingValue = "true")
+public class TradeReplayServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(TradeReplayServer.class);
+    private static final BigDecimal SYNTHETIC_START_PRICE = new BigDecimal("100.00");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${finnhub.websocket.replay.host:localhost}")
+    private String host;
+
+    @Value("${finnhub.websocket.replay.port:8099}")
+    private int port;
+
+    @Value("${finnhub.websocket.replay.file:}")
+    private String replayFile;
+
+    @Value("${finnhub.websocket.replay.messages-per-second:50}")
+    private int messagesPerSecond;
+
+    @Value("${finnhub.websocket.replay.trades-per-message:10}")
+    private int tradesPerMessage;
+
+    private List<JsonNode> recordedMessages = List.of();
+    private final Map<String, BigDecimal> syntheticPrices = new ConcurrentHashMap<>();
+    private DisposableServer server;
+
+    // Statistics
+    private final AtomicInteger activeSessions = new AtomicInteger(0);
+    private final AtomicLong messagesSent = new AtomicLong(0);
+    private final AtomicLong tradesSent = new AtomicLong(0);
+
+    @PostConstruct
+    public void start() {
+        recordedMessages = loadRecording();
+
+        server = HttpServer.create()
+                .host(host)
+                .port(port)
+                .route(routes -> routes.ws("/", this::handleSession))
+                .bindNow();
+
+        logger.info("Trade replay server listening on ws://{}:{} ({} source, {} msg/s)", host, server.port(),
+                recordedMessages.isEmpty() ? "synthetic" : "recorded", messagesPerSecond);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (server != null) {
+            server.disposeNow();
+        }
+    }
+
+    public int getPort() {
+        return server != null ? server.port() : port;
+    }
+
+    public ReplayStats getStats() {
+        return new ReplayStats(recordedMessages.isEmpty() ? "synthetic" : "recorded", activeSessions.get(),
+                messagesSent.get(), tradesSent.get());
+    }
+
+    private Mono<Void> handleSession(WebsocketInbound inbound, WebsocketOutbound outbound) {
+        Set<String> subscriptions = ConcurrentHashMap.newKeySet();
+        activeSessions.incrementAndGet();
+
+        Mono<Void> receive = inbound.receive().asString()
+                .doOnNext(message -> applySubscription(message, subscriptions))
+                .then();
+
+        Duration period = Duration.ofNanos(1_000_000_000L / Math.max(1, messagesPerSecond));
+        AtomicLong cursor = new AtomicLong(0);
+        Flux<String> trades = Flux.interval(period)
+                .onBackpressureDrop()
+                .map(tick -> nextMessage(subscriptions, cursor))
+                .filter(message -> !message.isEmpty())
+                .takeUntilOther(receive);
+
+        return outbound.sendString(trades)
+                .then()
+                .doFinally(signal -> activeSessions.decrementAndGet());
+    }
+
+    private void applySubscription(String message, Set<String> subscriptions) {
+        try {
+            JsonNode root = objectMapper.readTree(message);
+            String symbol = root.path("symbol").asText(null);
+            if (symbol == null) {
+                return;
+            }
+            switch (root.path("type").asText()) {
+                case "subscribe" -> subscriptions.add(symbol);
+                case "unsubscribe" -> subscriptions.remove(symbol);
+                default -> { }
+            }
+        } catch (Exception e) {
+            logger.debug("Ignoring malformed replay client message: {}", e.getMessage());
+        }
+    }
+
+    private String nextMessage(Set<String> subscriptions, AtomicLong cursor) {
+        if (subscriptions.isEmpty()) {
+            return "";
+        }
+
+        ArrayNode data = recordedMessages.isEmpty()
+                ? syntheticTrades(subscriptions)
+                : recordedTrades(subscriptions, cursor);
+        if (data.isEmpty()) {
+            return "";
+        }
+
+        ObjectNode message = objectMapper.createObjectNode();
+        message.put("type", "trade");
+        message.set("data", data);
+
+        messagesSent.incrementAndGet();
+        tradesSent.addAndGet(data.size());
+        return message.toString();
+    }
+
+    /**
+     * Next recorded frame (looping), restricted to the symbols this session subscribed to
+     */
+    private ArrayNode recordedTrades(Set<String> subscriptions, AtomicLong cursor) {
+        JsonNode recorded = recordedMessages.get((int) (cursor.getAndIncrement() % recordedMessages.size()));
+        ArrayNode data = objectMapper.createArrayNode();
+        long now = System.currentTimeMillis();
+
+        for (JsonNode trade : recorded.path("data")) {
+            if (subscriptions.contains(trade.path("s").asText())) {
+                // Re-stamp so replayed trades look fresh to the gap filter
+                data.add(((ObjectNode) trade.deepCopy()).put("t", now));
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Random-walk trades across the subscribed symbols
+     */
+    private ArrayNode syntheticTrades(Set<String> subscriptions) {
+        List<String> symbols = new ArrayList<>(subscriptions);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        ArrayNode data = objectMapper.createArrayNode();
+        long now = System.currentTimeMillis();
+
+        for (int i = 0; i < tradesPerMessage; i++) {
+            String symbol = symbols.get(random.nextInt(symbols.size()));
+            BigDecimal price = syntheticPrices.merge(symbol, SYNTHETIC_START_PRICE, (current, ignored) -> {
+                BigDecimal step = BigDecimal.valueOf(random.nextGaussian() * 0.001);
+                BigDecimal next = current.multiply(BigDecimal.ONE.add(step)).setScale(2, RoundingMode.HALF_UP);
+                return next.compareTo(BigDecimal.ZERO) > 0 ? next : current;
+            });
+
+            ObjectNode trade = data.addObject();
+            trade.put("s", symbol);
+            trade.put("p", price);
+            trade.put("v", random.nextInt(1, 500));
+            trade.put("t", now);
+        }
+        return data;
+    }
+
+    private List<JsonNode> loadRecording() {
+        if (replayFile == null || replayFile.isBlank()) {
+            return List.of();
+        }
+
+        List<JsonNode> messages = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(Path.of(replayFile))) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonNode node = objectMapper.readTree(line);
+                if ("trade".equals(node.path("type").asText())) {
+                    messages.add(node);
+                }
+            }
+            logger.info("Loaded {} recorded trade messages from {}", messages.size(), replayFile);
+        } catch (IOException e) {
+            logger.error("Failed to load trade recording {} - falling back to synthetic trades: {}",
+                    replayFile, e.getMessage());
+            return List.of();
+        }
+        return messages;
+    }
+
+    /**
+     * Session and throughput counters for the replay server
+     */
+    public static class ReplayStats {
+        private final String source;
+        private final int activeSessions;
+        private final long messagesSent;
+        private final long tradesSent;
+
+        public ReplayStats(String source, int activeSessions, long messagesSent, long tradesSent) {
+            this.source = source;
+            this.activeSessions = activeSessions;
+            this.messagesSent = messagesSent;
+            this.tradesSent = tradesSent;
+        }
+
+        // Getters
+        public String getSource() { return source; }
+        public int getActiveSessions() { return activeSessions; }
+        public long getMessagesSent() { return messagesSent; }
+        public long getTradesSent() { return tradesSent; }
+    }
+}
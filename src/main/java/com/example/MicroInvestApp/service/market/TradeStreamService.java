@@ -0,0 +1,303 @@
+package com.example.MicroInvestApp.service.market;
+
+import com.example.MicroInvestApp.config.FinnhubConfig;
+import com.example.MicroInvestApp.domain.market.SecurityStock;
+import com.example.MicroInvestApp.repositories.portfolio.PositionRepository;
+import com.example.MicroInvestApp.repositories.portfolio.WatchlistRepository;
+import com.example.MicroInvestApp.service.cluster.ClusterCoordinator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.client.WebsocketClientSpec;
+import reactor.util.retry.Retry;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Streams trades from the Finnhub WebSocket for held and watched symbols.
+ * Each trade is folded into {@link TradeWriteBuffer}; the scheduled REST poller then only
+ * fills gaps for symbols the stream has not covered recently.
+ * With clustering on, each node subscribes only to the symbols it owns out of the capped list, so a trade is
+ * buffered and written by exactly one node and the cluster stays within the subscription limit; a node that
+ * owns none of them opens no connection.
+ */
+@Service
+public class TradeStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TradeStreamService.class);
+
+    private final FinnhubConfig finnhubConfig;
+    private final TradeWriteBuffer tradeWriteBuffer;
+    private final PositionRepository positionRepository;
+    private final WatchlistRepository watchlistRepository;
+    private final ClusterCoordinator clusterCoordinator;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${finnhub.websocket.enabled:false}")
+    private boolean enabled;
+
+    @Value("${finnhub.websocket.url:wss://ws.finnhub.io}")
+    private String websocketUrl;
+
+    @Value("${finnhub.websocket.max-symbols:50}")
+    private int maxSymbols;
+
+    @Value("${finnhub.websocket.reconnect-delay-seconds:5}")
+    private long reconnectDelaySeconds;
+
+    @Value("${finnhub.websocket.gap-threshold-seconds:120}")
+    private long gapThresholdSeconds;
+
+    @Value("${finnhub.websocket.max-frame-bytes:1048576}")
+    private int maxFrameBytes;
+
+    private final Set<String> subscribedSymbols = ConcurrentHashMap.newKeySet();
+    private volatile Sinks.Many<String> outbound;
+    private volatile boolean connected;
+    private volatile Instant connectedSince;
+    private Disposable connection;
+
+    // Statistics
+    private final AtomicLong messagesReceived = new AtomicLong(0);
+    private final AtomicLong malformedMessages = new AtomicLong(0);
+    private final AtomicLong reconnects = new AtomicLong(0);
+
+    @Autowired
+    public TradeStreamService(FinnhubConfig finnhubConfig,
+                              TradeWriteBuffer tradeWriteBuffer,
+                              PositionRepository positionRepository,
+                              WatchlistRepository watchlistRepository,
+                              ClusterCoordinator clusterCoordinator) {
+        this.finnhubConfig = finnhubConfig;
+        this.tradeWriteBuffer = tradeWriteBuffer;
+        this.positionRepository = positionRepository;
+        this.watchlistRepository = watchlistRepository;
+        this.clusterCoordinator = clusterCoordinator;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            logger.info("Trade streaming disabled - REST polling remains the primary price source");
+            return;
+        }
+
+        subscribedSymbols.addAll(resolveStreamSymbols());
+        connectIfNeeded();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (connection != null) {
+            connection.dispose();
+        }
+    }
+
+    /**
+     * Re-resolve held and watched symbols and this node's share of them, and adjust subscriptions to match
+     */
+    @Scheduled(fixedDelayString = "${finnhub.websocket.subscription-refresh-ms:60000}")
+    public void refreshSubscriptions() {
+        if (!enabled) {
+            return;
+        }
+
+        Set<String> desired = resolveStreamSymbols();
+        Sinks.Many<String> sink = outbound;
+
+        for (String symbol : Set.copyOf(subscribedSymbols)) {
+            if (!desired.contains(symbol)) {
+                subscribedSymbols.remove(symbol);
+                if (sink != null && connected) {
+                    emit(sink, subscribeMessage("unsubscribe", symbol));
+                }
+            }
+        }
+        for (String symbol : desired) {
+            if (subscribedSymbols.add(symbol) && sink != null && connected) {
+                emit(sink, subscribeMessage("subscribe", symbol));
+            }
+        }
+
+        tradeWriteBuffer.retainSymbols(subscribedSymbols);
+        connectIfNeeded();
+    }
+
+    /**
+     * Securities the REST poller still needs to refresh: everything when the stream is down,
+     * otherwise only symbols without a recent streamed trade
+     */
+    public List<SecurityStock> filterStreamGaps(List<SecurityStock> securities) {
+        if (!enabled || !connected) {
+            return securities;
+        }
+        long maxAgeMs = gapThresholdSeconds * 1000;
+        return securities.stream()
+                .filter(security -> !tradeWriteBuffer.hasRecentTrade(security.getSymbol(), maxAgeMs))
+                .toList();
+    }
+
+    public boolean isConnected() {
+        return enabled && connected;
+    }
+
+    public StreamStats getStats() {
+        return new StreamStats(enabled, connected, connectedSince, subscribedSymbols.size(),
+                messagesReceived.get(), malformedMessages.get(), reconnects.get(),
+                tradeWriteBuffer.getStats());
+    }
+
+    /**
+     * Open the stream once this node has symbols to subscribe to
+     */
+    private synchronized void connectIfNeeded() {
+        if (connection != null || subscribedSymbols.isEmpty()) {
+            return;
+        }
+        logger.info("Starting Finnhub trade stream for {} symbols", subscribedSymbols.size());
+
+        ReactorNettyWebSocketClient client = new ReactorNettyWebSocketClient(HttpClient.create(),
+                () -> WebsocketClientSpec.builder().maxFramePayloadLength(maxFrameBytes));
+
+        connection = Mono.defer(() -> client.execute(streamUri(), session -> {
+                    Sinks.Many<String> sink = Sinks.many().unicast().onBackpressureBuffer();
+                    outbound = sink;
+                    connected = true;
+                    connectedSince = Instant.now();
+                    subscribedSymbols.forEach(symbol -> emit(sink, subscribeMessage("subscribe", symbol)));
+                    logger.info("Trade stream connected - subscribed to {} symbols", subscribedSymbols.size());
+
+                    Mono<Void> send = session.send(sink.asFlux().map(session::textMessage));
+                    Mono<Void> receive = session.receive()
+                            .map(WebSocketMessage::getPayloadAsText)
+                            .doOnNext(this::handleMessage)
+                            .then();
+                    return Mono.when(send, receive);
+                }))
+                .doFinally(signal -> connected = false)
+                .doOnError(error -> logger.warn("Trade stream disconnected: {}", error.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(reconnectDelaySeconds))
+                        .maxBackoff(Duration.ofMinutes(1))
+                        .doBeforeRetry(signal -> reconnects.incrementAndGet()))
+                .repeatWhen(closed -> closed
+                        .doOnNext(signal -> reconnects.incrementAndGet())
+                        .delayElements(Duration.ofSeconds(reconnectDelaySeconds)))
+                .subscribe();
+    }
+
+    private void handleMessage(String payload) {
+        messagesReceived.incrementAndGet();
+        try {
+            JsonNode root = objectMapper.readTree(payload);
+            if (!"trade".equals(root.path("type").asText())) {
+                return; // pings and subscription acks
+            }
+
+            for (JsonNode trade : root.path("data")) {
+                String symbol = trade.path("s").asText(null);
+                JsonNode price = trade.get("p");
+                if (symbol == null || price == null || !price.isNumber()) {
+                    continue;
+                }
+                tradeWriteBuffer.record(symbol, price.decimalValue(),
+                        trade.path("v").asLong(0), trade.path("t").asLong(System.currentTimeMillis()));
+            }
+        } catch (Exception e) {
+            malformedMessages.incrementAndGet();
+            logger.debug("Ignoring malformed stream message: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Held symbols first, then watched ones, capped at the subscription limit, keeping the ones this node owns
+     */
+    private Set<String> resolveStreamSymbols() {
+        Set<String> symbols = new LinkedHashSet<>();
+        try {
+            symbols.addAll(positionRepository.findDistinctActiveHeldSymbols());
+            symbols.addAll(watchlistRepository.findDistinctWatchedSymbols());
+        } catch (Exception e) {
+            logger.error("Failed to resolve stream symbols: {}", e.getMessage());
+            return Set.copyOf(subscribedSymbols);
+        }
+        return symbols.stream()
+                .limit(maxSymbols)
+                .filter(clusterCoordinator::ownsSymbol)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    /**
+     * Serialise emissions - subscriptions change from both the socket and scheduler threads
+     */
+    private synchronized void emit(Sinks.Many<String> sink, String message) {
+        sink.tryEmitNext(message);
+    }
+
+    private URI streamUri() {
+        String separator = websocketUrl.contains("?") ? "&" : "?";
+        return URI.create(websocketUrl + separator + "token=" + finnhubConfig.getApiKey());
+    }
+
+    private String subscribeMessage(String type, String symbol) {
+        return "{\"type\":\"" + type + "\",\"symbol\":\"" + symbol + "\"}";
+    }
+
+    /**
+     * Connection and message counters for the trade stream
+     */
+    public static class StreamStats {
+        private final boolean enabled;
+        private final boolean connected;
+        private final Instant connectedSince;
+        private final int subscribedSymbols;
+        private final long messagesReceived;
+        private final long malformedMessages;
+        private final long reconnects;
+        private final TradeWriteBuffer.BufferStats buffer;
+
+        public StreamStats(boolean enabled, boolean connected, Instant connectedSince, int subscribedSymbols,
+                           long messagesReceived, long malformedMessages, long reconnects,
+                           TradeWriteBuffer.BufferStats buffer) {
+            this.enabled = enabled;
+            this.connected = connected;
+            this.connectedSince = connectedSince;
+            this.subscribedSymbols = subscribedSymbols;
+            this.messagesReceived = messagesReceived;
+            this.malformedMessages = malformedMessages;
+            this.reconnects = reconnects;
+            this.buffer = buffer;
+        }
+
+        // Getters
+        public boolean isEnabled() { return enabled; }
+        public boolean isConnected() { return connected; }
+        public Instant getConnectedSince() { return connectedSince; }
+        public int getSubscribedSymbols() { return subscribedSymbols; }
+        public long getMessagesReceived() { return messagesReceived; }
+        public long getMalformedMessages() { return malformedMessages; }
+        public long getReconnects() { return reconnects; }
+        public TradeWriteBuffer.BufferStats getBuffer() { return buffer; }
+    }
+}
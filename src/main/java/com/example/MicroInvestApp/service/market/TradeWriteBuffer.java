@@ -0,0 +1,184 @@
+package com.example.MicroInvestApp.service.market;
+
+import com.example.MicroInvestApp.repositories.market.MarketPriceBulkRepository;
+import com.example.MicroInvestApp.service.order.LimitOrderTriggerBook;
+import com.example.MicroInvestApp.service.order.StopOrderTriggerEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalescing write buffer for streamed trades.
+ * Trades only replace the pending last price for their symbol in memory; a periodic flush writes
+ * each symbol at most once per interval, however many trades arrived for it in between. The flush only
+ * updates the price columns, so it cannot overwrite anything written to a security since it was read.
+ */
+@Component
+public class TradeWriteBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(TradeWriteBuffer.class);
+
+    private final MarketPriceBulkRepository marketPriceBulkRepository;
+    private final IntradayBarBuilder intradayBarBuilder;
+    private final LimitOrderTriggerBook limitOrderTriggerBook;
+    private final StopOrderTriggerEngine stopOrderTriggerEngine;
+
+    private final ConcurrentHashMap<String, PendingTrade> pending = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> lastTradeReceivedAt = new ConcurrentHashMap<>();
+
+    // Statistics
+    private final AtomicLong tradesReceived = new AtomicLong(0);
+    private final AtomicLong tradesCoalesced = new AtomicLong(0);
+    private final AtomicLong flushes = new AtomicLong(0);
+    private final AtomicLong rowsWritten = new AtomicLong(0);
+    private volatile long lastFlushDurationMs;
+    private volatile Instant lastFlushAt;
+
+    @Value("${finnhub.websocket.enabled:false}")
+    private boolean streamingEnabled;
+
+    @Autowired
+    public TradeWriteBuffer(MarketPriceBulkRepository marketPriceBulkRepository,
+                            IntradayBarBuilder intradayBarBuilder,
+                            LimitOrderTriggerBook limitOrderTriggerBook,
+                            StopOrderTriggerEngine stopOrderTriggerEngine) {
+        this.marketPriceBulkRepository = marketPriceBulkRepository;
+        this.intradayBarBuilder = intradayBarBuilder;
+        this.limitOrderTriggerBook = limitOrderTriggerBook;
+        this.stopOrderTriggerEngine = stopOrderTriggerEngine;
+    }
+
+    /**
+     * Fold a trade into the pending last price for its symbol
+     */
+    public void record(String symbol, BigDecimal price, long volume, long tradeTimeMs) {
+        tradesReceived.incrementAndGet();
+        lastTradeReceivedAt.put(symbol, System.currentTimeMillis());
+        // Every trade reaches the intraday bars, even though only the last one per flush reaches the database
+        intradayBarBuilder.record(symbol, price, volume, tradeTimeMs);
+        limitOrderTriggerBook.onPrice(symbol, price);
+        stopOrderTriggerEngine.onPrice(symbol, price);
+
+        PendingTrade trade = new PendingTrade(price, volume, tradeTimeMs);
+        pending.merge(symbol, trade, (existing, incoming) -> {
+            tradesCoalesced.incrementAndGet();
+            // Trades can arrive slightly out of order - keep the latest price, accumulate volume
+            return incoming.tradeTimeMs >= existing.tradeTimeMs
+                    ? new PendingTrade(incoming.price, existing.volume + incoming.volume, incoming.tradeTimeMs)
+                    : new PendingTrade(existing.price, existing.volume + incoming.volume, existing.tradeTimeMs);
+        });
+    }
+
+    /**
+     * Whether a trade for the symbol has been received within the given window
+     */
+    public boolean hasRecentTrade(String symbol, long maxAgeMs) {
+        Long receivedAt = lastTradeReceivedAt.get(symbol);
+        return receivedAt != null && System.currentTimeMillis() - receivedAt <= maxAgeMs;
+    }
+
+    /**
+     * Forget symbols that are no longer streamed so the freshness map stays bounded
+     */
+    public void retainSymbols(Set<String> symbols) {
+        lastTradeReceivedAt.keySet().retainAll(symbols);
+    }
+
+    @Scheduled(fixedDelayString = "${finnhub.websocket.flush-interval-ms:1000}")
+    public void flush() {
+        if (!streamingEnabled || pending.isEmpty()) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        Map<String, PendingTrade> drained = new HashMap<>();
+        for (String symbol : pending.keySet()) {
+            PendingTrade trade = pending.remove(symbol);
+            if (trade != null) {
+                drained.put(symbol, trade);
+            }
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        try {
+            Map<String, BigDecimal> prices = new HashMap<>();
+            drained.forEach((symbol, trade) -> prices.put(symbol, trade.price));
+            Instant now = Instant.now();
+
+            int written = marketPriceBulkRepository.updateLastPrices(prices, now);
+            rowsWritten.addAndGet(written);
+            flushes.incrementAndGet();
+            lastFlushAt = now;
+            lastFlushDurationMs = System.currentTimeMillis() - start;
+
+            logger.debug("Flushed streamed prices for {} symbols in {}ms", written, lastFlushDurationMs);
+        } catch (Exception e) {
+            logger.error("Failed to flush {} streamed prices: {}", drained.size(), e.getMessage());
+            // Put back whatever a newer trade has not replaced, so the next flush retries it
+            drained.forEach((symbol, trade) -> pending.putIfAbsent(symbol, trade));
+        }
+    }
+
+    public BufferStats getStats() {
+        return new BufferStats(tradesReceived.get(), tradesCoalesced.get(), pending.size(),
+                flushes.get(), rowsWritten.get(), lastFlushDurationMs, lastFlushAt);
+    }
+
+    private static class PendingTrade {
+        private final BigDecimal price;
+        private final long volume;
+        private final long tradeTimeMs;
+
+        PendingTrade(BigDecimal price, long volume, long tradeTimeMs) {
+            this.price = price;
+            this.volume = volume;
+            this.tradeTimeMs = tradeTimeMs;
+        }
+    }
+
+    /**
+     * Trade and flush counters for the streaming write path
+     */
+    public static class BufferStats {
+        private final long tradesReceived;
+        private final long tradesCoalesced;
+        private final int pendingSymbols;
+        private final long flushes;
+        private final long rowsWritten;
+        private final long lastFlushDurationMs;
+        private final Instant lastFlushAt;
+
+        public BufferStats(long tradesReceived, long tradesCoalesced, int pendingSymbols,
+                           long flushes, long rowsWritten, long lastFlushDurationMs, Instant lastFlushAt) {
+            this.tradesReceived = tradesReceived;
+            this.tradesCoalesced = tradesCoalesced;
+            this.pendingSymbols = pendingSymbols;
+            this.flushes = flushes;
+            this.rowsWritten = rowsWritten;
+            this.lastFlushDurationMs = lastFlushDurationMs;
+            this.lastFlushAt = lastFlushAt;
+        }
+
+        // Getters
+        public long getTradesReceived() { return tradesReceived; }
+        public long getTradesCoalesced() { return tradesCoalesced; }
+        public int getPendingSymbols() { return pendingSymbols; }
+        public long getFlushes() { return flushes; }
+        public long getRowsWritten() { return rowsWritten; }
+        public long getLastFlushDurationMs() { return lastFlushDurationMs; }
+        public Instant getLastFlushAt() { return lastFlushAt; }
+    }
+}
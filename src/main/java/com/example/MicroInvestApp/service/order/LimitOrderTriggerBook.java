@@ -0,0 +1,376 @@
+package com.example.MicroInvestApp.service.order;
+
+import com.example.MicroInvestApp.domain.enums.OrderSide;
+import com.example.MicroInvestApp.domain.enums.OrderType;
+import com.example.MicroInvestApp.domain.orders.Order;
+import com.example.MicroInvestApp.events.ClusterMembershipChangedEvent;
+import com.example.MicroInvestApp.repositories.orders.OrderRepository;
+import com.example.MicroInvestApp.service.cluster.ClusterCoordinator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory book of resting LIMIT orders, one per symbol. Buy limits sit in a price-descending map and sell
+ * limits in a price-ascending one, so a price update only looks at the head of each side: buys priced at or
+ * above the new price and sells priced at or below it are popped level by level, O(log n + k) for k triggered
+ * orders and O(1) for symbols without resting orders. Orders at one price keep their arrival order.
+ * STOP_LIMIT orders whose stop has been reached rest here at their limit too, keeping their order type.
+ * Triggered orders go to the {@link TriggeredOrderDispatcher}, which executes them in batches once the price
+ * update commits.
+ * Price updates for a symbol only reach the node that owns it, so each node books only the orders of its own
+ * symbols: the book is reconciled against the database at startup, on every membership change and, in a cluster,
+ * every sync interval, which picks up orders placed or cancelled on other nodes.
+ */
+@Service
+public class LimitOrderTriggerBook {
+
+    private static final Logger logger = LoggerFactory.getLogger(LimitOrderTriggerBook.class);
+
+    private final OrderRepository orderRepository;
+    private final TriggeredOrderDispatcher dispatcher;
+    private final ClusterCoordinator clusterCoordinator;
+
+    @Value("${orders.trigger-book.enabled:true}")
+    private boolean enabled;
+
+    private final Map<String, SymbolBook> books = new ConcurrentHashMap<>();
+    private final Map<Long, RestingOrder> resting = new ConcurrentHashMap<>();
+
+    // Statistics
+    private final AtomicLong ticksEvaluated = new AtomicLong(0);
+    private final AtomicLong ordersTriggered = new AtomicLong(0);
+    private volatile int lastRebuildCount;
+
+    @Autowired
+    public LimitOrderTriggerBook(OrderRepository orderRepository,
+                                 TriggeredOrderDispatcher dispatcher,
+                                 ClusterCoordinator clusterCoordinator) {
+        this.orderRepository = orderRepository;
+        this.dispatcher = dispatcher;
+        this.clusterCoordinator = clusterCoordinator;
+    }
+
+    /**
+     * Load the working LIMIT orders of this node's symbols once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        int loaded = reconcile();
+        logger.info("Limit order trigger book rebuilt with {} resting orders across {} symbols in {}ms",
+                loaded, books.size(), System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Take on the orders of symbols this node now owns and drop those it gave up
+     */
+    @Async("marketDataTaskExecutor")
+    @EventListener(ClusterMembershipChangedEvent.class)
+    @Transactional(readOnly = true)
+    public void onMembershipChanged(ClusterMembershipChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        int loaded = reconcile();
+        logger.info("Limit order trigger book reconciled for {} live nodes: {} resting orders across {} symbols",
+                event.getLiveNodes().size(), loaded, books.size());
+    }
+
+    /**
+     * Pick up orders placed, and drop orders cancelled or filled, on other nodes for the symbols this node owns
+     */
+    @Scheduled(fixedDelayString = "${orders.trigger-book.sync-ms:5000}")
+    @Transactional(readOnly = true)
+    public void syncOwnedOrders() {
+        if (!enabled || !clusterCoordinator.isClustered()) {
+            return;
+        }
+        reconcile();
+    }
+
+    /**
+     * Rest a working LIMIT order in the book; inside a transaction this waits for the commit, so an order
+     * that is rolled back never rests and a triggered order is always visible to its executor. An order for a
+     * symbol another node owns is left to that node's next sync.
+     */
+    public void add(Order order) {
+        if (!enabled || !isBookable(order) || !clusterCoordinator.ownsSymbol(order.getSecurityStock().getSymbol())) {
+            return;
+        }
+        RestingOrder entry = snapshot(order);
+        Runnable insert = () -> {
+            insert(entry);
+            dispatcher.flush();
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    insert.run();
+                }
+            });
+        } else {
+            insert.run();
+        }
+    }
+
+    /**
+     * Take an order out of the book (filled, cancelled, expired or failed); unknown ids are ignored
+     */
+    public void remove(Long orderId) {
+        RestingOrder entry = orderId != null ? resting.remove(orderId) : null;
+        if (entry == null) {
+            return;
+        }
+        SymbolBook book = books.get(entry.symbol);
+        if (book != null) {
+            synchronized (book) {
+                book.unlink(entry);
+            }
+        }
+    }
+
+    /**
+     * Evaluate a price update for the symbol against its resting orders
+     */
+    public void onPrice(String symbol, BigDecimal price) {
+        if (!enabled || symbol == null || price == null || price.signum() <= 0) {
+            return;
+        }
+        SymbolBook book = books.get(symbol);
+        if (book == null) {
+            return;
+        }
+        ticksEvaluated.incrementAndGet();
+
+        int fired;
+        synchronized (book) {
+            book.lastPrice = price;
+            fired = book.popTriggered(price);
+        }
+        if (fired > 0) {
+            dispatcher.dispatch();
+        }
+    }
+
+    public boolean contains(Long orderId) {
+        return resting.containsKey(orderId);
+    }
+
+    public TriggerBookStats getStats() {
+        int buys = 0;
+        int sells = 0;
+        for (RestingOrder entry : resting.values()) {
+            if (entry.side == OrderSide.BUY) {
+                buys++;
+            } else {
+                sells++;
+            }
+        }
+        return new TriggerBookStats(enabled, books.size(), buys, sells, dispatcher.getAwaitingDispatch(),
+                lastRebuildCount, ticksEvaluated.get(), ordersTriggered.get(), dispatcher.getBatchesPublished());
+    }
+
+    /**
+     * Make the book hold exactly the working LIMIT orders of owned symbols; returns how many it holds.
+     * Only orders resting before the read are dropped, so one added by a commit during the read is kept.
+     */
+    private synchronized int reconcile() {
+        Set<Long> before = new HashSet<>(resting.keySet());
+        List<Order> orders = orderRepository.findActiveOrdersByTypes(List.of(OrderType.LIMIT, OrderType.STOP_LIMIT));
+
+        Set<Long> owned = new HashSet<>();
+        for (Order order : orders) {
+            if (isBookable(order) && clusterCoordinator.ownsSymbol(order.getSecurityStock().getSymbol())) {
+                owned.add(order.getOrderId());
+                if (!resting.containsKey(order.getOrderId())) {
+                    insert(snapshot(order));
+                }
+            }
+        }
+        for (Long orderId : before) {
+            if (!owned.contains(orderId)) {
+                remove(orderId);
+            }
+        }
+        for (SymbolBook book : books.values()) {
+            if (!clusterCoordinator.ownsSymbol(book.symbol)) {
+                // Another node sees this symbol's prices now; a last price kept here would go stale
+                synchronized (book) {
+                    book.lastPrice = null;
+                }
+            }
+        }
+
+        lastRebuildCount = owned.size();
+        dispatcher.flush();
+        return owned.size();
+    }
+
+    // Limit orders, and stop-limit orders whose stop has been reached
+    private boolean isBookable(Order order) {
+        boolean limitPriced = order.getOrderType() == OrderType.LIMIT
+                || (order.getOrderType() == OrderType.STOP_LIMIT && order.getStopTriggeredAt() != null);
+        return limitPriced && order.isActive() && order.getOrderId() != null
+                && order.getOrderPrice() != null && order.getOrderSide() != null;
+    }
+
+    private RestingOrder snapshot(Order order) {
+        return new RestingOrder(order.getOrderId(), order.getSecurityStock().getSymbol(), order.getOrderSide(),
+                order.getOrderPrice(), order.getSecurityStock().getCurrentPrice());
+    }
+
+    private void insert(RestingOrder entry) {
+        if (resting.putIfAbsent(entry.orderId, entry) != null) {
+            return;
+        }
+        SymbolBook book = books.computeIfAbsent(entry.symbol, SymbolBook::new);
+        synchronized (book) {
+            book.link(entry);
+            // A limit that is already marketable should not wait for the next tick
+            BigDecimal reference = book.lastPrice != null ? book.lastPrice : entry.referencePrice;
+            if (reference != null && reference.signum() > 0) {
+                book.popTriggered(reference);
+            }
+        }
+    }
+
+    /**
+     * Both sides of one symbol's book; guarded by its own monitor
+     */
+    private final class SymbolBook {
+        private final String symbol;
+        private final TreeMap<BigDecimal, LinkedHashSet<Long>> buys = new TreeMap<>(Collections.reverseOrder());
+        private final TreeMap<BigDecimal, LinkedHashSet<Long>> sells = new TreeMap<>();
+        private BigDecimal lastPrice;
+
+        SymbolBook(String symbol) {
+            this.symbol = symbol;
+        }
+
+        void link(RestingOrder entry) {
+            side(entry.side).computeIfAbsent(entry.price, price -> new LinkedHashSet<>()).add(entry.orderId);
+        }
+
+        void unlink(RestingOrder entry) {
+            TreeMap<BigDecimal, LinkedHashSet<Long>> levels = side(entry.side);
+            LinkedHashSet<Long> level = levels.get(entry.price);
+            if (level != null && level.remove(entry.orderId) && level.isEmpty()) {
+                levels.remove(entry.price);
+            }
+        }
+
+        /**
+         * Pop buys priced at or above and sells priced at or below the given price
+         */
+        int popTriggered(BigDecimal price) {
+            return popWhile(buys, price, 1) + popWhile(sells, price, -1);
+        }
+
+        private int popWhile(TreeMap<BigDecimal, LinkedHashSet<Long>> levels, BigDecimal price, int direction) {
+            int fired = 0;
+            while (!levels.isEmpty() && levels.firstKey().compareTo(price) * direction >= 0) {
+                Iterator<Long> ids = levels.pollFirstEntry().getValue().iterator();
+                while (ids.hasNext()) {
+                    Long orderId = ids.next();
+                    if (resting.remove(orderId) != null) {
+                        dispatcher.enqueue(orderId, price);
+                        fired++;
+                    }
+                }
+            }
+            if (fired > 0) {
+                ordersTriggered.addAndGet(fired);
+                logger.debug("{} limit orders triggered for {} at ${}", fired, symbol, price);
+            }
+            return fired;
+        }
+
+        private TreeMap<BigDecimal, LinkedHashSet<Long>> side(OrderSide side) {
+            return side == OrderSide.BUY ? buys : sells;
+        }
+    }
+
+    private static final class RestingOrder {
+        private final Long orderId;
+        private final String symbol;
+        private final OrderSide side;
+        private final BigDecimal price;
+        private final BigDecimal referencePrice;
+
+        RestingOrder(Long orderId, String symbol, OrderSide side, BigDecimal price, BigDecimal referencePrice) {
+            this.orderId = orderId;
+            this.symbol = symbol;
+            this.side = side;
+            this.price = price;
+            this.referencePrice = referencePrice;
+        }
+    }
+
+    /**
+     * Trigger book statistics
+     */
+    public static class TriggerBookStats {
+        private final boolean enabled;
+        private final int symbols;
+        private final int restingBuys;
+        private final int restingSells;
+        private final int awaitingDispatch;
+        private final int lastRebuildCount;
+        private final long ticksEvaluated;
+        private final long ordersTriggered;
+        private final long batchesPublished;
+
+        public TriggerBookStats(boolean enabled, int symbols, int restingBuys, int restingSells,
+                                int awaitingDispatch, int lastRebuildCount, long ticksEvaluated,
+                                long ordersTriggered, long batchesPublished) {
+            this.enabled = enabled;
+            this.symbols = symbols;
+            this.restingBuys = restingBuys;
+            this.restingSells = restingSells;
+            this.awaitingDispatch = awaitingDispatch;
+            this.lastRebuildCount = lastRebuildCount;
+            this.ticksEvaluated = ticksEvaluated;
+            this.ordersTriggered = ordersTriggered;
+            this.batchesPublished = batchesPublished;
+        }
+
+        // Getters
+        public boolean isEnabled() { return enabled; }
+        public int getSymbols() { return symbols; }
+        public int getRestingBuys() { return restingBuys; }
+        public int getRestingSells() { return restingSells; }
+        public int getAwaitingDispatch() { return awaitingDispatch; }
+        public int getLastRebuildCount() { return lastRebuildCount; }
+        public long getTicksEvaluated() { return ticksEvaluated; }
+        public long getOrdersTriggered() { return ordersTriggered; }
+        public long getBatchesPublished() { return batchesPublished; }
+    }
+}
@@ -0,0 +1,365 @@
+package com.example.MicroInvestApp.service.order;
+
+import com.example.MicroInvestApp.domain.enums.OrderStatus;
+import com.example.MicroInvestApp.domain.orders.Order;
+import com.example.MicroInvestApp.repositories.orders.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Expires working orders at their expiryDate with a hierarchical timing wheel: 60 one-second slots, 60 one-minute
+ * slots, 24 one-hour slots and 366 one-day slots, with anything further out parked until the next day boundary.
+ * Scheduling and cancelling an order are O(1); each second the wheel advances one slot, cascading coarser slots
+ * down as their span begins, and the orders due in that second are cancelled with one bulk UPDATE per batch.
+ * The wheel is loaded from the database at startup and fed by order creation. The UPDATE only touches orders
+ * that are still working, so expiring an order that was filled meanwhile (or by another instance) is a no-op.
+ */
+@Service
+public class OrderExpiryWheel {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderExpiryWheel.class);
+
+    private static final String EXPIRY_REASON = "Order expired";
+    private static final int[] SLOTS = { 60, 60, 24, 366 };
+    private static final long[] SLOT_SECONDS = { 1, 60, 3_600, 86_400 };
+    private static final long RETRY_DELAY_SECONDS = 5;
+
+    private final OrderRepository orderRepository;
+    private final LimitOrderTriggerBook limitOrderTriggerBook;
+    private final StopOrderTriggerEngine stopOrderTriggerEngine;
+    private final Clock clock;
+
+    @Value("${orders.expiry.enabled:true}")
+    private boolean enabled;
+
+    @Value("${orders.expiry.cancel-batch-size:500}")
+    private int cancelBatchSize;
+
+    // Wheel state, guarded by this
+    private final Slot[][] wheels = new Slot[SLOTS.length][];
+    private final Slot overflow = new Slot();
+    private final Slot due = new Slot();
+    private final Map<Long, Long> deadlines = new HashMap<>();
+    private long currentSecond = -1;
+
+    // Statistics
+    private final AtomicLong ordersExpired = new AtomicLong(0);
+    private final AtomicLong bulkUpdates = new AtomicLong(0);
+    private final AtomicLong failedUpdates = new AtomicLong(0);
+    private volatile int lastRebuildCount;
+
+    @Autowired
+    public OrderExpiryWheel(OrderRepository orderRepository,
+                            LimitOrderTriggerBook limitOrderTriggerBook,
+                            StopOrderTriggerEngine stopOrderTriggerEngine) {
+        this(orderRepository, limitOrderTriggerBook, stopOrderTriggerEngine, Clock.systemDefaultZone());
+    }
+
+    OrderExpiryWheel(OrderRepository orderRepository, LimitOrderTriggerBook limitOrderTriggerBook,
+                     StopOrderTriggerEngine stopOrderTriggerEngine, Clock clock) {
+        this.orderRepository = orderRepository;
+        this.limitOrderTriggerBook = limitOrderTriggerBook;
+        this.stopOrderTriggerEngine = stopOrderTriggerEngine;
+        this.clock = clock;
+        for (int level = 0; level < SLOTS.length; level++) {
+            wheels[level] = new Slot[SLOTS[level]];
+            for (int slot = 0; slot < SLOTS[level]; slot++) {
+                wheels[level][slot] = new Slot();
+            }
+        }
+    }
+
+    /**
+     * Load every working order with an expiry date once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        List<Object[]> expiries = orderRepository.findActiveOrderExpiries();
+
+        synchronized (this) {
+            for (Slot[] level : wheels) {
+                for (Slot slot : level) {
+                    slot.clear();
+                }
+            }
+            overflow.clear();
+            due.clear();
+            deadlines.clear();
+            currentSecond = clock.instant().getEpochSecond();
+
+            for (Object[] row : expiries) {
+                insert((Long) row[0], toEpochSecond((LocalDateTime) row[1]));
+            }
+        }
+        lastRebuildCount = expiries.size();
+        logger.info("Order expiry wheel loaded {} orders in {}ms", expiries.size(), System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Schedule a working order's expiry; inside a transaction this waits for the commit
+     */
+    public void schedule(Order order) {
+        if (!enabled || order.getOrderId() == null || order.getExpiryDate() == null || !order.isActive()) {
+            return;
+        }
+        long orderId = order.getOrderId();
+        long deadline = toEpochSecond(order.getExpiryDate());
+        Runnable insert = () -> {
+            synchronized (this) {
+                insert(orderId, deadline);
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    insert.run();
+                }
+            });
+        } else {
+            insert.run();
+        }
+    }
+
+    /**
+     * Forget an order that stopped working; its slot entry is skipped when the slot comes due
+     */
+    public synchronized void remove(Long orderId) {
+        if (orderId != null) {
+            deadlines.remove(orderId);
+        }
+    }
+
+    /**
+     * Advance the wheel to the current second and cancel everything that came due
+     */
+    @Scheduled(fixedRate = 1000)
+    public void tick() {
+        if (!enabled) {
+            return;
+        }
+        long now = clock.instant().getEpochSecond();
+        List<Long> expiring = new ArrayList<>();
+
+        synchronized (this) {
+            if (currentSecond < 0) {
+                return;
+            }
+            while (currentSecond < now) {
+                currentSecond++;
+                // Coarse slots first, so their orders can trickle all the way down within this second
+                for (int level = SLOTS.length - 1; level > 0; level--) {
+                    if (currentSecond % SLOT_SECONDS[level] == 0) {
+                        cascade(wheels[level][slotIndex(level, currentSecond)]);
+                        if (level == SLOTS.length - 1) {
+                            cascade(overflow);
+                        }
+                    }
+                }
+                cascade(wheels[0][slotIndex(0, currentSecond)]);
+            }
+
+            for (int i = 0; i < due.size; i++) {
+                long orderId = due.ids[i];
+                if (deadlines.remove(orderId) != null) {
+                    expiring.add(orderId);
+                }
+            }
+            due.clear();
+        }
+
+        if (!expiring.isEmpty()) {
+            cancel(expiring);
+        }
+    }
+
+    /**
+     * Cancel every working order already past its expiry date, for catching up by hand
+     */
+    public int sweepExpired() {
+        List<Long> expired = orderRepository.findExpiredOrderIds(LocalDateTime.now(clock));
+        synchronized (this) {
+            for (Long orderId : expired) {
+                deadlines.remove(orderId);
+            }
+        }
+        return cancel(expired);
+    }
+
+    public ExpiryWheelStats getStats() {
+        int scheduled;
+        int parked;
+        long wheelSecond;
+        synchronized (this) {
+            scheduled = deadlines.size();
+            parked = overflow.size;
+            wheelSecond = currentSecond;
+        }
+        return new ExpiryWheelStats(enabled, scheduled, parked, lastRebuildCount, ordersExpired.get(),
+                bulkUpdates.get(), failedUpdates.get(), wheelSecond >= 0 ? Instant.ofEpochSecond(wheelSecond) : null);
+    }
+
+    private void insert(long orderId, long deadline) {
+        if (currentSecond < 0) {
+            currentSecond = clock.instant().getEpochSecond();
+        }
+        deadlines.put(orderId, deadline);
+        place(orderId, deadline);
+    }
+
+    /**
+     * Put an order in the finest level whose span covers its remaining time
+     */
+    private void place(long orderId, long deadline) {
+        long remaining = deadline - currentSecond;
+        if (remaining <= 0) {
+            due.add(orderId);
+            return;
+        }
+        for (int level = 0; level < SLOTS.length; level++) {
+            if (remaining < SLOT_SECONDS[level] * SLOTS[level]) {
+                wheels[level][slotIndex(level, deadline)].add(orderId);
+                return;
+            }
+        }
+        overflow.add(orderId);
+    }
+
+    private void cascade(Slot slot) {
+        if (slot.size == 0) {
+            return;
+        }
+        long[] orderIds = Arrays.copyOf(slot.ids, slot.size);
+        slot.clear();
+        for (long orderId : orderIds) {
+            Long deadline = deadlines.get(orderId);
+            if (deadline != null) {
+                place(orderId, deadline);
+            }
+        }
+    }
+
+    private int cancel(List<Long> orderIds) {
+        int cancelled = 0;
+        for (int from = 0; from < orderIds.size(); from += cancelBatchSize) {
+            List<Long> batch = orderIds.subList(from, Math.min(from + cancelBatchSize, orderIds.size()));
+            try {
+                int updated = orderRepository.cancelActiveOrders(batch, OrderStatus.CANCELLED, EXPIRY_REASON,
+                        LocalDateTime.now(clock), clock.instant());
+                bulkUpdates.incrementAndGet();
+                cancelled += updated;
+                for (Long orderId : batch) {
+                    limitOrderTriggerBook.remove(orderId);
+                    stopOrderTriggerEngine.remove(orderId);
+                }
+            } catch (Exception e) {
+                failedUpdates.incrementAndGet();
+                logger.error("Failed to expire {} orders, retrying in {}s: {}", batch.size(), RETRY_DELAY_SECONDS, e.getMessage());
+                synchronized (this) {
+                    long retryAt = Math.max(currentSecond, clock.instant().getEpochSecond()) + RETRY_DELAY_SECONDS;
+                    for (Long orderId : batch) {
+                        insert(orderId, retryAt);
+                    }
+                }
+            }
+        }
+        ordersExpired.addAndGet(cancelled);
+        if (cancelled > 0) {
+            logger.info("Expired {} orders", cancelled);
+        }
+        return cancelled;
+    }
+
+    private static int slotIndex(int level, long second) {
+        return (int) ((second / SLOT_SECONDS[level]) % SLOTS[level]);
+    }
+
+    /**
+     * Expiry second of a date, rounded up so an order never expires before its expiry date
+     */
+    private long toEpochSecond(LocalDateTime dateTime) {
+        Instant instant = dateTime.atZone(clock.getZone()).toInstant();
+        return instant.getNano() > 0 ? instant.getEpochSecond() + 1 : instant.getEpochSecond();
+    }
+
+    /**
+     * Growable array of order ids in one wheel slot
+     */
+    private static final class Slot {
+        private long[] ids = new long[4];
+        private int size;
+
+        void add(long orderId) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = orderId;
+        }
+
+        void clear() {
+            size = 0;
+            if (ids.length > 64) {
+                ids = new long[4];
+            }
+        }
+    }
+
+    /**
+     * Expiry wheel statistics
+     */
+    public static class ExpiryWheelStats {
+        private final boolean enabled;
+        private final int scheduledOrders;
+        private final int parkedBeyondWheel;
+        private final int lastRebuildCount;
+        private final long ordersExpired;
+        private final long bulkUpdates;
+        private final long failedUpdates;
+        private final Instant wheelTime;
+
+        public ExpiryWheelStats(boolean enabled, int scheduledOrders, int parkedBeyondWheel, int lastRebuildCount,
+                                long ordersExpired, long bulkUpdates, long failedUpdates, Instant wheelTime) {
+            this.enabled = enabled;
+            this.scheduledOrders = scheduledOrders;
+            this.parkedBeyondWheel = parkedBeyondWheel;
+            this.lastRebuildCount = lastRebuildCount;
+            this.ordersExpired = ordersExpired;
+            this.bulkUpdates = bulkUpdates;
+            this.failedUpdates = failedUpdates;
+            this.wheelTime = wheelTime;
+        }
+
+        // Getters
+        public boolean isEnabled() { return enabled; }
+        public int getScheduledOrders() { return scheduledOrders; }
+        public int getParkedBeyondWheel() { return parkedBeyondWheel; }
+        public int getLastRebuildCount() { return lastRebuildCount; }
+        public long getOrdersExpired() { return ordersExpired; }
+        public long getBulkUpdates() { return bulkUpdates; }
+        public long getFailedUpdates() { return failedUpdates; }
+        public Instant getWheelTime() { return wheelTime; }
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.MicroInvestApp.service.order;
+
+import com.example.MicroInvestApp.config.BoundedTtlCache;
+import com.example.MicroInvestApp.dto.orders.OrderResponseDTO;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recently placed orders by (portfolio, client order id), so a retried submission gets the original response
+ * without running the order pipeline again. Bounded LRU with a TTL in front of the unique index on
+ * (portfolio_id, client_order_id); a key is reserved while its order is being placed so a concurrent retry is
+ * turned away instead of racing the first attempt to the index.
+ */
+@Service
+public class OrderIdempotencyCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderIdempotencyCache.class);
+
+    @Value("${orders.idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${orders.idempotency.ttl-minutes:1440}")
+    private long ttlMinutes;
+
+    private BoundedTtlCache cache;
+    private final Set<Key> inFlight = ConcurrentHashMap.newKeySet();
+
+    // Statistics
+    private final AtomicLong cacheHits = new AtomicLong(0);
+    private final AtomicLong databaseHits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+    private final AtomicLong concurrentRetries = new AtomicLong(0);
+
+    @PostConstruct
+    public void init() {
+        // Never refreshed in the background: entries are only written by order placement
+        cache = new BoundedTtlCache("orderIdempotency", maxEntries, Duration.ofMinutes(ttlMinutes), 1.0,
+                false, ZoneId.systemDefault(), Runnable::run);
+        logger.info("Order idempotency cache configured - {} entries, TTL {}m", maxEntries, ttlMinutes);
+    }
+
+    /**
+     * The response already returned for this key, or null if it is not cached
+     */
+    public OrderResponseDTO get(Long portfolioId, String clientOrderId) {
+        Cache.ValueWrapper cached = cache.get(new Key(portfolioId, clientOrderId));
+        if (cached == null) {
+            return null;
+        }
+        cacheHits.incrementAndGet();
+        return (OrderResponseDTO) cached.get();
+    }
+
+    /**
+     * Cache an order found by its key in the database, after a cache miss
+     */
+    public void recordDatabaseHit(Long portfolioId, String clientOrderId, OrderResponseDTO order) {
+        databaseHits.incrementAndGet();
+        cache.put(new Key(portfolioId, clientOrderId), order);
+    }
+
+    /**
+     * Count a key found neither in the cache nor in the database
+     */
+    public void recordMiss() {
+        misses.incrementAndGet();
+    }
+
+    /**
+     * Claim a new key for the order about to be placed; false if another request is placing it right now.
+     * Inside a transaction the claim is released when the transaction completes.
+     */
+    public boolean reserve(Long portfolioId, String clientOrderId) {
+        if (!claim(portfolioId, clientOrderId)) {
+            return false;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    release(portfolioId, clientOrderId);
+                }
+            });
+        } else {
+            release(portfolioId, clientOrderId);
+        }
+        return true;
+    }
+
+    /**
+     * Claim a new key until it is released, for placements that span several transactions such as a basket;
+     * false if another request is placing it right now
+     */
+    public boolean claim(Long portfolioId, String clientOrderId) {
+        if (!inFlight.add(new Key(portfolioId, clientOrderId))) {
+            concurrentRetries.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    public void release(Long portfolioId, String clientOrderId) {
+        inFlight.remove(new Key(portfolioId, clientOrderId));
+    }
+
+    /**
+     * Remember the response for a newly placed order; inside a transaction this waits for the commit, so a
+     * rolled-back order is never replayed
+     */
+    public void put(Long portfolioId, String clientOrderId, OrderResponseDTO order) {
+        Key key = new Key(portfolioId, clientOrderId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.put(key, order);
+                }
+            });
+        } else {
+            cache.put(key, order);
+        }
+    }
+
+    /**
+     * Periodically drop expired entries so old keys do not hold memory until they are displaced
+     */
+    @Scheduled(fixedDelayString = "${orders.idempotency.purge-interval-ms:300000}")
+    public void purgeExpiredEntries() {
+        int removed = cache.purgeExpired();
+        if (removed > 0) {
+            logger.debug("Purged {} expired order idempotency entries", removed);
+        }
+    }
+
+    public IdempotencyStats getStats() {
+        BoundedTtlCache.CacheStats cacheStats = cache.getStats();
+        return new IdempotencyStats(cacheStats.getSize(), cacheStats.getMaxEntries(), cacheStats.getTtlSeconds(),
+                cacheHits.get(), databaseHits.get(), misses.get(), concurrentRetries.get(), inFlight.size(),
+                cacheStats.getEvictions());
+    }
+
+    private record Key(Long portfolioId, String clientOrderId) { }
+
+    /**
+     * Dedupe hit and miss counters
+     */
+    public static class IdempotencyStats {
+        private final int size;
+        private final int maxEntries;
+        private final long ttlSeconds;
+        private final long cacheHits;
+        private final long databaseHits;
+        private final long misses;
+        private final long concurrentRetries;
+        private final int inFlight;
+        private final long evictions;
+
+        public IdempotencyStats(int size, int maxEntries, long ttlSeconds, long cacheHits, long databaseHits,
+                                long misses, long concurrentRetries, int inFlight, long evictions) {
+            this.size = size;
+            this.maxEntries = maxEntries;
+            this.ttlSeconds = ttlSeconds;
+            this.cacheHits = cacheHits;
+            this.databaseHits = databaseHits;
+            this.misses = misses;
+            this.concurrentRetries = concurrentRetries;
+            this.inFlight = inFlight;
+            this.evictions = evictions;
+        }
+
+        // Getters
+        public int getSize() { return size; }
+        public int getMaxEntries() { return maxEntries; }
+        public long getTtlSeconds() { return ttlSeconds; }
+        public long getCacheHits() { return cacheHits; }
+        public long getDatabaseHits() { return databaseHits; }
+        public long getMisses() { return misses; }
+        public long getConcurrentRetries() { return concurrentRetries; }
+        public int getInFlight() { return inFlight; }
+        public long getEvictions() { return evictions; }
+
+        public double getHitRate() {
+            long total = cacheHits + databaseHits + misses;
+            return total > 0 ? (double) (cacheHits + databaseHits) / total * 100 : 0.0;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.example.MicroInvestApp.service.order;
 
 import com.example.MicroInvestApp.domain.enums.OrderSide;
 import com.example.MicroInvestApp.domain.enums.OrderStatus;
+import com.example.MicroInvestApp.dto.orders.BatchOrderResponseDTO;
 import com.example.MicroInvestApp.dto.orders.OrderRequestDTO;
 import com.example.MicroInvestApp.dto.orders.OrderResponseDTO;
 import org.springframework.data.domain.Page;
@@ -15,6 +16,7 @@ import java.util.Optional;
 public interface OrderService {
     // Order Management
     OrderResponseDTO createOrder(OrderRequestDTO orderRequest);
+    BatchOrderResponseDTO createOrders(List<OrderRequestDTO> orderRequests, boolean allOrNothing);
     OrderResponseDTO executeOrder(Long orderId);
     OrderResponseDTO cancelOrder(Long orderId, String reason);
     Optional<OrderResponseDTO> getOrderById(Long orderId);
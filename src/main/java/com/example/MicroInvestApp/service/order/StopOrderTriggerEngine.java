@@ -0,0 +1,656 @@
+package com.example.MicroInvestApp.service.order;
+
+import com.example.MicroInvestApp.domain.enums.OrderSide;
+import com.example.MicroInvestApp.domain.enums.OrderType;
+import com.example.MicroInvestApp.domain.orders.Order;
+import com.example.MicroInvestApp.events.ClusterMembershipChangedEvent;
+import com.example.MicroInvestApp.repositories.orders.OrderRepository;
+import com.example.MicroInvestApp.service.cluster.ClusterCoordinator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory trigger structures for STOP_LOSS, STOP_LIMIT and TRAILING_STOP orders, one set per symbol.
+ * Fixed stops are keyed on stop price - sell stops highest first, buy stops lowest first - and pop exactly like
+ * the limit book. Trailing stops are grouped by watermark (the high since placement for sells, the low for buys):
+ * a price beyond a watermark lifts every group it passes into one group at the new price, smaller groups merged
+ * into larger, and each group is indexed by the stop of its tightest trail. A tick therefore costs O(log n + k)
+ * amortized for k triggered orders, with no per-order watermark updates and no reads of the Orders table.
+ * Watermarks live in memory only; after a restart a trailing stop resumes from the better of its stored stop
+ * and the current price. Triggered orders go to the {@link TriggeredOrderDispatcher}.
+ * As with the limit book, each node arms only the stops of symbols it owns and reconciles them against the
+ * database at startup, on membership changes and every sync interval; a symbol taking over resumes its trailing
+ * stops the same way as after a restart.
+ */
+@Service
+public class StopOrderTriggerEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(StopOrderTriggerEngine.class);
+
+    private static final int SCALE = 4;
+    private static final BigDecimal HUNDRED = new BigDecimal("100");
+
+    private final OrderRepository orderRepository;
+    private final TriggeredOrderDispatcher dispatcher;
+    private final ClusterCoordinator clusterCoordinator;
+
+    @Value("${orders.stop-engine.enabled:true}")
+    private boolean enabled;
+
+    private final Map<String, SymbolStops> books = new ConcurrentHashMap<>();
+    private final Map<Long, StopEntry> resting = new ConcurrentHashMap<>();
+
+    // Statistics
+    private final AtomicLong ticksEvaluated = new AtomicLong(0);
+    private final AtomicLong ordersTriggered = new AtomicLong(0);
+    private final AtomicLong watermarkLifts = new AtomicLong(0);
+    private volatile int lastRebuildCount;
+
+    @Autowired
+    public StopOrderTriggerEngine(OrderRepository orderRepository,
+                                  TriggeredOrderDispatcher dispatcher,
+                                  ClusterCoordinator clusterCoordinator) {
+        this.orderRepository = orderRepository;
+        this.dispatcher = dispatcher;
+        this.clusterCoordinator = clusterCoordinator;
+    }
+
+    /**
+     * Load the working stop orders of this node's symbols once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        int loaded = reconcile();
+        logger.info("Stop order engine rebuilt with {} working stops across {} symbols in {}ms",
+                loaded, books.size(), System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Arm the stops of symbols this node now owns and disarm those it gave up
+     */
+    @Async("marketDataTaskExecutor")
+    @EventListener(ClusterMembershipChangedEvent.class)
+    @Transactional(readOnly = true)
+    public void onMembershipChanged(ClusterMembershipChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        int loaded = reconcile();
+        logger.info("Stop order engine reconciled for {} live nodes: {} working stops across {} symbols",
+                event.getLiveNodes().size(), loaded, books.size());
+    }
+
+    /**
+     * Pick up stops placed, and drop stops cancelled or filled, on other nodes for the symbols this node owns
+     */
+    @Scheduled(fixedDelayString = "${orders.trigger-book.sync-ms:5000}")
+    @Transactional(readOnly = true)
+    public void syncOwnedOrders() {
+        if (!enabled || !clusterCoordinator.isClustered()) {
+            return;
+        }
+        reconcile();
+    }
+
+    /**
+     * Arm a working stop order; inside a transaction this waits for the commit. A stop for a symbol another
+     * node owns is left to that node's next sync.
+     */
+    public void add(Order order) {
+        if (!enabled || !isBookable(order) || !clusterCoordinator.ownsSymbol(order.getSecurityStock().getSymbol())) {
+            return;
+        }
+        StopEntry entry = snapshot(order);
+        Runnable insert = () -> {
+            insert(entry);
+            dispatcher.flush();
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    insert.run();
+                }
+            });
+        } else {
+            insert.run();
+        }
+    }
+
+    /**
+     * Disarm an order (filled, cancelled, expired or failed); unknown ids are ignored
+     */
+    public void remove(Long orderId) {
+        StopEntry entry = orderId != null ? resting.remove(orderId) : null;
+        if (entry == null) {
+            return;
+        }
+        SymbolStops book = books.get(entry.symbol);
+        if (book != null) {
+            synchronized (book) {
+                book.unlink(entry);
+            }
+        }
+    }
+
+    /**
+     * Evaluate a price update for the symbol against its stops, moving trailing watermarks first
+     */
+    public void onPrice(String symbol, BigDecimal price) {
+        if (!enabled || symbol == null || price == null || price.signum() <= 0) {
+            return;
+        }
+        SymbolStops book = books.get(symbol);
+        if (book == null) {
+            return;
+        }
+        ticksEvaluated.incrementAndGet();
+
+        int fired;
+        synchronized (book) {
+            book.lastPrice = price;
+            fired = book.popTriggered(price);
+        }
+        if (fired > 0) {
+            dispatcher.dispatch();
+        }
+    }
+
+    /**
+     * Stop price of a trailing stop whose watermark is the reference price
+     */
+    public static BigDecimal trailingStopPrice(OrderSide side, BigDecimal reference,
+                                               BigDecimal trailAmount, BigDecimal trailPercent) {
+        boolean percent = trailAmount == null;
+        return stopAt(side == OrderSide.SELL, percent, reference, percent ? toFraction(trailPercent) : trailAmount);
+    }
+
+    public StopEngineStats getStats() {
+        int fixed = 0;
+        int trailing = 0;
+        for (StopEntry entry : resting.values()) {
+            if (entry.isTrailing()) {
+                trailing++;
+            } else {
+                fixed++;
+            }
+        }
+        return new StopEngineStats(enabled, books.size(), fixed, trailing, dispatcher.getAwaitingDispatch(),
+                lastRebuildCount, ticksEvaluated.get(), ordersTriggered.get(), watermarkLifts.get());
+    }
+
+    /**
+     * Make the engine hold exactly the working stops of owned symbols; returns how many it holds.
+     * Stops already armed keep their watermarks; only stops armed before the read are dropped.
+     */
+    private synchronized int reconcile() {
+        Set<Long> before = new HashSet<>(resting.keySet());
+        List<Order> orders = orderRepository.findActiveOrdersByTypes(
+                List.of(OrderType.STOP_LOSS, OrderType.STOP_LIMIT, OrderType.TRAILING_STOP));
+
+        Set<Long> owned = new HashSet<>();
+        for (Order order : orders) {
+            if (isBookable(order) && clusterCoordinator.ownsSymbol(order.getSecurityStock().getSymbol())) {
+                owned.add(order.getOrderId());
+                if (!resting.containsKey(order.getOrderId())) {
+                    insert(snapshot(order));
+                }
+            }
+        }
+        for (Long orderId : before) {
+            if (!owned.contains(orderId)) {
+                remove(orderId);
+            }
+        }
+        for (SymbolStops book : books.values()) {
+            if (!clusterCoordinator.ownsSymbol(book.symbol)) {
+                // Another node sees this symbol's prices now; a last price kept here would go stale
+                synchronized (book) {
+                    book.lastPrice = null;
+                }
+            }
+        }
+
+        lastRebuildCount = owned.size();
+        dispatcher.flush();
+        return owned.size();
+    }
+
+    private boolean isBookable(Order order) {
+        if (!order.getOrderType().isStopOrder() || !order.isActive() || order.getOrderId() == null
+                || order.getOrderSide() == null) {
+            return false;
+        }
+        if (order.getStopTriggeredAt() != null) {
+            // A stop-limit past its stop rests in the limit book instead
+            return false;
+        }
+        if (order.getOrderType() == OrderType.TRAILING_STOP) {
+            return order.getTrailAmount() != null || order.getTrailPercent() != null;
+        }
+        return order.getStopPrice() != null;
+    }
+
+    private StopEntry snapshot(Order order) {
+        BigDecimal trail = null;
+        boolean percent = false;
+        if (order.getOrderType() == OrderType.TRAILING_STOP) {
+            percent = order.getTrailAmount() == null;
+            trail = percent ? toFraction(order.getTrailPercent()) : order.getTrailAmount();
+        }
+        return new StopEntry(order.getOrderId(), order.getSecurityStock().getSymbol(), order.getOrderSide(),
+                order.getStopPrice(), trail, percent, order.getSecurityStock().getCurrentPrice());
+    }
+
+    private void insert(StopEntry entry) {
+        if (resting.putIfAbsent(entry.orderId, entry) != null) {
+            return;
+        }
+        SymbolStops book = books.computeIfAbsent(entry.symbol, SymbolStops::new);
+        synchronized (book) {
+            BigDecimal reference = book.lastPrice != null ? book.lastPrice : entry.referencePrice;
+            if (!book.link(entry, reference)) {
+                resting.remove(entry.orderId);
+                logger.warn("Stop order {} for {} has no price to trail from yet, not armed", entry.orderId, entry.symbol);
+                return;
+            }
+            // A stop that is already through the market should not wait for the next tick
+            if (reference != null && reference.signum() > 0) {
+                book.popTriggered(reference);
+            }
+        }
+    }
+
+    private boolean triggered(Long orderId, BigDecimal price) {
+        if (resting.remove(orderId) == null) {
+            return false;
+        }
+        dispatcher.enqueue(orderId, price);
+        ordersTriggered.incrementAndGet();
+        return true;
+    }
+
+    private static BigDecimal toFraction(BigDecimal percent) {
+        return percent.divide(HUNDRED, 8, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal stopAt(boolean sell, boolean percent, BigDecimal watermark, BigDecimal trail) {
+        BigDecimal stop;
+        if (percent) {
+            stop = watermark.multiply(sell ? BigDecimal.ONE.subtract(trail) : BigDecimal.ONE.add(trail));
+        } else {
+            stop = sell ? watermark.subtract(trail) : watermark.add(trail);
+        }
+        return stop.setScale(SCALE, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Watermark implied by a stored trailing stop, the inverse of stopAt
+     */
+    private static BigDecimal watermarkOf(boolean sell, boolean percent, BigDecimal stop, BigDecimal trail) {
+        if (percent) {
+            BigDecimal factor = sell ? BigDecimal.ONE.subtract(trail) : BigDecimal.ONE.add(trail);
+            return stop.divide(factor, SCALE, RoundingMode.HALF_UP);
+        }
+        return sell ? stop.add(trail) : stop.subtract(trail);
+    }
+
+    /**
+     * All stops of one symbol; guarded by its own monitor
+     */
+    private final class SymbolStops {
+        private final String symbol;
+        // Sell stops trigger when the price falls to them, buy stops when it rises to them
+        private final TreeMap<BigDecimal, LinkedHashSet<Long>> sellStops = new TreeMap<>(Collections.reverseOrder());
+        private final TreeMap<BigDecimal, LinkedHashSet<Long>> buyStops = new TreeMap<>();
+        private final TrailingSide sellByAmount = new TrailingSide(true, false);
+        private final TrailingSide sellByPercent = new TrailingSide(true, true);
+        private final TrailingSide buyByAmount = new TrailingSide(false, false);
+        private final TrailingSide buyByPercent = new TrailingSide(false, true);
+        private BigDecimal lastPrice;
+
+        SymbolStops(String symbol) {
+            this.symbol = symbol;
+        }
+
+        boolean link(StopEntry entry, BigDecimal reference) {
+            if (!entry.isTrailing()) {
+                fixed(entry.side).computeIfAbsent(entry.stopPrice, price -> new LinkedHashSet<>()).add(entry.orderId);
+                return true;
+            }
+
+            boolean sell = entry.side == OrderSide.SELL;
+            BigDecimal watermark = entry.stopPrice != null
+                    ? watermarkOf(sell, entry.percent, entry.stopPrice, entry.trail) : null;
+            if (reference != null && reference.signum() > 0
+                    && (watermark == null || (sell ? reference.compareTo(watermark) > 0 : reference.compareTo(watermark) < 0))) {
+                watermark = reference.setScale(SCALE, RoundingMode.HALF_UP);
+            }
+            if (watermark == null) {
+                return false;
+            }
+            trailing(entry).add(entry, watermark);
+            return true;
+        }
+
+        void unlink(StopEntry entry) {
+            if (entry.isTrailing()) {
+                trailing(entry).remove(entry);
+                return;
+            }
+            TreeMap<BigDecimal, LinkedHashSet<Long>> levels = fixed(entry.side);
+            LinkedHashSet<Long> level = levels.get(entry.stopPrice);
+            if (level != null && level.remove(entry.orderId) && level.isEmpty()) {
+                levels.remove(entry.stopPrice);
+            }
+        }
+
+        int popTriggered(BigDecimal price) {
+            int fired = popWhile(sellStops, price, 1) + popWhile(buyStops, price, -1)
+                    + sellByAmount.onPrice(price) + sellByPercent.onPrice(price)
+                    + buyByAmount.onPrice(price) + buyByPercent.onPrice(price);
+            if (fired > 0) {
+                logger.debug("{} stop orders triggered for {} at ${}", fired, symbol, price);
+            }
+            return fired;
+        }
+
+        private int popWhile(TreeMap<BigDecimal, LinkedHashSet<Long>> levels, BigDecimal price, int direction) {
+            int fired = 0;
+            while (!levels.isEmpty() && levels.firstKey().compareTo(price) * direction >= 0) {
+                for (Long orderId : levels.pollFirstEntry().getValue()) {
+                    if (triggered(orderId, price)) {
+                        fired++;
+                    }
+                }
+            }
+            return fired;
+        }
+
+        private TreeMap<BigDecimal, LinkedHashSet<Long>> fixed(OrderSide side) {
+            return side == OrderSide.SELL ? sellStops : buyStops;
+        }
+
+        private TrailingSide trailing(StopEntry entry) {
+            if (entry.side == OrderSide.SELL) {
+                return entry.percent ? sellByPercent : sellByAmount;
+            }
+            return entry.percent ? buyByPercent : buyByAmount;
+        }
+    }
+
+    /**
+     * Trailing stops of one side and one trail kind. Percent and price trails are kept apart because only
+     * within one kind does the order of trails inside a group not depend on the watermark.
+     */
+    private final class TrailingSide {
+        private final boolean sell;
+        private final boolean percent;
+        // Groups by watermark, the first a favorable move lifts at the head
+        private final TreeMap<BigDecimal, TrailGroup> byWatermark;
+        // Groups by the stop of their tightest trail, the first to trigger at the head
+        private final TreeMap<BigDecimal, LinkedHashSet<TrailGroup>> byStop;
+
+        TrailingSide(boolean sell, boolean percent) {
+            this.sell = sell;
+            this.percent = percent;
+            this.byWatermark = sell ? new TreeMap<>() : new TreeMap<>(Collections.reverseOrder());
+            this.byStop = sell ? new TreeMap<>(Collections.reverseOrder()) : new TreeMap<>();
+        }
+
+        void add(StopEntry entry, BigDecimal watermark) {
+            TrailGroup group = byWatermark.get(watermark);
+            if (group == null) {
+                group = new TrailGroup(watermark);
+                byWatermark.put(watermark, group);
+            } else {
+                unindex(group);
+            }
+            group.add(entry);
+            index(group);
+        }
+
+        void remove(StopEntry entry) {
+            TrailGroup group = entry.group;
+            if (group == null) {
+                return;
+            }
+            unindex(group);
+            group.remove(entry);
+            if (group.size == 0) {
+                byWatermark.remove(group.watermark);
+            } else {
+                index(group);
+            }
+        }
+
+        int onPrice(BigDecimal price) {
+            if (byWatermark.isEmpty()) {
+                return 0;
+            }
+
+            // Every watermark the price moved past becomes the price, so those groups collapse into one
+            TrailGroup lifted = null;
+            while (!byWatermark.isEmpty() && isFavorable(price, byWatermark.firstKey())) {
+                TrailGroup group = byWatermark.pollFirstEntry().getValue();
+                unindex(group);
+                lifted = lifted == null ? group : merge(lifted, group);
+                watermarkLifts.incrementAndGet();
+            }
+            if (lifted != null) {
+                BigDecimal watermark = price.setScale(SCALE, RoundingMode.HALF_UP);
+                TrailGroup existing = byWatermark.remove(watermark);
+                if (existing != null) {
+                    unindex(existing);
+                    lifted = merge(lifted, existing);
+                }
+                lifted.watermark = watermark;
+                byWatermark.put(watermark, lifted);
+                index(lifted);
+            }
+
+            int fired = 0;
+            while (!byStop.isEmpty() && isCrossed(byStop.firstKey(), price)) {
+                for (TrailGroup group : byStop.pollFirstEntry().getValue()) {
+                    group.stopKey = null;
+                    fired += group.popTriggered(price);
+                    if (group.size == 0) {
+                        byWatermark.remove(group.watermark);
+                    } else {
+                        index(group);
+                    }
+                }
+            }
+            return fired;
+        }
+
+        private TrailGroup merge(TrailGroup a, TrailGroup b) {
+            if (a.size >= b.size) {
+                a.absorb(b);
+                return a;
+            }
+            b.absorb(a);
+            return b;
+        }
+
+        private void index(TrailGroup group) {
+            group.stopKey = group.stop();
+            byStop.computeIfAbsent(group.stopKey, stop -> new LinkedHashSet<>()).add(group);
+        }
+
+        private void unindex(TrailGroup group) {
+            if (group.stopKey == null) {
+                return;
+            }
+            LinkedHashSet<TrailGroup> groups = byStop.get(group.stopKey);
+            if (groups != null && groups.remove(group) && groups.isEmpty()) {
+                byStop.remove(group.stopKey);
+            }
+            group.stopKey = null;
+        }
+
+        private boolean isFavorable(BigDecimal price, BigDecimal watermark) {
+            return sell ? price.compareTo(watermark) > 0 : price.compareTo(watermark) < 0;
+        }
+
+        private boolean isCrossed(BigDecimal stop, BigDecimal price) {
+            return sell ? price.compareTo(stop) <= 0 : price.compareTo(stop) >= 0;
+        }
+
+        /**
+         * Trailing stops sharing one watermark, tightest trail first
+         */
+        private final class TrailGroup {
+            private BigDecimal watermark;
+            private BigDecimal stopKey;
+            private int size;
+            private final TreeMap<BigDecimal, LinkedHashSet<StopEntry>> trails = new TreeMap<>();
+
+            TrailGroup(BigDecimal watermark) {
+                this.watermark = watermark;
+            }
+
+            void add(StopEntry entry) {
+                trails.computeIfAbsent(entry.trail, trail -> new LinkedHashSet<>()).add(entry);
+                entry.group = this;
+                size++;
+            }
+
+            void remove(StopEntry entry) {
+                LinkedHashSet<StopEntry> level = trails.get(entry.trail);
+                if (level != null && level.remove(entry)) {
+                    if (level.isEmpty()) {
+                        trails.remove(entry.trail);
+                    }
+                    entry.group = null;
+                    size--;
+                }
+            }
+
+            void absorb(TrailGroup other) {
+                for (LinkedHashSet<StopEntry> level : other.trails.values()) {
+                    for (StopEntry entry : level) {
+                        add(entry);
+                    }
+                }
+                other.trails.clear();
+                other.size = 0;
+            }
+
+            BigDecimal stop() {
+                return stopAt(sell, percent, watermark, trails.firstKey());
+            }
+
+            int popTriggered(BigDecimal price) {
+                int fired = 0;
+                while (!trails.isEmpty() && isCrossed(stopAt(sell, percent, watermark, trails.firstKey()), price)) {
+                    Iterator<StopEntry> entries = trails.pollFirstEntry().getValue().iterator();
+                    while (entries.hasNext()) {
+                        StopEntry entry = entries.next();
+                        entry.group = null;
+                        size--;
+                        if (triggered(entry.orderId, price)) {
+                            fired++;
+                        }
+                    }
+                }
+                return fired;
+            }
+        }
+    }
+
+    private static final class StopEntry {
+        private final Long orderId;
+        private final String symbol;
+        private final OrderSide side;
+        private final BigDecimal stopPrice;
+        private final BigDecimal trail;
+        private final boolean percent;
+        private final BigDecimal referencePrice;
+        private TrailingSide.TrailGroup group;
+
+        StopEntry(Long orderId, String symbol, OrderSide side, BigDecimal stopPrice, BigDecimal trail,
+                  boolean percent, BigDecimal referencePrice) {
+            this.orderId = orderId;
+            this.symbol = symbol;
+            this.side = side;
+            this.stopPrice = stopPrice;
+            this.trail = trail;
+            this.percent = percent;
+            this.referencePrice = referencePrice;
+        }
+
+        boolean isTrailing() {
+            return trail != null;
+        }
+    }
+
+    /**
+     * Stop engine statistics
+     */
+    public static class StopEngineStats {
+        private final boolean enabled;
+        private final int symbols;
+        private final int fixedStops;
+        private final int trailingStops;
+        private final int awaitingDispatch;
+        private final int lastRebuildCount;
+        private final long ticksEvaluated;
+        private final long ordersTriggered;
+        private final long watermarkLifts;
+
+        public StopEngineStats(boolean enabled, int symbols, int fixedStops, int trailingStops,
+                               int awaitingDispatch, int lastRebuildCount, long ticksEvaluated,
+                               long ordersTriggered, long watermarkLifts) {
+            this.enabled = enabled;
+            this.symbols = symbols;
+            this.fixedStops = fixedStops;
+            this.trailingStops = trailingStops;
+            this.awaitingDispatch = awaitingDispatch;
+            this.lastRebuildCount = lastRebuildCount;
+            this.ticksEvaluated = ticksEvaluated;
+            this.ordersTriggered = ordersTriggered;
+            this.watermarkLifts = watermarkLifts;
+        }
+
+        // Getters
+        public boolean isEnabled() { return enabled; }
+        public int getSymbols() { return symbols; }
+        public int getFixedStops() { return fixedStops; }
+        public int getTrailingStops() { return trailingStops; }
+        public int getAwaitingDispatch() { return awaitingDispatch; }
+        public int getLastRebuildCount() { return lastRebuildCount; }
+        public long getTicksEvaluated() { return ticksEvaluated; }
+        public long getOrdersTriggered() { return ordersTriggered; }
+        public long getWatermarkLifts() { return watermarkLifts; }
+    }
+}
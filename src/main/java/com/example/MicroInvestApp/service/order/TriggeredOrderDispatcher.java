@@ -0,0 +1,104 @@
+package com.example.MicroInvestApp.service.order;
+
+import com.example.MicroInvestApp.events.OrdersTriggeredEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects orders popped by the trigger structures and hands them to execution as
+ * {@link OrdersTriggeredEvent} batches of at most batch-size orders
+ */
+@Service
+public class TriggeredOrderDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(TriggeredOrderDispatcher.class);
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${orders.trigger-book.batch-size:50}")
+    private int batchSize;
+
+    private final ConcurrentLinkedQueue<TriggeredOrder> triggered = new ConcurrentLinkedQueue<>();
+    private final AtomicLong batchesPublished = new AtomicLong(0);
+
+    @Autowired
+    public TriggeredOrderDispatcher(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Queue an order for execution at the price that triggered it
+     */
+    public void enqueue(Long orderId, BigDecimal price) {
+        triggered.add(new TriggeredOrder(orderId, price));
+    }
+
+    /**
+     * Publish the queued orders; inside a transaction this waits for the commit, so the executor sees the
+     * state that triggered them
+     */
+    public void dispatch() {
+        if (triggered.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    flush();
+                }
+            });
+        } else {
+            flush();
+        }
+    }
+
+    /**
+     * Publish the queued orders right away, for callers already running after a commit
+     */
+    public void flush() {
+        while (!triggered.isEmpty()) {
+            Map<Long, BigDecimal> batch = new LinkedHashMap<>();
+            TriggeredOrder next;
+            while (batch.size() < batchSize && (next = triggered.poll()) != null) {
+                batch.put(next.orderId, next.price);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            batchesPublished.incrementAndGet();
+            logger.debug("Publishing {} triggered orders", batch.size());
+            eventPublisher.publishEvent(new OrdersTriggeredEvent(this, batch));
+        }
+    }
+
+    public int getAwaitingDispatch() {
+        return triggered.size();
+    }
+
+    public long getBatchesPublished() {
+        return batchesPublished.get();
+    }
+
+    private static final class TriggeredOrder {
+        private final Long orderId;
+        private final BigDecimal price;
+
+        TriggeredOrder(Long orderId, BigDecimal price) {
+            this.orderId = orderId;
+            this.price = price;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.MicroInvestApp.service.portfolio;
+
+import com.example.MicroInvestApp.exception.portfolio.PortfolioException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Serializes order and cash mutations per portfolio with a fixed array of fair locks striped by portfolio id.
+ * Work for one portfolio runs one transaction at a time in arrival order, so read-modify-write of the cash
+ * balance and positions no longer loses updates or spins on optimistic-lock retries, while other portfolios
+ * run in parallel (two portfolios share a lane only when their ids hash to the same stripe). A lane entered
+ * inside a transaction is held until the transaction completes, so the next writer reads committed state.
+ * Lanes are reentrant, so nested service calls for the same portfolio pass straight through. They order
+ * work within this instance only.
+ */
+@Service
+public class PortfolioExecutionLanes {
+
+    private static final Logger logger = LoggerFactory.getLogger(PortfolioExecutionLanes.class);
+
+    @Value("${portfolio.lanes.stripes:1024}")
+    private int stripeCount;
+
+    @Value("${portfolio.lanes.acquire-timeout-ms:5000}")
+    private long acquireTimeoutMs;
+
+    private ReentrantLock[] stripes;
+    private long[] heldSinceNanos; // Written and read only by the stripe's owner
+    private long startedAtMillis;
+
+    // Statistics
+    private final AtomicLong acquisitions = new AtomicLong(0);
+    private final AtomicLong contended = new AtomicLong(0);
+    private final AtomicLong reentries = new AtomicLong(0);
+    private final AtomicLong timeouts = new AtomicLong(0);
+    private final AtomicLong releases = new AtomicLong(0);
+    private final AtomicLong waitNanos = new AtomicLong(0);
+    private final AtomicLong maxWaitNanos = new AtomicLong(0);
+    private final AtomicLong holdNanos = new AtomicLong(0);
+
+    @PostConstruct
+    public void init() {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        stripes = new ReentrantLock[size];
+        heldSinceNanos = new long[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock(true);
+        }
+        startedAtMillis = System.currentTimeMillis();
+        logger.info("Portfolio execution lanes configured - {} stripes, {}ms acquire timeout", size, acquireTimeoutMs);
+    }
+
+    /**
+     * Enter the portfolio's lane for the rest of the current transaction; released when it commits or rolls back
+     */
+    public void enter(Long portfolioId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Portfolio lane entered outside a transaction");
+        }
+        int stripe = acquire(portfolioId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                release(stripe);
+            }
+        });
+    }
+
+    /**
+     * Run work holding the lanes of several portfolios; lanes are taken in stripe order so two multi-portfolio
+     * callers cannot deadlock
+     */
+    public <T> T execute(Collection<Long> portfolioIds, Supplier<T> work) {
+        TreeSet<Integer> lanes = new TreeSet<>();
+        for (Long portfolioId : portfolioIds) {
+            lanes.add(stripeFor(portfolioId));
+        }
+
+        int[] held = new int[lanes.size()];
+        int count = 0;
+        try {
+            for (int stripe : lanes) {
+                acquireStripe(stripe, "portfolio stripe " + stripe);
+                held[count++] = stripe;
+            }
+            return work.get();
+        } finally {
+            while (count > 0) {
+                release(held[--count]);
+            }
+        }
+    }
+
+    public LaneStats getStats() {
+        int busy = 0;
+        int queued = 0;
+        for (ReentrantLock lock : stripes) {
+            if (lock.isLocked()) {
+                busy++;
+            }
+            queued += lock.getQueueLength();
+        }
+        long acquired = acquisitions.get();
+        long released = releases.get();
+        long elapsedMillis = Math.max(1, System.currentTimeMillis() - startedAtMillis);
+        return new LaneStats(stripes.length, busy, queued, acquired, contended.get(), reentries.get(),
+                timeouts.get(), acquired * 1000.0 / elapsedMillis,
+                acquired > 0 ? waitNanos.get() / 1000 / acquired : 0, maxWaitNanos.get() / 1000,
+                released > 0 ? holdNanos.get() / 1000 / released : 0);
+    }
+
+    private int acquire(Long portfolioId) {
+        int stripe = stripeFor(portfolioId);
+        acquireStripe(stripe, "portfolio " + portfolioId);
+        return stripe;
+    }
+
+    private void acquireStripe(int stripe, String lane) {
+        ReentrantLock lock = stripes[stripe];
+        if (lock.isHeldByCurrentThread()) {
+            lock.lock();
+            reentries.incrementAndGet();
+            return;
+        }
+
+        try {
+            // A zero-timeout tryLock still queues behind earlier waiters on a fair lock
+            if (!lock.tryLock(0, TimeUnit.NANOSECONDS)) {
+                contended.incrementAndGet();
+                long start = System.nanoTime();
+                boolean acquired = lock.tryLock(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+                long waited = System.nanoTime() - start;
+                waitNanos.addAndGet(waited);
+                maxWaitNanos.accumulateAndGet(waited, Math::max);
+                if (!acquired) {
+                    timeouts.incrementAndGet();
+                    throw new PortfolioException("Timed out waiting for " + lane + ", please retry");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PortfolioException("Interrupted waiting for " + lane, e);
+        }
+        acquisitions.incrementAndGet();
+        heldSinceNanos[stripe] = System.nanoTime();
+    }
+
+    private void release(int stripe) {
+        ReentrantLock lock = stripes[stripe];
+        if (lock.getHoldCount() == 1) {
+            holdNanos.addAndGet(System.nanoTime() - heldSinceNanos[stripe]);
+            releases.incrementAndGet();
+        }
+        lock.unlock();
+    }
+
+    private int stripeFor(Long portfolioId) {
+        long id = portfolioId != null ? portfolioId : 0L;
+        int hash = Long.hashCode(id * 0x9E3779B97F4A7C15L);
+        return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+    }
+
+    /**
+     * Lane throughput and contention statistics
+     */
+    public static class LaneStats {
+        private final int stripes;
+        private final int busyLanes;
+        private final int queuedWaiters;
+        private final long acquisitions;
+        private final long contendedAcquisitions;
+        private final long reentries;
+        private final long timeouts;
+        private final double acquisitionsPerSecond;
+        private final long averageWaitMicros;
+        private final long maxWaitMicros;
+        private final long averageHoldMicros;
+
+        public LaneStats(int stripes, int busyLanes, int queuedWaiters, long acquisitions, long contendedAcquisitions,
+                         long reentries, long timeouts, double acquisitionsPerSecond, long averageWaitMicros,
+                         long maxWaitMicros, long averageHoldMicros) {
+            this.stripes = stripes;
+            this.busyLanes = busyLanes;
+            this.queuedWaiters = queuedWaiters;
+            this.acquisitions = acquisitions;
+            this.contendedAcquisitions = contendedAcquisitions;
+            this.reentries = reentries;
+            this.timeouts = timeouts;
+            this.acquisitionsPerSecond = acquisitionsPerSecond;
+            this.averageWaitMicros = averageWaitMicros;
+            this.maxWaitMicros = maxWaitMicros;
+            this.averageHoldMicros = averageHoldMicros;
+        }
+
+        // Getters
+        public int getStripes() { return stripes; }
+        public int getBusyLanes() { return busyLanes; }
+        public int getQueuedWaiters() { return queuedWaiters; }
+        public long getAcquisitions() { return acquisitions; }
+        public long getContendedAcquisitions() { return contendedAcquisitions; }
+        public long getReentries() { return reentries; }
+        public long getTimeouts() { return timeouts; }
+        public double getAcquisitionsPerSecond() { return acquisitionsPerSecond; }
+        public long getAverageWaitMicros() { return averageWaitMicros; }
+        public long getMaxWaitMicros() { return maxWaitMicros; }
+        public long getAverageHoldMicros() { return averageHoldMicros; }
+
+        public double getContentionRate() {
+            return acquisitions > 0 ? (double) contendedAcquisitions / acquisitions * 100 : 0.0;
+        }
+    }
+}
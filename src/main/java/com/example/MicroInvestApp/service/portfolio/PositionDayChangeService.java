@@ -7,6 +7,7 @@ import com.example.MicroInvestApp.repositories.portfolio.PositionRepository;
 import com.example.MicroInvestApp.repositories.market.PriceHistoryRepository;
 import com.example.MicroInvestApp.repositories.market.SecurityStockRepository;
 import com.example.MicroInvestApp.service.market.DailyPriceTrackingService;
+import com.example.MicroInvestApp.service.market.MarketCalendarService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,7 +16,6 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
@@ -35,16 +35,19 @@ public class PositionDayChangeService {
     private final PriceHistoryRepository priceHistoryRepository;
     private final SecurityStockRepository securityStockRepository;
     private final DailyPriceTrackingService dailyPriceTrackingService;
+    private final MarketCalendarService marketCalendarService;
 
     @Autowired
     public PositionDayChangeService(PositionRepository positionRepository,
                                     PriceHistoryRepository priceHistoryRepository,
                                     SecurityStockRepository securityStockRepository,
-                                    DailyPriceTrackingService dailyPriceTrackingService) {
+                                    DailyPriceTrackingService dailyPriceTrackingService,
+                                    MarketCalendarService marketCalendarService) {
         this.positionRepository = positionRepository;
         this.priceHistoryRepository = priceHistoryRepository;
         this.securityStockRepository = securityStockRepository;
         this.dailyPriceTrackingService = dailyPriceTrackingService;
+        this.marketCalendarService = marketCalendarService;
     }
 
     /**
@@ -77,7 +80,7 @@ public class PositionDayChangeService {
             }
 
             // Get previous market day's closing price
-            LocalDate previousMarketDay = getPreviousMarketDay(LocalDate.now());
+            LocalDate previousMarketDay = marketCalendarService.lastCompletedTradingDay();
             BigDecimal previousClose = getPreviousClosingPrice(security, previousMarketDay);
 
             if (previousClose != null && security.getCurrentPrice() != null) {
@@ -241,27 +244,6 @@ public class PositionDayChangeService {
                 .toList();
     }
 
-    /**
-     * Get previous market day (excluding weekends)
-     */
-    private LocalDate getPreviousMarketDay(LocalDate date) {
-        LocalDate previousDay = date.minusDays(1);
-
-        while (!isMarketDay(previousDay)) {
-            previousDay = previousDay.minusDays(1);
-        }
-
-        return previousDay;
-    }
-
-    /**
-     * Check if given date is a market day
-     */
-    private boolean isMarketDay(LocalDate date) {
-        DayOfWeek dayOfWeek = date.getDayOfWeek();
-        return dayOfWeek != DayOfWeek.SATURDAY && dayOfWeek != DayOfWeek.SUNDAY;
-    }
-
     /**
      * Fix null day change values for existing positions
      */
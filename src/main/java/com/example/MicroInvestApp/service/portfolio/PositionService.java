@@ -6,6 +6,7 @@ import com.example.MicroInvestApp.dto.portfolio.ResponseDTOs.PositionResponseDTO
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Enhanced PositionService interface for comprehensive position management
@@ -53,6 +54,11 @@ public interface PositionService {
      */
     BigDecimal getCurrentQuantity(Long portfolioId, String stockSymbol);
 
+    /**
+     * Get current quantity of shares for every active position in a portfolio, keyed by symbol
+     */
+    Map<String, BigDecimal> getCurrentQuantities(Long portfolioId);
+
     /**
      * Get current market value of a specific position
      */
@@ -0,0 +1,19 @@
+-- Checkpointed chunks of historical backfill jobs, claimed by one node at a time
+CREATE TABLE IF NOT EXISTS backfill_chunk (
+    chunk_id     BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    job_id       VARCHAR(36)              NOT NULL,
+    symbol       VARCHAR(20)              NOT NULL,
+    range_start  DATE                     NOT NULL,
+    range_end    DATE                     NOT NULL,
+    status       VARCHAR(255)             NOT NULL,
+    attempts     INTEGER                  NOT NULL,
+    rows_written INTEGER                  NOT NULL,
+    last_error   VARCHAR(500),
+    created_at   TIMESTAMP WITH TIME ZONE NOT NULL,
+    last_updated TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+ALTER TABLE backfill_chunk ADD COLUMN IF NOT EXISTS owner_node VARCHAR(100);
+
+CREATE INDEX IF NOT EXISTS idx_backfill_job ON backfill_chunk (job_id);
+CREATE INDEX IF NOT EXISTS idx_backfill_status ON backfill_chunk (status);
@@ -0,0 +1,12 @@
+-- Cached pre-market symbol verdicts, one row per symbol
+CREATE TABLE IF NOT EXISTS symbol_validation (
+    validation_id        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    symbol               VARCHAR(20)              NOT NULL,
+    valid                BOOLEAN                  NOT NULL,
+    consecutive_failures INTEGER                  NOT NULL,
+    from_recent_quote    BOOLEAN                  NOT NULL,
+    checked_at           TIMESTAMP WITH TIME ZONE NOT NULL,
+    expires_at           TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_symbol_validation_symbol ON symbol_validation (symbol);
@@ -0,0 +1,13 @@
+-- Heartbeat and lease tables for ClusterCoordinator (cluster.enabled=true)
+CREATE TABLE IF NOT EXISTS cluster_node (
+    node_id      VARCHAR(100)             NOT NULL PRIMARY KEY,
+    started_at   TIMESTAMP WITH TIME ZONE NOT NULL,
+    heartbeat_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS cluster_lease (
+    lease_name  VARCHAR(100)             NOT NULL PRIMARY KEY,
+    owner_node  VARCHAR(100)             NOT NULL,
+    acquired_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    expires_at  TIMESTAMP WITH TIME ZONE NOT NULL
+);
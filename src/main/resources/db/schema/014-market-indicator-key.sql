@@ -0,0 +1,3 @@
+-- Conflict target of the indicator upsert; the table had no writer before, so there are no duplicates to remove
+CREATE UNIQUE INDEX IF NOT EXISTS uk_market_indicator_security_type_timeframe_date
+    ON market_indicator (security_id, indicator_type, timeframe, calculation_date);
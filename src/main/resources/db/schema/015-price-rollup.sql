@@ -0,0 +1,18 @@
+-- Weekly/monthly/quarterly/yearly OHLC rollups, one row per security, timeframe and period
+CREATE TABLE IF NOT EXISTS price_rollup (
+    price_rollup_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    security_id     BIGINT                   NOT NULL REFERENCES security_stock (security_id),
+    timeframe       VARCHAR(20)              NOT NULL,
+    period_start    DATE                     NOT NULL,
+    first_bar_date  DATE                     NOT NULL,
+    last_bar_date   DATE                     NOT NULL,
+    open_price      NUMERIC(19,4)            NOT NULL,
+    high_price      NUMERIC(19,4)            NOT NULL,
+    low_price       NUMERIC(19,4)            NOT NULL,
+    close_price     NUMERIC(19,4)            NOT NULL,
+    volume          BIGINT                   NOT NULL,
+    last_bar_volume BIGINT                   NOT NULL,
+    bar_count       INTEGER                  NOT NULL,
+    last_updated    TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT uk_price_rollup_security_timeframe_period UNIQUE (security_id, timeframe, period_start)
+);
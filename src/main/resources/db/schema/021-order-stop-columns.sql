@@ -0,0 +1,6 @@
+-- Stop and trailing-stop parameters on Orders (STOP_LOSS, STOP_LIMIT, TRAILING_STOP)
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS stop_price NUMERIC(19,4);
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS trail_amount NUMERIC(19,4);
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS trail_percent NUMERIC(7,4);
+-- Set when a STOP_LIMIT's stop is reached; the order keeps its type and rests at its limit from then on
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS stop_triggered_at TIMESTAMP WITH TIME ZONE;
@@ -0,0 +1,3 @@
+-- Client order id idempotency key, unique per portfolio (rows without a key are not constrained)
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS client_order_id VARCHAR(64);
+CREATE UNIQUE INDEX IF NOT EXISTS idx_order_portfolio_client_id ON orders (portfolio_id, client_order_id);
@@ -0,0 +1,226 @@
+package com.example.MicroInvestApp.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundedTtlCacheTest {
+
+    private static final ZoneId MARKET_ZONE = ZoneId.of("America/New_York");
+
+    private MutableClock clock;
+    private List<Runnable> refreshQueue;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(marketTime(2026, 3, 2, 10, 0));
+        refreshQueue = new ArrayList<>();
+    }
+
+    @Test
+    void testEntryExpiresAtTtl() {
+        // Served until the TTL has fully elapsed, never after
+        BoundedTtlCache cache = cache(100, Duration.ofMinutes(10), 1.0, false);
+        cache.put("AAPL", "quote");
+
+        clock.advance(Duration.ofMinutes(10).minusMillis(1));
+        assertEquals("quote", value(cache.get("AAPL")));
+
+        clock.advance(Duration.ofMillis(1));
+        assertNull(cache.get("AAPL"));
+        assertEquals(1, cache.getStats().getExpirations());
+    }
+
+    @Test
+    void testDayBoundedEntryExpiresAtMarketMidnight() {
+        // A day-bounded entry written today is not served on the next trading day, however long the TTL
+        BoundedTtlCache cache = cache(100, Duration.ofHours(24), 1.0, true);
+        cache.put("AAPL", "close");
+
+        clock.set(marketTime(2026, 3, 2, 23, 59));
+        assertEquals("close", value(cache.get("AAPL")));
+
+        clock.set(marketTime(2026, 3, 3, 0, 0));
+        assertNull(cache.get("AAPL"));
+    }
+
+    @Test
+    void testDayBoundaryFollowsMarketZone() {
+        // 20:00 in New York is already the next day in UTC; the entry must survive until New York's midnight
+        clock.set(marketTime(2026, 3, 2, 20, 0));
+        BoundedTtlCache cache = cache(100, Duration.ofHours(24), 1.0, true);
+        cache.put("AAPL", "close");
+
+        clock.set(marketTime(2026, 3, 2, 22, 0));
+        assertEquals("close", value(cache.get("AAPL")));
+
+        clock.set(marketTime(2026, 3, 3, 0, 1));
+        assertNull(cache.get("AAPL"));
+    }
+
+    @Test
+    void testDayBoundaryIgnoredWhenNotDayBounded() {
+        // Without day bounding only the TTL applies
+        BoundedTtlCache cache = cache(100, Duration.ofHours(24), 1.0, false);
+        cache.put("AAPL", "profile");
+
+        clock.set(marketTime(2026, 3, 3, 9, 0));
+        assertEquals("profile", value(cache.get("AAPL")));
+    }
+
+    @Test
+    void testStaleEntryServedWhileOneRefreshRuns() throws Exception {
+        // Past the refresh point the old value is served and a single background reload is queued
+        BoundedTtlCache cache = cache(100, Duration.ofMinutes(10), 0.5, false);
+        AtomicInteger loads = new AtomicInteger();
+        Callable<String> loader = () -> "v" + loads.incrementAndGet();
+
+        assertEquals("v1", cache.get("AAPL", loader));
+
+        clock.advance(Duration.ofMinutes(6));
+        assertEquals("v1", cache.get("AAPL", loader));
+        assertEquals("v1", cache.get("AAPL", loader));
+        assertEquals(1, refreshQueue.size());
+        assertEquals(1, loads.get());
+
+        refreshQueue.get(0).run();
+        assertEquals("v2", cache.get("AAPL", loader));
+        assertEquals(2, cache.getStats().getStaleHits());
+        assertEquals(1, cache.getStats().getRefreshes());
+    }
+
+    @Test
+    void testRefreshDoesNotOverwriteNewerPut() throws Exception {
+        // A write-through put made while the reload runs is newer than what the loader read
+        BoundedTtlCache cache = cache(100, Duration.ofMinutes(10), 0.5, false);
+        AtomicInteger loads = new AtomicInteger();
+        Callable<String> loader = () -> "v" + loads.incrementAndGet();
+
+        cache.get("AAPL", loader);
+        clock.advance(Duration.ofMinutes(6));
+        cache.get("AAPL", loader);
+        cache.put("AAPL", "written");
+
+        refreshQueue.get(0).run();
+        assertEquals("written", value(cache.get("AAPL")));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testRefreshDoesNotResurrectEvictedEntry() throws Exception {
+        // An eviction while the reload runs stands; the next read loads afresh
+        BoundedTtlCache cache = cache(100, Duration.ofMinutes(10), 0.5, false);
+        AtomicInteger loads = new AtomicInteger();
+        Callable<String> loader = () -> "v" + loads.incrementAndGet();
+
+        cache.get("AAPL", loader);
+        clock.advance(Duration.ofMinutes(6));
+        cache.get("AAPL", loader);
+        cache.evict("AAPL");
+
+        refreshQueue.get(0).run();
+        assertNull(cache.get("AAPL"));
+        assertEquals("v3", cache.get("AAPL", loader));
+    }
+
+    @Test
+    void testExpiredEntryLoadsSynchronously() throws Exception {
+        // Past the TTL a read waits for a fresh value rather than serving the expired one
+        BoundedTtlCache cache = cache(100, Duration.ofMinutes(10), 0.5, false);
+        AtomicInteger loads = new AtomicInteger();
+        Callable<String> loader = () -> "v" + loads.incrementAndGet();
+
+        cache.get("AAPL", loader);
+        clock.advance(Duration.ofMinutes(10));
+        assertEquals("v2", cache.get("AAPL", loader));
+        assertTrue(refreshQueue.isEmpty());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryEvicted() {
+        // Reads count as use, so the untouched entry is the one displaced
+        BoundedTtlCache cache = cache(2, Duration.ofMinutes(10), 1.0, false);
+        cache.put("AAPL", "a");
+        cache.put("MSFT", "m");
+        cache.get("AAPL");
+        cache.put("GOOG", "g");
+
+        assertEquals("a", value(cache.get("AAPL")));
+        assertNull(cache.get("MSFT"));
+        assertEquals("g", value(cache.get("GOOG")));
+        assertEquals(1, cache.getStats().getEvictions());
+    }
+
+    @Test
+    void testPurgeExpiredDropsOnlyExpiredEntries() {
+        // Idle expired keys are dropped without waiting for a read
+        BoundedTtlCache cache = cache(100, Duration.ofMinutes(10), 1.0, false);
+        cache.put("AAPL", "a");
+        clock.advance(Duration.ofMinutes(5));
+        cache.put("MSFT", "m");
+        clock.advance(Duration.ofMinutes(5));
+
+        assertEquals(1, cache.purgeExpired());
+        assertEquals(1, cache.getStats().getSize());
+        assertEquals("m", value(cache.get("MSFT")));
+    }
+
+    private BoundedTtlCache cache(int maxEntries, Duration ttl, double refreshAfterFraction, boolean dayBounded) {
+        return new BoundedTtlCache("test", maxEntries, ttl, refreshAfterFraction, dayBounded, refreshQueue::add,
+                clock);
+    }
+
+    private static Object value(Cache.ValueWrapper wrapper) {
+        return wrapper != null ? wrapper.get() : null;
+    }
+
+    private static Instant marketTime(int year, int month, int day, int hour, int minute) {
+        return LocalDateTime.of(year, month, day, hour, minute).atZone(MARKET_ZONE).toInstant();
+    }
+
+    /**
+     * Clock in the market zone that the test moves by hand
+     */
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void set(Instant instant) {
+            now = instant;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return MARKET_ZONE;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
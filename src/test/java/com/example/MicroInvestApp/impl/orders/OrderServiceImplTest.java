@@ -0,0 +1,253 @@
+package com.example.MicroInvestApp.impl.orders;
+
+import com.example.MicroInvestApp.domain.enums.OrderSide;
+import com.example.MicroInvestApp.domain.enums.OrderType;
+import com.example.MicroInvestApp.domain.market.SecurityStock;
+import com.example.MicroInvestApp.domain.orders.Order;
+import com.example.MicroInvestApp.domain.portfolio.Portfolio;
+import com.example.MicroInvestApp.dto.orders.BatchOrderResponseDTO;
+import com.example.MicroInvestApp.dto.orders.OrderRequestDTO;
+import com.example.MicroInvestApp.dto.orders.OrderResponseDTO;
+import com.example.MicroInvestApp.exception.Orders.InvalidOrderException;
+import com.example.MicroInvestApp.repositories.market.SecurityStockRepository;
+import com.example.MicroInvestApp.repositories.orders.OrderBulkRepository;
+import com.example.MicroInvestApp.repositories.orders.OrderRepository;
+import com.example.MicroInvestApp.repositories.portfolio.PortfolioRepository;
+import com.example.MicroInvestApp.service.market.IntradayBarBuilder;
+import com.example.MicroInvestApp.service.market.MarketDataService;
+import com.example.MicroInvestApp.service.market.SecurityCreationService;
+import com.example.MicroInvestApp.service.order.LimitOrderTriggerBook;
+import com.example.MicroInvestApp.service.order.OrderExpiryWheel;
+import com.example.MicroInvestApp.service.order.OrderIdempotencyCache;
+import com.example.MicroInvestApp.service.order.StopOrderTriggerEngine;
+import com.example.MicroInvestApp.service.order.TransactionService;
+import com.example.MicroInvestApp.service.portfolio.PortfolioExecutionLanes;
+import com.example.MicroInvestApp.service.portfolio.PositionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class OrderServiceImplTest {
+
+    private OrderServiceImpl orderService;
+    private OrderRepository orderRepository;
+    private OrderBulkRepository orderBulkRepository;
+    private PositionService positionService;
+    private OrderIdempotencyCache orderIdempotencyCache;
+    private Portfolio portfolio;
+    private SecurityStock security;
+
+    @BeforeEach
+    void setUp() {
+        portfolio = new Portfolio();
+        portfolio.setPortfolioId(1L);
+        portfolio.setPortfolioName("Main");
+        portfolio.setCashBalance(new BigDecimal("10000"));
+
+        security = new SecurityStock();
+        security.setSecurityId(1L);
+        security.setSymbol("AAPL");
+
+        orderRepository = mock(OrderRepository.class);
+        PortfolioRepository portfolioRepository = mock(PortfolioRepository.class);
+        when(portfolioRepository.findById(1L)).thenReturn(Optional.of(portfolio));
+        when(portfolioRepository.findAllById(anyCollection())).thenReturn(List.of(portfolio));
+        SecurityStockRepository securityStockRepository = mock(SecurityStockRepository.class);
+        when(securityStockRepository.findBySymbol("AAPL")).thenReturn(Optional.of(security));
+        when(securityStockRepository.findActiveBySymbolIn(anyList())).thenReturn(List.of(security));
+        orderBulkRepository = mock(OrderBulkRepository.class);
+        positionService = mock(PositionService.class);
+
+        // Baskets run their work in the lanes; single orders only enter them
+        PortfolioExecutionLanes portfolioExecutionLanes = mock(PortfolioExecutionLanes.class);
+        when(portfolioExecutionLanes.execute(anyCollection(), any()))
+                .thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(1)).get());
+
+        orderIdempotencyCache = new OrderIdempotencyCache();
+        ReflectionTestUtils.setField(orderIdempotencyCache, "maxEntries", 100);
+        ReflectionTestUtils.setField(orderIdempotencyCache, "ttlMinutes", 60L);
+        orderIdempotencyCache.init();
+
+        orderService = new OrderServiceImpl(orderRepository, portfolioRepository, securityStockRepository,
+                mock(TransactionService.class), positionService, mock(MarketDataService.class),
+                mock(SecurityCreationService.class), mock(IntradayBarBuilder.class), mock(LimitOrderTriggerBook.class),
+                mock(PlatformTransactionManager.class), mock(StopOrderTriggerEngine.class),
+                mock(OrderExpiryWheel.class), orderBulkRepository, orderIdempotencyCache, portfolioExecutionLanes);
+        ReflectionTestUtils.setField(orderService, "maxBatchOrders", 100);
+    }
+
+    @Test
+    void testRetryWithSameClientOrderIdReplaysOriginal() {
+        // The second submission is answered from the dedupe cache without placing another order
+        when(orderRepository.save(any())).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setOrderId(7L);
+            return order;
+        });
+
+        OrderResponseDTO first = orderService.createOrder(limitBuy("k1"));
+        OrderResponseDTO retry = orderService.createOrder(limitBuy("k1"));
+
+        assertEquals(7L, first.getOrderId());
+        assertEquals(7L, retry.getOrderId());
+        verify(orderRepository, times(1)).save(any());
+    }
+
+    @Test
+    void testKeyPlacedElsewhereIsReplayedFromDatabase() {
+        // A key missing from this instance's cache is found under the reservation before anything is saved
+        when(orderRepository.findByPortfolioIdAndClientOrderId(1L, "k1")).thenReturn(Optional.of(placed(9L, "k1")));
+
+        OrderResponseDTO response = orderService.createOrder(limitBuy("k1"));
+
+        assertEquals(9L, response.getOrderId());
+        verify(orderRepository, never()).save(any());
+        assertEquals(1, orderIdempotencyCache.getStats().getDatabaseHits());
+    }
+
+    @Test
+    void testLostIndexRaceReturnsWinningOrder() {
+        // Another instance commits the same key between the check and the insert; the unique index rejects
+        // this attempt and the winner's order is returned instead of the error
+        when(orderRepository.findByPortfolioIdAndClientOrderId(1L, "k1"))
+                .thenReturn(Optional.empty(), Optional.of(placed(9L, "k1")));
+        when(orderRepository.save(any())).thenThrow(new DataIntegrityViolationException("uk_orders_client_order_id"));
+
+        OrderResponseDTO response = orderService.createOrder(limitBuy("k1"));
+
+        assertEquals(9L, response.getOrderId());
+        assertEquals("k1", response.getClientOrderId());
+    }
+
+    @Test
+    void testIntegrityViolationWithoutWinnerIsRethrown() {
+        // Without a key, or when no order holds the key, the violation is a real error
+        when(orderRepository.save(any())).thenThrow(new DataIntegrityViolationException("constraint"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> orderService.createOrder(limitBuy(null)));
+        assertThrows(DataIntegrityViolationException.class, () -> orderService.createOrder(limitBuy("k1")));
+    }
+
+    @Test
+    void testBatchLegBeingPlacedElsewhereIsRejected() {
+        // A basket claims its keys like a single order; a leg whose key is in flight fails, the rest are placed
+        assertTrue(orderIdempotencyCache.claim(1L, "k1"));
+
+        BatchOrderResponseDTO result = orderService.createOrders(List.of(limitBuy("k1"), limitBuy("k2")), false);
+
+        assertEquals(1, result.getErrors().size());
+        assertTrue(result.getErrors().get(0).startsWith("Order 1:"));
+        assertTrue(result.getErrors().get(0).contains("already being placed"));
+        assertEquals(1, result.getCreatedOrders().size());
+        assertEquals("k2", result.getCreatedOrders().get(0).getClientOrderId());
+        verify(orderBulkRepository, times(1)).insertOrders(anyList());
+
+        // The basket released its own key and left the other request's claim alone
+        assertFalse(orderIdempotencyCache.claim(1L, "k1"));
+        assertTrue(orderIdempotencyCache.claim(1L, "k2"));
+        assertNotNull(orderIdempotencyCache.get(1L, "k2"));
+    }
+
+    @Test
+    void testBatchLegRetriedWithPlacedKeyReplaysOriginal() {
+        // A leg already placed under its key is returned as is and not inserted again
+        OrderResponseDTO original = new OrderResponseDTO();
+        original.setOrderId(7L);
+        orderIdempotencyCache.put(1L, "k1", original);
+
+        BatchOrderResponseDTO result = orderService.createOrders(List.of(limitBuy("k1")), true);
+
+        assertTrue(result.getErrors().isEmpty());
+        assertEquals(List.of(original), result.getCreatedOrders());
+        verify(orderBulkRepository, never()).insertOrders(anyList());
+    }
+
+    @Test
+    void testBatchChecksFundsAcrossLegs() {
+        // Each leg fits the cash balance on its own, but the third no longer fits after the first two
+        BatchOrderResponseDTO result = orderService.createOrders(
+                List.of(limitOrder(OrderSide.BUY, "400", null), limitOrder(OrderSide.BUY, "400", null),
+                        limitOrder(OrderSide.BUY, "400", null)), false);
+
+        assertEquals(2, result.getCreatedOrders().size());
+        assertEquals(1, result.getErrors().size());
+        assertTrue(result.getErrors().get(0).startsWith("Order 3: Insufficient funds"));
+        verify(orderBulkRepository, times(1)).insertOrders(anyList());
+    }
+
+    @Test
+    void testBatchChecksSharesAcrossLegs() {
+        // Sells draw down the held quantity loaded once per portfolio
+        when(positionService.getCurrentQuantities(1L)).thenReturn(Map.of("AAPL", new BigDecimal("15")));
+
+        BatchOrderResponseDTO result = orderService.createOrders(
+                List.of(limitOrder(OrderSide.SELL, "100", null), limitOrder(OrderSide.SELL, "100", null)), false);
+
+        assertEquals(1, result.getCreatedOrders().size());
+        assertTrue(result.getErrors().get(0).startsWith("Order 2: Insufficient shares"));
+        verify(positionService, times(1)).getCurrentQuantities(1L);
+    }
+
+    @Test
+    void testAllOrNothingBatchRejectsEveryLeg() {
+        // One failing leg rejects the basket before anything is inserted
+        BatchOrderResponseDTO result = orderService.createOrders(
+                List.of(limitOrder(OrderSide.BUY, "400", null), limitOrder(OrderSide.BUY, "400", null),
+                        limitOrder(OrderSide.BUY, "400", null)), true);
+
+        assertTrue(result.getCreatedOrders().isEmpty());
+        assertEquals(1, result.getErrors().size());
+        verify(orderBulkRepository, never()).insertOrders(anyList());
+    }
+
+    @Test
+    void testOversizedBatchIsRejected() {
+        ReflectionTestUtils.setField(orderService, "maxBatchOrders", 2);
+
+        assertThrows(InvalidOrderException.class, () -> orderService.createOrders(
+                List.of(limitBuy(null), limitBuy(null), limitBuy(null)), false));
+        verify(orderBulkRepository, never()).insertOrders(anyList());
+    }
+
+    private static OrderRequestDTO limitBuy(String clientOrderId) {
+        return limitOrder(OrderSide.BUY, "100", clientOrderId);
+    }
+
+    private static OrderRequestDTO limitOrder(OrderSide side, String price, String clientOrderId) {
+        OrderRequestDTO request = new OrderRequestDTO();
+        request.setPortfolioId(1L);
+        request.setStockSymbol("AAPL");
+        request.setQuantity(new BigDecimal("10"));
+        request.setOrderPrice(new BigDecimal(price));
+        request.setOrderType(OrderType.LIMIT);
+        request.setOrderSide(side);
+        request.setClientOrderId(clientOrderId);
+        return request;
+    }
+
+    private Order placed(Long orderId, String clientOrderId) {
+        Order order = new Order(portfolio, security, new BigDecimal("10"), new BigDecimal("100"),
+                OrderType.LIMIT, OrderSide.BUY, null);
+        order.setOrderId(orderId);
+        order.setClientOrderId(clientOrderId);
+        return order;
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.MicroInvestApp.repositories.market;
+
+import com.example.MicroInvestApp.domain.market.MarketData;
+import com.example.MicroInvestApp.domain.market.PriceHistory;
+import com.example.MicroInvestApp.domain.market.SecurityStock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MarketPriceBulkRepositoryTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 10);
+
+    private RecordingJdbcTemplate jdbcTemplate;
+    private MarketPriceBulkRepository repository;
+    private SecurityStock aapl;
+    private SecurityStock msft;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new RecordingJdbcTemplate();
+        repository = new MarketPriceBulkRepository(jdbcTemplate);
+        ReflectionTestUtils.setField(repository, "chunkSize", 2);
+
+        aapl = security(1L, "AAPL");
+        msft = security(2L, "MSFT");
+    }
+
+    @Test
+    void testRowsAreWrittenAsOneStatementPerChunk() {
+        // Three rows with a chunk size of two take two multi-row statements
+        MarketPriceBulkRepository.UpsertResult result = repository.upsertPriceHistory(List.of(
+                bar(aapl, DAY, "100"), bar(msft, DAY, "400"), bar(aapl, DAY.plusDays(1), "101")));
+
+        assertEquals(2, result.getRoundTrips());
+        assertEquals(3, result.getInserted());
+        assertEquals(2, jdbcTemplate.statements.size());
+        assertEquals(22, jdbcTemplate.arguments.get(0).length);
+        assertEquals(11, jdbcTemplate.arguments.get(1).length);
+        assertTrue(jdbcTemplate.statements.get(0).contains("ON CONFLICT (security_id, date) DO UPDATE"));
+        assertTrue(jdbcTemplate.statements.get(0).contains("), ("));
+        assertFalse(jdbcTemplate.statements.get(1).contains("), ("));
+    }
+
+    @Test
+    void testReturnedIdsAreSetAndUpdatesCounted() {
+        // RETURNING reports the id of every row and whether it was inserted or updated in place
+        PriceHistory first = bar(aapl, DAY, "100");
+        repository.upsertPriceHistory(List.of(first));
+
+        PriceHistory again = bar(aapl, DAY, "102");
+        PriceHistory fresh = bar(msft, DAY, "400");
+        MarketPriceBulkRepository.UpsertResult result = repository.upsertPriceHistory(List.of(again, fresh));
+
+        assertEquals(1, result.getInserted());
+        assertEquals(1, result.getUpdated());
+        assertEquals(first.getPriceHistoryId(), again.getPriceHistoryId());
+        assertNotNull(fresh.getPriceHistoryId());
+        assertNotEquals(first.getPriceHistoryId(), fresh.getPriceHistoryId());
+    }
+
+    @Test
+    void testLastStagedRowPerKeyWins() {
+        // A statement may not touch the same row twice, so duplicates collapse onto the latest value
+        PriceHistory stale = bar(aapl, DAY, "100");
+        PriceHistory latest = bar(aapl, DAY, "105");
+
+        MarketPriceBulkRepository.UpsertResult result = repository.upsertClosingPrices(List.of(stale, latest));
+
+        assertEquals(1, result.getTotal());
+        assertEquals(11, jdbcTemplate.arguments.get(0).length);
+        assertEquals(new BigDecimal("105"), jdbcTemplate.arguments.get(0)[5]);
+        assertNotNull(latest.getPriceHistoryId());
+        assertNull(stale.getPriceHistoryId());
+    }
+
+    @Test
+    void testClosingPriceConflictKeepsSessionRange() {
+        // Recording a close on an existing bar must not overwrite its open, high, low or volume
+        repository.upsertClosingPrices(List.of(bar(aapl, DAY, "100")));
+        String sql = jdbcTemplate.statements.get(0);
+        String conflict = sql.substring(sql.indexOf("ON CONFLICT"));
+
+        assertTrue(conflict.contains("close_price = EXCLUDED.close_price"));
+        assertFalse(conflict.contains("open_price"));
+        assertFalse(conflict.contains("volume"));
+        assertTrue(conflict.contains("COALESCE(EXCLUDED.moving_average_50_day"));
+    }
+
+    @Test
+    void testMarketDataUpsertSetsIds() {
+        // MarketData rows are keyed by (security, market date) like the bars
+        MarketData row = new MarketData(aapl, new BigDecimal("99"), new BigDecimal("101"), new BigDecimal("98"),
+                new BigDecimal("100"), 1_000L, new BigDecimal("100"), DAY, "FINNHUB");
+
+        MarketPriceBulkRepository.UpsertResult result = repository.upsertMarketData(List.of(row));
+
+        assertEquals(1, result.getInserted());
+        assertNotNull(row.getMarketDataId());
+        assertTrue(jdbcTemplate.statements.get(0).startsWith("INSERT INTO market_data"));
+    }
+
+    @Test
+    void testEmptyUpsertSkipsDatabase() {
+        MarketPriceBulkRepository.UpsertResult result = repository.upsertPriceHistory(List.of());
+
+        assertEquals(0, result.getRoundTrips());
+        assertTrue(jdbcTemplate.statements.isEmpty());
+    }
+
+    @Test
+    void testLastPricesCountRowsWithoutRowCounts() {
+        // Drivers may answer a batched statement with SUCCESS_NO_INFO, which still means one row was written
+        jdbcTemplate.batchCounts = new int[] {1, Statement.SUCCESS_NO_INFO};
+        Map<String, BigDecimal> prices = new LinkedHashMap<>();
+        prices.put("AAPL", new BigDecimal("101"));
+        prices.put("MSFT", new BigDecimal("401"));
+        prices.put("NVDA", new BigDecimal("95"));
+
+        int updated = repository.updateLastPrices(prices, Instant.parse("2025-03-10T15:00:00Z"));
+
+        // Two chunks of two and one; the second chunk's single statement reports one row
+        assertEquals(3, updated);
+        assertEquals(List.of(2, 1), jdbcTemplate.batchSizes);
+        assertEquals("AAPL", jdbcTemplate.batchArguments.get(0)[4]);
+        assertEquals(new BigDecimal("101"), jdbcTemplate.batchArguments.get(0)[0]);
+    }
+
+    private static PriceHistory bar(SecurityStock security, LocalDate date, String close) {
+        BigDecimal price = new BigDecimal(close);
+        return new PriceHistory(security, date, price, price, price, price, 100L, null, null, null, null);
+    }
+
+    private static SecurityStock security(Long id, String symbol) {
+        SecurityStock security = new SecurityStock();
+        security.setSecurityId(id);
+        security.setSymbol(symbol);
+        return security;
+    }
+
+    /**
+     * Records statements and answers RETURNING like PostgreSQL, from an in-memory set of existing keys
+     */
+    private static class RecordingJdbcTemplate extends JdbcTemplate {
+        private final List<String> statements = new ArrayList<>();
+        private final List<Object[]> arguments = new ArrayList<>();
+        private final Map<String, Long> ids = new HashMap<>();
+        private final List<Integer> batchSizes = new ArrayList<>();
+        private final List<Object[]> batchArguments = new ArrayList<>();
+        private int[] batchCounts = new int[0];
+
+        @Override
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            statements.add(sql);
+            arguments.add(args);
+            List<T> rows = new ArrayList<>();
+            for (int from = 0; from < args.length; from += 11) {
+                Long securityId = (Long) args[from];
+                Date date = (Date) args[from + 1];
+                String key = securityId + ":" + date;
+                boolean inserted = !ids.containsKey(key);
+                long id = ids.computeIfAbsent(key, k -> (long) ids.size() + 1);
+                try {
+                    ResultSet resultSet = mock(ResultSet.class);
+                    when(resultSet.getLong(1)).thenReturn(id);
+                    when(resultSet.getLong(2)).thenReturn(securityId);
+                    when(resultSet.getDate(3)).thenReturn(date);
+                    when(resultSet.getBoolean(4)).thenReturn(inserted);
+                    rows.add(rowMapper.mapRow(resultSet, rows.size()));
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return rows;
+        }
+
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+            batchSizes.add(batchArgs.size());
+            batchArguments.addAll(batchArgs);
+            int[] counts = new int[batchArgs.size()];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = i < batchCounts.length ? batchCounts[i] : 0;
+            }
+            return counts;
+        }
+    }
+}
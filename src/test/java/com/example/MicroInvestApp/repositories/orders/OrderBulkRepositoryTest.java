@@ -0,0 +1,113 @@
+package com.example.MicroInvestApp.repositories.orders;
+
+import com.example.MicroInvestApp.domain.enums.OrderSide;
+import com.example.MicroInvestApp.domain.enums.OrderType;
+import com.example.MicroInvestApp.domain.market.SecurityStock;
+import com.example.MicroInvestApp.domain.orders.Order;
+import com.example.MicroInvestApp.domain.portfolio.Portfolio;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderBulkRepositoryTest {
+
+    private RecordingJdbcTemplate jdbcTemplate;
+    private OrderBulkRepository repository;
+    private Portfolio portfolio;
+    private SecurityStock security;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new RecordingJdbcTemplate();
+        repository = new OrderBulkRepository(jdbcTemplate);
+        ReflectionTestUtils.setField(repository, "chunkSize", 2);
+
+        portfolio = new Portfolio();
+        portfolio.setPortfolioId(1L);
+        security = new SecurityStock();
+        security.setSecurityId(5L);
+        security.setSymbol("AAPL");
+    }
+
+    @Test
+    void testIdsAllocatedAndRowsBatchedPerChunk() {
+        // Each chunk takes one id query and one JDBC batch
+        List<Order> orders = List.of(order("k1"), order("k2"), order("k3"));
+
+        int roundTrips = repository.insertOrders(orders);
+
+        assertEquals(4, roundTrips);
+        assertEquals(List.of(2, 1), jdbcTemplate.allocations);
+        assertEquals(List.of(2, 1), jdbcTemplate.batchSizes);
+        assertEquals(List.of(1L, 2L, 3L), orders.stream().map(Order::getOrderId).toList());
+    }
+
+    @Test
+    void testRowCarriesGeneratedIdAndClientOrderId() {
+        // The explicit id leads the row, and the idempotency key is written so the unique index can see it
+        Order order = order("k1");
+
+        repository.insertOrders(List.of(order));
+
+        Object[] row = jdbcTemplate.rows.get(0);
+        assertEquals(20, row.length);
+        assertEquals(1L, row[0]);
+        assertEquals(1L, row[1]);
+        assertEquals(5L, row[2]);
+        assertEquals("LIMIT", row[11]);
+        assertEquals("BUY", row[12]);
+        assertEquals("PENDING", row[13]);
+        assertEquals("k1", row[17]);
+        assertNotNull(order.getCreatedAt());
+        assertEquals(order.getCreatedAt(), order.getLastUpdated());
+    }
+
+    @Test
+    void testEmptyBasketTouchesNothing() {
+        assertEquals(0, repository.insertOrders(List.of()));
+        assertTrue(jdbcTemplate.allocations.isEmpty());
+    }
+
+    private Order order(String clientOrderId) {
+        Order order = new Order(portfolio, security, new BigDecimal("10"), new BigDecimal("100"),
+                OrderType.LIMIT, OrderSide.BUY, null);
+        order.setClientOrderId(clientOrderId);
+        return order;
+    }
+
+    /**
+     * Hands out sequential ids and records each batch
+     */
+    private static class RecordingJdbcTemplate extends JdbcTemplate {
+        private final List<Integer> allocations = new ArrayList<>();
+        private final List<Integer> batchSizes = new ArrayList<>();
+        private final List<Object[]> rows = new ArrayList<>();
+        private long nextId = 1;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+            int count = (Integer) args[0];
+            allocations.add(count);
+            List<T> ids = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                ids.add((T) Long.valueOf(nextId++));
+            }
+            return ids;
+        }
+
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+            batchSizes.add(batchArgs.size());
+            rows.addAll(batchArgs);
+            return new int[batchArgs.size()];
+        }
+    }
+}
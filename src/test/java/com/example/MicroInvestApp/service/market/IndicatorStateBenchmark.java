@@ -0,0 +1,103 @@
+package com.example.MicroInvestApp.service.market;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of folding one daily bar into TechnicalIndicatorEngine.IndicatorState, in steady state and when a
+ * security's five years of history are replayed into a fresh state.
+ * Run with: mvn test-compile, then java -cp target/test-classes:target/classes:&lt;test classpath&gt;
+ * org.openjdk.jmh.Main IndicatorStateBenchmark (or run main from the IDE).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndicatorStateBenchmark {
+
+    private static final int BARS = 1260;
+
+    private LocalDate[] dates;
+    private double[] highs;
+    private double[] lows;
+    private double[] closes;
+    private long[] volumes;
+
+    private TechnicalIndicatorEngine.IndicatorState state;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        // Random walk with a fixed seed so every run sees the same series
+        Random random = new Random(42);
+        dates = new LocalDate[BARS];
+        highs = new double[BARS];
+        lows = new double[BARS];
+        closes = new double[BARS];
+        volumes = new long[BARS];
+
+        LocalDate date = LocalDate.of(2020, 1, 2);
+        double close = 100.0;
+        for (int i = 0; i < BARS; i++) {
+            close = Math.max(1.0, close * (1 + random.nextGaussian() * 0.02));
+            dates[i] = date;
+            highs[i] = close * (1 + random.nextDouble() * 0.01);
+            lows[i] = close * (1 - random.nextDouble() * 0.01);
+            closes[i] = close;
+            volumes[i] = 1_000_000L + random.nextInt(500_000);
+            date = date.plusDays(1);
+        }
+
+        state = new TechnicalIndicatorEngine.IndicatorState();
+        for (int i = 0; i < BARS; i++) {
+            state.accept(dates[i], highs[i], lows[i], closes[i], volumes[i]);
+        }
+    }
+
+    /**
+     * One bar into a warmed-up state, as the daily run does for a resident security
+     */
+    @Benchmark
+    public TechnicalIndicatorEngine.IndicatorState accept() {
+        int i = next;
+        next = i + 1 == BARS ? 0 : i + 1;
+        state.accept(dates[i], highs[i], lows[i], closes[i], volumes[i]);
+        return state;
+    }
+
+    /**
+     * A full history into a new state, as the first run after a restart does for each security
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public TechnicalIndicatorEngine.IndicatorState replayHistory() {
+        TechnicalIndicatorEngine.IndicatorState fresh = new TechnicalIndicatorEngine.IndicatorState();
+        for (int i = 0; i < BARS; i++) {
+            fresh.accept(dates[i], highs[i], lows[i], closes[i], volumes[i]);
+        }
+        return fresh;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(IndicatorStateBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.MicroInvestApp.service.market;
+
+import com.example.MicroInvestApp.domain.enums.Exchange;
+import com.example.MicroInvestApp.repositories.market.MarketSessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class IntradayBarBuilderTest {
+
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+    private static final LocalDate MONDAY = LocalDate.of(2025, 3, 10);
+    private static final LocalDate TUESDAY = LocalDate.of(2025, 3, 11);
+    private static final LocalDate WEDNESDAY = LocalDate.of(2025, 3, 12);
+
+    private IntradayBarBuilder builder;
+
+    @BeforeEach
+    void setUp() {
+        MarketCalendarService calendar = new MarketCalendarService(mock(MarketSessionRepository.class));
+        ReflectionTestUtils.setField(calendar, "exchange", Exchange.NYSE);
+        ReflectionTestUtils.setField(calendar, "yearsBack", 1);
+        ReflectionTestUtils.setField(calendar, "yearsAhead", 1);
+        calendar.init();
+
+        builder = new IntradayBarBuilder(calendar);
+        ReflectionTestUtils.setField(builder, "enabled", true);
+        ReflectionTestUtils.setField(builder, "oneMinuteCapacity", 4);
+        ReflectionTestUtils.setField(builder, "fiveMinuteCapacity", 4);
+    }
+
+    @Test
+    void testOneMinuteBarAggregatesObservations() {
+        // Every observation inside a minute lands in the same bar
+        builder.record("AAPL", price("100"), 10, at(MONDAY, 9, 30, 5));
+        builder.record("AAPL", price("102"), 20, at(MONDAY, 9, 30, 20));
+        builder.record("AAPL", price("99"), 30, at(MONDAY, 9, 30, 40));
+        builder.record("AAPL", price("101"), 40, at(MONDAY, 9, 30, 59));
+
+        List<IntradayBarBuilder.IntradayBar> bars = builder.getBars("AAPL", 1);
+        assertEquals(1, bars.size());
+        assertBar(bars.get(0), at(MONDAY, 9, 30, 0), "100", "102", "99", "101");
+        assertEquals(100, bars.get(0).getVolume());
+        assertEquals(4, bars.get(0).getTicks());
+    }
+
+    @Test
+    void testFiveMinuteBarsAlignToBoundaries() {
+        // 9:31 to 9:34 share the 9:30 bar, 9:35 opens the next; quiet minutes take no slot
+        builder.record("AAPL", price("100"), 0, at(MONDAY, 9, 31, 0));
+        builder.record("AAPL", price("103"), 0, at(MONDAY, 9, 34, 59));
+        builder.record("AAPL", price("104"), 0, at(MONDAY, 9, 35, 0));
+        builder.record("AAPL", price("98"), 0, at(MONDAY, 9, 47, 30));
+
+        List<IntradayBarBuilder.IntradayBar> fiveMinute = builder.getBars("AAPL", 5);
+        assertEquals(3, fiveMinute.size());
+        assertBar(fiveMinute.get(0), at(MONDAY, 9, 30, 0), "100", "103", "100", "103");
+        assertBar(fiveMinute.get(1), at(MONDAY, 9, 35, 0), "104", "104", "104", "104");
+        assertBar(fiveMinute.get(2), at(MONDAY, 9, 45, 0), "98", "98", "98", "98");
+
+        assertEquals(4, builder.getBars("AAPL", 1).size());
+    }
+
+    @Test
+    void testLateObservationWidensItsBarButKeepsClose() {
+        // An out-of-order price folds into the bar it belongs to and never becomes the close
+        builder.record("AAPL", price("100"), 0, at(MONDAY, 9, 30, 0));
+        builder.record("AAPL", price("101"), 0, at(MONDAY, 9, 31, 0));
+        builder.record("AAPL", price("90"), 0, at(MONDAY, 9, 30, 30));
+
+        List<IntradayBarBuilder.IntradayBar> bars = builder.getBars("AAPL", 1);
+        assertEquals(2, bars.size());
+        assertBar(bars.get(0), at(MONDAY, 9, 30, 0), "100", "100", "90", "100");
+        assertBar(bars.get(1), at(MONDAY, 9, 31, 0), "101", "101", "101", "101");
+
+        IntradayBarBuilder.SessionSummary summary = builder.getSessionSummary("AAPL", MONDAY);
+        assertEquals(price("90.0000"), summary.getLow());
+        assertEquals(price("101.0000"), summary.getClose());
+    }
+
+    @Test
+    void testRingKeepsNewestBars() {
+        // Past capacity the oldest bar is overwritten, while the session summary still covers every minute
+        for (int minute = 0; minute < 6; minute++) {
+            builder.record("AAPL", price(String.valueOf(100 + minute)), 0, at(MONDAY, 10, minute, 0));
+        }
+
+        List<IntradayBarBuilder.IntradayBar> bars = builder.getBars("AAPL", 1);
+        assertEquals(4, bars.size());
+        assertEquals(at(MONDAY, 10, 2, 0), bars.get(0).getStart().toEpochMilli());
+        assertEquals(at(MONDAY, 10, 5, 0), bars.get(3).getStart().toEpochMilli());
+        assertEquals(price("100.0000"), builder.getSessionSummary("AAPL", MONDAY).getOpen());
+    }
+
+    @Test
+    void testNewSessionResetsBars() {
+        // The first observation of a new exchange day starts a fresh session; idle symbols keep the
+        // previous summary until they trade again
+        builder.record("AAPL", price("100"), 5, at(MONDAY, 15, 59, 0));
+        builder.record("MSFT", price("400"), 5, at(MONDAY, 15, 59, 0));
+        builder.record("MSFT", price("401"), 7, at(TUESDAY, 9, 30, 0));
+
+        assertEquals(TUESDAY, builder.getSessionDate());
+        assertTrue(builder.getBars("AAPL", 1).isEmpty());
+        assertEquals(price("100.0000"), builder.getSessionSummary("AAPL", MONDAY).getClose());
+        assertNull(builder.getSessionSummary("MSFT", MONDAY));
+        assertEquals(7, builder.getSessionSummary("MSFT", TUESDAY).getVolume());
+        assertEquals(List.of("MSFT"), builder.getSymbolsWithSession(TUESDAY));
+
+        builder.record("AAPL", price("102"), 1, at(TUESDAY, 9, 31, 0));
+        assertNull(builder.getSessionSummary("AAPL", MONDAY));
+        assertEquals(price("102.0000"), builder.getSessionSummary("AAPL", TUESDAY).getOpen());
+        assertEquals(1, builder.getBars("AAPL", 1).size());
+    }
+
+    @Test
+    void testRolloverDropsSymbolsIdleForAFullSession() {
+        // A symbol last seen two sessions ago no longer holds its rings
+        builder.record("AAPL", price("100"), 0, at(MONDAY, 10, 0, 0));
+        builder.record("MSFT", price("400"), 0, at(TUESDAY, 10, 0, 0));
+        assertEquals(2, builder.getStats().getSymbols());
+
+        builder.record("MSFT", price("401"), 0, at(WEDNESDAY, 10, 0, 0));
+        assertEquals(1, builder.getStats().getSymbols());
+        assertNull(builder.getSessionSummary("AAPL", MONDAY));
+    }
+
+    @Test
+    void testObservationFromEarlierSessionIsRejected() {
+        // Once a session has started, a stale timestamp from the day before cannot reopen the old one
+        builder.record("AAPL", price("100"), 0, at(TUESDAY, 9, 30, 0));
+        builder.record("AAPL", price("95"), 0, at(MONDAY, 15, 59, 0));
+
+        assertEquals(1, builder.getStats().getRejected());
+        assertEquals(TUESDAY, builder.getSessionDate());
+        assertEquals(price("100.0000"), builder.getSessionSummary("AAPL", TUESDAY).getLow());
+    }
+
+    @Test
+    void testDisabledBuilderIgnoresEveryOverload() {
+        // Neither the decimal nor the fixed-point entry point records anything when turned off
+        ReflectionTestUtils.setField(builder, "enabled", false);
+
+        builder.record("AAPL", price("100"), 0, at(MONDAY, 9, 30, 0));
+        builder.record("AAPL", 1_000_000L, 0, at(MONDAY, 9, 30, 0));
+
+        assertNull(builder.getSessionDate());
+        assertEquals(0, builder.getStats().getObservations());
+        assertTrue(builder.getBars("AAPL", 1).isEmpty());
+    }
+
+    private static void assertBar(IntradayBarBuilder.IntradayBar bar, long startMillis,
+                                  String open, String high, String low, String close) {
+        assertEquals(startMillis, bar.getStart().toEpochMilli());
+        assertEquals(price(open).setScale(4), bar.getOpen());
+        assertEquals(price(high).setScale(4), bar.getHigh());
+        assertEquals(price(low).setScale(4), bar.getLow());
+        assertEquals(price(close).setScale(4), bar.getClose());
+    }
+
+    private static long at(LocalDate day, int hour, int minute, int second) {
+        return ZonedDateTime.of(day.atTime(hour, minute, second), NEW_YORK).toInstant().toEpochMilli();
+    }
+
+    private static BigDecimal price(String value) {
+        return new BigDecimal(value);
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.MicroInvestApp.service.market;
+
+import com.example.MicroInvestApp.domain.enums.Exchange;
+import com.example.MicroInvestApp.domain.market.MarketSession;
+import com.example.MicroInvestApp.repositories.market.MarketSessionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MarketCalendarServiceTest {
+
+    private static final LocalTime REGULAR_CLOSE = LocalTime.of(16, 0);
+    private static final LocalTime EARLY_CLOSE = LocalTime.of(13, 0);
+
+    // Published NYSE full-day closures, weekdays only
+    private static final Map<Integer, Set<LocalDate>> HOLIDAYS = Map.of(
+            2021, Set.of(d(2021, 1, 1), d(2021, 1, 18), d(2021, 2, 15), d(2021, 4, 2), d(2021, 5, 31),
+                    d(2021, 7, 5), d(2021, 9, 6), d(2021, 11, 25), d(2021, 12, 24)),
+            2022, Set.of(d(2022, 1, 17), d(2022, 2, 21), d(2022, 4, 15), d(2022, 5, 30), d(2022, 6, 20),
+                    d(2022, 7, 4), d(2022, 9, 5), d(2022, 11, 24), d(2022, 12, 26)),
+            2023, Set.of(d(2023, 1, 2), d(2023, 1, 16), d(2023, 2, 20), d(2023, 4, 7), d(2023, 5, 29),
+                    d(2023, 6, 19), d(2023, 7, 4), d(2023, 9, 4), d(2023, 11, 23), d(2023, 12, 25)),
+            2024, Set.of(d(2024, 1, 1), d(2024, 1, 15), d(2024, 2, 19), d(2024, 3, 29), d(2024, 5, 27),
+                    d(2024, 6, 19), d(2024, 7, 4), d(2024, 9, 2), d(2024, 11, 28), d(2024, 12, 25)),
+            // Without the one-off 2025-01-09 closure, which comes from a session override
+            2025, Set.of(d(2025, 1, 1), d(2025, 1, 20), d(2025, 2, 17), d(2025, 4, 18), d(2025, 5, 26),
+                    d(2025, 6, 19), d(2025, 7, 4), d(2025, 9, 1), d(2025, 11, 27), d(2025, 12, 25)),
+            2026, Set.of(d(2026, 1, 1), d(2026, 1, 19), d(2026, 2, 16), d(2026, 4, 3), d(2026, 5, 25),
+                    d(2026, 6, 19), d(2026, 7, 3), d(2026, 9, 7), d(2026, 11, 26), d(2026, 12, 25)));
+
+    // Published NYSE 1:00 p.m. closes
+    private static final Map<Integer, Set<LocalDate>> EARLY_CLOSES = Map.of(
+            2021, Set.of(d(2021, 11, 26)),
+            2022, Set.of(d(2022, 11, 25)),
+            2023, Set.of(d(2023, 7, 3), d(2023, 11, 24)),
+            2024, Set.of(d(2024, 7, 3), d(2024, 11, 29), d(2024, 12, 24)),
+            2025, Set.of(d(2025, 7, 3), d(2025, 11, 28), d(2025, 12, 24)),
+            2026, Set.of(d(2026, 11, 27), d(2026, 12, 24)));
+
+    @Test
+    void testTradingDaysMatchPublishedCalendar() {
+        // Every weekday from 2021 to 2026 is open exactly when it is not a published holiday
+        assertMatchesPublishedCalendar(calendar(10, 2));
+    }
+
+    @Test
+    void testRulesOutsidePrecomputedWindowMatchPublishedCalendar() {
+        // Dates outside the precomputed arrays fall back to the rules and must give the same answers
+        assertMatchesPublishedCalendar(calendar(0, 0));
+    }
+
+    @Test
+    void testSaturdayNewYearIsNotObservedInDecember() {
+        // 2022-01-01 was a Saturday: NYSE stayed open on Friday 2021-12-31
+        MarketCalendarService calendar = calendar(10, 2);
+
+        assertTrue(calendar.isTradingDay(d(2021, 12, 31)));
+        assertEquals(d(2021, 12, 31), calendar.previousTradingDay(d(2022, 1, 3)));
+        assertEquals(d(2022, 1, 3), calendar.nextTradingDay(d(2021, 12, 31)));
+    }
+
+    @Test
+    void testJuneteenthObservedFrom2022() {
+        // Friday 2021-06-18 traded; the observed holiday starts in 2022 and moves off weekends
+        MarketCalendarService calendar = calendar(10, 2);
+
+        assertTrue(calendar.isTradingDay(d(2021, 6, 18)));
+        assertFalse(calendar.isTradingDay(d(2022, 6, 20)));
+        assertTrue(calendar.isTradingDay(d(2022, 6, 17)));
+        assertFalse(calendar.isTradingDay(d(2026, 6, 19)));
+    }
+
+    @Test
+    void testEarlyClosesMatchPublishedCalendar() {
+        // July 3 closes early unless it is the observed Independence Day; December 24 only when it trades
+        MarketCalendarService calendar = calendar(10, 2);
+
+        for (int year = 2021; year <= 2026; year++) {
+            Set<LocalDate> earlyCloses = EARLY_CLOSES.get(year);
+            for (LocalDate day : calendar.tradingDaysBetween(d(year, 1, 1), d(year, 12, 31))) {
+                LocalTime expected = earlyCloses.contains(day) ? EARLY_CLOSE : REGULAR_CLOSE;
+                assertEquals(expected, calendar.closeTime(day), "close on " + day);
+            }
+        }
+        assertNull(calendar.closeTime(d(2026, 7, 3)));
+        assertNull(calendar.closeTime(d(2021, 12, 24)));
+    }
+
+    @Test
+    void testMarketOpenHonoursEarlyClose() {
+        // The session ends at 13:00 New York time on an early close
+        MarketCalendarService calendar = calendar(10, 2);
+        ZoneId newYork = ZoneId.of("America/New_York");
+
+        assertTrue(calendar.isMarketOpen(ZonedDateTime.of(2025, 11, 28, 12, 59, 0, 0, newYork)));
+        assertFalse(calendar.isMarketOpen(ZonedDateTime.of(2025, 11, 28, 13, 1, 0, 0, newYork)));
+        assertTrue(calendar.isMarketOpen(ZonedDateTime.of(2025, 12, 1, 15, 59, 0, 0, newYork)));
+        assertFalse(calendar.isMarketOpen(ZonedDateTime.of(2025, 12, 25, 12, 0, 0, 0, newYork)));
+    }
+
+    @Test
+    void testSessionOverrideClosesAdHocDay() {
+        // Unscheduled closures such as 2025-01-09 come from MarketSession rows, not the rules
+        MarketSession closure = new MarketSession();
+        closure.setExchange(Exchange.NYSE);
+        closure.setSessionDate(d(2025, 1, 9));
+        closure.setHoliday(true);
+
+        MarketSessionRepository repository = mock(MarketSessionRepository.class);
+        when(repository.findByExchangeAndSessionDateBetween(any(), any(), any())).thenReturn(List.of(closure));
+        MarketCalendarService calendar = calendar(repository, 10, 2);
+
+        assertFalse(calendar.isTradingDay(d(2025, 1, 9)));
+        assertEquals(d(2025, 1, 10), calendar.nextTradingDay(d(2025, 1, 8)));
+        assertEquals(250, calendar.tradingDaysBetween(d(2025, 1, 1), d(2025, 12, 31)).size());
+    }
+
+    private static void assertMatchesPublishedCalendar(MarketCalendarService calendar) {
+        for (int year = 2021; year <= 2026; year++) {
+            Set<LocalDate> holidays = HOLIDAYS.get(year);
+            for (LocalDate day = d(year, 1, 1); day.getYear() == year; day = day.plusDays(1)) {
+                boolean weekend = day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY;
+                assertEquals(!weekend && !holidays.contains(day), calendar.isTradingDay(day), "trading on " + day);
+            }
+        }
+    }
+
+    private static MarketCalendarService calendar(int yearsBack, int yearsAhead) {
+        return calendar(mock(MarketSessionRepository.class), yearsBack, yearsAhead);
+    }
+
+    private static MarketCalendarService calendar(MarketSessionRepository repository, int yearsBack, int yearsAhead) {
+        MarketCalendarService calendar = new MarketCalendarService(repository);
+        ReflectionTestUtils.setField(calendar, "exchange", Exchange.NYSE);
+        ReflectionTestUtils.setField(calendar, "yearsBack", yearsBack);
+        ReflectionTestUtils.setField(calendar, "yearsAhead", yearsAhead);
+        calendar.init();
+        return calendar;
+    }
+
+    private static LocalDate d(int year, int month, int day) {
+        return LocalDate.of(year, month, day);
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.MicroInvestApp.service.market;
+
+import com.example.MicroInvestApp.domain.enums.Exchange;
+import com.example.MicroInvestApp.domain.market.SecurityStock;
+import com.example.MicroInvestApp.repositories.market.MarketPriceBulkRepository;
+import com.example.MicroInvestApp.repositories.market.MarketSessionRepository;
+import com.example.MicroInvestApp.repositories.market.PriceHistoryRepository;
+import com.example.MicroInvestApp.repositories.market.SecurityStockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MovingAverageEngineTest {
+
+    private PriceHistoryRepository priceHistoryRepository;
+    private MarketCalendarService calendar;
+    private SecurityStock security;
+    // Consecutive NYSE sessions from 2024-01-02, so the run crosses weekends and MLK Day
+    private List<LocalDate> days;
+
+    @BeforeEach
+    void setUp() {
+        priceHistoryRepository = mock(PriceHistoryRepository.class);
+        when(priceHistoryRepository.findCloseSeriesBySecurityId(1L)).thenReturn(List.of());
+
+        calendar = new MarketCalendarService(mock(MarketSessionRepository.class));
+        ReflectionTestUtils.setField(calendar, "exchange", Exchange.NYSE);
+        ReflectionTestUtils.setField(calendar, "yearsBack", 10);
+        ReflectionTestUtils.setField(calendar, "yearsAhead", 2);
+        calendar.init();
+
+        security = new SecurityStock();
+        security.setSecurityId(1L);
+        security.setSymbol("AAPL");
+
+        days = new ArrayList<>();
+        LocalDate day = LocalDate.of(2024, 1, 2);
+        for (int i = 0; i < 260; i++) {
+            days.add(day);
+            day = calendar.nextTradingDay(day);
+        }
+    }
+
+    @Test
+    void testSimpleAveragesNeedFullWindow() {
+        // No average until the window has as many closes as its period
+        MovingAverageEngine engine = engine();
+
+        MovingAverageEngine.Averages averages = feed(engine, 1, 49);
+        assertNull(averages.getSma50());
+        assertNull(averages.getEma50());
+
+        averages = feed(engine, 50, 50);
+        assertEquals(price("25.5000"), averages.getSma50());
+        assertNull(averages.getSma200());
+    }
+
+    @Test
+    void testShortAverageRollsOffOldestClose() {
+        // After 60 closes of 1..60 the 50-day window holds 11..60
+        MovingAverageEngine.Averages averages = feed(engine(), 1, 60);
+
+        assertEquals(price("35.5000"), averages.getSma50());
+    }
+
+    @Test
+    void testLongAverageRollsOffOldestClose() {
+        // Past 200 closes the ring buffer overwrites the oldest slot and both sums drop it
+        MovingAverageEngine.Averages averages = feed(engine(), 1, 250);
+
+        assertEquals(price("150.5000"), averages.getSma200());
+        assertEquals(price("225.5000"), averages.getSma50());
+    }
+
+    @Test
+    void testEmaSeededWithFirstFullWindow() {
+        // The first EMA is the SMA; the next applies alpha = 2 / 51
+        MovingAverageEngine engine = engine();
+
+        assertEquals(price("25.5000"), feed(engine, 1, 50).getEma50());
+        assertEquals(price("26.5000"), feed(engine, 51, 51).getEma50());
+        assertNull(feed(engine, 52, 52).getEma200());
+    }
+
+    @Test
+    void testRecaptureReplacesLatestClose() {
+        // Capturing the same day again replaces its close rather than advancing the window
+        MovingAverageEngine recaptured = engine();
+        feed(recaptured, 1, 50);
+        MovingAverageEngine.Averages replaced = recaptured.update(security, days.get(49), price("100"));
+
+        MovingAverageEngine direct = engine();
+        feed(direct, 1, 49);
+        MovingAverageEngine.Averages expected = direct.update(security, days.get(49), price("100"));
+
+        assertEquals(price("26.5000"), replaced.getSma50());
+        assertEquals(expected.getSma50(), replaced.getSma50());
+        assertEquals(expected.getEma50(), replaced.getEma50());
+
+        MovingAverageEngine.Averages next = recaptured.update(security, days.get(50), price("51"));
+        MovingAverageEngine.Averages expectedNext = direct.update(security, days.get(50), price("51"));
+        assertEquals(expectedNext.getSma50(), next.getSma50());
+        assertEquals(expectedNext.getEma50(), next.getEma50());
+    }
+
+    @Test
+    void testSeedsFromClosesBeforeDate() {
+        // A cold window takes the last 200 stored closes strictly before the captured day
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 210; i++) {
+            rows.add(new Object[]{(long) i, days.get(i), price(String.valueOf(i + 1))});
+        }
+        rows.add(new Object[]{210L, days.get(210), price("999")});
+        when(priceHistoryRepository.findCloseSeriesBySecurityId(1L)).thenReturn(rows);
+
+        MovingAverageEngine.Averages averages = engine().update(security, days.get(210), price("211"));
+
+        assertEquals(price("111.5000"), averages.getSma200());
+        assertEquals(price("186.5000"), averages.getSma50());
+    }
+
+    @Test
+    void testSkippedTradingDayReseedsWindow() {
+        // Weekends and holidays continue the window; a missing session forces a reseed from storage
+        MovingAverageEngine engine = engine();
+        feed(engine, 1, 20);
+        verify(priceHistoryRepository, times(1)).findCloseSeriesBySecurityId(1L);
+
+        engine.update(security, days.get(21), price("22"));
+        verify(priceHistoryRepository, times(2)).findCloseSeriesBySecurityId(1L);
+    }
+
+    @Test
+    void testOutOfOrderCloseLeavesWindowAlone() {
+        // A late close for an earlier day is answered separately and does not rewind the resident window
+        MovingAverageEngine engine = engine();
+        feed(engine, 1, 60);
+
+        engine.update(security, days.get(30), price("1000"));
+        assertEquals(price("35.5000"), engine.current(1L).getSma50());
+        assertEquals(price("36.5000"), feed(engine, 61, 61).getSma50());
+    }
+
+    private MovingAverageEngine engine() {
+        return new MovingAverageEngine(priceHistoryRepository, mock(SecurityStockRepository.class),
+                mock(MarketPriceBulkRepository.class), mock(PriceHistoryStore.class), calendar);
+    }
+
+    // Feed closes equal to their 1-based session number, from `from` to `to` inclusive
+    private MovingAverageEngine.Averages feed(MovingAverageEngine engine, int from, int to) {
+        MovingAverageEngine.Averages averages = null;
+        for (int n = from; n <= to; n++) {
+            averages = engine.update(security, days.get(n - 1), price(String.valueOf(n)));
+        }
+        return averages;
+    }
+
+    private static BigDecimal price(String value) {
+        return new BigDecimal(value);
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.MicroInvestApp.service.market;
+
+import com.example.MicroInvestApp.domain.market.SecurityStock;
+import com.example.MicroInvestApp.dto.finnhub.FinnhubQuoteDTO;
+import com.example.MicroInvestApp.repositories.market.SecurityStockRepository;
+import com.example.MicroInvestApp.service.order.LimitOrderTriggerBook;
+import com.example.MicroInvestApp.service.order.StopOrderTriggerEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class QuoteIngestionPipelineTest {
+
+    private QuoteIngestionPipeline pipeline;
+    private FinnhubClientService finnhubClient;
+    private SecurityStockRepository securityStockRepository;
+    private LimitOrderTriggerBook limitOrderTriggerBook;
+    private StopOrderTriggerEngine stopOrderTriggerEngine;
+
+    @BeforeEach
+    void setUp() {
+        finnhubClient = mock(FinnhubClientService.class);
+        securityStockRepository = mock(SecurityStockRepository.class);
+        limitOrderTriggerBook = mock(LimitOrderTriggerBook.class);
+        stopOrderTriggerEngine = mock(StopOrderTriggerEngine.class);
+
+        pipeline = new QuoteIngestionPipeline(finnhubClient, securityStockRepository, mock(IntradayBarBuilder.class),
+                limitOrderTriggerBook, stopOrderTriggerEngine);
+        ReflectionTestUtils.setField(pipeline, "maxConcurrency", 4);
+        ReflectionTestUtils.setField(pipeline, "persistBatchSize", 2);
+        ReflectionTestUtils.setField(pipeline, "persistFlushMs", 1000L);
+        ReflectionTestUtils.setField(pipeline, "runTimeoutMinutes", 1L);
+        ReflectionTestUtils.setField(pipeline, "minValidPrice", new BigDecimal("0.01"));
+        ReflectionTestUtils.setField(pipeline, "maxValidPrice", new BigDecimal("100000"));
+    }
+
+    @Test
+    void testValidQuotesArePersistedInBatches() {
+        // Three quotes with a batch size of two are written as two saveAll calls
+        List<SecurityStock> securities = List.of(security("AAPL"), security("MSFT"), security("NVDA"));
+        quote("AAPL", "110", "100");
+        quote("MSFT", "420", "400");
+        quote("NVDA", "95", "100");
+
+        QuoteIngestionPipeline.IngestionRunStats stats = pipeline.refresh(securities);
+
+        assertEquals(3, stats.getSymbolsRequested());
+        assertEquals(3, stats.getQuotesFetched());
+        assertEquals(3, stats.getPricesPersisted());
+        assertEquals(2, stats.getBatchesWritten());
+        assertEquals(0, stats.getFailures());
+        verify(securityStockRepository, times(2)).saveAll(anyList());
+        assertSame(stats, pipeline.getLastRunStats());
+        assertFalse(pipeline.isRunning());
+    }
+
+    @Test
+    void testQuoteUpdatesPriceChangeAndTriggers() {
+        // The quote's previous close drives the change fields, and the new price reaches the order triggers
+        SecurityStock security = security("AAPL");
+        quote("AAPL", "110", "100");
+
+        pipeline.refresh(List.of(security));
+
+        assertEquals(new BigDecimal("110"), security.getCurrentPrice());
+        assertEquals(new BigDecimal("100"), security.getPreviousClose());
+        assertEquals(new BigDecimal("10"), security.getPriceChange());
+        assertEquals(new BigDecimal("10.0000"), security.getPriceChangePercent());
+        assertNotNull(security.getUpdatedDate());
+        verify(limitOrderTriggerBook).onPrice("AAPL", new BigDecimal("110"));
+        verify(stopOrderTriggerEngine).onPrice("AAPL", new BigDecimal("110"));
+    }
+
+    @Test
+    void testInvalidAndFailedQuotesAreNotPersisted() {
+        // An out-of-range price and a failed fetch are counted and skipped without stopping the run
+        quote("AAPL", "0", "100");
+        when(finnhubClient.getQuote("MSFT", FinnhubRateGovernor.Lane.BACKGROUND))
+                .thenReturn(Mono.error(new RuntimeException("429 Too Many Requests")));
+        quote("NVDA", "95", "100");
+
+        QuoteIngestionPipeline.IngestionRunStats stats =
+                pipeline.refresh(List.of(security("AAPL"), security("MSFT"), security("NVDA")));
+
+        assertEquals(1, stats.getInvalidQuotes());
+        assertEquals(1, stats.getFailures());
+        assertEquals(1, stats.getQuotesFetched());
+        assertEquals(1, stats.getPricesPersisted());
+    }
+
+    @Test
+    void testFailedBatchWriteCountsAsFailures() {
+        // A batch that cannot be saved is reported as failed for every security in it
+        quote("AAPL", "110", "100");
+        quote("MSFT", "420", "400");
+        when(securityStockRepository.saveAll(anyList())).thenThrow(new RuntimeException("connection reset"));
+
+        QuoteIngestionPipeline.IngestionRunStats stats = pipeline.refresh(List.of(security("AAPL"), security("MSFT")));
+
+        assertEquals(2, stats.getQuotesFetched());
+        assertEquals(0, stats.getPricesPersisted());
+        assertEquals(2, stats.getFailures());
+        assertEquals(0, stats.getBatchesWritten());
+    }
+
+    @Test
+    void testOverlappingRunReturnsPreviousStats() {
+        // A refresh started while another is in flight does not fetch anything and returns the last completed run
+        quote("AAPL", "110", "100");
+        QuoteIngestionPipeline.IngestionRunStats previous = pipeline.refresh(List.of(security("AAPL")));
+
+        AtomicReference<QuoteIngestionPipeline.IngestionRunStats> overlapping = new AtomicReference<>();
+        FinnhubQuoteDTO quote = quoteDto("111", "100");
+        when(finnhubClient.getQuote("AAPL", FinnhubRateGovernor.Lane.BACKGROUND)).thenAnswer(invocation -> {
+            overlapping.set(pipeline.refresh(List.of(security("MSFT"))));
+            return Mono.just(quote);
+        });
+
+        QuoteIngestionPipeline.IngestionRunStats current = pipeline.refresh(List.of(security("AAPL")));
+
+        assertSame(previous, overlapping.get());
+        assertNotSame(previous, current);
+        assertEquals(1, current.getPricesPersisted());
+    }
+
+    private void quote(String symbol, String price, String previousClose) {
+        when(finnhubClient.getQuote(symbol, FinnhubRateGovernor.Lane.BACKGROUND))
+                .thenReturn(Mono.just(quoteDto(price, previousClose)));
+    }
+
+    private static FinnhubQuoteDTO quoteDto(String price, String previousClose) {
+        FinnhubQuoteDTO quote = new FinnhubQuoteDTO();
+        quote.setCurrentPrice(new BigDecimal(price));
+        quote.setPreviousClose(new BigDecimal(previousClose));
+        return quote;
+    }
+
+    private static SecurityStock security(String symbol) {
+        SecurityStock security = new SecurityStock();
+        security.setSymbol(symbol);
+        return security;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.MicroInvestApp.service.market;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static com.example.MicroInvestApp.service.market.FinnhubRateGovernor.Lane.BACKGROUND;
+import static com.example.MicroInvestApp.service.market.FinnhubRateGovernor.Lane.INTERACTIVE;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestCoalescerTest {
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+    @Test
+    void testConcurrentCallersShareOneFlight() {
+        // Callers arriving while the first request is in flight wait on it instead of calling upstream
+        RequestCoalescer<String> coalescer = new RequestCoalescer<>("quotes", 1000);
+        Sinks.One<String> response = Sinks.one();
+        List<String> results = new ArrayList<>();
+
+        coalescer.execute("AAPL", INTERACTIVE, pending(response)).subscribe(results::add);
+        coalescer.execute("AAPL", INTERACTIVE, pending(response)).subscribe(results::add);
+        assertEquals(1, upstreamCalls.get());
+        assertTrue(results.isEmpty());
+
+        response.tryEmitValue("quote");
+        assertEquals(List.of("quote", "quote"), results);
+        assertEquals(1, coalescer.getStats().getCoalescedHits());
+    }
+
+    @Test
+    void testResultSharedWithinFreshnessWindow() {
+        // A completed result keeps answering for the freshness window
+        RequestCoalescer<String> coalescer = new RequestCoalescer<>("quotes", 60_000);
+
+        assertEquals("v1", coalescer.execute("AAPL", INTERACTIVE, counting()).block());
+        assertEquals("v1", coalescer.execute("AAPL", INTERACTIVE, counting()).block());
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void testResultNotSharedOnceStale() throws InterruptedException {
+        // Without a freshness window only in-flight requests are shared
+        RequestCoalescer<String> coalescer = new RequestCoalescer<>("quotes", 0);
+
+        assertEquals("v1", coalescer.execute("AAPL", INTERACTIVE, counting()).block());
+        Thread.sleep(1);
+        assertEquals("v2", coalescer.execute("AAPL", INTERACTIVE, counting()).block());
+    }
+
+    @Test
+    void testErrorsAreNotCached() {
+        // A failed call is evicted, so the next caller goes upstream again
+        RequestCoalescer<String> coalescer = new RequestCoalescer<>("quotes", 60_000);
+        Supplier<Mono<String>> failing = () -> {
+            upstreamCalls.incrementAndGet();
+            return Mono.error(new IllegalStateException("upstream down"));
+        };
+
+        assertThrows(IllegalStateException.class, () -> coalescer.execute("AAPL", INTERACTIVE, failing).block());
+        assertEquals("v2", coalescer.execute("AAPL", INTERACTIVE, counting()).block());
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void testKeysAreCaseInsensitive() {
+        // Symbols differing only in case are the same request
+        RequestCoalescer<String> coalescer = new RequestCoalescer<>("quotes", 60_000);
+
+        coalescer.execute("aapl", INTERACTIVE, counting()).block();
+        coalescer.execute("AAPL", INTERACTIVE, counting()).block();
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void testDifferentKeysDoNotShare() {
+        // Each key gets its own flight
+        RequestCoalescer<String> coalescer = new RequestCoalescer<>("quotes", 60_000);
+
+        assertEquals("v1", coalescer.execute("AAPL", INTERACTIVE, counting()).block());
+        assertEquals("v2", coalescer.execute("MSFT", INTERACTIVE, counting()).block());
+    }
+
+    @Test
+    void testInteractiveNotParkedBehindPendingBackground() {
+        // A queued background request must not hold up an interactive caller for the same key
+        RequestCoalescer<String> coalescer = new RequestCoalescer<>("quotes", 60_000);
+        Sinks.One<String> background = Sinks.one();
+        coalescer.execute("AAPL", BACKGROUND, pending(background)).subscribe();
+
+        assertEquals("v2", coalescer.execute("AAPL", INTERACTIVE, counting()).block());
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void testBackgroundPiggybacksOnInteractive() {
+        // Background work waits on whatever interactive traffic is already fetching
+        RequestCoalescer<String> coalescer = new RequestCoalescer<>("quotes", 60_000);
+        Sinks.One<String> interactive = Sinks.one();
+        List<String> results = new ArrayList<>();
+
+        coalescer.execute("AAPL", INTERACTIVE, pending(interactive)).subscribe(results::add);
+        coalescer.execute("AAPL", BACKGROUND, counting()).subscribe(results::add);
+        interactive.tryEmitValue("quote");
+
+        assertEquals(List.of("quote", "quote"), results);
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void testInteractiveReusesCompletedBackgroundResult() {
+        // Once a background result has arrived it is fresh enough for interactive callers too
+        RequestCoalescer<String> coalescer = new RequestCoalescer<>("quotes", 60_000);
+
+        assertEquals("v1", coalescer.execute("AAPL", BACKGROUND, counting()).block());
+        assertEquals("v1", coalescer.execute("AAPL", INTERACTIVE, counting()).block());
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    private Supplier<Mono<String>> counting() {
+        return () -> Mono.fromSupplier(() -> "v" + upstreamCalls.incrementAndGet());
+    }
+
+    private Supplier<Mono<String>> pending(Sinks.One<String> response) {
+        return () -> {
+            upstreamCalls.incrementAndGet();
+            return response.asMono();
+        };
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.MicroInvestApp.service.order;
+
+import com.example.MicroInvestApp.domain.enums.OrderSide;
+import com.example.MicroInvestApp.domain.enums.OrderType;
+import com.example.MicroInvestApp.domain.market.SecurityStock;
+import com.example.MicroInvestApp.domain.orders.Order;
+import com.example.MicroInvestApp.events.ClusterMembershipChangedEvent;
+import com.example.MicroInvestApp.events.OrdersTriggeredEvent;
+import com.example.MicroInvestApp.repositories.orders.OrderRepository;
+import com.example.MicroInvestApp.service.cluster.ClusterCoordinator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LimitOrderTriggerBookTest {
+
+    private LimitOrderTriggerBook book;
+    private OrderRepository orderRepository;
+    private ClusterCoordinator clusterCoordinator;
+    private Map<Long, BigDecimal> triggered;
+
+    @BeforeEach
+    void setUp() {
+        triggered = new LinkedHashMap<>();
+        TriggeredOrderDispatcher dispatcher = new TriggeredOrderDispatcher(
+                event -> triggered.putAll(((OrdersTriggeredEvent) event).getTriggerPrices()));
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 50);
+
+        orderRepository = mock(OrderRepository.class);
+        clusterCoordinator = mock(ClusterCoordinator.class);
+        when(clusterCoordinator.ownsSymbol(anyString())).thenReturn(true);
+
+        book = new LimitOrderTriggerBook(orderRepository, dispatcher, clusterCoordinator);
+        ReflectionTestUtils.setField(book, "enabled", true);
+    }
+
+    @Test
+    void testBuyLimitTriggersWhenPriceFallsToIt() {
+        // Buy limits fire at or below their price
+        book.add(limit(1L, "AAPL", OrderSide.BUY, "100", "105"));
+
+        book.onPrice("AAPL", price("100.01"));
+        assertTrue(triggered.isEmpty());
+        assertTrue(book.contains(1L));
+
+        book.onPrice("AAPL", price("100"));
+        assertEquals(Map.of(1L, price("100")), triggered);
+        assertFalse(book.contains(1L));
+    }
+
+    @Test
+    void testSellLimitTriggersWhenPriceRisesThroughIt() {
+        // Sell limits fire at or above their price, at the price that crossed them
+        book.add(limit(1L, "AAPL", OrderSide.SELL, "110", "105"));
+
+        book.onPrice("AAPL", price("109.99"));
+        assertTrue(triggered.isEmpty());
+
+        book.onPrice("AAPL", price("110.50"));
+        assertEquals(Map.of(1L, price("110.50")), triggered);
+    }
+
+    @Test
+    void testMarketableLimitTriggersOnAdd() {
+        // A limit already through the last known price does not wait for the next tick
+        book.add(limit(1L, "AAPL", OrderSide.BUY, "100", "95"));
+
+        assertEquals(Map.of(1L, price("95")), triggered);
+        assertFalse(book.contains(1L));
+    }
+
+    @Test
+    void testLevelsPopBestPriceFirstAndKeepArrivalOrder() {
+        // Highest buy level first; orders sharing a level keep their arrival order
+        book.add(limit(1L, "AAPL", OrderSide.BUY, "100", "105"));
+        book.add(limit(2L, "AAPL", OrderSide.BUY, "102", "105"));
+        book.add(limit(3L, "AAPL", OrderSide.BUY, "101", "105"));
+        book.add(limit(4L, "AAPL", OrderSide.BUY, "102", "105"));
+        book.add(limit(5L, "AAPL", OrderSide.BUY, "99", "105"));
+
+        book.onPrice("AAPL", price("100"));
+        assertEquals(List.of(2L, 4L, 3L, 1L), List.copyOf(triggered.keySet()));
+        assertTrue(book.contains(5L));
+    }
+
+    @Test
+    void testOrderTriggersOnlyOnce() {
+        // A popped order is gone from the book, so later ticks do not fire it again
+        book.add(limit(1L, "AAPL", OrderSide.SELL, "110", "105"));
+
+        book.onPrice("AAPL", price("111"));
+        triggered.clear();
+        book.onPrice("AAPL", price("112"));
+        assertTrue(triggered.isEmpty());
+    }
+
+    @Test
+    void testRemovedOrderDoesNotTrigger() {
+        // Cancelled or filled orders leave the book
+        book.add(limit(1L, "AAPL", OrderSide.BUY, "100", "105"));
+        book.add(limit(2L, "AAPL", OrderSide.BUY, "100", "105"));
+        book.remove(1L);
+
+        book.onPrice("AAPL", price("99"));
+        assertEquals(Map.of(2L, price("99")), triggered);
+    }
+
+    @Test
+    void testSymbolsAreIndependent() {
+        // A tick only evaluates its own symbol's book
+        book.add(limit(1L, "AAPL", OrderSide.BUY, "100", "105"));
+        book.add(limit(2L, "MSFT", OrderSide.BUY, "100", "105"));
+
+        book.onPrice("MSFT", price("90"));
+        assertEquals(Map.of(2L, price("90")), triggered);
+        assertTrue(book.contains(1L));
+    }
+
+    @Test
+    void testNonLimitOrdersAreIgnored() {
+        // Only working LIMIT orders with a price rest in the book
+        Order market = limit(1L, "AAPL", OrderSide.BUY, "100", "105");
+        market.setOrderType(OrderType.MARKET);
+        book.add(market);
+        Order noPrice = limit(2L, "AAPL", OrderSide.BUY, "100", "105");
+        noPrice.setOrderPrice(null);
+        book.add(noPrice);
+
+        assertFalse(book.contains(1L));
+        assertFalse(book.contains(2L));
+    }
+
+    @Test
+    void testTriggeredStopLimitRestsAtItsLimit() {
+        // A stop-limit keeps its type once its stop is reached and rests here at its limit price
+        Order armed = limit(1L, "AAPL", OrderSide.SELL, "95", "100");
+        armed.setOrderType(OrderType.STOP_LIMIT);
+        book.add(armed);
+        assertFalse(book.contains(1L));
+
+        Order triggeredStop = limit(2L, "AAPL", OrderSide.SELL, "95", "90");
+        triggeredStop.setOrderType(OrderType.STOP_LIMIT);
+        triggeredStop.setStopTriggeredAt(Instant.now());
+        book.add(triggeredStop);
+        assertTrue(book.contains(2L));
+
+        book.onPrice("AAPL", price("96"));
+        assertEquals(Map.of(2L, price("96")), triggered);
+    }
+
+    @Test
+    void testOrdersForSymbolsOwnedElsewhereAreNotBooked() {
+        // Another node sees this symbol's prices, so the order rests in that node's book instead
+        when(clusterCoordinator.ownsSymbol("MSFT")).thenReturn(false);
+        book.add(limit(1L, "MSFT", OrderSide.BUY, "100", "105"));
+
+        assertFalse(book.contains(1L));
+    }
+
+    @Test
+    void testSyncPicksUpOrdersPlacedOnOtherNodes() {
+        // Orders of owned symbols appear from the database; orders no longer working disappear
+        Order local = limit(1L, "AAPL", OrderSide.BUY, "100", "105");
+        book.add(local);
+        Order remote = limit(2L, "AAPL", OrderSide.BUY, "101", "105");
+        Order otherShard = limit(3L, "MSFT", OrderSide.BUY, "100", "105");
+        when(clusterCoordinator.ownsSymbol("MSFT")).thenReturn(false);
+        when(clusterCoordinator.isClustered()).thenReturn(true);
+        when(orderRepository.findActiveOrdersByTypes(anyCollection())).thenReturn(List.of(remote, otherShard));
+
+        book.syncOwnedOrders();
+        assertFalse(book.contains(1L));
+        assertTrue(book.contains(2L));
+        assertFalse(book.contains(3L));
+
+        book.onPrice("AAPL", price("101"));
+        assertEquals(Map.of(2L, price("101")), triggered);
+    }
+
+    @Test
+    void testMembershipChangeDropsSymbolsGivenUp() {
+        // A symbol that moved to another node leaves this book with its resting orders
+        book.add(limit(1L, "AAPL", OrderSide.BUY, "100", "105"));
+        when(clusterCoordinator.ownsSymbol("AAPL")).thenReturn(false);
+        when(orderRepository.findActiveOrdersByTypes(anyCollection()))
+                .thenReturn(List.of(limit(1L, "AAPL", OrderSide.BUY, "100", "105")));
+
+        book.onMembershipChanged(new ClusterMembershipChangedEvent(this, List.of("node-a", "node-b")));
+        assertFalse(book.contains(1L));
+    }
+
+    private static Order limit(long orderId, String symbol, OrderSide side, String limitPrice, String currentPrice) {
+        SecurityStock security = new SecurityStock();
+        security.setSymbol(symbol);
+        security.setCurrentPrice(price(currentPrice));
+
+        Order order = new Order();
+        order.setOrderId(orderId);
+        order.setSecurityStock(security);
+        order.setOrderType(OrderType.LIMIT);
+        order.setOrderSide(side);
+        order.setOrderPrice(price(limitPrice));
+        return order;
+    }
+
+    private static BigDecimal price(String value) {
+        return new BigDecimal(value);
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.MicroInvestApp.service.order;
+
+import com.example.MicroInvestApp.domain.enums.OrderStatus;
+import com.example.MicroInvestApp.domain.orders.Order;
+import com.example.MicroInvestApp.repositories.orders.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class OrderExpiryWheelTest {
+
+    // Mid-minute, mid-hour start so every level has to cascade at least once on the way to a deadline
+    private static final Instant START = Instant.parse("2026-03-02T10:15:30Z");
+
+    private MutableClock clock;
+    private OrderExpiryWheel wheel;
+    private List<Long> cancelled;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(START);
+        cancelled = new ArrayList<>();
+
+        OrderRepository orderRepository = mock(OrderRepository.class);
+        when(orderRepository.cancelActiveOrders(anyCollection(), any(), anyString(), any(), any()))
+                .thenAnswer(invocation -> {
+                    Collection<Long> orderIds = invocation.getArgument(0);
+                    cancelled.addAll(orderIds);
+                    return orderIds.size();
+                });
+
+        wheel = new OrderExpiryWheel(orderRepository, mock(LimitOrderTriggerBook.class),
+                mock(StopOrderTriggerEngine.class), clock);
+        ReflectionTestUtils.setField(wheel, "enabled", true);
+        ReflectionTestUtils.setField(wheel, "cancelBatchSize", 500);
+    }
+
+    @Test
+    void testExpiresWithinFirstMinute() {
+        // Deadline inside the one-second level
+        wheel.schedule(order(1L, Duration.ofSeconds(45)));
+
+        advanceTo(Duration.ofSeconds(44));
+        assertTrue(cancelled.isEmpty());
+
+        advanceTo(Duration.ofSeconds(45));
+        assertEquals(List.of(1L), cancelled);
+    }
+
+    @Test
+    void testCascadesAcrossMinuteBoundary() {
+        // Parked in the one-minute level, cascaded to seconds at the start of its minute
+        Duration deadline = Duration.ofMinutes(10).plusSeconds(7);
+        wheel.schedule(order(1L, deadline));
+
+        advanceTo(Duration.ofMinutes(10));
+        assertTrue(cancelled.isEmpty());
+        advanceTo(deadline.minusSeconds(1));
+        assertTrue(cancelled.isEmpty());
+
+        advanceTo(deadline);
+        assertEquals(List.of(1L), cancelled);
+    }
+
+    @Test
+    void testCascadesAcrossHourBoundary() {
+        // Parked in the one-hour level, cascaded through minutes and then seconds
+        Duration deadline = Duration.ofHours(5).plusMinutes(3).plusSeconds(2);
+        wheel.schedule(order(1L, deadline));
+
+        advanceTo(deadline.minusSeconds(1));
+        assertTrue(cancelled.isEmpty());
+
+        advanceTo(deadline);
+        assertEquals(List.of(1L), cancelled);
+    }
+
+    @Test
+    void testCascadesAcrossDayBoundary() {
+        // Parked in the one-day level, cascaded through every finer level
+        Duration deadline = Duration.ofDays(3).plusHours(4).plusSeconds(1);
+        wheel.schedule(order(1L, deadline));
+
+        advanceTo(deadline.minusSeconds(1));
+        assertTrue(cancelled.isEmpty());
+
+        advanceTo(deadline);
+        assertEquals(List.of(1L), cancelled);
+    }
+
+    @Test
+    void testDeadlineOneFullSpanAwayMovesUpALevel() {
+        // Exactly 60 seconds, 60 minutes and 24 hours out do not fit the finer level and must not fire early
+        wheel.schedule(order(1L, Duration.ofSeconds(60)));
+        wheel.schedule(order(2L, Duration.ofHours(1)));
+        wheel.schedule(order(3L, Duration.ofDays(1)));
+
+        advanceTo(Duration.ofSeconds(59));
+        assertTrue(cancelled.isEmpty());
+        advanceTo(Duration.ofSeconds(60));
+        assertEquals(List.of(1L), cancelled);
+
+        advanceTo(Duration.ofHours(1).minusSeconds(1));
+        assertEquals(List.of(1L), cancelled);
+        advanceTo(Duration.ofHours(1));
+        assertEquals(List.of(1L, 2L), cancelled);
+
+        advanceTo(Duration.ofDays(1).minusSeconds(1));
+        assertEquals(List.of(1L, 2L), cancelled);
+        advanceTo(Duration.ofDays(1));
+        assertEquals(List.of(1L, 2L, 3L), cancelled);
+    }
+
+    @Test
+    void testParksBeyondWheelUntilInRange() {
+        // Further out than the day level holds: parked, then re-placed at day boundaries until it fits
+        Duration deadline = Duration.ofDays(400).plusHours(2);
+        wheel.schedule(order(1L, deadline));
+        assertEquals(1, wheel.getStats().getParkedBeyondWheel());
+
+        advanceTo(deadline.minusSeconds(1));
+        assertTrue(cancelled.isEmpty());
+        assertEquals(0, wheel.getStats().getParkedBeyondWheel());
+
+        advanceTo(deadline);
+        assertEquals(List.of(1L), cancelled);
+    }
+
+    @Test
+    void testFractionalDeadlineRoundsUp() {
+        // An order never expires before its expiry date
+        wheel.schedule(order(1L, Duration.ofMillis(10_500)));
+
+        advanceTo(Duration.ofSeconds(10));
+        assertTrue(cancelled.isEmpty());
+
+        advanceTo(Duration.ofSeconds(11));
+        assertEquals(List.of(1L), cancelled);
+    }
+
+    @Test
+    void testPastDeadlineExpiresOnNextTick() {
+        // Already past its expiry when scheduled
+        wheel.schedule(order(1L, Duration.ofSeconds(-30)));
+
+        advanceTo(Duration.ofSeconds(1));
+        assertEquals(List.of(1L), cancelled);
+    }
+
+    @Test
+    void testRemovedOrderIsNotExpired() {
+        // A removed order's slot entry is skipped when the slot comes due
+        wheel.schedule(order(1L, Duration.ofMinutes(2)));
+        wheel.schedule(order(2L, Duration.ofMinutes(2)));
+        wheel.remove(1L);
+
+        advanceTo(Duration.ofMinutes(3));
+        assertEquals(List.of(2L), cancelled);
+        assertEquals(0, wheel.getStats().getScheduledOrders());
+    }
+
+    @Test
+    void testInactiveOrderIsNotScheduled() {
+        // Only working orders with an expiry date take a slot
+        Order filled = order(1L, Duration.ofSeconds(5));
+        filled.setOrderStatus(OrderStatus.FILLED);
+        wheel.schedule(filled);
+        Order noExpiry = order(2L, Duration.ofSeconds(5));
+        noExpiry.setExpiryDate(null);
+        wheel.schedule(noExpiry);
+
+        advanceTo(Duration.ofSeconds(10));
+        assertTrue(cancelled.isEmpty());
+        assertEquals(0, wheel.getStats().getScheduledOrders());
+    }
+
+    private Order order(long orderId, Duration expiresIn) {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        order.setExpiryDate(LocalDateTime.ofInstant(START.plus(expiresIn), ZoneOffset.UTC));
+        return order;
+    }
+
+    private void advanceTo(Duration sinceStart) {
+        clock.set(START.plus(sinceStart));
+        wheel.tick();
+    }
+
+    /**
+     * Clock the test moves by hand
+     */
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void set(Instant instant) {
+            now = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
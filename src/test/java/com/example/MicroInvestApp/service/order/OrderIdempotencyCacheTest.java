@@ -0,0 +1,87 @@
+package com.example.MicroInvestApp.service.order;
+
+import com.example.MicroInvestApp.dto.orders.OrderResponseDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderIdempotencyCacheTest {
+
+    private OrderIdempotencyCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new OrderIdempotencyCache();
+        ReflectionTestUtils.setField(cache, "maxEntries", 100);
+        ReflectionTestUtils.setField(cache, "ttlMinutes", 60L);
+        cache.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testPlacedOrderIsReplayedForItsKey() {
+        // Keys are per portfolio: the same client order id in another portfolio is a different order
+        cache.put(1L, "k1", response(7L));
+
+        assertEquals(7L, cache.get(1L, "k1").getOrderId());
+        assertNull(cache.get(2L, "k1"));
+        assertEquals(1, cache.getStats().getCacheHits());
+    }
+
+    @Test
+    void testPutWaitsForCommit() {
+        // A rolled-back order must never be replayed
+        TransactionSynchronizationManager.initSynchronization();
+        cache.put(1L, "k1", response(7L));
+        assertNull(cache.get(1L, "k1"));
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        assertEquals(7L, cache.get(1L, "k1").getOrderId());
+    }
+
+    @Test
+    void testConcurrentReservationIsTurnedAway() {
+        // The key is held until the placing transaction completes, whatever its outcome
+        TransactionSynchronizationManager.initSynchronization();
+        assertTrue(cache.reserve(1L, "k1"));
+        assertFalse(cache.reserve(1L, "k1"));
+        assertTrue(cache.reserve(2L, "k1"));
+        assertEquals(1, cache.getStats().getConcurrentRetries());
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+        assertEquals(0, cache.getStats().getInFlight());
+        assertTrue(cache.claim(1L, "k1"));
+    }
+
+    @Test
+    void testClaimHeldUntilReleased() {
+        // A basket claims its keys across several transactions and releases them itself
+        assertTrue(cache.claim(1L, "k1"));
+        assertFalse(cache.reserve(1L, "k1"));
+        assertFalse(cache.claim(1L, "k1"));
+
+        cache.release(1L, "k1");
+        assertTrue(cache.claim(1L, "k1"));
+    }
+
+    private static OrderResponseDTO response(Long orderId) {
+        OrderResponseDTO response = new OrderResponseDTO();
+        response.setOrderId(orderId);
+        return response;
+    }
+}
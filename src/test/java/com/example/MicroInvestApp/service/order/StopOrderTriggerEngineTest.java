@@ -0,0 +1,255 @@
+package com.example.MicroInvestApp.service.order;
+
+import com.example.MicroInvestApp.domain.enums.OrderSide;
+import com.example.MicroInvestApp.domain.enums.OrderType;
+import com.example.MicroInvestApp.domain.market.SecurityStock;
+import com.example.MicroInvestApp.domain.orders.Order;
+import com.example.MicroInvestApp.events.OrdersTriggeredEvent;
+import com.example.MicroInvestApp.repositories.orders.OrderRepository;
+import com.example.MicroInvestApp.service.cluster.ClusterCoordinator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StopOrderTriggerEngineTest {
+
+    private StopOrderTriggerEngine engine;
+    private OrderRepository orderRepository;
+    private ClusterCoordinator clusterCoordinator;
+    private Map<Long, BigDecimal> triggered;
+
+    @BeforeEach
+    void setUp() {
+        triggered = new LinkedHashMap<>();
+        TriggeredOrderDispatcher dispatcher = new TriggeredOrderDispatcher(
+                event -> triggered.putAll(((OrdersTriggeredEvent) event).getTriggerPrices()));
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 50);
+
+        orderRepository = mock(OrderRepository.class);
+        clusterCoordinator = mock(ClusterCoordinator.class);
+        when(clusterCoordinator.ownsSymbol(anyString())).thenReturn(true);
+
+        engine = new StopOrderTriggerEngine(orderRepository, dispatcher, clusterCoordinator);
+        ReflectionTestUtils.setField(engine, "enabled", true);
+    }
+
+    @Test
+    void testSellStopTriggersWhenPriceFallsToIt() {
+        // A stop loss on a long position fires at or below its stop
+        engine.add(fixedStop(1L, OrderType.STOP_LOSS, OrderSide.SELL, "95", "100"));
+
+        engine.onPrice("AAPL", price("95.01"));
+        assertTrue(triggered.isEmpty());
+
+        engine.onPrice("AAPL", price("95"));
+        assertEquals(Map.of(1L, price("95")), triggered);
+    }
+
+    @Test
+    void testBuyStopTriggersWhenPriceRisesToIt() {
+        // A buy stop fires at or above its stop
+        engine.add(fixedStop(1L, OrderType.STOP_LIMIT, OrderSide.BUY, "105", "100"));
+
+        engine.onPrice("AAPL", price("104.99"));
+        assertTrue(triggered.isEmpty());
+
+        engine.onPrice("AAPL", price("106"));
+        assertEquals(Map.of(1L, price("106")), triggered);
+    }
+
+    @Test
+    void testStopAlreadyThroughTheMarketTriggersOnAdd() {
+        // A sell stop above the current price does not wait for the next tick
+        engine.add(fixedStop(1L, OrderType.STOP_LOSS, OrderSide.SELL, "95", "90"));
+
+        assertEquals(Map.of(1L, price("90")), triggered);
+    }
+
+    @Test
+    void testTrailingSellByAmountFollowsTheHigh() {
+        // Watermark starts at the current price and only rises; the stop trails it by the amount
+        engine.add(trailingStop(1L, OrderSide.SELL, "5", null, null, "100"));
+
+        engine.onPrice("AAPL", price("110"));
+        engine.onPrice("AAPL", price("106"));
+        engine.onPrice("AAPL", price("105.01"));
+        assertTrue(triggered.isEmpty());
+
+        engine.onPrice("AAPL", price("105"));
+        assertEquals(Map.of(1L, price("105")), triggered);
+    }
+
+    @Test
+    void testTrailingSellByPercentFollowsTheHigh() {
+        // A 10% trail from a high of 120 puts the stop at 108
+        engine.add(trailingStop(1L, OrderSide.SELL, null, "10", null, "100"));
+
+        engine.onPrice("AAPL", price("95"));
+        assertTrue(triggered.isEmpty());
+        engine.onPrice("AAPL", price("120"));
+        engine.onPrice("AAPL", price("108.01"));
+        assertTrue(triggered.isEmpty());
+
+        engine.onPrice("AAPL", price("108"));
+        assertEquals(Map.of(1L, price("108")), triggered);
+    }
+
+    @Test
+    void testTrailingBuyByAmountFollowsTheLow() {
+        // A buy trail tracks the low and fires when the price rebounds by the amount
+        engine.add(trailingStop(1L, OrderSide.BUY, "5", null, null, "100"));
+
+        engine.onPrice("AAPL", price("104.99"));
+        engine.onPrice("AAPL", price("90"));
+        engine.onPrice("AAPL", price("94.99"));
+        assertTrue(triggered.isEmpty());
+
+        engine.onPrice("AAPL", price("95"));
+        assertEquals(Map.of(1L, price("95")), triggered);
+    }
+
+    @Test
+    void testMergedTrailingGroupsTriggerTightestFirst() {
+        // Stops armed at different watermarks merge once the price lifts both; each keeps its own trail
+        engine.add(trailingStop(1L, OrderSide.SELL, "2", null, null, "100"));
+        engine.onPrice("AAPL", price("103"));
+        engine.add(trailingStop(2L, OrderSide.SELL, "5", null, null, "100"));
+
+        engine.onPrice("AAPL", price("110"));
+        engine.onPrice("AAPL", price("107"));
+        assertEquals(Map.of(1L, price("107")), triggered);
+
+        engine.onPrice("AAPL", price("105.50"));
+        assertEquals(1, triggered.size());
+        engine.onPrice("AAPL", price("105"));
+        assertEquals(price("105"), triggered.get(2L));
+        assertEquals(0, engine.getStats().getTrailingStops());
+    }
+
+    @Test
+    void testTrailingStopResumesFromStoredStop() {
+        // After a restart the watermark is the better of the one implied by the stored stop and the current price
+        engine.add(trailingStop(1L, OrderSide.SELL, "5", null, "95", "104"));
+
+        engine.onPrice("AAPL", price("99.01"));
+        assertTrue(triggered.isEmpty());
+
+        engine.onPrice("AAPL", price("99"));
+        assertEquals(Map.of(1L, price("99")), triggered);
+    }
+
+    @Test
+    void testTrailingStopWithoutReferenceIsNotArmed() {
+        // No stored stop and no known price leaves nothing to trail from
+        engine.add(trailingStop(1L, OrderSide.SELL, "5", null, null, null));
+
+        assertEquals(0, engine.getStats().getTrailingStops());
+    }
+
+    @Test
+    void testRemovedStopsDoNotTrigger() {
+        // Both fixed and trailing stops can be disarmed
+        engine.add(fixedStop(1L, OrderType.STOP_LOSS, OrderSide.SELL, "95", "100"));
+        engine.add(trailingStop(2L, OrderSide.SELL, "5", null, null, "100"));
+        engine.add(trailingStop(3L, OrderSide.SELL, "5", null, null, "100"));
+        engine.remove(1L);
+        engine.remove(2L);
+
+        engine.onPrice("AAPL", price("90"));
+        assertEquals(Map.of(3L, price("90")), triggered);
+    }
+
+    @Test
+    void testTriggeredStopLimitIsNotArmedAgain() {
+        // Once its stop is reached a stop-limit rests in the limit book, not here
+        Order stopLimit = fixedStop(1L, OrderType.STOP_LIMIT, OrderSide.SELL, "95", "90");
+        stopLimit.setOrderPrice(price("94"));
+        stopLimit.setStopTriggeredAt(Instant.now());
+        engine.add(stopLimit);
+
+        assertEquals(0, engine.getStats().getFixedStops());
+        assertTrue(triggered.isEmpty());
+    }
+
+    @Test
+    void testStopsForSymbolsOwnedElsewhereAreNotArmed() {
+        // Another node sees this symbol's prices, so the stop is armed there
+        when(clusterCoordinator.ownsSymbol("AAPL")).thenReturn(false);
+        engine.add(fixedStop(1L, OrderType.STOP_LOSS, OrderSide.SELL, "95", "100"));
+
+        assertEquals(0, engine.getStats().getFixedStops());
+    }
+
+    @Test
+    void testSyncKeepsWatermarksOfArmedStops() {
+        // Reconciling adds stops placed elsewhere without resetting trails already armed here
+        engine.add(trailingStop(1L, OrderSide.SELL, "5", null, null, "100"));
+        engine.onPrice("AAPL", price("120"));
+
+        Order armed = trailingStop(1L, OrderSide.SELL, "5", null, null, "100");
+        Order remote = fixedStop(2L, OrderType.STOP_LOSS, OrderSide.SELL, "90", "120");
+        when(clusterCoordinator.isClustered()).thenReturn(true);
+        when(orderRepository.findActiveOrdersByTypes(anyCollection())).thenReturn(List.of(armed, remote));
+        engine.syncOwnedOrders();
+        assertEquals(1, engine.getStats().getFixedStops());
+
+        engine.onPrice("AAPL", price("115"));
+        assertEquals(Map.of(1L, price("115")), triggered);
+    }
+
+    @Test
+    void testTrailingStopPrice() {
+        // Stop implied by a watermark, rounded to four places
+        assertEquals(price("95.0000"),
+                StopOrderTriggerEngine.trailingStopPrice(OrderSide.SELL, price("100"), price("5"), null));
+        assertEquals(price("90.0000"),
+                StopOrderTriggerEngine.trailingStopPrice(OrderSide.SELL, price("100"), null, price("10")));
+        assertEquals(price("110.0000"),
+                StopOrderTriggerEngine.trailingStopPrice(OrderSide.BUY, price("100"), null, price("10")));
+    }
+
+    private static Order fixedStop(long orderId, OrderType type, OrderSide side, String stopPrice,
+                                   String currentPrice) {
+        Order order = order(orderId, type, side, currentPrice);
+        order.setStopPrice(price(stopPrice));
+        return order;
+    }
+
+    private static Order trailingStop(long orderId, OrderSide side, String trailAmount, String trailPercent,
+                                      String storedStop, String currentPrice) {
+        Order order = order(orderId, OrderType.TRAILING_STOP, side, currentPrice);
+        order.setTrailAmount(price(trailAmount));
+        order.setTrailPercent(price(trailPercent));
+        order.setStopPrice(price(storedStop));
+        return order;
+    }
+
+    private static Order order(long orderId, OrderType type, OrderSide side, String currentPrice) {
+        SecurityStock security = new SecurityStock();
+        security.setSymbol("AAPL");
+        security.setCurrentPrice(price(currentPrice));
+
+        Order order = new Order();
+        order.setOrderId(orderId);
+        order.setSecurityStock(security);
+        order.setOrderType(type);
+        order.setOrderSide(side);
+        return order;
+    }
+
+    private static BigDecimal price(String value) {
+        return value != null ? new BigDecimal(value) : null;
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.MicroInvestApp.service.portfolio;
+
+import com.example.MicroInvestApp.exception.portfolio.PortfolioException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PortfolioExecutionLanesTest {
+
+    private PortfolioExecutionLanes lanes;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        lanes = new PortfolioExecutionLanes();
+        ReflectionTestUtils.setField(lanes, "stripeCount", 1024);
+        ReflectionTestUtils.setField(lanes, "acquireTimeoutMs", 5000L);
+        lanes.init();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testEnterOutsideTransactionFails() {
+        // The lane is released on transaction completion, so there must be a transaction
+        assertThrows(IllegalStateException.class, () -> lanes.enter(1L));
+    }
+
+    @Test
+    void testLaneHeldUntilTransactionCompletes() throws Exception {
+        // Another writer for the same portfolio waits for the commit, not for the enter call to return
+        ReflectionTestUtils.setField(lanes, "acquireTimeoutMs", 100L);
+        TransactionSynchronizationManager.initSynchronization();
+        lanes.enter(1L);
+
+        Future<Boolean> blocked = executor.submit(() -> lanes.execute(List.of(1L), () -> true));
+        ExecutionException timedOut = assertThrows(ExecutionException.class, () -> blocked.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(PortfolioException.class, timedOut.getCause());
+        assertEquals(1, lanes.getStats().getTimeouts());
+
+        completeTransaction();
+        assertTrue(executor.submit(() -> lanes.execute(List.of(1L), () -> true)).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testReentrantEnterPassesThrough() throws Exception {
+        // Nested service calls for the same portfolio do not wait on themselves, and one commit releases both
+        TransactionSynchronizationManager.initSynchronization();
+        lanes.enter(1L);
+        lanes.enter(1L);
+        assertEquals(Integer.valueOf(7), lanes.execute(List.of(1L), () -> 7));
+
+        PortfolioExecutionLanes.LaneStats stats = lanes.getStats();
+        assertEquals(1, stats.getAcquisitions());
+        assertEquals(2, stats.getReentries());
+        assertEquals(1, stats.getBusyLanes());
+
+        completeTransaction();
+        assertEquals(0, lanes.getStats().getBusyLanes());
+        assertTrue(executor.submit(() -> lanes.execute(List.of(1L), () -> true)).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testOtherPortfoliosRunInParallel() throws Exception {
+        // A held lane only blocks its own portfolio
+        TransactionSynchronizationManager.initSynchronization();
+        lanes.enter(1L);
+
+        assertTrue(executor.submit(() -> lanes.execute(List.of(2L), () -> true)).get(5, TimeUnit.SECONDS));
+        assertEquals(0, lanes.getStats().getContendedAcquisitions());
+    }
+
+    @Test
+    void testWaitersRunInArrivalOrder() throws Exception {
+        // Lanes are fair: queued writers for one portfolio run in the order they arrived
+        TransactionSynchronizationManager.initSynchronization();
+        lanes.enter(1L);
+
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        List<Future<?>> waiters = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            int id = i;
+            waiters.add(executor.submit(() -> lanes.execute(List.of(1L), () -> order.add(id))));
+            awaitQueuedWaiters(i);
+        }
+
+        completeTransaction();
+        for (Future<?> waiter : waiters) {
+            waiter.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(List.of(1, 2, 3, 4, 5), order);
+        assertEquals(5, lanes.getStats().getContendedAcquisitions());
+    }
+
+    @Test
+    void testMultiPortfolioCallersDoNotDeadlock() throws Exception {
+        // Lanes are taken in stripe order whatever order the ids are given in
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            List<Long> ids = i % 2 == 0 ? List.of(1L, 2L, 3L) : List.of(3L, 2L, 1L);
+            workers.add(executor.submit(() -> {
+                for (int n = 0; n < 1000; n++) {
+                    lanes.execute(ids, () -> null);
+                }
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get(30, TimeUnit.SECONDS);
+        }
+        assertEquals(0, lanes.getStats().getTimeouts());
+        assertEquals(0, lanes.getStats().getBusyLanes());
+    }
+
+    private void awaitQueuedWaiters(int waiters) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (lanes.getStats().getQueuedWaiters() < waiters) {
+            assertTrue(System.currentTimeMillis() < deadline, "waiter never queued");
+            Thread.sleep(5);
+        }
+    }
+
+    private void completeTransaction() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations,
+                TransactionSynchronization.STATUS_COMMITTED);
+    }
+}